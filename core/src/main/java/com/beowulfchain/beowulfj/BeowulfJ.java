@@ -20,13 +20,19 @@ import com.beowulfchain.beowulfj.base.models.Block;
 import com.beowulfchain.beowulfj.base.models.FutureExtensions;
 import com.beowulfchain.beowulfj.base.models.ScheduledHardfork;
 import com.beowulfchain.beowulfj.chain.CompletedTransaction;
+import com.beowulfchain.beowulfj.chain.NetworkProperties;
 import com.beowulfchain.beowulfj.chain.SignedTransaction;
+import com.beowulfchain.beowulfj.communication.BlockSubscription;
+import com.beowulfchain.beowulfj.communication.BlockSubscriptionManager;
 import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.communication.EndpointState;
 import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.configuration.PrivateKeyStorage;
 import com.beowulfchain.beowulfj.enums.PrivateKeyType;
 import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfInvalidTransactionException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.beowulfchain.beowulfj.interfaces.BlockListener;
 import com.beowulfchain.beowulfj.plugins.apis.condenser.CondenserApi;
 import com.beowulfchain.beowulfj.plugins.apis.condenser.models.AccountHistoryReturn;
 import com.beowulfchain.beowulfj.plugins.apis.condenser.models.ExtendedAccount;
@@ -44,13 +50,17 @@ import com.beowulfchain.beowulfj.util.BeowulfJUtils;
 import eu.bittrade.crypto.core.ECKey;
 import eu.bittrade.crypto.core.Sha256Hash;
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.joou.UInteger;
 import org.joou.ULong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -61,8 +71,9 @@ public class BeowulfJ {
     private static final Logger LOGGER = LoggerFactory.getLogger(BeowulfJ.class);
     // Error messages as constants to make SonarQube happy.
     private static final String NO_DEFAULT_ACCOUNT_ERROR_MESSAGE = "You try to use a simplified operation without having a default account configured in BeowulfJConfig. Please configure a default account or use another method.";
-    private static BeowulfJ beowulfJ;
+    private static volatile BeowulfJ beowulfJ;
     private CommunicationHandler communicationHandler;
+    private BlockSubscriptionManager blockSubscriptionManager;
 
     /**
      * Initialize the BeowulfJ.
@@ -81,21 +92,99 @@ public class BeowulfJ {
      *                                       </ul>
      */
     private BeowulfJ() throws BeowulfCommunicationException {
-        this.communicationHandler = new CommunicationHandler();
+        this(new CommunicationHandler());
+    }
+
+    private BeowulfJ(CommunicationHandler communicationHandler) {
+        this.communicationHandler = communicationHandler;
+        this.blockSubscriptionManager = new BlockSubscriptionManager(communicationHandler);
+    }
+
+    /**
+     * Create a builder for a BeowulfJ client that is independent of the one
+     * returned by {@link #getInstance()}, e.g. to talk to several chains or
+     * node groups from one JVM.
+     *
+     * @return A new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     public static BeowulfJ getInstance() throws BeowulfCommunicationException {
-        if (beowulfJ == null) {
-            beowulfJ = new BeowulfJ();
+        BeowulfJ instance = beowulfJ;
+        if (instance == null) {
+            synchronized (BeowulfJ.class) {
+                instance = beowulfJ;
+                if (instance == null) {
+                    instance = new BeowulfJ();
+                    beowulfJ = instance;
+                }
+            }
         }
-        return beowulfJ;
+        return instance;
     }
 
-    public static BeowulfJ getNewInstance() throws BeowulfCommunicationException {
+    public static synchronized BeowulfJ getNewInstance() throws BeowulfCommunicationException {
         beowulfJ = new BeowulfJ();
         return beowulfJ;
     }
 
+    /**
+     * Get the health of all configured endpoints as seen by this instance,
+     * e.g. the average latency, the error rate and the state of the circuit
+     * breaker.
+     *
+     * @return A snapshot of the state of each endpoint.
+     */
+    public List<EndpointState> getEndpointStates() {
+        return communicationHandler.getEndpointStates();
+    }
+
+    /**
+     * Get the number of requests that have been answered by an identical
+     * request which was already in flight, if request coalescing is enabled
+     * (@see {@link BeowulfJConfig#setRequestCoalescingEnabled(boolean)
+     * setRequestCoalescingEnabled()}).
+     *
+     * @return The number of coalesced requests.
+     */
+    public long getCoalescedRequestCount() {
+        return communicationHandler.getCoalescedRequestCount();
+    }
+
+    /**
+     * Connect to all configured endpoints and validate the connections, so
+     * that latency sensitive requests do not have to wait for a connection to
+     * be established. Call this method once after the configuration is
+     * complete, e.g. during the startup of your application.
+     *
+     * @throws BeowulfCommunicationException If none of the endpoints could be reached.
+     */
+    public void warmUp() throws BeowulfCommunicationException {
+        communicationHandler.warmUp();
+    }
+
+    /**
+     * Get the config this instance sends and signs with.
+     *
+     * @return The config of this instance.
+     */
+    public BeowulfJConfig getBeowulfJConfig() {
+        return communicationHandler.getConfig();
+    }
+
+    /**
+     * Close the connections of this instance. Connections shared with other
+     * instances talking to the same endpoints stay open until all of them
+     * have been closed. Block subscriptions should be cancelled before.
+     *
+     * @throws BeowulfCommunicationException If a connection could not be closed.
+     */
+    public void close() throws BeowulfCommunicationException {
+        communicationHandler.close();
+    }
+
     public static Asset beowulfToWd(Price price, Asset beowulfAsset) {
         if (beowulfAsset == null || !beowulfAsset.getName().equals(AssetSymbolType.BWF)) {
             throw new InvalidParameterException("The asset needs be of SymbolType BWF.");
@@ -219,6 +308,16 @@ public class BeowulfJ {
         return CondenserApi.getBlock(communicationHandler, blockNumber);
     }
 
+    /**
+     * Like {@link #getBlock(long)}, but does not block the calling thread.
+     *
+     * @param blockNumber Height of the block to be returned.
+     * @return A future that will be completed with the referenced full, signed block.
+     */
+    public CompletableFuture<Block> getBlockAsync(long blockNumber) {
+        return CondenserApi.getBlockAsync(communicationHandler, blockNumber);
+    }
+
     /**
      * Like {@link #getBlock(long)}, but will only return the header of the
      * requested block instead of the full, signed one.
@@ -244,6 +343,53 @@ public class BeowulfJ {
         return CondenserApi.getBlockHeader(communicationHandler, blockNumber);
     }
 
+    /**
+     * Like {@link #getBlockHeader(long)}, but does not block the calling thread.
+     *
+     * @param blockNumber Height of the block to be returned.
+     * @return A future that will be completed with the header of the referenced block.
+     */
+    public CompletableFuture<BlockHeader> getBlockHeaderAsync(long blockNumber) {
+        return CondenserApi.getBlockHeaderAsync(communicationHandler, blockNumber);
+    }
+
+    /**
+     * Get notified about every new block. In contrast to polling
+     * {@link #getDynamicGlobalProperties()}, the node pushes a notice for
+     * every applied block over one of the configured WebSocket endpoints. A
+     * lost connection is renewed automatically and the blocks applied in the
+     * meantime are delivered afterwards.
+     *
+     * @param listener The listener to call for every new block.
+     * @return A handle to stop the notifications.
+     * @throws BeowulfCommunicationException If no WebSocket endpoint is
+     *                                       configured or none of them could
+     *                                       be reached.
+     * @throws BeowulfResponseException      If the node refused the
+     *                                       subscription.
+     */
+    public BlockSubscription subscribeToBlocks(BlockListener listener)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        return blockSubscriptionManager.subscribeToBlocks(listener);
+    }
+
+    /**
+     * Like {@link #subscribeToBlocks(BlockListener)}, but the listener is
+     * called for every block that became irreversible.
+     *
+     * @param listener The listener to call for every irreversible block.
+     * @return A handle to stop the notifications.
+     * @throws BeowulfCommunicationException If no WebSocket endpoint is
+     *                                       configured or none of them could
+     *                                       be reached.
+     * @throws BeowulfResponseException      If the node refused the
+     *                                       subscription.
+     */
+    public BlockSubscription subscribeToIrreversibleBlocks(BlockListener listener)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        return blockSubscriptionManager.subscribeToIrreversibleBlocks(listener);
+    }
+
     // #########################################################################
     // ## DATABASE API #########################################################
     // #########################################################################
@@ -276,6 +422,18 @@ public class BeowulfJ {
         return CondenserApi.broadcastTransaction(communicationHandler, transaction);
     }
 
+    /**
+     * Like {@link #broadcastTransaction(SignedTransaction)}, but does not block the calling thread.
+     *
+     * @param transaction The {@link SignedTransaction} object to broadcast.
+     * @return A future that will be completed with the TransactionId.
+     * @throws BeowulfInvalidTransactionException In case the provided transaction is not valid.
+     */
+    public CompletableFuture<TransactionId> broadcastTransactionAsync(SignedTransaction transaction)
+            throws BeowulfInvalidTransactionException {
+        return CondenserApi.broadcastTransactionAsync(communicationHandler, transaction);
+    }
+
     /**
      * Broadcast a transaction on the Beowulf blockchain. This method will
      * validate the transaction and return after it has been accepted and
@@ -304,6 +462,19 @@ public class BeowulfJ {
         return CondenserApi.broadcastTransactionSynchronous(communicationHandler, transaction);
     }
 
+    /**
+     * Like {@link #broadcastTransactionSynchronous(SignedTransaction)}, but does not block the calling thread.
+     *
+     * @param transaction The {@link SignedTransaction} object to broadcast.
+     * @return A future that will be completed with information about the block in
+     * which the transaction has been applied.
+     * @throws BeowulfInvalidTransactionException In case the provided transaction is not valid.
+     */
+    public CompletableFuture<BroadcastTransactionSynchronousReturn> broadcastTransactionSynchronousAsync(
+            SignedTransaction transaction) throws BeowulfInvalidTransactionException {
+        return CondenserApi.broadcastTransactionSynchronousAsync(communicationHandler, transaction);
+    }
+
     /**
      * Broadcast a whole block.
      *
@@ -368,10 +539,29 @@ public class BeowulfJ {
         return CondenserApi.getDynamicGlobalProperties(communicationHandler);
     }
 
+    /**
+     * Like {@link #getDynamicGlobalProperties()}, but does not block the calling thread.
+     *
+     * @return A future that will be completed with the dynamic global properties.
+     */
+    public CompletableFuture<DynamicGlobalProperty> getDynamicGlobalPropertiesAsync() {
+        return CondenserApi.getDynamicGlobalPropertiesAsync(communicationHandler)
+                .thenApply(DynamicGlobalProperty.class::cast);
+    }
+
     public Config getConfig() throws BeowulfCommunicationException, BeowulfResponseException {
         return CondenserApi.getConfig(communicationHandler);
     }
 
+    /**
+     * Like {@link #getConfig()}, but does not block the calling thread.
+     *
+     * @return A future that will be completed with the configuration of the node.
+     */
+    public CompletableFuture<Config> getConfigAsync() {
+        return CondenserApi.getConfigAsync(communicationHandler);
+    }
+
     /**
      * Get the current number of registered Beowulf accounts.
      *
@@ -414,11 +604,33 @@ public class BeowulfJ {
         return CondenserApi.getExtAccounts(communicationHandler, accountNames);
     }
 
+    /**
+     * Like {@link #getAccounts(List)}, but does not block the calling thread.
+     *
+     * @param accountNames A list of accounts you want to request the details for.
+     * @return A future that will be completed with the accounts found for the given
+     * account names.
+     */
+    public CompletableFuture<List<ExtendedAccount>> getAccountsAsync(List<AccountName> accountNames) {
+        return CondenserApi.getExtAccountsAsync(communicationHandler, accountNames);
+    }
+
     public Asset getBalance(AccountName accountName, AssetInfo assetInfo)
             throws BeowulfCommunicationException, BeowulfResponseException {
         return CondenserApi.getBalance(communicationHandler, accountName.getName(), assetInfo);
     }
 
+    /**
+     * Like {@link #getBalance(AccountName, AssetInfo)}, but does not block the calling thread.
+     *
+     * @param accountName The name of the account.
+     * @param assetInfo   The asset to get the balance for.
+     * @return A future that will be completed with the balance.
+     */
+    public CompletableFuture<Asset> getBalanceAsync(AccountName accountName, AssetInfo assetInfo) {
+        return CondenserApi.getBalanceAsync(communicationHandler, accountName.getName(), assetInfo);
+    }
+
     /**
      * TODO: Check what this method is supposed to do. In a fist test it seems
      * to return the time since the current version is active.
@@ -493,6 +705,16 @@ public class BeowulfJ {
         return result;
     }
 
+    /**
+     * Like {@link #getTransactionDetail(String)}, but does not block the calling thread.
+     *
+     * @param trx_id transaction id for getting data
+     * @return A future that will be completed with the completed transaction detail.
+     */
+    public CompletableFuture<CompletedTransaction> getTransactionDetailAsync(String trx_id) {
+        return CondenserApi.getTransactionDetailAsync(communicationHandler, trx_id);
+    }
+
     /**
      * Get the supernode information for a given supernode account name.
      *
@@ -616,6 +838,15 @@ public class BeowulfJ {
         return CondenserApi.getSupernodeSchedule(communicationHandler);
     }
 
+    /**
+     * Like {@link #getSupernodeSchedule()}, but does not block the calling thread.
+     *
+     * @return A future that will be completed with the supernode schedule.
+     */
+    public CompletableFuture<SupernodeSchedule> getSupernodeScheduleAsync() {
+        return CondenserApi.getSupernodeScheduleAsync(communicationHandler);
+    }
+
     // #########################################################################
     // ## UTILITY METHODS ######################################################
     // #########################################################################
@@ -749,7 +980,7 @@ public class BeowulfJ {
     }
 
     public TransferToVestingOperation transferToVesting(AccountName from, AccountName to, Asset amount) {
-        TransferToVestingOperation transferToVestingOperation = new TransferToVestingOperation(from, to, amount, BeowulfJConfig.getInstance().getNetwork().getTransactionFee());
+        TransferToVestingOperation transferToVestingOperation = new TransferToVestingOperation(from, to, amount, getBeowulfJConfig().getNetwork().getTransactionFee());
         return transferToVestingOperation;
     }
 
@@ -758,7 +989,7 @@ public class BeowulfJ {
     }
 
     public WithdrawVestingOperation withdrawVesting(AccountName from, Asset amount) {
-        WithdrawVestingOperation withdrawVestingOperation = new WithdrawVestingOperation(from, amount, BeowulfJConfig.getInstance().getNetwork().getTransactionFee());
+        WithdrawVestingOperation withdrawVestingOperation = new WithdrawVestingOperation(from, amount, getBeowulfJConfig().getNetwork().getTransactionFee());
         return withdrawVestingOperation;
     }
 
@@ -777,7 +1008,7 @@ public class BeowulfJ {
     public SignedTransaction signTransaction(List<Operation> operations, List<FutureExtensions> extensions) throws BeowulfCommunicationException, BeowulfResponseException, BeowulfInvalidTransactionException {
         DynamicGlobalProperty globalProperties = this.getDynamicGlobalProperties();
         SignedTransaction signedTransaction = new SignedTransaction(globalProperties.getHeadBlockId(), operations, extensions);
-        signedTransaction.sign();
+        signedTransaction.sign(getBeowulfJConfig());
         return signedTransaction;
     }
 
@@ -786,4 +1017,103 @@ public class BeowulfJ {
         SignedTransaction signedTransaction = signTransaction(operations, extensions);
         return this.broadcastTransaction(signedTransaction);
     }
+
+    /**
+     * Creates BeowulfJ clients with their own config, endpoints, network and
+     * key storage. Clients talking to the same endpoints share their
+     * connections, but nothing else.
+     */
+    public static class Builder {
+        private BeowulfJConfig config;
+        private NetworkProperties network;
+        private final List<Pair<URI, Boolean>> endpointURIs = new ArrayList<>();
+        private PrivateKeyStorage privateKeyStorage;
+
+        private Builder() {
+        }
+
+        /**
+         * Use the given config instead of a new one with the default values.
+         * The other settings of this builder are applied to the given config.
+         *
+         * @param config The config of the new client.
+         * @return This builder.
+         */
+        public Builder withConfig(BeowulfJConfig config) {
+            this.config = config;
+            return this;
+        }
+
+        /**
+         * Define the chain the new client talks to.
+         *
+         * @param network The network, e.g.
+         *                {@link com.beowulfchain.beowulfj.chain.network.Mainnet Mainnet}.
+         * @return This builder.
+         */
+        public Builder withNetwork(NetworkProperties network) {
+            this.network = network;
+            return this;
+        }
+
+        /**
+         * Add an endpoint of the new client. If no endpoint is added, the
+         * endpoints of the config are used.
+         *
+         * @param endpointURI The URI of the endpoint.
+         * @return This builder.
+         */
+        public Builder withEndpoint(URI endpointURI) {
+            return withEndpoint(endpointURI, false);
+        }
+
+        /**
+         * Add an endpoint of the new client. If no endpoint is added, the
+         * endpoints of the config are used.
+         *
+         * @param endpointURI             The URI of the endpoint.
+         * @param sslVerificationDisabled <code>true</code> if the certificate of
+         *                                the endpoint should not be verified.
+         * @return This builder.
+         */
+        public Builder withEndpoint(URI endpointURI, boolean sslVerificationDisabled) {
+            this.endpointURIs.add(new ImmutablePair<>(endpointURI, sslVerificationDisabled));
+            return this;
+        }
+
+        /**
+         * Define the keys the new client signs transactions with.
+         *
+         * @param privateKeyStorage The key storage of the new client.
+         * @return This builder.
+         */
+        public Builder withPrivateKeyStorage(PrivateKeyStorage privateKeyStorage) {
+            this.privateKeyStorage = privateKeyStorage;
+            return this;
+        }
+
+        /**
+         * Create the client.
+         *
+         * @return A new BeowulfJ instance.
+         * @throws BeowulfCommunicationException If the client could not be initialized.
+         * @throws InvalidParameterException     If no client implementation for
+         *                                       the schema of an endpoint is
+         *                                       available.
+         */
+        public BeowulfJ build() throws BeowulfCommunicationException {
+            BeowulfJConfig clientConfig = config != null ? config : BeowulfJConfig.createInstance();
+            if (network != null) {
+                clientConfig.setNetwork(network);
+            }
+            if (!endpointURIs.isEmpty()) {
+                clientConfig.setEndpointURIs(new ArrayList<>(endpointURIs));
+            }
+            if (privateKeyStorage != null) {
+                clientConfig.setPrivateKeyStorage(privateKeyStorage);
+            }
+
+            return new BeowulfJ(new CommunicationHandler(clientConfig));
+        }
+    }
 }
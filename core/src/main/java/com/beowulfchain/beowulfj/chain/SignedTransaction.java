@@ -32,6 +32,8 @@ import com.beowulfchain.beowulfj.protocol.Authority;
 import com.beowulfchain.beowulfj.protocol.TransactionId;
 import com.beowulfchain.beowulfj.protocol.operations.Operation;
 import com.beowulfchain.beowulfj.util.BeowulfJUtils;
+import com.beowulfchain.beowulfj.util.EventSpan;
+import com.beowulfchain.beowulfj.util.FlightRecorderEvents;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -164,22 +166,49 @@ public class SignedTransaction extends Transaction implements ByteTransformable,
      * @throws BeowulfInvalidTransactionException If the transaction can not be signed.
      */
     public void sign(String chainId) throws BeowulfInvalidTransactionException {
-        if (!BeowulfJConfig.getInstance().getValidationLevel().equals(ValidationType.SKIP_VALIDATION)) {
-            this.validate();
-        }
+        sign(chainId, BeowulfJConfig.getInstance());
+    }
 
-        for (ECKey requiredPrivateKey : getRequiredSignatureKeys()) {
-            Sha256Hash messageAsHash;
-            try {
-                messageAsHash = Sha256Hash.of(this.toByteArray(chainId));
-            } catch (BeowulfInvalidTransactionException e) {
-                throw new BeowulfInvalidTransactionException(
-                        "The required encoding is not supported by your platform.", e);
+    /**
+     * Like {@link #sign() sign()}, but uses the chain id, the validation level
+     * and the {@link PrivateKeyStorage} of the given <code>config</code>
+     * instead of the default one, e.g. the config of a BeowulfJ client
+     * created by the {@link com.beowulfchain.beowulfj.BeowulfJ.Builder}.
+     *
+     * @param config The config to sign with.
+     * @throws BeowulfInvalidTransactionException If the transaction can not be signed.
+     */
+    public void sign(BeowulfJConfig config) throws BeowulfInvalidTransactionException {
+        sign(config.getChainId(), config);
+    }
+
+    private void sign(String chainId, BeowulfJConfig config) throws BeowulfInvalidTransactionException {
+        EventSpan span = FlightRecorderEvents.beginSigning();
+        long signedBytes = 0;
+        try {
+            if (!config.getValidationLevel().equals(ValidationType.SKIP_VALIDATION)) {
+                this.validate();
             }
-            String signature = requiredPrivateKey.signMessage(messageAsHash);
-            byte[] signatureAsByteArray = Base64.decode(signature);
-            this.signatures.add(CryptoUtils.HEX.encode(signatureAsByteArray));
+
+            for (ECKey requiredPrivateKey : getRequiredSignatureKeys(config.getPrivateKeyStorage())) {
+                Sha256Hash messageAsHash;
+                try {
+                    byte[] message = this.toByteArray(chainId);
+                    signedBytes += message.length;
+                    messageAsHash = Sha256Hash.of(message);
+                } catch (BeowulfInvalidTransactionException e) {
+                    throw new BeowulfInvalidTransactionException(
+                            "The required encoding is not supported by your platform.", e);
+                }
+                String signature = requiredPrivateKey.signMessage(messageAsHash);
+                byte[] signatureAsByteArray = Base64.decode(signature);
+                this.signatures.add(CryptoUtils.HEX.encode(signatureAsByteArray));
+            }
+        } catch (BeowulfInvalidTransactionException | RuntimeException e) {
+            span.end(null, null, signedBytes, e);
+            throw e;
         }
+        span.end(null, null, signedBytes, null);
     }
 
     /**
@@ -189,12 +218,23 @@ public class SignedTransaction extends Transaction implements ByteTransformable,
      */
     @JsonIgnore
     protected List<ECKey> getRequiredSignatureKeys() throws BeowulfInvalidTransactionException {
+        return getRequiredSignatureKeys(BeowulfJConfig.getInstance().getPrivateKeyStorage());
+    }
+
+    /**
+     * @param privateKeyStorage The storage to fetch the keys from.
+     * @return The list of private keys required to sign this transaction.
+     * @throws BeowulfInvalidTransactionException If the required private key is not present in the
+     *                                            <code>privateKeyStorage</code>.
+     */
+    private List<ECKey> getRequiredSignatureKeys(PrivateKeyStorage privateKeyStorage)
+            throws BeowulfInvalidTransactionException {
         List<ECKey> requiredSignatures = new ArrayList<>();
         Map<SignatureObject, PrivateKeyType> requiredAuthorities = getRequiredAuthorities();
 
         for (Entry<SignatureObject, PrivateKeyType> requiredAuthority : requiredAuthorities.entrySet()) {
             if (requiredAuthority.getKey() instanceof AccountName) {
-                requiredSignatures = getRequiredSignatureKeyForAccount(requiredSignatures,
+                requiredSignatures = getRequiredSignatureKeyForAccount(privateKeyStorage, requiredSignatures,
                         (AccountName) requiredAuthority.getKey(), requiredAuthority.getValue());
             } else if (requiredAuthority.getKey() instanceof Authority) {
                 // TODO: Support authorities.
@@ -211,6 +251,7 @@ public class SignedTransaction extends Transaction implements ByteTransformable,
      * from the {@link PrivateKeyStorage}
      * and merge it into the <code>requiredSignatures</code> list.
      *
+     * @param privateKeyStorage  The storage to fetch the key from.
      * @param requiredSignatures A list of already fetched keys. This list is used to make sure
      *                           that a key is not added twice.
      * @param accountName        The account name to fetch the key for.
@@ -220,13 +261,13 @@ public class SignedTransaction extends Transaction implements ByteTransformable,
      * @throws BeowulfInvalidTransactionException If the required private key is not present in the
      *                                            {@link PrivateKeyStorage}.
      */
-    private List<ECKey> getRequiredSignatureKeyForAccount(List<ECKey> requiredSignatures, AccountName accountName,
+    private List<ECKey> getRequiredSignatureKeyForAccount(PrivateKeyStorage privateKeyStorage,
+                                                          List<ECKey> requiredSignatures, AccountName accountName,
                                                           PrivateKeyType privateKeyType) throws BeowulfInvalidTransactionException {
         ECKey privateKey;
 
         try {
-            privateKey = BeowulfJConfig.getInstance().getPrivateKeyStorage().getKeyForAccount(privateKeyType,
-                    accountName);
+            privateKey = privateKeyStorage.getKeyForAccount(privateKeyType, accountName);
         } catch (InvalidParameterException ipe) {
             throw new BeowulfInvalidTransactionException(
                     "Could not find private " + privateKeyType + " key for the user " + accountName.getName() + ".");
@@ -264,16 +305,21 @@ public class SignedTransaction extends Transaction implements ByteTransformable,
      * @throws BeowulfInvalidTransactionException If the transaction can not be signed.
      */
     protected byte[] toByteArray(String chainId) throws BeowulfInvalidTransactionException {
+        EventSpan span = FlightRecorderEvents.beginSerialization();
         try (ByteArrayOutputStream serializedTransaction = new ByteArrayOutputStream()) {
             if (chainId != null && !chainId.isEmpty()) {
                 serializedTransaction.write(CryptoUtils.HEX.decode(chainId));
             }
             serializedTransaction.write(serialize());
-            return serializedTransaction.toByteArray();
+            byte[] serialized = serializedTransaction.toByteArray();
+            span.end(null, null, serialized.length, null);
+            return serialized;
         } catch (IOException e) {
+            span.end(null, null, -1, e);
             throw new BeowulfInvalidTransactionException(
                     "A problem occured while transforming the transaction into a byte array.", e);
         } catch (Exception e) {
+            span.end(null, null, -1, e);
             e.printStackTrace();
             return null;
         }
@@ -22,6 +22,9 @@ import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class AbstractClient {
     /**
@@ -39,6 +42,102 @@ public abstract class AbstractClient {
     public abstract JsonRPCResponse invokeAndReadResponse(JsonRPCRequest requestObject, URI endpointUri,
                                                           boolean sslVerificationDisabled) throws BeowulfCommunicationException, BeowulfResponseException;
 
+    /**
+     * Use this method to send multiple <code>requestObjects</code> as one
+     * JSON-RPC batch to the <code>endpointUri</code> and to receive the
+     * answers.
+     * <p>
+     * The default implementation sends the requests one after another using
+     * {@link #invokeAndReadResponse(JsonRPCRequest, URI, boolean)}. Clients
+     * that are able to send a real batch should override this method.
+     *
+     * @param requestObjects          The objects to send.
+     * @param endpointUri             The endpoint to connect and send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @return The responses returned by the Beowulf Node, each wrapped in a
+     * {@link JsonRPCResponse} object. The order of the responses does not
+     * necessarily match the order of the requests.
+     * @throws BeowulfCommunicationException In case of communication problems.
+     * @throws BeowulfResponseException      If the answer received from the node is no valid JSON.
+     */
+    public List<JsonRPCResponse> invokeAndReadBatchResponse(List<JsonRPCRequest> requestObjects, URI endpointUri,
+                                                            boolean sslVerificationDisabled)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        List<JsonRPCResponse> responses = new ArrayList<>(requestObjects.size());
+        for (JsonRPCRequest requestObject : requestObjects) {
+            responses.add(invokeAndReadResponse(requestObject, endpointUri, sslVerificationDisabled));
+        }
+        return responses;
+    }
+
+    /**
+     * Like {@link #invokeAndReadBatchResponse(List, URI, boolean)}, but returns
+     * immediately. The default implementation runs the blocking call on the
+     * shared {@link CommunicationExecutors#getBlockingExecutor() blocking
+     * executor}.
+     *
+     * @param requestObjects          The objects to send.
+     * @param endpointUri             The endpoint to connect and send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @return A future that will be completed with the responses returned by
+     * the Beowulf Node.
+     */
+    public CompletableFuture<List<JsonRPCResponse>> invokeAndReadBatchResponseAsync(
+            List<JsonRPCRequest> requestObjects, URI endpointUri, boolean sslVerificationDisabled) {
+        return CommunicationExecutors.supplyBlocking(
+                () -> invokeAndReadBatchResponse(requestObjects, endpointUri, sslVerificationDisabled));
+    }
+
+    /**
+     * Like {@link #invokeAndReadResponse(JsonRPCRequest, URI, boolean)}, but
+     * returns immediately. Cancelling the returned future releases the
+     * resources held for the request.
+     * <p>
+     * The default implementation runs the blocking call on the shared
+     * {@link CommunicationExecutors#getBlockingExecutor() blocking executor}.
+     * Clients that are able to send requests without blocking a thread should
+     * override this method.
+     *
+     * @param requestObject           The object to send.
+     * @param endpointUri             The endpoint to connect and send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @return A future that will be completed with the response returned by
+     * the Beowulf Node or with a {@link BeowulfCommunicationException} or
+     * {@link BeowulfResponseException}.
+     */
+    public CompletableFuture<JsonRPCResponse> invokeAndReadResponseAsync(JsonRPCRequest requestObject,
+                                                                         URI endpointUri,
+                                                                         boolean sslVerificationDisabled) {
+        return CommunicationExecutors.supplyBlocking(
+                () -> invokeAndReadResponse(requestObject, endpointUri, sslVerificationDisabled));
+    }
+
+    /**
+     * Establish the connections to the <code>endpointUri</code> without
+     * sending a request, so the next requests do not have to wait for them.
+     * The default implementation does nothing and leaves it to the first
+     * request to connect.
+     *
+     * @param endpointUri             The endpoint to connect to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @return A future that will be completed once the connections are
+     * established, or with a {@link BeowulfCommunicationException} if this
+     * failed.
+     */
+    public CompletableFuture<Void> warmUp(URI endpointUri, boolean sslVerificationDisabled) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Check if this client sends concurrent requests over a shared connection
+     * instead of occupying a connection for each request in flight.
+     *
+     * @return <code>true</code> if requests are multiplexed.
+     */
+    public boolean isMultiplexing() {
+        return false;
+    }
+
     /**
      * Use this method to close the connection of this client.
      *
@@ -0,0 +1,56 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.interfaces.BlockListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A handle for a {@link BlockListener} registered at a
+ * {@link BlockSubscriptionManager}.
+ */
+public class BlockSubscription {
+    private final Runnable cancellation;
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    /**
+     * Create a new handle.
+     *
+     * @param cancellation The action removing the listener.
+     */
+    protected BlockSubscription(Runnable cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Stop notifying the listener. Calling this method more than once has no
+     * effect.
+     */
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            cancellation.run();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+}
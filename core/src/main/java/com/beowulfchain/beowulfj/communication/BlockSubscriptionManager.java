@@ -0,0 +1,362 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.beowulfchain.beowulfj.interfaces.BlockListener;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Notifies {@link BlockListener listeners} about new and irreversible blocks.
+ *
+ * <p>
+ * The manager subscribes to a notice for every applied block over one of the
+ * configured WebSocket endpoints. For each notice the current head block and
+ * last irreversible block are requested and every listener is called once for
+ * each block number it has not seen yet, so no block is skipped even if
+ * notices get lost, e.g. while the subscription is renewed after the
+ * connection has been lost.
+ * </p>
+ */
+public class BlockSubscriptionManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlockSubscriptionManager.class);
+    /**
+     * The source of the ids used to recognize the notices of a subscription.
+     */
+    private static final AtomicLong SUBSCRIPTION_IDS = new AtomicLong();
+    /**
+     * The time to wait before renewing a lost subscription for the first
+     * time. The delay is doubled for every failed attempt.
+     */
+    private static final long MINIMUM_RESUBSCRIBE_DELAY = 1000;
+    private static final long MAXIMUM_RESUBSCRIBE_DELAY = 30000;
+
+    private final CommunicationHandler communicationHandler;
+    private final List<BlockListener> blockListeners = new CopyOnWriteArrayList<>();
+    private final List<BlockListener> irreversibleBlockListeners = new CopyOnWriteArrayList<>();
+    /**
+     * Whether a refresh of the block numbers is already waiting for the
+     * subscription executor.
+     */
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+    /**
+     * The current subscription, or <code>null</code> if there is none.
+     */
+    private SessionListener subscription;
+    private int failedAttempts;
+    /**
+     * The last block numbers the listeners have been notified about. Only
+     * accessed by the subscription executor.
+     */
+    private long lastBlockNumber = -1;
+    private long lastIrreversibleBlockNumber = -1;
+
+    /**
+     * Create a new manager.
+     *
+     * @param communicationHandler The handler used to request the current
+     *                             block numbers.
+     */
+    public BlockSubscriptionManager(CommunicationHandler communicationHandler) {
+        this.communicationHandler = communicationHandler;
+    }
+
+    /**
+     * Notify the given listener about every new block.
+     *
+     * @param listener The listener to notify.
+     * @return A handle to stop the notifications.
+     * @throws BeowulfCommunicationException If no WebSocket endpoint could be
+     *                                       reached.
+     * @throws BeowulfResponseException      If the node refused the
+     *                                       subscription.
+     */
+    public BlockSubscription subscribeToBlocks(BlockListener listener)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        return addListener(blockListeners, listener);
+    }
+
+    /**
+     * Notify the given listener about every block that became irreversible.
+     *
+     * @param listener The listener to notify.
+     * @return A handle to stop the notifications.
+     * @throws BeowulfCommunicationException If no WebSocket endpoint could be
+     *                                       reached.
+     * @throws BeowulfResponseException      If the node refused the
+     *                                       subscription.
+     */
+    public BlockSubscription subscribeToIrreversibleBlocks(BlockListener listener)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        return addListener(irreversibleBlockListeners, listener);
+    }
+
+    private BlockSubscription addListener(List<BlockListener> listeners, BlockListener listener)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        listeners.add(listener);
+        try {
+            subscribe();
+        } catch (BeowulfCommunicationException | BeowulfResponseException e) {
+            listeners.remove(listener);
+            unsubscribeIfUnused();
+            throw e;
+        }
+
+        return new BlockSubscription(() -> {
+            listeners.remove(listener);
+            unsubscribeIfUnused();
+        });
+    }
+
+    private boolean hasListeners() {
+        return !blockListeners.isEmpty() || !irreversibleBlockListeners.isEmpty();
+    }
+
+    /**
+     * Subscribe to the applied blocks over the first WebSocket endpoint that
+     * accepts the subscription, unless there already is a subscription.
+     */
+    private synchronized void subscribe() throws BeowulfCommunicationException, BeowulfResponseException {
+        if (subscription != null) {
+            return;
+        }
+
+        BeowulfJConfig config = communicationHandler.getConfig();
+        BeowulfCommunicationException lastFailure = null;
+        for (Pair<URI, Boolean> endpoint : config.getEndpointURIs()) {
+            if (!endpoint.getLeft().getScheme().toLowerCase().matches("(ws){1}[s]?")) {
+                continue;
+            }
+
+            WebsocketSessionPool pool = WebsocketSessionPool.acquire(endpoint.getLeft(), endpoint.getRight(), config);
+            try {
+                subscription = subscribe(pool);
+                failedAttempts = 0;
+                LOGGER.debug("Subscribed to the applied blocks of {}.", endpoint.getLeft());
+                return;
+            } catch (BeowulfCommunicationException e) {
+                pool.release();
+                LOGGER.debug("Could not subscribe to the applied blocks of {}.", endpoint.getLeft(), e);
+                lastFailure = e;
+            } catch (BeowulfResponseException | RuntimeException e) {
+                pool.release();
+                throw e;
+            }
+        }
+
+        if (lastFailure == null) {
+            throw new BeowulfCommunicationException("Subscriptions require at least one WebSocket endpoint.");
+        }
+        throw lastFailure;
+    }
+
+    private SessionListener subscribe(WebsocketSessionPool pool)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        int responseTimeout = communicationHandler.getConfig().getResponseTimeout();
+        PooledWebsocketSession session = CommunicationHandler
+                .await(CommunicationHandler.withTimeout(pool.getSession(), responseTimeout));
+
+        long subscriptionId = SUBSCRIPTION_IDS.incrementAndGet();
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                RequestMethod.SET_BLOCK_APPLIED_CALLBACK, Collections.singletonList(subscriptionId));
+        JavaType expectedResultType = CommunicationHandler.getObjectMapper().getTypeFactory()
+                .constructCollectionType(List.class, JsonNode.class);
+
+        // Listen before subscribing, so the first notice is not missed.
+        SessionListener listener = new SessionListener(subscriptionId, pool, session);
+        session.addListener(listener);
+        try {
+            CommunicationHandler.await(CommunicationHandler.withTimeout(session.send(requestObject), responseTimeout))
+                    .handle(expectedResultType, requestObject.getId());
+        } catch (BeowulfCommunicationException | BeowulfResponseException | RuntimeException e) {
+            session.removeListener(listener);
+            throw e;
+        }
+        return listener;
+    }
+
+    /**
+     * Give the current subscription up if no listener is left. The node
+     * keeps sending notices until the session is closed, but they are
+     * ignored.
+     */
+    private synchronized void unsubscribeIfUnused() {
+        if (subscription == null || hasListeners()) {
+            return;
+        }
+
+        subscription.session.removeListener(subscription);
+        subscription.pool.release();
+        subscription = null;
+    }
+
+    /**
+     * Called when the session of a subscription is gone.
+     */
+    private synchronized void onSubscriptionLost(SessionListener lostSubscription) {
+        if (subscription != lostSubscription) {
+            return;
+        }
+
+        subscription = null;
+        lostSubscription.pool.release();
+        if (hasListeners()) {
+            LOGGER.warn("The connection used for the block subscription has been lost. Renewing it.");
+            scheduleResubscribe();
+        }
+    }
+
+    private synchronized void scheduleResubscribe() {
+        // Subscribing blocks, so do not do it on the scheduler.
+        CommunicationExecutors.getScheduler().schedule(
+                () -> CommunicationExecutors.getBlockingExecutor().execute(this::resubscribe),
+                getResubscribeDelay(failedAttempts), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the time to wait before renewing a lost subscription.
+     *
+     * @param failedAttempts The number of attempts to renew it that failed.
+     * @return The delay in milliseconds.
+     */
+    static long getResubscribeDelay(int failedAttempts) {
+        return Math.min(MINIMUM_RESUBSCRIBE_DELAY << Math.min(failedAttempts, 5), MAXIMUM_RESUBSCRIBE_DELAY);
+    }
+
+    private void resubscribe() {
+        if (!hasListeners()) {
+            return;
+        }
+
+        try {
+            subscribe();
+            // Catch up with the blocks applied while there was no
+            // subscription.
+            onBlockApplied();
+        } catch (BeowulfCommunicationException | BeowulfResponseException | RuntimeException e) {
+            synchronized (this) {
+                failedAttempts++;
+            }
+            LOGGER.warn("Could not renew the block subscription. Trying again.");
+            LOGGER.debug("For the following reason: ", e);
+            scheduleResubscribe();
+        }
+    }
+
+    /**
+     * Request the current block numbers and notify the listeners. Notices
+     * arriving while a refresh is already waiting are merged into it.
+     */
+    private void onBlockApplied() {
+        if (refreshPending.compareAndSet(false, true)) {
+            CommunicationExecutors.getSubscriptionExecutor().execute(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        refreshPending.set(false);
+
+        JsonNode properties;
+        try {
+            JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                    RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, Collections.emptyList());
+            // A cached answer would hide the block that has just been applied.
+            requestObject.setCacheable(false);
+            properties = communicationHandler.performRequest(requestObject, JsonNode.class).get(0);
+        } catch (BeowulfCommunicationException | BeowulfResponseException | RuntimeException e) {
+            LOGGER.warn("Could not request the current block numbers.", e);
+            return;
+        }
+
+        lastBlockNumber = notifyListeners(blockListeners, lastBlockNumber,
+                properties.path("head_block_number").asLong(-1));
+        lastIrreversibleBlockNumber = notifyListeners(irreversibleBlockListeners, lastIrreversibleBlockNumber,
+                properties.path("last_irreversible_block_num").asLong(-1));
+    }
+
+    /**
+     * Call the listeners for every block after <code>lastBlockNumber</code> up
+     * to <code>currentBlockNumber</code>.
+     *
+     * @return The last block number the listeners know about.
+     */
+    private static long notifyListeners(List<BlockListener> listeners, long lastBlockNumber,
+                                        long currentBlockNumber) {
+        if (currentBlockNumber <= lastBlockNumber) {
+            // Nothing new, or the answer came from a node lagging behind.
+            return lastBlockNumber;
+        }
+
+        long firstBlockNumber = lastBlockNumber < 0 ? currentBlockNumber : lastBlockNumber + 1;
+        for (long blockNumber = firstBlockNumber; blockNumber <= currentBlockNumber; blockNumber++) {
+            for (BlockListener listener : listeners) {
+                try {
+                    listener.onBlock(blockNumber);
+                } catch (RuntimeException e) {
+                    LOGGER.error("A block listener failed.", e);
+                }
+            }
+        }
+        return currentBlockNumber;
+    }
+
+    /**
+     * Receives the notices of one subscription.
+     */
+    private final class SessionListener implements PooledWebsocketSession.Listener {
+        private final long subscriptionId;
+        private final WebsocketSessionPool pool;
+        private final PooledWebsocketSession session;
+
+        private SessionListener(long subscriptionId, WebsocketSessionPool pool, PooledWebsocketSession session) {
+            this.subscriptionId = subscriptionId;
+            this.pool = pool;
+            this.session = session;
+        }
+
+        @Override
+        public void onNotice(JsonRPCResponse notice) {
+            JsonNode parameters = notice.getNoticeParameters();
+            if (parameters != null && parameters.path(0).asLong(-1) == subscriptionId) {
+                onBlockApplied();
+            }
+        }
+
+        @Override
+        public void onClose() {
+            onSubscriptionLost(this);
+        }
+    }
+}
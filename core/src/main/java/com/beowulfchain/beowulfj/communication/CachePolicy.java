@@ -0,0 +1,61 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+
+import java.util.List;
+
+/**
+ * Decides which answers of the node are stored in the {@link ResponseCache}
+ * and for how long.
+ * <p>
+ * Implementations are shared by all threads using the same
+ * {@link CommunicationHandler} and therefore have to be thread safe.
+ */
+public interface CachePolicy {
+    /**
+     * The time to live of answers that must not be stored.
+     */
+    long NOT_CACHED = 0;
+    /**
+     * The time to live of answers that never change.
+     */
+    long FOREVER = Long.MAX_VALUE;
+
+    /**
+     * Decide whether the given request may be answered from the cache. Only
+     * called for requests which do not change the chain.
+     *
+     * @param requestObject The request.
+     * @return <code>true</code> if the cache should be used for the request.
+     */
+    boolean isCacheable(JsonRPCRequest requestObject);
+
+    /**
+     * Decide how long the answer to the given request may be used.
+     *
+     * @param requestObject            The request.
+     * @param result                   The deserialized answer of the node.
+     * @param lastIrreversibleBlockNum The last irreversible block known to
+     *                                 the {@link CommunicationHandler} or
+     *                                 <code>-1</code> if it is not known yet.
+     * @return The time in milliseconds, {@link #FOREVER} or
+     * {@link #NOT_CACHED}.
+     */
+    long getTimeToLive(JsonRPCRequest requestObject, List<?> result, long lastIrreversibleBlockNum);
+}
@@ -0,0 +1,37 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.net.URI;
+
+/**
+ * Wraps or replaces the {@link AbstractClient} created for an endpoint, e.g.
+ * to record the traffic (@see {@link TrafficRecorder}) or to answer requests
+ * without a network (@see {@link TrafficReplayer}).
+ */
+@FunctionalInterface
+public interface ClientDecorator {
+    /**
+     * Called once for every client a {@link CommunicationHandler} creates.
+     *
+     * @param client      The client BeowulfJ created for the endpoint.
+     * @param endpointUri The endpoint the client sends to.
+     * @return The client to use instead. A client which does not delegate to
+     * the given one has to close it when its own connection is closed.
+     */
+    AbstractClient decorate(AbstractClient client, URI endpointUri);
+}
@@ -0,0 +1,206 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class holds the thread pools shared by all clients of BeowulfJ.
+ */
+public final class CommunicationExecutors {
+    /**
+     * The maximum number of threads of the shared blocking executor. Further
+     * tasks wait in its queue.
+     */
+    private static final int MAXIMUM_BLOCKING_THREADS = 64;
+    /**
+     * The time in milliseconds after which idle threads of blocking executors
+     * are stopped.
+     */
+    private static final long BLOCKING_THREAD_KEEP_ALIVE = 60000L;
+    /**
+     * The pool used to run blocking transport calls.
+     */
+    private static final ExecutorService BLOCKING_EXECUTOR = newBlockingExecutor(MAXIMUM_BLOCKING_THREADS);
+    /**
+     * The scheduler used for timeouts and other delayed tasks.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors
+            .newSingleThreadScheduledExecutor(new DaemonThreadFactory("beowulfj-scheduler"));
+    /**
+     * The thread used to notify subscribers, so their listeners are called
+     * one after another and in order.
+     */
+    private static final ExecutorService SUBSCRIPTION_EXECUTOR = Executors
+            .newSingleThreadExecutor(new DaemonThreadFactory("beowulfj-subscriptions"));
+
+    /**
+     * Add a private constructor to hide the implicit public one.
+     */
+    private CommunicationExecutors() {
+    }
+
+    /**
+     * @return The pool used to run blocking transport calls.
+     */
+    public static ExecutorService getBlockingExecutor() {
+        return BLOCKING_EXECUTOR;
+    }
+
+    /**
+     * @return The scheduler used for timeouts and other delayed tasks.
+     */
+    public static ScheduledExecutorService getScheduler() {
+        return SCHEDULER;
+    }
+
+    /**
+     * @return The thread used to notify subscribers.
+     */
+    public static ExecutorService getSubscriptionExecutor() {
+        return SUBSCRIPTION_EXECUTOR;
+    }
+
+    /**
+     * Create a pool for blocking transport calls which runs at most
+     * <code>maximumThreads</code> calls at once. Further calls wait in its
+     * queue instead of occupying a thread each. Idle threads are stopped, so
+     * an unused pool does not hold any thread.
+     *
+     * @param maximumThreads The maximum number of threads.
+     * @return The new pool.
+     */
+    static ExecutorService newBlockingExecutor(int maximumThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maximumThreads, maximumThreads,
+                BLOCKING_THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new DaemonThreadFactory("beowulfj-io"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Run the given blocking <code>task</code> on the
+     * {@link #getBlockingExecutor() blocking executor}. Completing the returned
+     * future from the outside (e.g. by cancelling it or because of a timeout)
+     * will interrupt the thread running the task.
+     *
+     * @param task The task to run.
+     * @param <T>  The type of the result.
+     * @return A future completed with the result of the task.
+     */
+    public static <T> CompletableFuture<T> supplyBlocking(final Callable<T> task) {
+        return supplyBlocking(BLOCKING_EXECUTOR, task, null);
+    }
+
+    /**
+     * Run the given blocking <code>task</code> on the given
+     * <code>executor</code>. Completing the returned future from the outside
+     * (e.g. by cancelling it or because of a timeout) will call
+     * <code>abort</code> and interrupt the thread running the task. Tasks
+     * blocked in I/O that ignores interrupts use <code>abort</code> to close
+     * their connection.
+     *
+     * @param executor The executor to run the task on.
+     * @param task     The task to run.
+     * @param abort    The action stopping the task if it is still running, or
+     *                 <code>null</code>.
+     * @param <T>      The type of the result.
+     * @return A future completed with the result of the task.
+     */
+    static <T> CompletableFuture<T> supplyBlocking(ExecutorService executor, final Callable<T> task,
+                                                   final Runnable abort) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicBoolean taskFinished = new AtomicBoolean(false);
+        final Future<?> execution;
+        try {
+            execution = executor.submit(() -> {
+                try {
+                    T value = task.call();
+                    taskFinished.set(true);
+                    result.complete(value);
+                } catch (Exception e) {
+                    taskFinished.set(true);
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The executor has been shut down, e.g. because its client has
+            // been closed.
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        result.whenComplete((value, throwable) -> {
+            if (!taskFinished.get()) {
+                if (abort != null) {
+                    abort.run();
+                }
+                execution.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Remove the {@link CompletionException} wrapper added by
+     * {@link CompletableFuture} when a stage failed.
+     *
+     * @param throwable The throwable to unwrap.
+     * @return The original cause.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * A {@link ThreadFactory} creating named daemon threads, so BeowulfJ never
+     * keeps the JVM alive.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
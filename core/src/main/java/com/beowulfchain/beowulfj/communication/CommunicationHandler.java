@@ -17,16 +17,26 @@
 package com.beowulfchain.beowulfj.communication;
 
 import com.beowulfchain.beowulfj.base.models.serializer.BooleanSerializer;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCBatch;
 import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
 import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
 import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.enums.RequestPriority;
 import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfRequestRejectedException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfTransformationException;
+import com.beowulfchain.beowulfj.plugins.apis.database.models.DynamicGlobalProperty;
+import com.beowulfchain.beowulfj.util.EventSpan;
+import com.beowulfchain.beowulfj.util.FlightRecorderEvents;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.apache.commons.lang3.tuple.Pair;
@@ -37,25 +47,74 @@ import java.io.IOException;
 import java.net.URI;
 import java.security.InvalidParameterException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 public class CommunicationHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(CommunicationHandler.class);
+    /**
+     * The number of requests sent to an endpoint at the same time before the
+     * limit has been adapted to the endpoint.
+     */
+    private static final int INITIAL_CONCURRENCY_LIMIT = 20;
 
     /**
      * A preconfigured mapper instance used for de-/serialization of Json
-     * objects.
+     * objects. The mapper is thread-safe once it is configured, so it is
+     * created eagerly and never modified afterwards.
+     */
+    private static final ObjectMapper MAPPER = createObjectMapper();
+    /**
+     * The config this handler has been initialized with. It is only replaced
+     * by {@link #initializeNewClient(BeowulfJConfig)}.
+     */
+    private volatile BeowulfJConfig config;
+    /**
+     * Chooses the endpoint for each request.
+     */
+    private volatile EndpointSelector endpointSelector;
+    /**
+     * The clients used to send requests, one for each endpoint. The whole map
+     * is replaced by {@link #initializeNewClient(BeowulfJConfig)}, so that
+     * concurrent requests either see the old or the new set of clients.
+     */
+    private volatile Map<Pair<URI, Boolean>, AbstractClient> clients = new ConcurrentHashMap<>();
+    /**
+     * The concurrency limiters, one per endpoint. Replaced together with the
+     * <code>clients</code>.
      */
-    private static ObjectMapper mapper = getObjectMapper();
+    private volatile Map<Pair<URI, Boolean>, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
     /**
-     * A counter for failed connection tries.
+     * The coalesced requests which are currently in flight, by their method,
+     * parameters and result type.
      */
-    private int numberOfConnectionTries = 0;
+    private final Map<String, SharedRequest> sharedRequests = new ConcurrentHashMap<>();
     /**
-     * The client used to send requests.
+     * The number of requests that have been answered by an identical request
+     * which was already in flight.
      */
-    private AbstractClient client;
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    /**
+     * The highest last irreversible block number seen in an answer of the
+     * node, used to decide if chain data may be cached forever.
+     */
+    private final AtomicLong lastIrreversibleBlockNum = new AtomicLong(-1);
 
     /**
      * Initialize the Connection Handler.
@@ -85,57 +144,274 @@ public class CommunicationHandler {
      * @return The object mapper.
      */
     public static ObjectMapper getObjectMapper() {
-        if (mapper == null) {
-            mapper = new ObjectMapper();
+        return MAPPER;
+    }
 
-            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(BeowulfJConfig.getInstance().getDateTimePattern());
-            simpleDateFormat.setTimeZone(TimeZone.getTimeZone(BeowulfJConfig.getInstance().getTimeZoneId()));
+    private static ObjectMapper createObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
 
-            mapper.setDateFormat(simpleDateFormat);
-            mapper.setTimeZone(TimeZone.getTimeZone(BeowulfJConfig.getInstance().getTimeZoneId()));
-            mapper.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(BeowulfJConfig.getInstance().getDateTimePattern());
+        simpleDateFormat.setTimeZone(TimeZone.getTimeZone(BeowulfJConfig.getInstance().getTimeZoneId()));
 
-            SimpleModule simpleModule = new SimpleModule("BooleanAsString", new Version(1, 0, 0, null, null, null));
-            simpleModule.addSerializer(Boolean.class, new BooleanSerializer());
-            simpleModule.addSerializer(boolean.class, new BooleanSerializer());
+        mapper.setDateFormat(simpleDateFormat);
+        mapper.setTimeZone(TimeZone.getTimeZone(BeowulfJConfig.getInstance().getTimeZoneId()));
+        mapper.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
 
-            mapper.registerModule(simpleModule);
-        }
+        SimpleModule simpleModule = new SimpleModule("BooleanAsString", new Version(1, 0, 0, null, null, null));
+        simpleModule.addSerializer(Boolean.class, new BooleanSerializer());
+        simpleModule.addSerializer(boolean.class, new BooleanSerializer());
+
+        mapper.registerModule(simpleModule);
 
         return mapper;
     }
 
     /**
-     * Initialize a new <code>client</code> by selecting one of the configured
-     * endpoints.
+     * Close all open clients and initialize a new <code>client</code> for
+     * each of the configured endpoints.
      *
      * @param config The config of beowulf blockchain.
-     * @throws BeowulfCommunicationException If no {@link AbstractClient} implementation for the given
-     *                                       schema is available.
+     * @throws BeowulfCommunicationException If a client connection could not be closed.
+     * @throws InvalidParameterException     If no {@link AbstractClient} implementation for the schema
+     *                                       of an endpoint is available.
      */
     public void initializeNewClient(BeowulfJConfig config) throws BeowulfCommunicationException {
-        if (client != null) {
+        Map<Pair<URI, Boolean>, AbstractClient> newClients = new ConcurrentHashMap<>();
+        for (Pair<URI, Boolean> endpoint : config.getEndpointURIs()) {
+            newClients.computeIfAbsent(endpoint, key -> createClient(key, config));
+        }
+
+        Map<Pair<URI, Boolean>, AbstractClient> oldClients;
+        synchronized (this) {
+            if (config != this.config) {
+                this.endpointSelector = new EndpointSelector(config);
+                this.config = config;
+            }
+            oldClients = clients;
+            clients = newClients;
+            limiters = new ConcurrentHashMap<>();
+        }
+
+        closeClients(oldClients);
+    }
+
+    /**
+     * Close all open clients. Transports shared with other handlers stay open
+     * until all of them have been closed. The handler opens new connections
+     * if it is used again afterwards.
+     *
+     * @throws BeowulfCommunicationException If a client connection could not be closed.
+     */
+    public void close() throws BeowulfCommunicationException {
+        Map<Pair<URI, Boolean>, AbstractClient> oldClients;
+        synchronized (this) {
+            oldClients = clients;
+            clients = new ConcurrentHashMap<>();
+            limiters = new ConcurrentHashMap<>();
+        }
+
+        closeClients(oldClients);
+    }
+
+    private static void closeClients(Map<Pair<URI, Boolean>, AbstractClient> clientsToClose)
+            throws BeowulfCommunicationException {
+        for (AbstractClient client : clientsToClose.values()) {
             try {
                 client.closeConnection();
             } catch (IOException e) {
                 throw new BeowulfCommunicationException("Could not close the current client connection.", e);
             }
         }
-        if (numberOfConnectionTries >= config.getEndpointURIs().size()) {
-            numberOfConnectionTries = 0;
+    }
+
+    /**
+     * Get the config this handler sends its requests with.
+     *
+     * @return The config.
+     */
+    public BeowulfJConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Get the state of all configured endpoints, e.g. to monitor their
+     * health.
+     *
+     * @return A snapshot of the state of each endpoint.
+     */
+    public List<EndpointState> getEndpointStates() {
+        return endpointSelector.getEndpointStates();
+    }
+
+    /**
+     * Get the number of requests that did not reach the node, because they
+     * have been answered by an identical request which was already in flight
+     * (@see {@link BeowulfJConfig#setRequestCoalescingEnabled(boolean)
+     * setRequestCoalescingEnabled()}).
+     *
+     * @return The number of coalesced requests.
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * Get the last irreversible block number as seen in the latest answer to
+     * a <code>get_dynamic_global_properties</code> request sent by this
+     * handler. Blocks and transactions up to this block are cached forever.
+     *
+     * @return The block number or <code>-1</code> if it is not known yet.
+     */
+    public long getLastIrreversibleBlockNum() {
+        return lastIrreversibleBlockNum.get();
+    }
+
+    /**
+     * Connect to all configured endpoints and validate each connection with a
+     * cheap request, so that the first real requests do not have to wait for
+     * a connection to be established. The measured latencies are used to
+     * choose the fastest endpoint right from the start.
+     *
+     * @throws BeowulfCommunicationException If none of the endpoints could be reached.
+     */
+    public void warmUp() throws BeowulfCommunicationException {
+        try {
+            await(warmUpAsync());
+        } catch (BeowulfResponseException e) {
+            throw new BeowulfCommunicationException("None of the configured endpoints could be reached.", e);
         }
+    }
 
-        // Get a new endpoint URI based on the number of retries.
-        Pair<URI, Boolean> endpoint = config.getNextEndpointURI(numberOfConnectionTries);
+    /**
+     * Like {@link #warmUp()}, but does not block the calling thread.
+     *
+     * @return A future that will be completed once all endpoints answered or
+     * failed, or with a {@link BeowulfCommunicationException} if none of them
+     * could be reached.
+     */
+    public CompletableFuture<Void> warmUpAsync() {
+        List<Pair<URI, Boolean>> endpoints = config.getEndpointURIs();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(endpoints.size());
+        for (Pair<URI, Boolean> endpoint : endpoints) {
+            results.add(warmUp(endpoint));
+        }
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            for (CompletableFuture<Boolean> result : results) {
+                if (result.join()) {
+                    return null;
+                }
+            }
+            throw new CompletionException(
+                    new BeowulfCommunicationException("None of the configured endpoints could be reached."));
+        });
+    }
+
+    /**
+     * Connect to the given endpoint and send a cheap request to it.
+     *
+     * @param endpoint The endpoint to warm up.
+     * @return A future that will be completed with <code>true</code> if the
+     * endpoint answered the request, or <code>false</code> otherwise.
+     */
+    private CompletableFuture<Boolean> warmUp(Pair<URI, Boolean> endpoint) {
+        AbstractClient client = getClient(endpoint);
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.GET_HARDFORK_VERSION, Collections.emptyList());
+        JavaType expectedResultType = MAPPER.getTypeFactory().constructCollectionType(List.class, String.class);
+        int responseTimeout = config.getResponseTimeout();
+        EndpointSelector endpointSelector = this.endpointSelector;
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        EndpointSelector.Lease lease = endpointSelector.acquire(endpoint);
+        withTimeout(client.warmUp(endpoint.getLeft(), endpoint.getRight()), responseTimeout)
+                .thenCompose(ignored -> {
+                    // Only measure the request, not the connection setup.
+                    long startTime = System.nanoTime();
+                    return withTimeout(client.invokeAndReadResponseAsync(requestObject, endpoint.getLeft(),
+                            endpoint.getRight()), responseTimeout).thenApply(response -> {
+                        try {
+                            handleResponse(response, requestObject, expectedResultType);
+                        } catch (BeowulfCommunicationException | BeowulfResponseException e) {
+                            throw new CompletionException(e);
+                        }
+                        return System.nanoTime() - startTime;
+                    });
+                })
+                .whenComplete((latency, throwable) -> {
+                    if (throwable == null) {
+                        endpointSelector.recordSuccess(lease, latency);
+                        LOGGER.debug("Warmed up the connection to {} in {} ms.", endpoint.getLeft(),
+                                TimeUnit.NANOSECONDS.toMillis(latency));
+                        result.complete(true);
+                    } else {
+                        endpointSelector.recordFailure(lease);
+                        LOGGER.warn("Could not warm up the connection to {}.", endpoint.getLeft());
+                        LOGGER.debug("For the following reason: ", CommunicationExecutors.unwrap(throwable));
+                        result.complete(false);
+                    }
+                });
+
+        return result;
+    }
+
+    /**
+     * Get the client for the given endpoint or create it if this is the first
+     * request to this endpoint.
+     *
+     * @param endpoint The endpoint to send to.
+     * @return The client for the endpoint.
+     * @throws InvalidParameterException If no {@link AbstractClient} implementation for the schema
+     *                                   of the endpoint is available.
+     */
+    private AbstractClient getClient(Pair<URI, Boolean> endpoint) {
+        return clients.computeIfAbsent(endpoint, key -> createClient(key, config));
+    }
 
-        if (endpoint.getLeft().getScheme().toLowerCase().matches("(http){1}[s]?")) {
-            client = new HttpClient();
-        } else if (endpoint.getLeft().getScheme().toLowerCase().matches("(ws){1}[s]?")) {
-            client = new WebsocketClient();
+    /**
+     * Create a new client for the given endpoint.
+     *
+     * @param endpoint The endpoint to send to.
+     * @param config   The config of the new client.
+     * @return A client that supports the schema of the endpoint.
+     * @throws InvalidParameterException If no {@link AbstractClient} implementation for the schema
+     *                                   of the endpoint is available.
+     */
+    private static AbstractClient createClient(Pair<URI, Boolean> endpoint, BeowulfJConfig config) {
+        String scheme = endpoint.getLeft().getScheme().toLowerCase();
+        AbstractClient client;
+        if (scheme.matches("(http){1}[s]?")) {
+            client = HttpClientProvider.createClient(endpoint.getLeft(), config);
+        } else if (scheme.matches("(ws){1}[s]?")) {
+            client = new WebsocketClient(config);
         } else {
             throw new InvalidParameterException("No client implementation for the following protocol available: "
-                    + endpoint.getLeft().getScheme().toLowerCase());
+                    + scheme);
         }
+
+        ClientDecorator decorator = config.getClientDecorator();
+        return decorator == null ? client : decorator.decorate(client, endpoint.getLeft());
+    }
+
+    /**
+     * Get the concurrency limiter for the given endpoint or create it if this
+     * is the first request to this endpoint.
+     *
+     * @param endpoint The endpoint to send to.
+     * @return The limiter for the endpoint.
+     */
+    private ConcurrencyLimiter getLimiter(Pair<URI, Boolean> endpoint) {
+        return limiters.computeIfAbsent(endpoint, key -> {
+            int maximumLimit = config.getMaximumConcurrencyLimit();
+            if (maximumLimit > 0 && key.getLeft().getScheme().toLowerCase().matches("(http){1}[s]?")
+                    && !getClient(key).isMultiplexing()) {
+                // Each HTTP request occupies a connection. Requests exceeding
+                // the connections would wait in the connection pool, where
+                // their priority is not known.
+                maximumLimit = Math.min(maximumLimit, config.getMaximumConnectionsPerRoute());
+            }
+            return new ConcurrencyLimiter(key.getLeft(), INITIAL_CONCURRENCY_LIMIT, maximumLimit, config);
+        });
     }
 
     /**
@@ -150,6 +426,10 @@ public class CommunicationHandler {
      *                                        time (@see
      *                                        {@link BeowulfJConfig#setResponseTimeout(int)
      *                                        setResponseTimeout()})
+     * @throws BeowulfRequestRejectedException If too many requests are already
+     *                                        waiting for the endpoint (@see
+     *                                        {@link BeowulfJConfig#setMaximumQueuedRequests(int)
+     *                                        setMaximumQueuedRequests()})
      * @throws BeowulfCommunicationException  If there is a connection problem.
      * @throws BeowulfTransformationException If the BeowulfJ is unable to transform the JSON response into a
      *                                        Java object.
@@ -157,27 +437,914 @@ public class CommunicationHandler {
      */
     public <T> List<T> performRequest(JsonRPCRequest requestObject, Class<T> targetClass)
             throws BeowulfCommunicationException, BeowulfResponseException {
+        return await(performRequestAsync(requestObject, targetClass));
+    }
+
+    /**
+     * Like {@link #performRequest(JsonRPCRequest, Class)}, but does not block
+     * the calling thread.
+     * <p>
+     * The returned future is completed exceptionally with the exceptions
+     * documented for {@link #performRequest(JsonRPCRequest, Class)}.
+     * Cancelling it releases the connection resources held for the request.
+     * <p>
+     * If a response cache is configured, requests which do not change the
+     * chain are answered from the cache if the cache policy allows it (@see
+     * {@link BeowulfJConfig#setResponseCache(ResponseCache)
+     * setResponseCache()}). If request coalescing is enabled, such a request
+     * waits for an identical request already in flight and shares its result
+     * (@see {@link BeowulfJConfig#setRequestCoalescingEnabled(boolean)
+     * setRequestCoalescingEnabled()}). Results of such requests are
+     * unmodifiable lists, because they may be handed to other callers too.
+     *
+     * @param requestObject A request object that contains all needed parameters.
+     * @param targetClass   The type the response should be transformed to.
+     * @param <T>           The type that should be returned.
+     * @return A future that will be completed with the server response
+     * transformed into a list of given objects.
+     */
+    public <T> CompletableFuture<List<T>> performRequestAsync(JsonRPCRequest requestObject, Class<T> targetClass) {
+        EventSpan span = FlightRecorderEvents.beginRpcCall();
+        RpcCallOutcome outcome = new RpcCallOutcome();
+        CompletableFuture<List<T>> result = performCachedRequestAsync(requestObject, targetClass, outcome);
+        result.whenComplete((value, throwable) -> span.end(requestObject.getMethod(), outcome.getEndpoint(),
+                outcome.getContentLength(), throwable == null ? null : CommunicationExecutors.unwrap(throwable)));
+        return result;
+    }
+
+    /**
+     * Answer the request from the cache if possible and send it otherwise.
+     *
+     * @param outcome Receives the endpoint and the size of the answer.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<List<T>> performCachedRequestAsync(JsonRPCRequest requestObject,
+                                                                     Class<T> targetClass, RpcCallOutcome outcome) {
+        boolean idempotent = requestObject.getRequestMethod().isIdempotent();
+        ResponseCache responseCache = config.getResponseCache();
+        CachePolicy cachePolicy = config.getCachePolicy();
+        boolean cacheable = responseCache != null && idempotent && requestObject.isCacheable()
+                && cachePolicy.isCacheable(requestObject);
+        boolean coalesced = config.isRequestCoalescingEnabled() && idempotent;
+        String key = cacheable || coalesced ? getRequestKey(requestObject, targetClass) : null;
+
+        if (cacheable && key != null) {
+            Object cachedResult = responseCache.get(key);
+            if (cachedResult != null) {
+                LOGGER.debug("Answered request {} from the cache.", requestObject.getId());
+                return CompletableFuture.completedFuture((List<T>) cachedResult);
+            }
+        }
+
+        // Results other callers get as well must not be changed by anyone.
+        boolean shared = key != null && (cacheable || coalesced);
+        CompletableFuture<List<T>> result = coalesced && key != null
+                ? performSharedRequestAsync(key, requestObject, targetClass, outcome)
+                : sendRequestAsync(requestObject, targetClass, shared, outcome);
+
+        boolean dynamicGlobalProperties =
+                requestObject.getRequestMethod() == RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES;
+        if (dynamicGlobalProperties || (cacheable && key != null)) {
+            result.thenAccept(value -> {
+                if (dynamicGlobalProperties) {
+                    updateLastIrreversibleBlockNum(value);
+                }
+                if (cacheable && key != null) {
+                    long timeToLive = cachePolicy.getTimeToLive(requestObject, value,
+                            lastIrreversibleBlockNum.get());
+                    if (timeToLive > 0) {
+                        responseCache.put(key, value, timeToLive);
+                    }
+                }
+            });
+        }
+
+        return result;
+    }
+
+    /**
+     * Remember the last irreversible block number contained in the given
+     * dynamic global properties.
+     */
+    private void updateLastIrreversibleBlockNum(List<?> result) {
+        for (Object properties : result) {
+            long blockNum = -1;
+            if (properties instanceof DynamicGlobalProperty) {
+                blockNum = ((DynamicGlobalProperty) properties).getLastIrreversibleBlockNum();
+            } else if (properties instanceof JsonNode) {
+                blockNum = ((JsonNode) properties).path("last_irreversible_block_num").asLong(-1);
+            }
+            lastIrreversibleBlockNum.accumulateAndGet(blockNum, Math::max);
+        }
+    }
+
+    /**
+     * Get the key identical requests are cached and coalesced by.
+     *
+     * @return The key or <code>null</code> if the parameters of the request
+     * could not be serialized.
+     */
+    private static String getRequestKey(JsonRPCRequest requestObject, Class<?> targetClass) {
         try {
-            Pair<URI, Boolean> endpoint = BeowulfJConfig.getInstance().getNextEndpointURI(numberOfConnectionTries++);
-            JsonRPCResponse rawJsonResponse = client.invokeAndReadResponse(requestObject, endpoint.getLeft(),
-                    endpoint.getRight());
-            LOGGER.debug("Received {} ", rawJsonResponse);
+            return requestObject.getMethod() + '\n' + targetClass.getName() + '\n'
+                    + MAPPER.writeValueAsString(requestObject.getParams());
+        } catch (JsonProcessingException e) {
+            LOGGER.debug("Not caching or coalescing request {}.", requestObject.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Wait for an identical request which is already in flight or send the
+     * given request and let later identical requests wait for it.
+     *
+     * @param outcome Receives the endpoint and the size of the answer.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<List<T>> performSharedRequestAsync(String key, JsonRPCRequest requestObject,
+                                                                     Class<T> targetClass, RpcCallOutcome outcome) {
+        Long deadline = requestObject.getDeadline();
+        while (true) {
+            SharedRequest sharedRequest = sharedRequests.get(key);
+            if (sharedRequest == null) {
+                SharedRequest newRequest = new SharedRequest(deadline);
+                CompletableFuture<?> result = newRequest.join(deadline, outcome);
+                if (sharedRequests.putIfAbsent(key, newRequest) != null) {
+                    continue;
+                }
+                newRequest.start(sendRequestAsync(requestObject, targetClass, true, newRequest.outcome));
+                newRequest.response.whenComplete((value, throwable) -> sharedRequests.remove(key, newRequest));
+                return (CompletableFuture<List<T>>) result;
+            }
+
+            if (!sharedRequest.outlives(deadline)) {
+                // The shared request would give up before this caller does.
+                return sendRequestAsync(requestObject, targetClass, true, outcome);
+            }
+
+            CompletableFuture<?> result = sharedRequest.join(deadline, outcome);
+            if (result != null) {
+                coalescedRequests.incrementAndGet();
+                LOGGER.debug("Request {} waits for an identical request in flight.", requestObject.getId());
+                return (CompletableFuture<List<T>>) result;
+            }
+            // All waiters of the shared request gave up.
+            sharedRequests.remove(key, sharedRequest);
+        }
+    }
+
+    /**
+     * @param unmodifiable Whether the result is handed to more than one
+     *                     caller and has to be wrapped into an unmodifiable
+     *                     list.
+     * @param outcome      Receives the endpoint and the size of the answer.
+     */
+    private <T> CompletableFuture<List<T>> sendRequestAsync(JsonRPCRequest requestObject, Class<T> targetClass,
+                                                            boolean unmodifiable, RpcCallOutcome outcome) {
+        JavaType expectedResultType = MAPPER.getTypeFactory().constructCollectionType(List.class, targetClass);
+        BiFunction<AbstractClient, Pair<URI, Boolean>, CompletableFuture<JsonRPCResponse>> invocation =
+                (client, endpoint) -> client.invokeAndReadResponseAsync(requestObject, endpoint.getLeft(),
+                        endpoint.getRight());
+        ResponseHandler<JsonRPCResponse, List<T>> responseHandler = rawJsonResponse -> {
+            List<T> value = handleResponse(rawJsonResponse, requestObject, expectedResultType);
+            return unmodifiable && value != null ? Collections.unmodifiableList(value) : value;
+        };
+        List<JsonRPCRequest> requestObjects = Collections.singletonList(requestObject);
+        Set<Pair<URI, Boolean>> usedEndpoints = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<List<T>> result = new RequestExecution<>(requestObjects, invocation, responseHandler,
+                usedEndpoints, outcome).start();
+
+        long hedgingDelay = getHedgingDelay(requestObject);
+        if (hedgingDelay < 0) {
+            return result;
+        }
+
+        return hedge(result, () -> {
+            LOGGER.debug("No answer for request {} after {} ms. Sending it to another endpoint.",
+                    requestObject.getId(), hedgingDelay);
+            return new RequestExecution<>(requestObjects, invocation, responseHandler, usedEndpoints, outcome)
+                    .start();
+        }, hedgingDelay);
+    }
+
+    /**
+     * Send all requests of the given <code>batch</code> as JSON-RPC batches
+     * and store the results in the {@link JsonRPCBatch.Entry entries} of the
+     * batch. Batches larger than {@link BeowulfJConfig#getMaximumBatchSize()}
+     * are split automatically.
+     * <p>
+     * Errors returned by the node for single requests do not let the whole
+     * batch fail, but are provided by the corresponding entry.
+     *
+     * @param batch The requests to send.
+     * @throws BeowulfTimeoutException       If the server was not able to answer the request in the given
+     *                                       time (@see
+     *                                       {@link BeowulfJConfig#setResponseTimeout(int)
+     *                                       setResponseTimeout()})
+     * @throws BeowulfCommunicationException If there is a connection problem.
+     * @throws BeowulfResponseException      If the Server returned an error object for the whole batch.
+     */
+    public void performBatchRequest(JsonRPCBatch batch) throws BeowulfCommunicationException, BeowulfResponseException {
+        await(performBatchRequestAsync(batch));
+    }
+
+    /**
+     * Like {@link #performBatchRequest(JsonRPCBatch)}, but does not block the
+     * calling thread.
+     *
+     * @param batch The requests to send.
+     * @return A future that will be completed with the given batch once the
+     * results of all entries are available.
+     */
+    public CompletableFuture<JsonRPCBatch> performBatchRequestAsync(JsonRPCBatch batch) {
+        int maximumBatchSize = config.getMaximumBatchSize();
+        List<JsonRPCBatch.Entry<?>> entries = batch.getEntries();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+
+        for (int offset = 0; offset < entries.size(); offset += maximumBatchSize) {
+            List<JsonRPCBatch.Entry<?>> chunk = entries.subList(offset,
+                    Math.min(offset + maximumBatchSize, entries.size()));
+            List<JsonRPCRequest> requestObjects = new ArrayList<>(chunk.size());
+            for (JsonRPCBatch.Entry<?> entry : chunk) {
+                requestObjects.add(entry.getRequest());
+            }
+
+            chunks.add(new RequestExecution<List<JsonRPCResponse>, Void>(requestObjects,
+                    (client, endpoint) -> client.invokeAndReadBatchResponseAsync(requestObjects, endpoint.getLeft(),
+                            endpoint.getRight()), responses -> handleBatchResponse(responses, chunk),
+                    ConcurrentHashMap.newKeySet(), null).start());
+        }
 
-            if (rawJsonResponse.isError()) {
-                throw rawJsonResponse.handleError(requestObject.getId());
+        CompletableFuture<JsonRPCBatch> result = CompletableFuture
+                .allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> batch);
+        result.whenComplete((value, throwable) -> {
+            for (CompletableFuture<Void> chunk : chunks) {
+                chunk.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Wait for the given <code>future</code> and unwrap the checked
+     * exceptions it has been completed with.
+     *
+     * @param future The future to wait for.
+     * @param <T>    The type of the result.
+     * @return The result of the future.
+     * @throws BeowulfCommunicationException If there is a connection problem.
+     * @throws BeowulfResponseException      If the Server returned an error object.
+     */
+    public static <T> T await(CompletableFuture<T> future)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BeowulfCommunicationException("Interrupted while waiting for the answer of the Beowulf Node.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = CommunicationExecutors.unwrap(e.getCause());
+            if (cause instanceof BeowulfCommunicationException) {
+                throw (BeowulfCommunicationException) cause;
+            } else if (cause instanceof BeowulfResponseException) {
+                throw (BeowulfResponseException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BeowulfCommunicationException(cause);
+        }
+    }
+
+    /**
+     * Get the time after which the given request should be sent to a second
+     * endpoint.
+     *
+     * @param requestObject The request to send.
+     * @return The delay in milliseconds or <code>-1</code> if the request
+     * should not be hedged.
+     */
+    private long getHedgingDelay(JsonRPCRequest requestObject) {
+        // Never send requests which change the chain more than once.
+        if (config.getHedgingPercentile() <= 0 || !requestObject.getRequestMethod().isIdempotent()
+                || config.getEndpointURIs().size() < 2) {
+            return -1;
+        }
+
+        long latencyPercentile = endpointSelector.getLatencyPercentile(config.getHedgingPercentile());
+        if (latencyPercentile < 0) {
+            return -1;
+        }
+        return Math.max(latencyPercentile, config.getMinimumHedgingDelay());
+    }
+
+    /**
+     * Start a second attempt if the <code>primary</code> attempt has not been
+     * completed after the given <code>delay</code>. The first successful
+     * attempt wins and the other one is cancelled.
+     *
+     * @param primary       The attempt that has already been started.
+     * @param hedgedAttempt Starts the second attempt.
+     * @param delay         The time in milliseconds to wait for the primary attempt.
+     * @param <V>           The type of the result.
+     * @return A future that is completed with the result of the first
+     * successful attempt or the error of the last failed one.
+     */
+    private static <V> CompletableFuture<V> hedge(CompletableFuture<V> primary,
+                                                  Supplier<CompletableFuture<V>> hedgedAttempt, long delay) {
+        CompletableFuture<V> result = new CompletableFuture<>();
+        List<CompletableFuture<V>> attempts = new ArrayList<>();
+        attempts.add(primary);
+
+        BiConsumer<V, Throwable> completion = (value, throwable) -> {
+            if (throwable == null) {
+                result.complete(value);
+                return;
+            }
+            synchronized (attempts) {
+                // Only fail if there is no other attempt left which may succeed.
+                if (attempts.stream().allMatch(CompletableFuture::isDone)) {
+                    result.completeExceptionally(CommunicationExecutors.unwrap(throwable));
+                }
+            }
+        };
+
+        ScheduledFuture<?> hedgingTask = CommunicationExecutors.getScheduler().schedule(() -> {
+            CompletableFuture<V> hedged;
+            synchronized (attempts) {
+                if (result.isDone() || primary.isDone()) {
+                    return;
+                }
+                hedged = hedgedAttempt.get();
+                attempts.add(hedged);
+            }
+            hedged.whenComplete(completion);
+        }, delay, TimeUnit.MILLISECONDS);
+        primary.whenComplete(completion);
+
+        result.whenComplete((value, throwable) -> {
+            hedgingTask.cancel(false);
+            synchronized (attempts) {
+                for (CompletableFuture<V> attempt : attempts) {
+                    attempt.cancel(true);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Transform the raw response of the node into the expected type.
+     */
+    private <T> List<T> handleResponse(JsonRPCResponse rawJsonResponse, JsonRPCRequest requestObject,
+                                       JavaType expectedResultType)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        return rawJsonResponse.handle(expectedResultType, requestObject.getId());
+    }
+
+    /**
+     * Store the answers of the node in the matching entries of a batch. A
+     * single error without an id means that the node rejected the whole
+     * batch, so the call fails instead of any of the entries.
+     */
+    private Void handleBatchResponse(List<JsonRPCResponse> responses, List<JsonRPCBatch.Entry<?>> entries)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        if (responses.size() == 1 && responses.get(0).isBatchError()) {
+            throw responses.get(0).handleBatchError();
+        }
+
+        Map<Long, JsonRPCResponse> responsesById = new HashMap<>();
+        for (JsonRPCResponse response : responses) {
+            Long id = response.getId();
+            if (id != null) {
+                responsesById.put(id, response);
+            }
+        }
+
+        for (JsonRPCBatch.Entry<?> entry : entries) {
+            JsonRPCResponse response = responsesById.get(entry.getRequest().getId());
+            if (response == null) {
+                entry.fail(new BeowulfCommunicationException("The node did not answer the request with the id "
+                        + entry.getRequest().getId() + "."));
             } else {
-                // HANDLE NORMAL RESPONSE
-                JavaType expectedResultType = mapper.getTypeFactory().constructCollectionType(List.class, targetClass);
-                return rawJsonResponse.handleResult(expectedResultType, requestObject.getId());
-            }
-        } catch (BeowulfCommunicationException e) {
-            LOGGER.warn("The connection has been closed. Switching the endpoint and reconnecting.");
-            LOGGER.debug("For the following reason: ", e);
-
-            return performRequest(requestObject, targetClass);
-        } catch (ArrayIndexOutOfBoundsException e) {
-            numberOfConnectionTries = 0;
-            throw new BeowulfCommunicationException("Unable to connect with all the endpoint, please check config or endpoint status.");
+                entry.handleResponse(response);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Let the given <code>response</code> fail with a
+     * {@link BeowulfTimeoutException} if it has not been completed in the
+     * given time.
+     *
+     * @param response        The future to limit.
+     * @param responseTimeout The time in milliseconds or 0 to disable the timeout.
+     * @return The given <code>response</code>.
+     */
+    static <R> CompletableFuture<R> withTimeout(CompletableFuture<R> response, int responseTimeout) {
+        if (responseTimeout > 0 && !response.isDone()) {
+            ScheduledFuture<?> timeout = CommunicationExecutors.getScheduler().schedule(
+                    () -> response.completeExceptionally(new BeowulfTimeoutException(
+                            "Timeout occured. The Beowulf Node was not able to answer in " + responseTimeout
+                                    + " millisecond(s).")),
+                    responseTimeout, TimeUnit.MILLISECONDS);
+            response.whenComplete((value, throwable) -> timeout.cancel(false));
+        }
+
+        return response;
+    }
+
+    /**
+     * Get the earliest deadline of the given requests.
+     *
+     * @param requestObjects The requests.
+     * @return The deadline as a value of {@link System#nanoTime()} or
+     * <code>null</code> if none of the requests has a deadline.
+     */
+    static Long getDeadline(List<JsonRPCRequest> requestObjects) {
+        Long deadline = null;
+        for (JsonRPCRequest requestObject : requestObjects) {
+            Long requestDeadline = requestObject.getDeadline();
+            if (requestDeadline != null && (deadline == null || requestDeadline - deadline < 0)) {
+                deadline = requestDeadline;
+            }
+        }
+
+        return deadline;
+    }
+
+    /**
+     * Get the method reported for the given requests, e.g. in Flight Recorder
+     * events.
+     *
+     * @param requestObjects The requests.
+     * @return The full method name or <code>null</code> for batches
+     * containing different methods.
+     */
+    static String getMethod(List<JsonRPCRequest> requestObjects) {
+        String method = requestObjects.get(0).getMethod();
+        for (JsonRPCRequest requestObject : requestObjects) {
+            if (!method.equals(requestObject.getMethod())) {
+                return null;
+            }
+        }
+        return method;
+    }
+
+    /**
+     * Get the time the node may take to answer the given requests. This is
+     * the longest timeout configured for their methods, shortened to the time
+     * left until their earliest deadline.
+     *
+     * @param config         The configuration to use.
+     * @param requestObjects The requests.
+     * @return The time in milliseconds or 0 if the answer may take forever.
+     */
+    static int getResponseTimeout(BeowulfJConfig config, List<JsonRPCRequest> requestObjects) {
+        int responseTimeout = requestObjects.isEmpty() ? config.getResponseTimeout() : 0;
+        for (JsonRPCRequest requestObject : requestObjects) {
+            int methodResponseTimeout = config.getResponseTimeout(requestObject.getRequestMethod());
+            if (methodResponseTimeout == 0) {
+                responseTimeout = 0;
+                break;
+            }
+            responseTimeout = Math.max(responseTimeout, methodResponseTimeout);
+        }
+
+        Long deadline = getDeadline(requestObjects);
+        if (deadline != null) {
+            // Never return 0, which would disable the timeout.
+            long remainingTime = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            if (responseTimeout == 0 || remainingTime < responseTimeout) {
+                responseTimeout = (int) Math.min(remainingTime, Integer.MAX_VALUE);
+            }
+        }
+
+        return responseTimeout;
+    }
+
+    /**
+     * A request that is shared by all callers which sent an identical request
+     * while it was in flight. It is cancelled once all of them gave up.
+     */
+    private static class SharedRequest {
+        /**
+         * The deadline of the caller that sent the request as a value of
+         * {@link System#nanoTime()} or <code>null</code> if there is none.
+         */
+        private final Long deadline;
+        private final CompletableFuture<Object> response = new CompletableFuture<>();
+        /**
+         * The answer of the node, handed to all waiters.
+         */
+        private final RpcCallOutcome outcome = new RpcCallOutcome();
+        private int waiters = 0;
+        private boolean abandoned = false;
+
+        private SharedRequest(Long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Forward the result of the request sent to the node to all waiters.
+         */
+        private void start(CompletableFuture<?> call) {
+            call.whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    response.completeExceptionally(CommunicationExecutors.unwrap(throwable));
+                } else {
+                    response.complete(value);
+                }
+            });
+            response.whenComplete((value, throwable) -> call.cancel(true));
+        }
+
+        /**
+         * @return <code>true</code> if this request does not give up before
+         * the given deadline.
+         */
+        private boolean outlives(Long callerDeadline) {
+            return deadline == null || (callerDeadline != null && deadline - callerDeadline >= 0);
+        }
+
+        /**
+         * Wait for the result of this request.
+         *
+         * @param callerDeadline The deadline of the caller or <code>null</code>.
+         * @param callerOutcome  Receives the endpoint and the size of the
+         *                       answer.
+         * @return A future for the result or <code>null</code> if all other
+         * waiters gave up and this request has been cancelled.
+         */
+        private synchronized CompletableFuture<Object> join(Long callerDeadline, RpcCallOutcome callerOutcome) {
+            if (abandoned) {
+                return null;
+            }
+            waiters++;
+
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            response.whenComplete((value, throwable) -> {
+                callerOutcome.copy(outcome);
+                if (throwable != null) {
+                    result.completeExceptionally(CommunicationExecutors.unwrap(throwable));
+                } else {
+                    result.complete(value);
+                }
+            });
+            result.whenComplete((value, throwable) -> {
+                if (!response.isDone()) {
+                    leave();
+                }
+            });
+            if (callerDeadline != null && (deadline == null || callerDeadline - deadline < 0)) {
+                withTimeout(result, (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                        TimeUnit.NANOSECONDS.toMillis(callerDeadline - System.nanoTime()))));
+            }
+            return result;
+        }
+
+        private synchronized void leave() {
+            waiters--;
+            if (waiters == 0) {
+                abandoned = true;
+                response.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Transforms the answer of a node.
+     *
+     * @param <R> The type of the answer.
+     * @param <V> The type of the result.
+     */
+    private interface ResponseHandler<R, V> {
+        V handle(R response) throws BeowulfCommunicationException, BeowulfResponseException;
+    }
+
+    /**
+     * Sends a request or a batch of requests to the endpoints chosen by the
+     * {@link EndpointSelector} and sends it again in case of a communication
+     * problem, as long as the configured {@link RetryPolicy} allows it.
+     *
+     * @param <R> The type of the answer.
+     * @param <V> The type of the result.
+     */
+    private class RequestExecution<R, V> {
+        private final List<JsonRPCRequest> requestObjects;
+        private final BiFunction<AbstractClient, Pair<URI, Boolean>, CompletableFuture<R>> invocation;
+        private final ResponseHandler<R, V> responseHandler;
+        private final Set<Pair<URI, Boolean>> usedEndpoints;
+        /**
+         * Receives the endpoint and the size of the answer or is
+         * <code>null</code> if they are not of interest.
+         */
+        private final RpcCallOutcome outcome;
+        private final RetryPolicy retryPolicy;
+        /**
+         * The highest priority of the requests.
+         */
+        private final RequestPriority priority;
+        /**
+         * The earliest deadline of the requests as a value of
+         * {@link System#nanoTime()} or <code>null</code> if there is none.
+         */
+        private final Long deadline;
+        /**
+         * The selector of the handler at the time the execution has been
+         * created, so all attempts are recorded by the same selector.
+         */
+        private final EndpointSelector endpointSelector = CommunicationHandler.this.endpointSelector;
+        /**
+         * The recorder of the config at the time the execution has been
+         * created or <code>null</code> if no metrics are recorded.
+         */
+        private final MetricsRecorder metricsRecorder = config.getMetricsRecorder();
+        /**
+         * The method shared by all requests or <code>null</code> if they use
+         * different methods.
+         */
+        private final RequestMethod requestMethod;
+        /**
+         * The time in nanoseconds after which the execution is logged as slow
+         * or <code>0</code> if slow executions are not logged.
+         */
+        private final long slowRequestThreshold = TimeUnit.MILLISECONDS.toNanos(config.getSlowRequestThreshold());
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        /**
+         * The number of the current attempt. Attempts are performed one after
+         * another, but not necessarily by the same thread.
+         */
+        private volatile int attempt = 0;
+        /**
+         * The endpoint of the previous attempt.
+         */
+        private volatile Pair<URI, Boolean> previousEndpoint;
+        /**
+         * The phases of the current attempt.
+         */
+        private volatile RequestTimings timings;
+        /**
+         * The time (see {@link System#nanoTime()}) the execution started.
+         */
+        private volatile long startTime;
+
+        /**
+         * @param requestObjects  The requests that are sent.
+         * @param invocation      Sends the requests with the given client to the given endpoint.
+         * @param responseHandler Transforms the answer of the node.
+         * @param usedEndpoints   The endpoints the requests have already been
+         *                        sent to. They are avoided as long as other
+         *                        endpoints are available.
+         * @param outcome         Receives the endpoint and the size of the
+         *                        answer or <code>null</code>.
+         */
+        private RequestExecution(List<JsonRPCRequest> requestObjects,
+                                 BiFunction<AbstractClient, Pair<URI, Boolean>, CompletableFuture<R>> invocation,
+                                 ResponseHandler<R, V> responseHandler, Set<Pair<URI, Boolean>> usedEndpoints,
+                                 RpcCallOutcome outcome) {
+            this.requestObjects = requestObjects;
+            this.invocation = invocation;
+            this.responseHandler = responseHandler;
+            this.usedEndpoints = usedEndpoints;
+            this.outcome = outcome;
+            this.retryPolicy = config.getRetryPolicy();
+
+            RequestPriority highestPriority = RequestPriority.BULK;
+            RequestMethod commonMethod = requestObjects.get(0).getRequestMethod();
+            for (JsonRPCRequest requestObject : requestObjects) {
+                if (requestObject.getPriority().compareTo(highestPriority) < 0) {
+                    highestPriority = requestObject.getPriority();
+                }
+                if (requestObject.getRequestMethod() != commonMethod) {
+                    commonMethod = null;
+                }
+            }
+            this.priority = highestPriority;
+            this.requestMethod = commonMethod;
+            this.deadline = getDeadline(requestObjects);
+        }
+
+        /**
+         * Send the requests for the first time.
+         *
+         * @return A future that will be completed with the transformed answer.
+         */
+        private CompletableFuture<V> start() {
+            startTime = System.nanoTime();
+            if (slowRequestThreshold > 0) {
+                result.whenComplete((value, throwable) -> logIfSlow(throwable));
+            }
+            retryPolicy.onRequest(requestObjects);
+            if (deadline != null) {
+                long remainingTime = deadline - System.nanoTime();
+                if (remainingTime <= 0) {
+                    result.completeExceptionally(new BeowulfTimeoutException(
+                            "The deadline of the request passed before it has been sent."));
+                    return result;
+                }
+                // Covers the time spent in queues and between retries as well.
+                ScheduledFuture<?> timeout = CommunicationExecutors.getScheduler().schedule(() -> {
+                    if (result.completeExceptionally(new BeowulfTimeoutException(
+                            "The deadline of the request passed after " + attempt + " attempt(s)."))
+                            && metricsRecorder != null) {
+                        metricsRecorder.onDeadlineExceeded(requestMethod);
+                    }
+                }, remainingTime, TimeUnit.NANOSECONDS);
+                result.whenComplete((value, throwable) -> timeout.cancel(false));
+            }
+            performAttempt();
+            return result;
+        }
+
+        private void performAttempt() {
+            if (result.isDone()) {
+                // The caller is not interested in the answer anymore.
+                return;
+            }
+            attempt++;
+            RequestTimings attemptTimings = new RequestTimings();
+            timings = attemptTimings;
+
+            EndpointSelector.Lease lease;
+            attemptTimings.begin(RequestTimings.Phase.ENDPOINT_SELECTION);
+            try {
+                lease = endpointSelector.select(usedEndpoints);
+            } catch (BeowulfCommunicationException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            attemptTimings.end(RequestTimings.Phase.ENDPOINT_SELECTION);
+            Pair<URI, Boolean> endpoint = lease.getEndpointUri();
+            usedEndpoints.add(endpoint);
+            Pair<URI, Boolean> failedEndpoint = previousEndpoint;
+            previousEndpoint = endpoint;
+            if (metricsRecorder != null && failedEndpoint != null) {
+                metricsRecorder.onRetry(requestMethod, endpoint.getLeft());
+                if (!failedEndpoint.equals(endpoint)) {
+                    metricsRecorder.onFailover(requestMethod, failedEndpoint.getLeft(), endpoint.getLeft());
+                }
+            }
+
+            attemptTimings.begin(RequestTimings.Phase.QUEUE);
+            CompletableFuture<ConcurrencyLimiter.Permit> pendingPermit = getLimiter(endpoint).acquire(priority);
+            // Give up the place in the queue if the caller gives up.
+            result.whenComplete((value, throwable) -> pendingPermit.cancel(false));
+            pendingPermit.whenComplete((permit, throwable) -> {
+                if (throwable != null) {
+                    endpointSelector.recordCancellation(lease);
+                    result.completeExceptionally(CommunicationExecutors.unwrap(throwable));
+                } else if (result.isDone()) {
+                    endpointSelector.recordCancellation(lease);
+                    permit.release();
+                } else {
+                    attemptTimings.end(RequestTimings.Phase.QUEUE);
+                    send(lease, permit, attemptTimings);
+                }
+            });
+        }
+
+        private void send(EndpointSelector.Lease lease, ConcurrencyLimiter.Permit permit,
+                          RequestTimings attemptTimings) {
+            Pair<URI, Boolean> endpoint = lease.getEndpointUri();
+            long startTime = System.nanoTime();
+            if (metricsRecorder != null) {
+                metricsRecorder.onAttemptStarted(requestMethod, endpoint.getLeft());
+            }
+            CompletableFuture<R> response;
+            try {
+                response = withTimeout(invocation.apply(getClient(endpoint), endpoint),
+                        getResponseTimeout(config, requestObjects));
+            } catch (RuntimeException e) {
+                endpointSelector.recordCancellation(lease);
+                permit.release();
+                if (metricsRecorder != null) {
+                    metricsRecorder.onAttemptCompleted(requestMethod, endpoint.getLeft(),
+                            System.nanoTime() - startTime, e);
+                }
+                result.completeExceptionally(e);
+                return;
+            }
+
+            // Release the transport resources if the caller gives up.
+            result.whenComplete((value, throwable) -> response.cancel(true));
+
+            response.whenComplete((rawJsonResponse, throwable) -> {
+                try {
+                    if (metricsRecorder != null) {
+                        metricsRecorder.onAttemptCompleted(requestMethod, endpoint.getLeft(),
+                                System.nanoTime() - startTime,
+                                throwable == null ? null : CommunicationExecutors.unwrap(throwable));
+                    }
+                    if (throwable != null) {
+                        Throwable cause = CommunicationExecutors.unwrap(throwable);
+                        if (cause instanceof CancellationException) {
+                            endpointSelector.recordCancellation(lease);
+                            permit.release();
+                        } else {
+                            endpointSelector.recordFailure(lease);
+                            permit.onDropped();
+                        }
+                        throw cause;
+                    }
+                    long latency = System.nanoTime() - startTime;
+                    endpointSelector.recordSuccess(lease, latency);
+                    permit.onSuccess(latency);
+                    LOGGER.debug("Received {} ", rawJsonResponse);
+
+                    RequestTimings responseTimings = getTimings(rawJsonResponse);
+                    if (responseTimings != null) {
+                        attemptTimings.merge(responseTimings);
+                    }
+                    if (outcome != null) {
+                        outcome.record(endpoint.getLeft(), rawJsonResponse instanceof JsonRPCResponse
+                                ? ((JsonRPCResponse) rawJsonResponse).getContentLength() : -1);
+                    }
+                    result.complete(handle(rawJsonResponse, attemptTimings));
+                } catch (BeowulfCommunicationException e) {
+                    retry(endpoint, e);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        /**
+         * Transform the answer and record the time it took.
+         */
+        private V handle(R rawJsonResponse, RequestTimings attemptTimings)
+                throws BeowulfCommunicationException, BeowulfResponseException {
+            long startTime = System.nanoTime();
+            try {
+                return responseHandler.handle(rawJsonResponse);
+            } finally {
+                long bindingTime = System.nanoTime() - startTime;
+                attemptTimings.record(RequestTimings.Phase.BINDING, bindingTime);
+                if (metricsRecorder != null) {
+                    metricsRecorder.onDeserialization(requestMethod, bindingTime);
+                }
+            }
+        }
+
+        /**
+         * Get the phases the client recorded for the given answer.
+         *
+         * @return The timings or <code>null</code> if the client did not
+         * record them.
+         */
+        private RequestTimings getTimings(R rawJsonResponse) {
+            Object response = rawJsonResponse;
+            if (response instanceof List && !((List<?>) response).isEmpty()) {
+                // The responses of a batch share the timings of the batch.
+                response = ((List<?>) response).get(0);
+            }
+            return response instanceof JsonRPCResponse ? ((JsonRPCResponse) response).getTimings() : null;
+        }
+
+        /**
+         * Write the phases of the last attempt to the slow request log if the
+         * execution took longer than the threshold.
+         *
+         * @param throwable The reason the execution failed or
+         *                  <code>null</code>.
+         */
+        private void logIfSlow(Throwable throwable) {
+            long totalTime = System.nanoTime() - startTime;
+            Throwable failure = throwable == null ? null : CommunicationExecutors.unwrap(throwable);
+            // Executions are cancelled if the caller lost interest, e.g. a
+            // hedged request whose twin has been answered first.
+            if (totalTime < slowRequestThreshold || failure instanceof CancellationException) {
+                return;
+            }
+
+            Pair<URI, Boolean> endpoint = previousEndpoint;
+            SlowRequestLog.getInstance().log(getMethod(requestObjects), requestObjects.size(),
+                    endpoint == null ? null : endpoint.getLeft(), totalTime, attempt, failure, timings);
+        }
+
+        private void retry(Pair<URI, Boolean> endpoint, BeowulfCommunicationException cause) {
+            long retryDelay = retryPolicy.getRetryDelay(requestObjects, attempt, cause);
+            if (retryDelay < 0) {
+                LOGGER.debug("Giving up after {} attempt(s).", attempt);
+                result.completeExceptionally(cause);
+                return;
+            } else if (deadline != null
+                    && deadline - System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(retryDelay) <= 0) {
+                LOGGER.debug("Giving up after {} attempt(s) as the deadline would pass before the next one.", attempt);
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            LOGGER.warn("The connection to {} has been closed. Switching the endpoint and reconnecting in {} ms.",
+                    endpoint.getLeft(), retryDelay);
+            LOGGER.debug("For the following reason: ", cause);
+            // Always use the scheduler so retries never grow the stack.
+            CommunicationExecutors.getScheduler().schedule(this::performAttempt, retryDelay, TimeUnit.MILLISECONDS);
         }
     }
 }
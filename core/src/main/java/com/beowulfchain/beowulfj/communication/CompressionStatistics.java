@@ -0,0 +1,165 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects how much data has been saved by compressing the traffic to the
+ * nodes and how much CPU time that took. The numbers are shared by all
+ * BeowulfJ clients of the JVM and only grow while compression is enabled
+ * (@see
+ * {@link com.beowulfchain.beowulfj.configuration.BeowulfJConfig#setCompressionEnabled(boolean)}).
+ */
+public final class CompressionStatistics {
+    private static final CompressionStatistics INSTANCE = new CompressionStatistics();
+
+    private final LongAdder compressedBytesReceived = new LongAdder();
+    private final LongAdder uncompressedBytesReceived = new LongAdder();
+    private final LongAdder decompressionTime = new LongAdder();
+    private final LongAdder compressedBytesSent = new LongAdder();
+    private final LongAdder uncompressedBytesSent = new LongAdder();
+    private final LongAdder compressionTime = new LongAdder();
+
+    private CompressionStatistics() {
+    }
+
+    /**
+     * @return The statistics of this JVM.
+     */
+    public static CompressionStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record a compressed answer which has been decompressed.
+     *
+     * @param compressedBytes   The size of the answer as received.
+     * @param uncompressedBytes The size of the decompressed answer.
+     * @param nanos             The time spent decompressing in nanoseconds.
+     */
+    void recordDecompression(long compressedBytes, long uncompressedBytes, long nanos) {
+        compressedBytesReceived.add(compressedBytes);
+        uncompressedBytesReceived.add(uncompressedBytes);
+        decompressionTime.add(Math.max(0, nanos));
+    }
+
+    /**
+     * Record a request which has been compressed before sending it.
+     *
+     * @param uncompressedBytes The size of the request.
+     * @param compressedBytes   The size of the request as sent.
+     * @param nanos             The time spent compressing in nanoseconds.
+     */
+    void recordCompression(long uncompressedBytes, long compressedBytes, long nanos) {
+        uncompressedBytesSent.add(uncompressedBytes);
+        compressedBytesSent.add(compressedBytes);
+        compressionTime.add(Math.max(0, nanos));
+    }
+
+    /**
+     * @return The number of compressed bytes received from the nodes.
+     */
+    public long getCompressedBytesReceived() {
+        return compressedBytesReceived.sum();
+    }
+
+    /**
+     * @return The number of bytes the compressed answers have been
+     * decompressed to.
+     */
+    public long getUncompressedBytesReceived() {
+        return uncompressedBytesReceived.sum();
+    }
+
+    /**
+     * @return The time spent decompressing answers in nanoseconds.
+     */
+    public long getDecompressionTime() {
+        return decompressionTime.sum();
+    }
+
+    /**
+     * @return The number of compressed bytes sent to the nodes.
+     */
+    public long getCompressedBytesSent() {
+        return compressedBytesSent.sum();
+    }
+
+    /**
+     * @return The number of bytes of the requests before they have been
+     * compressed.
+     */
+    public long getUncompressedBytesSent() {
+        return uncompressedBytesSent.sum();
+    }
+
+    /**
+     * @return The time spent compressing requests in nanoseconds.
+     */
+    public long getCompressionTime() {
+        return compressionTime.sum();
+    }
+
+    /**
+     * Get the ratio between the decompressed and the compressed size of all
+     * compressed answers, e.g. <code>5.0</code> if they have been compressed
+     * to a fifth of their size.
+     *
+     * @return The compression ratio or <code>0</code> if no compressed answer
+     * has been received yet.
+     */
+    public double getReceivedCompressionRatio() {
+        return ratio(getUncompressedBytesReceived(), getCompressedBytesReceived());
+    }
+
+    /**
+     * Get the ratio between the original and the compressed size of all
+     * compressed requests.
+     *
+     * @return The compression ratio or <code>0</code> if no request has been
+     * compressed yet.
+     */
+    public double getSentCompressionRatio() {
+        return ratio(getUncompressedBytesSent(), getCompressedBytesSent());
+    }
+
+    private static double ratio(long uncompressedBytes, long compressedBytes) {
+        return compressedBytes == 0 ? 0 : (double) uncompressedBytes / compressedBytes;
+    }
+
+    /**
+     * Reset all numbers to zero.
+     */
+    public void reset() {
+        compressedBytesReceived.reset();
+        uncompressedBytesReceived.reset();
+        decompressionTime.reset();
+        compressedBytesSent.reset();
+        uncompressedBytesSent.reset();
+        compressionTime.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStatistics{received=" + getCompressedBytesReceived() + "/" + getUncompressedBytesReceived()
+                + " bytes, decompressionTime=" + TimeUnit.NANOSECONDS.toMillis(getDecompressionTime()) + " ms"
+                + ", sent=" + getCompressedBytesSent() + "/" + getUncompressedBytesSent()
+                + " bytes, compressionTime=" + TimeUnit.NANOSECONDS.toMillis(getCompressionTime()) + " ms}";
+    }
+}
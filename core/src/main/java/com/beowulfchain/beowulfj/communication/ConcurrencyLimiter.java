@@ -0,0 +1,424 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.RequestPriority;
+import com.beowulfchain.beowulfj.exceptions.BeowulfRequestRejectedException;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of requests in flight to a single endpoint.
+ *
+ * <p>
+ * The limit adapts to the behavior of the endpoint (additive increase,
+ * multiplicative decrease): every answered request raises the limit by
+ * <code>1 / limit</code>, so it grows by about one per round trip while it
+ * is actually used. A failed request or an answer that took much longer than
+ * usual is seen as a sign of overload and shrinks the limit by 10%, at most
+ * once for all requests sent with the old limit.
+ * </p>
+ *
+ * <p>
+ * Requests exceeding the limit wait in a bounded queue per
+ * {@link RequestPriority}. Once the queue of a priority is full, further
+ * requests of that priority are rejected with a
+ * {@link BeowulfRequestRejectedException}. A free slot is given to the
+ * waiting priorities in proportion to their weights (smooth weighted round
+ * robin), unless a request waited longer than the starvation threshold, which
+ * is sent first. Each priority may only use its share of the limit, so the
+ * remaining capacity stays available for the other priorities.
+ * </p>
+ */
+public class ConcurrencyLimiter {
+    private static final int MINIMUM_LIMIT = 1;
+    private static final double BACKOFF_RATIO = 0.9;
+    /**
+     * An answer taking longer than this multiple of the average latency is
+     * seen as a sign of overload.
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+    /**
+     * The weight of a new latency in the long-term average.
+     */
+    private static final double SMOOTHING_FACTOR = 0.05;
+
+    private final URI endpointUri;
+    private final int maximumLimit;
+    private final int maximumQueueLength;
+    /**
+     * The time in nanoseconds after which a waiting request is sent first, or
+     * 0 if requests are only chosen by their weight.
+     */
+    private final long starvationThreshold;
+    /**
+     * The state of each priority, indexed by its ordinal.
+     */
+    private final Lane[] lanes;
+    private double limit;
+    private int inFlightRequests;
+    /**
+     * The long-term average latency in nanoseconds, or 0 if unknown.
+     */
+    private double averageLatency;
+    /**
+     * The last time (see {@link System#nanoTime()}) the limit has been
+     * decreased.
+     */
+    private long lastDecrease = System.nanoTime();
+
+    /**
+     * Create a new limiter that treats all priorities equally.
+     *
+     * @param endpointUri        The endpoint whose requests are limited.
+     * @param initialLimit       The limit to start with.
+     * @param maximumLimit       The upper bound for the limit or 0 to
+     *                           disable the limit.
+     * @param maximumQueueLength The number of requests of each priority that
+     *                           may wait once the limit is reached.
+     */
+    public ConcurrencyLimiter(URI endpointUri, int initialLimit, int maximumLimit, int maximumQueueLength) {
+        this(endpointUri, initialLimit, maximumLimit, maximumQueueLength, null);
+    }
+
+    /**
+     * Create a new limiter that uses the priority weights, capacity shares and
+     * the starvation threshold of the given config.
+     *
+     * @param endpointUri  The endpoint whose requests are limited.
+     * @param initialLimit The limit to start with.
+     * @param maximumLimit The upper bound for the limit or 0 to disable the
+     *                     limit.
+     * @param config       The config of the client.
+     */
+    public ConcurrencyLimiter(URI endpointUri, int initialLimit, int maximumLimit, BeowulfJConfig config) {
+        this(endpointUri, initialLimit, maximumLimit, config.getMaximumQueuedRequests(), config);
+    }
+
+    private ConcurrencyLimiter(URI endpointUri, int initialLimit, int maximumLimit, int maximumQueueLength,
+                               BeowulfJConfig config) {
+        this.endpointUri = endpointUri;
+        this.maximumLimit = maximumLimit;
+        this.maximumQueueLength = maximumQueueLength;
+        this.limit = Math.max(MINIMUM_LIMIT, Math.min(initialLimit, maximumLimit));
+        this.starvationThreshold = config == null ? 0
+                : TimeUnit.MILLISECONDS.toNanos(config.getStarvationThreshold());
+        this.lanes = new Lane[RequestPriority.values().length];
+        for (RequestPriority priority : RequestPriority.values()) {
+            lanes[priority.ordinal()] = config == null ? new Lane(priority, 1, 1)
+                    : new Lane(priority, config.getPriorityWeight(priority),
+                    config.getPriorityCapacityShare(priority));
+        }
+    }
+
+    /**
+     * Like {@link #acquire(RequestPriority)}, but uses
+     * {@link RequestPriority#INTERACTIVE}.
+     *
+     * @return A future that will be completed with the permit.
+     */
+    public CompletableFuture<Permit> acquire() {
+        return acquire(RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Ask for the permission to send a request. Once the request is done,
+     * exactly one method of the returned {@link Permit} has to be called.
+     *
+     * @param priority The priority of the request.
+     * @return A future that will be completed with the permit as soon as the
+     * request may be sent, or with a {@link BeowulfRequestRejectedException}
+     * if too many requests of the same priority are waiting. Cancelling the
+     * future gives up the place in the queue.
+     */
+    public CompletableFuture<Permit> acquire(RequestPriority priority) {
+        Lane lane = lanes[priority.ordinal()];
+        CompletableFuture<Permit> pendingPermit = new CompletableFuture<>();
+        Waiter waiter;
+        synchronized (this) {
+            if (maximumLimit == 0 || (lane.queue.isEmpty() && hasCapacity(lane))) {
+                inFlightRequests++;
+                lane.inFlightRequests++;
+                pendingPermit.complete(new Permit(lane));
+                return pendingPermit;
+            } else if (lane.queue.size() < maximumQueueLength) {
+                waiter = new Waiter(pendingPermit, System.nanoTime());
+                lane.queue.add(waiter);
+            } else {
+                pendingPermit.completeExceptionally(new BeowulfRequestRejectedException("There are already "
+                        + inFlightRequests + " request(s) in flight and " + lane.queue.size() + " "
+                        + priority.name().toLowerCase() + " request(s) waiting for " + endpointUri + "."));
+                return pendingPermit;
+            }
+        }
+
+        pendingPermit.whenComplete((permit, throwable) -> {
+            if (throwable != null) {
+                synchronized (this) {
+                    lane.queue.remove(waiter);
+                }
+            }
+        });
+        return pendingPermit;
+    }
+
+    /**
+     * @return The current limit.
+     */
+    public synchronized int getLimit() {
+        return maximumLimit == 0 ? Integer.MAX_VALUE : (int) limit;
+    }
+
+    /**
+     * @return The number of requests in flight.
+     */
+    public synchronized int getInFlightRequests() {
+        return inFlightRequests;
+    }
+
+    /**
+     * @param priority The priority of the requests.
+     * @return The number of requests of the given priority in flight.
+     */
+    public synchronized int getInFlightRequests(RequestPriority priority) {
+        return lanes[priority.ordinal()].inFlightRequests;
+    }
+
+    /**
+     * @return The number of requests waiting for a permit.
+     */
+    public synchronized int getQueuedRequests() {
+        int queuedRequests = 0;
+        for (Lane lane : lanes) {
+            queuedRequests += lane.queue.size();
+        }
+        return queuedRequests;
+    }
+
+    /**
+     * @param priority The priority of the requests.
+     * @return The number of requests of the given priority waiting for a
+     * permit.
+     */
+    public synchronized int getQueuedRequests(RequestPriority priority) {
+        return lanes[priority.ordinal()].queue.size();
+    }
+
+    /**
+     * Check if a request of the given lane may be sent now.
+     */
+    private boolean hasCapacity(Lane lane) {
+        int laneLimit = Math.max(MINIMUM_LIMIT, (int) (limit * lane.capacityShare));
+        return inFlightRequests < (int) limit && lane.inFlightRequests < laneLimit;
+    }
+
+    /**
+     * Choose the priority whose next waiting request should be sent.
+     *
+     * @return The lane of the priority or <code>null</code> if no waiting
+     * request may be sent now.
+     */
+    private Lane selectLane(long now) {
+        Lane selected = null;
+        if (starvationThreshold > 0) {
+            long longestWait = starvationThreshold - 1;
+            for (Lane lane : lanes) {
+                Waiter head = lane.queue.peek();
+                if (head != null && now - head.enqueuedAt > longestWait && hasCapacity(lane)) {
+                    longestWait = now - head.enqueuedAt;
+                    selected = lane;
+                }
+            }
+            if (selected != null) {
+                return selected;
+            }
+        }
+
+        int totalWeight = 0;
+        for (Lane lane : lanes) {
+            if (!lane.queue.isEmpty() && hasCapacity(lane)) {
+                lane.currentWeight += lane.weight;
+                totalWeight += lane.weight;
+                if (selected == null || lane.currentWeight > selected.currentWeight) {
+                    selected = lane;
+                }
+            }
+        }
+        if (selected != null) {
+            selected.currentWeight -= totalWeight;
+        }
+        return selected;
+    }
+
+    /**
+     * Adapt the limit to the outcome of a request.
+     */
+    private synchronized void adapt(long startTime, long latency, boolean dropped) {
+        if (maximumLimit == 0) {
+            return;
+        }
+
+        if (!dropped) {
+            dropped = averageLatency > 0 && latency > averageLatency * LATENCY_TOLERANCE;
+            averageLatency = averageLatency > 0
+                    ? SMOOTHING_FACTOR * latency + (1 - SMOOTHING_FACTOR) * averageLatency
+                    : latency;
+        }
+
+        if (dropped) {
+            // Requests sent before the last decrease reflect the old limit.
+            if (startTime - lastDecrease > 0) {
+                limit = Math.max(MINIMUM_LIMIT, limit * BACKOFF_RATIO);
+                lastDecrease = System.nanoTime();
+            }
+        } else if (inFlightRequests * 2 >= limit) {
+            // Only grow the limit while it is actually used.
+            limit = Math.min(maximumLimit, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * Free the slot of a finished request and hand the free capacity over to
+     * the waiting requests.
+     */
+    private void releaseSlot(Lane finishedLane) {
+        synchronized (this) {
+            inFlightRequests--;
+            finishedLane.inFlightRequests--;
+        }
+
+        while (true) {
+            Lane lane;
+            Waiter next;
+            synchronized (this) {
+                lane = maximumLimit == 0 ? null : selectLane(System.nanoTime());
+                if (lane == null) {
+                    return;
+                }
+                next = lane.queue.poll();
+                inFlightRequests++;
+                lane.inFlightRequests++;
+            }
+
+            // Complete the future outside of the lock, as this runs the
+            // request.
+            if (!next.pendingPermit.complete(new Permit(lane))) {
+                // The request stopped waiting in the meantime.
+                synchronized (this) {
+                    inFlightRequests--;
+                    lane.inFlightRequests--;
+                }
+            }
+        }
+    }
+
+    /**
+     * The waiting requests and the requests in flight of one priority.
+     */
+    private static final class Lane {
+        private final RequestPriority priority;
+        private final int weight;
+        private final double capacityShare;
+        private final Deque<Waiter> queue = new ArrayDeque<>();
+        private int inFlightRequests;
+        /**
+         * The state of the smooth weighted round robin.
+         */
+        private int currentWeight;
+
+        private Lane(RequestPriority priority, int weight, double capacityShare) {
+            this.priority = priority;
+            this.weight = weight;
+            this.capacityShare = capacityShare;
+        }
+    }
+
+    /**
+     * A request waiting for a permit.
+     */
+    private static final class Waiter {
+        private final CompletableFuture<Permit> pendingPermit;
+        /**
+         * The time (see {@link System#nanoTime()}) the request started to
+         * wait.
+         */
+        private final long enqueuedAt;
+
+        private Waiter(CompletableFuture<Permit> pendingPermit, long enqueuedAt) {
+            this.pendingPermit = pendingPermit;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * The permission to send one request.
+     */
+    public final class Permit {
+        private final Lane lane;
+        private final long startTime = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        /**
+         * @return The priority the permit has been granted for.
+         */
+        public RequestPriority getPriority() {
+            return lane.priority;
+        }
+
+        /**
+         * Record that the endpoint answered the request.
+         *
+         * @param latency The time in nanoseconds the endpoint needed to answer.
+         */
+        public void onSuccess(long latency) {
+            if (released.compareAndSet(false, true)) {
+                adapt(startTime, latency, false);
+                releaseSlot(lane);
+            }
+        }
+
+        /**
+         * Record that the request failed or timed out.
+         */
+        public void onDropped() {
+            if (released.compareAndSet(false, true)) {
+                adapt(startTime, 0, true);
+                releaseSlot(lane);
+            }
+        }
+
+        /**
+         * Give the permit back without recording an outcome, e.g. because the
+         * request has been cancelled.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                releaseSlot(lane);
+            }
+        }
+    }
+}
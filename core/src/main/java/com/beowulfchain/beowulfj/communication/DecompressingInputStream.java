@@ -0,0 +1,206 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompresses a <code>gzip</code> or <code>deflate</code> encoded HTTP body
+ * while it is read, so the compressed body never has to be held in memory.
+ * The sizes and the time spent decompressing are added to the
+ * {@link CompressionStatistics} once the end of the body has been reached or
+ * the stream is closed. Time spent waiting for the network is not counted.
+ */
+final class DecompressingInputStream extends InputStream {
+    /**
+     * The value of the <code>Accept-Encoding</code> header sent if
+     * compression is enabled.
+     */
+    static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private final MeteredInputStream source;
+    private final InputStream decoder;
+    private final Inflater inflater;
+    private long uncompressedBytes;
+    private long nanos;
+    private boolean closed;
+
+    /**
+     * Create a new stream.
+     *
+     * @param compressed      The body as received.
+     * @param contentEncoding The value of the <code>Content-Encoding</code>
+     *                        header (@see {@link #isSupported(String)}).
+     * @throws IOException If the header of the compressed body could not be
+     *                     read.
+     */
+    DecompressingInputStream(InputStream compressed, String contentEncoding) throws IOException {
+        this.source = new MeteredInputStream(compressed);
+        long start = System.nanoTime();
+        String encoding = normalize(contentEncoding);
+        if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+            this.inflater = null;
+            this.decoder = new GZIPInputStream(source);
+        } else if (encoding.equals("deflate")) {
+            // The body should be wrapped in the zlib format, but some servers
+            // send raw deflate data.
+            PushbackInputStream pushbackStream = new PushbackInputStream(source, 2);
+            byte[] header = new byte[2];
+            int length = 0;
+            int read;
+            while (length < header.length
+                    && (read = pushbackStream.read(header, length, header.length - length)) >= 0) {
+                length += read;
+            }
+            pushbackStream.unread(header, 0, length);
+            this.inflater = new Inflater(length == 2 && !isZlibHeader(header));
+            this.decoder = new InflaterInputStream(pushbackStream, inflater);
+        } else {
+            throw new IOException("Unsupported content encoding: " + contentEncoding);
+        }
+        this.nanos = System.nanoTime() - start;
+    }
+
+    /**
+     * @param contentEncoding The value of a <code>Content-Encoding</code>
+     *                        header.
+     * @return <code>true</code> if bodies with the given encoding can be
+     * decompressed.
+     */
+    static boolean isSupported(String contentEncoding) {
+        String encoding = normalize(contentEncoding);
+        return encoding.equals("gzip") || encoding.equals("x-gzip") || encoding.equals("deflate");
+    }
+
+    private static String normalize(String contentEncoding) {
+        return contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isZlibHeader(byte[] header) {
+        int compressionMethod = header[0] & 0x0f;
+        int check = ((header[0] & 0xff) << 8) | (header[1] & 0xff);
+        return compressionMethod == 8 && check % 31 == 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] buffer = new byte[1];
+        int read = read(buffer, 0, 1);
+        return read < 0 ? -1 : buffer[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (closed) {
+            return -1;
+        }
+
+        long start = System.nanoTime();
+        int read;
+        try {
+            read = decoder.read(buffer, offset, length);
+            if (read > 0) {
+                uncompressedBytes += read;
+            }
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+        if (read < 0) {
+            // The connection pool wraps this stream and does not close it
+            // once the end has been reached.
+            close();
+        }
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return closed ? 0 : decoder.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            decoder.close();
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+            CompressionStatistics.getInstance().recordDecompression(source.bytes, uncompressedBytes,
+                    nanos - source.nanos);
+        }
+    }
+
+    /**
+     * Counts the compressed bytes and the time spent waiting for them.
+     */
+    private static final class MeteredInputStream extends FilterInputStream {
+        private long bytes;
+        private long nanos;
+
+        private MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            try {
+                int read = super.read();
+                if (read >= 0) {
+                    bytes++;
+                }
+                return read;
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            try {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytes += read;
+                }
+                return read;
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            bytes += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.chain.CompletedTransaction;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.plugins.apis.block.models.GetBlockArgs;
+import com.beowulfchain.beowulfj.plugins.apis.block.models.GetBlockHeaderArgs;
+import com.beowulfchain.beowulfj.plugins.apis.block.models.GetBlockHeaderReturn;
+import com.beowulfchain.beowulfj.plugins.apis.block.models.GetBlockReturn;
+
+import java.util.List;
+
+/**
+ * The {@link CachePolicy} used by default.
+ * <p>
+ * <ul>
+ * <li>The chain configuration (<code>get_config</code>) never changes.</li>
+ * <li>Blocks and block headers are kept forever once they are irreversible.
+ * Reversible blocks are never cached.</li>
+ * <li>Transactions (<code>get_transaction</code>) are kept forever once the
+ * block including them is irreversible.</li>
+ * <li>The dynamic global properties and the supernode schedule change with
+ * every block and are only kept for a fraction of the block interval.</li>
+ * </ul>
+ */
+public class DefaultCachePolicy implements CachePolicy {
+    private final long propertiesTimeToLive;
+
+    /**
+     * Create a cache policy that keeps the dynamic global properties and the
+     * supernode schedule for one second, which is a third of the block
+     * interval.
+     */
+    public DefaultCachePolicy() {
+        this(1000);
+    }
+
+    /**
+     * Create a new cache policy.
+     *
+     * @param propertiesTimeToLive The time in milliseconds the dynamic global
+     *                             properties and the supernode schedule are
+     *                             kept, or <code>0</code> to never cache them.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public DefaultCachePolicy(long propertiesTimeToLive) {
+        if (propertiesTimeToLive < 0) {
+            throw new IllegalArgumentException("The time to live can't be negative.");
+        }
+        this.propertiesTimeToLive = propertiesTimeToLive;
+    }
+
+    @Override
+    public boolean isCacheable(JsonRPCRequest requestObject) {
+        switch (requestObject.getRequestMethod()) {
+            case GET_CONFIG:
+            case GET_BLOCK:
+            case GET_BLOCK_HEADER:
+            case GET_TRANSACTION:
+                return true;
+            case GET_DYNAMIC_GLOBAL_PROPERTIES:
+            case GET_SUPERNODE_SCHEDULE:
+                return propertiesTimeToLive > 0;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public long getTimeToLive(JsonRPCRequest requestObject, List<?> result, long lastIrreversibleBlockNum) {
+        if (result == null || result.isEmpty() || result.get(0) == null) {
+            return NOT_CACHED;
+        }
+        Object value = result.get(0);
+
+        switch (requestObject.getRequestMethod()) {
+            case GET_CONFIG:
+                return FOREVER;
+            case GET_BLOCK:
+            case GET_BLOCK_HEADER:
+                if ((value instanceof GetBlockReturn && !((GetBlockReturn) value).getBlock().isPresent())
+                        || (value instanceof GetBlockHeaderReturn
+                        && !((GetBlockHeaderReturn) value).getHeader().isPresent())) {
+                    // The block does not exist yet.
+                    return NOT_CACHED;
+                }
+                return isIrreversible(getBlockNumber(requestObject.getParams()), lastIrreversibleBlockNum)
+                        ? FOREVER : NOT_CACHED;
+            case GET_TRANSACTION:
+                return value instanceof CompletedTransaction
+                        && isIrreversible(((CompletedTransaction) value).getBlockNum(), lastIrreversibleBlockNum)
+                        ? FOREVER : NOT_CACHED;
+            case GET_DYNAMIC_GLOBAL_PROPERTIES:
+            case GET_SUPERNODE_SCHEDULE:
+                return propertiesTimeToLive;
+            default:
+                return NOT_CACHED;
+        }
+    }
+
+    private static boolean isIrreversible(long blockNumber, long lastIrreversibleBlockNum) {
+        return blockNumber > 0 && blockNumber <= lastIrreversibleBlockNum;
+    }
+
+    /**
+     * Get the requested block number from the parameters of the
+     * <code>block_api</code> or the <code>condenser_api</code>.
+     *
+     * @return The block number or <code>-1</code> if it is unknown.
+     */
+    private static long getBlockNumber(Object params) {
+        Number blockNumber = null;
+        if (params instanceof GetBlockArgs) {
+            blockNumber = ((GetBlockArgs) params).getBlockNumber();
+        } else if (params instanceof GetBlockHeaderArgs) {
+            blockNumber = ((GetBlockHeaderArgs) params).getBlockNumber();
+        } else if (params instanceof List && ((List<?>) params).size() == 1
+                && ((List<?>) params).get(0) instanceof Number) {
+            blockNumber = (Number) ((List<?>) params).get(0);
+        }
+
+        return blockNumber != null ? blockNumber.longValue() : -1;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfConnectionException;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link RetryPolicy} used by default.
+ * <p>
+ * <ul>
+ * <li>A request is sent at most <code>maximumAttempts</code> times.</li>
+ * <li>The wait time between two attempts grows exponentially, starting with
+ * <code>initialBackoff</code> and limited by <code>maximumBackoff</code>. A
+ * random part of it is used to spread the retries of multiple threads.</li>
+ * <li>Retries are limited by a budget shared by all threads: Each retry costs
+ * one token and each request adds <code>tokenRatio</code> tokens. If less
+ * than half of <code>maximumTokens</code> are left, requests fail immediately
+ * instead of putting even more load on struggling nodes.</li>
+ * <li>Requests which are not {@link
+ * com.beowulfchain.beowulfj.enums.RequestMethod#isIdempotent() idempotent},
+ * like broadcasts, are only sent again if they did not reach the node at
+ * all.</li>
+ * </ul>
+ */
+public class DefaultRetryPolicy implements RetryPolicy {
+    /**
+     * Tokens are stored in thousandths to allow fractional ratios.
+     */
+    private static final long TOKEN_SCALE = 1000;
+
+    private final int maximumAttempts;
+    private final long initialBackoff;
+    private final long maximumBackoff;
+    private final long maximumTokens;
+    private final long tokenRatio;
+    private final AtomicLong tokens;
+
+    /**
+     * Create a retry policy that sends a request at most 3 times, waits
+     * between 50 and 2000 milliseconds and allows a retry for one out of ten
+     * requests on average.
+     */
+    public DefaultRetryPolicy() {
+        this(3, 50, 2000, 10, 0.1);
+    }
+
+    /**
+     * Create a new retry policy.
+     *
+     * @param maximumAttempts The maximum number of times a request is sent,
+     *                        including the first attempt.
+     * @param initialBackoff  The maximum wait time in milliseconds before the
+     *                        first retry.
+     * @param maximumBackoff  The upper limit in milliseconds for the wait time.
+     * @param maximumTokens   The size of the retry budget.
+     * @param tokenRatio      The number of tokens added to the budget by each
+     *                        request.
+     * @throws IllegalArgumentException If one of the values is out of range.
+     */
+    public DefaultRetryPolicy(int maximumAttempts, long initialBackoff, long maximumBackoff, int maximumTokens,
+                              double tokenRatio) {
+        if (maximumAttempts < 1) {
+            throw new IllegalArgumentException("The maximum number of attempts has to be greater than 0.");
+        } else if (initialBackoff < 0 || maximumBackoff < initialBackoff) {
+            throw new IllegalArgumentException(
+                    "The backoff has to be positive and the maximum backoff can't be lower than the initial one.");
+        } else if (maximumTokens < 1 || tokenRatio < 0) {
+            throw new IllegalArgumentException("The retry budget has to be positive.");
+        }
+
+        this.maximumAttempts = maximumAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maximumBackoff = maximumBackoff;
+        this.maximumTokens = maximumTokens * TOKEN_SCALE;
+        this.tokenRatio = Math.round(tokenRatio * TOKEN_SCALE);
+        this.tokens = new AtomicLong(this.maximumTokens);
+    }
+
+    @Override
+    public void onRequest(List<JsonRPCRequest> requestObjects) {
+        tokens.accumulateAndGet(tokenRatio, (current, ratio) -> Math.min(maximumTokens, current + ratio));
+    }
+
+    @Override
+    public long getRetryDelay(List<JsonRPCRequest> requestObjects, int attempt,
+                              BeowulfCommunicationException cause) {
+        if (attempt >= maximumAttempts) {
+            return -1;
+        }
+
+        for (JsonRPCRequest requestObject : requestObjects) {
+            // The node may have processed the request already if the
+            // connection broke after it has been sent.
+            if (!requestObject.getRequestMethod().isIdempotent() && !(cause instanceof BeowulfConnectionException)) {
+                return -1;
+            }
+        }
+
+        if (!withdrawToken()) {
+            return -1;
+        }
+
+        long backoff = Math.min(maximumBackoff, initialBackoff << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    /**
+     * @return The number of tokens left in the retry budget.
+     */
+    public double getAvailableTokens() {
+        return (double) tokens.get() / TOKEN_SCALE;
+    }
+
+    /**
+     * Take one token out of the budget.
+     *
+     * @return <code>false</code> if the budget is exhausted.
+     */
+    private boolean withdrawToken() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current - TOKEN_SCALE < maximumTokens / 2) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN_SCALE));
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
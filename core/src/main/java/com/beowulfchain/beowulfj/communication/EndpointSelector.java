@@ -0,0 +1,368 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.CircuitState;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the endpoint for the next request based on the observed health of
+ * the configured endpoints.
+ * <p>
+ * For every endpoint an exponentially weighted moving average of the latency
+ * and the error rate is tracked. Out of two randomly picked, healthy endpoints
+ * the one with the better score (latency weighted by the error rate and the
+ * number of requests in flight) is used, so fast nodes get most of the traffic
+ * while slow nodes are still sampled from time to time.
+ * <p>
+ * Each endpoint is guarded by a circuit breaker. After
+ * {@link BeowulfJConfig#getCircuitBreakerFailureThreshold()} consecutive
+ * failures the endpoint is not used for
+ * {@link BeowulfJConfig#getCircuitBreakerOpenDuration()} milliseconds. Then a
+ * single probe request decides whether the endpoint is used again.
+ */
+public class EndpointSelector {
+    /**
+     * The weight of a new sample in the moving averages.
+     */
+    private static final double SMOOTHING_FACTOR = 0.2;
+    /**
+     * How much an error rate of 100% increases the score of an endpoint.
+     */
+    private static final double ERROR_RATE_PENALTY = 10.0;
+    /**
+     * The number of recent latencies used to calculate percentiles.
+     */
+    private static final int LATENCY_WINDOW_SIZE = 256;
+    /**
+     * The number of latencies required before a percentile is calculated.
+     */
+    private static final int MINIMUM_LATENCY_SAMPLES = 20;
+
+    private final Map<Pair<URI, Boolean>, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final long[] recentLatencies = new long[LATENCY_WINDOW_SIZE];
+    private int numberOfLatencies = 0;
+    private final BeowulfJConfig config;
+
+    /**
+     * Create a new selector.
+     *
+     * @param config The config that contains the endpoints to choose from.
+     */
+    public EndpointSelector(BeowulfJConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Choose the endpoint for the next request. Every call has to be
+     * followed by exactly one call of {@link #recordSuccess(Lease, long)},
+     * {@link #recordFailure(Lease)} or {@link #recordCancellation(Lease)} for
+     * the returned lease.
+     *
+     * @return The lease of the endpoint to use.
+     * @throws BeowulfCommunicationException If no endpoint is configured or the
+     *                                       circuit breakers of all endpoints
+     *                                       are open.
+     */
+    public Lease select() throws BeowulfCommunicationException {
+        return select(Collections.emptySet());
+    }
+
+    /**
+     * Like {@link #select()}, but avoid the given endpoints as long as other
+     * endpoints are available.
+     *
+     * @param excludedEndpoints The endpoints that should not be used, e.g.
+     *                          because they already failed to answer the same
+     *                          request.
+     * @return The lease of the endpoint to use.
+     * @throws BeowulfCommunicationException If no endpoint is configured or the
+     *                                       circuit breakers of all endpoints
+     *                                       are open.
+     */
+    public Lease select(Set<Pair<URI, Boolean>> excludedEndpoints)
+            throws BeowulfCommunicationException {
+        if (config.getEndpointURIs().isEmpty()) {
+            throw new BeowulfCommunicationException(
+                    "Unable to connect with all the endpoint, please check config or endpoint status.");
+        }
+
+        long now = System.nanoTime();
+        long openDuration = TimeUnit.MILLISECONDS.toNanos(config.getCircuitBreakerOpenDuration());
+        List<Endpoint> candidates = new ArrayList<>();
+        List<Endpoint> excludedCandidates = new ArrayList<>();
+        for (Pair<URI, Boolean> endpointUri : config.getEndpointURIs()) {
+            Endpoint endpoint = endpoints.computeIfAbsent(endpointUri, Endpoint::new);
+            if (excludedEndpoints.contains(endpointUri)) {
+                if (endpoint.isAvailable()) {
+                    excludedCandidates.add(endpoint);
+                }
+            } else if (endpoint.tryAcquireProbe(now, openDuration)) {
+                // Give endpoints that may have recovered a chance first.
+                return new Lease(endpoint, true);
+            } else if (endpoint.isAvailable()) {
+                candidates.add(endpoint);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            candidates = excludedCandidates;
+        }
+        if (candidates.isEmpty()) {
+            throw new BeowulfCommunicationException(
+                    "All endpoints failed repeatedly and are temporarily not used. Please check the endpoint status.");
+        }
+
+        Endpoint selected = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+        if (candidates.size() > 1) {
+            Endpoint other = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size() - 1));
+            if (other == selected) {
+                other = candidates.get(candidates.size() - 1);
+            }
+            if (other.getScore() < selected.getScore()) {
+                selected = other;
+            }
+        }
+
+        selected.acquire();
+        return new Lease(selected, false);
+    }
+
+    /**
+     * Record that a request is sent to the given endpoint without having
+     * selected it, e.g. to warm up all endpoints. Like {@link #select()}, this
+     * call has to be followed by exactly one call of
+     * {@link #recordSuccess(Lease, long)}, {@link #recordFailure(Lease)} or
+     * {@link #recordCancellation(Lease)}.
+     *
+     * @param endpointUri The endpoint the request is sent to.
+     * @return The lease of the endpoint.
+     */
+    public Lease acquire(Pair<URI, Boolean> endpointUri) {
+        Endpoint endpoint = endpoints.computeIfAbsent(endpointUri, Endpoint::new);
+        endpoint.acquire();
+        return new Lease(endpoint, false);
+    }
+
+    /**
+     * Record that the endpoint answered a request.
+     *
+     * @param lease   The lease returned by {@link #select()}.
+     * @param latency The time in nanoseconds the endpoint needed to answer.
+     */
+    public void recordSuccess(Lease lease, long latency) {
+        lease.endpoint.recordSuccess(latency, lease.probe);
+
+        synchronized (recentLatencies) {
+            recentLatencies[numberOfLatencies++ % LATENCY_WINDOW_SIZE] = latency;
+            if (numberOfLatencies == 2 * LATENCY_WINDOW_SIZE) {
+                // Prevent an overflow while keeping the position in the window.
+                numberOfLatencies = LATENCY_WINDOW_SIZE;
+            }
+        }
+    }
+
+    /**
+     * Get the given percentile of the latencies of the recent, successful
+     * requests to all endpoints.
+     *
+     * @param percentile The percentile between <code>0</code> and
+     *                   <code>100</code>.
+     * @return The latency in milliseconds or <code>-1</code> if not enough
+     * requests have been performed yet.
+     */
+    public long getLatencyPercentile(double percentile) {
+        long[] latencies;
+        synchronized (recentLatencies) {
+            if (numberOfLatencies < MINIMUM_LATENCY_SAMPLES) {
+                return -1;
+            }
+            latencies = Arrays.copyOf(recentLatencies, Math.min(numberOfLatencies, LATENCY_WINDOW_SIZE));
+        }
+
+        Arrays.sort(latencies);
+        int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(latencies[Math.max(0, Math.min(index, latencies.length - 1))]);
+    }
+
+    /**
+     * Record that the endpoint did not answer a request.
+     *
+     * @param lease The lease returned by {@link #select()}.
+     */
+    public void recordFailure(Lease lease) {
+        lease.endpoint.recordFailure(System.nanoTime(), config.getCircuitBreakerFailureThreshold(), lease.probe);
+    }
+
+    /**
+     * Record that the request to the endpoint has been cancelled before the
+     * endpoint answered it.
+     *
+     * @param lease The lease returned by {@link #select()}.
+     */
+    public void recordCancellation(Lease lease) {
+        lease.endpoint.recordCancellation(lease.probe);
+    }
+
+    /**
+     * Get the current state of all configured endpoints.
+     *
+     * @return A snapshot of the state of each endpoint.
+     */
+    public List<EndpointState> getEndpointStates() {
+        List<EndpointState> endpointStates = new ArrayList<>();
+        for (Pair<URI, Boolean> endpointUri : config.getEndpointURIs()) {
+            endpointStates.add(endpoints.computeIfAbsent(endpointUri, Endpoint::new).getState());
+        }
+        return endpointStates;
+    }
+
+    /**
+     * A single request sent to an endpoint. Only the outcome of the probe
+     * request of a half-open circuit decides whether the circuit is closed
+     * again, requests that were already in flight when the circuit opened do
+     * not.
+     */
+    public static final class Lease {
+        private final Endpoint endpoint;
+        private final boolean probe;
+
+        private Lease(Endpoint endpoint, boolean probe) {
+            this.endpoint = endpoint;
+            this.probe = probe;
+        }
+
+        /**
+         * @return The endpoint the request is sent to.
+         */
+        public Pair<URI, Boolean> getEndpointUri() {
+            return endpoint.endpointUri;
+        }
+
+        /**
+         * @return <code>true</code> if the request probes a half-open circuit.
+         */
+        public boolean isProbe() {
+            return probe;
+        }
+    }
+
+    /**
+     * The mutable health information of a single endpoint.
+     */
+    private static class Endpoint {
+        private final Pair<URI, Boolean> endpointUri;
+        private CircuitState circuitState = CircuitState.CLOSED;
+        private long openedAt;
+        private boolean probeInFlight;
+        private double averageLatency;
+        private boolean latencyMeasured;
+        private double errorRate;
+        private int consecutiveFailures;
+        private int inFlightRequests;
+        private long totalRequests;
+        private long totalFailures;
+
+        private Endpoint(Pair<URI, Boolean> endpointUri) {
+            this.endpointUri = endpointUri;
+        }
+
+        private synchronized boolean isAvailable() {
+            return circuitState == CircuitState.CLOSED;
+        }
+
+        private synchronized double getScore() {
+            return averageLatency * (inFlightRequests + 1) * (1 + ERROR_RATE_PENALTY * errorRate);
+        }
+
+        private synchronized void acquire() {
+            inFlightRequests++;
+            totalRequests++;
+        }
+
+        private synchronized boolean tryAcquireProbe(long now, long openDuration) {
+            if ((circuitState == CircuitState.OPEN && now - openedAt >= openDuration)
+                    || (circuitState == CircuitState.HALF_OPEN && !probeInFlight)) {
+                circuitState = CircuitState.HALF_OPEN;
+                probeInFlight = true;
+                acquire();
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized void recordSuccess(long latency, boolean probe) {
+            release(probe);
+            double latencyInMillis = latency / 1_000_000.0;
+            averageLatency = latencyMeasured ? average(averageLatency, latencyInMillis) : latencyInMillis;
+            latencyMeasured = true;
+            errorRate = average(errorRate, 0);
+            consecutiveFailures = 0;
+            if (probe && circuitState == CircuitState.HALF_OPEN) {
+                circuitState = CircuitState.CLOSED;
+            }
+        }
+
+        private synchronized void recordFailure(long now, int failureThreshold, boolean probe) {
+            release(probe);
+            errorRate = average(errorRate, 1);
+            consecutiveFailures++;
+            totalFailures++;
+            if ((probe && circuitState == CircuitState.HALF_OPEN)
+                    || (circuitState == CircuitState.CLOSED && consecutiveFailures >= failureThreshold)) {
+                circuitState = CircuitState.OPEN;
+                openedAt = now;
+            }
+        }
+
+        private synchronized void recordCancellation(boolean probe) {
+            release(probe);
+        }
+
+        private void release(boolean probe) {
+            inFlightRequests = Math.max(0, inFlightRequests - 1);
+            if (probe) {
+                // The outcome of the probe is recorded directly after this
+                // call, a cancelled probe allows the next one.
+                probeInFlight = false;
+            }
+        }
+
+        private synchronized EndpointState getState() {
+            return new EndpointState(endpointUri.getLeft(), Boolean.TRUE.equals(endpointUri.getRight()),
+                    circuitState, averageLatency, errorRate, consecutiveFailures, inFlightRequests, totalRequests,
+                    totalFailures);
+        }
+
+        private static double average(double average, double sample) {
+            return SMOOTHING_FACTOR * sample + (1 - SMOOTHING_FACTOR) * average;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.enums.CircuitState;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.net.URI;
+
+/**
+ * A snapshot of the health of a single endpoint as seen by the
+ * {@link EndpointSelector}.
+ */
+public class EndpointState {
+    private final URI uri;
+    private final boolean sslVerificationDisabled;
+    private final CircuitState circuitState;
+    private final double averageLatency;
+    private final double errorRate;
+    private final int consecutiveFailures;
+    private final int inFlightRequests;
+    private final long totalRequests;
+    private final long totalFailures;
+
+    EndpointState(URI uri, boolean sslVerificationDisabled, CircuitState circuitState, double averageLatency,
+                  double errorRate, int consecutiveFailures, int inFlightRequests, long totalRequests,
+                  long totalFailures) {
+        this.uri = uri;
+        this.sslVerificationDisabled = sslVerificationDisabled;
+        this.circuitState = circuitState;
+        this.averageLatency = averageLatency;
+        this.errorRate = errorRate;
+        this.consecutiveFailures = consecutiveFailures;
+        this.inFlightRequests = inFlightRequests;
+        this.totalRequests = totalRequests;
+        this.totalFailures = totalFailures;
+    }
+
+    /**
+     * @return The URI of the endpoint.
+     */
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * @return <code>true</code> if the SSL verification is disabled for this
+     * endpoint.
+     */
+    public boolean isSslVerificationDisabled() {
+        return sslVerificationDisabled;
+    }
+
+    /**
+     * @return The current state of the circuit breaker of this endpoint.
+     */
+    public CircuitState getCircuitState() {
+        return circuitState;
+    }
+
+    /**
+     * @return The exponentially weighted moving average of the latency in
+     * milliseconds or <code>0</code> if no request has succeeded yet.
+     */
+    public double getAverageLatency() {
+        return averageLatency;
+    }
+
+    /**
+     * @return The exponentially weighted moving average of the error rate
+     * between <code>0</code> and <code>1</code>.
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * @return The number of failed requests since the last successful one.
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return The number of requests that are currently waiting for an answer
+     * of this endpoint.
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests;
+    }
+
+    /**
+     * @return The number of requests sent to this endpoint.
+     */
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    /**
+     * @return The number of requests to this endpoint that failed.
+     */
+    public long getTotalFailures() {
+        return totalFailures;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
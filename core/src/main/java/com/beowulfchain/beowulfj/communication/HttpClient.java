@@ -18,61 +18,718 @@ package com.beowulfchain.beowulfj.communication;
 
 import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
 import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
 import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfConnectionException;
+import com.beowulfchain.beowulfj.util.EventSpan;
+import com.beowulfchain.beowulfj.util.FlightRecorderEvents;
 import com.google.api.client.http.ByteArrayContent;
 import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpResponse;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.AbortableHttpRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
 import java.net.URI;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Sends requests via HTTP(S). Each endpoint gets its own transport which
+ * keeps a pool of connections alive, so following requests to the same
+ * endpoint do not have to perform the TCP and TLS handshake again. The
+ * transports are shared by all clients sending to the same endpoint with the
+ * same pool settings, even if they belong to different BeowulfJ clients.
+ */
 public class HttpClient extends AbstractClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClient.class);
+    /**
+     * The interval in milliseconds in which idle connections are evicted from
+     * the pools.
+     */
+    private static final long IDLE_CONNECTION_CHECK_INTERVAL = 5000L;
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
+    /**
+     * The transports in use, keyed by the scheme and authority of their
+     * endpoint, whether the SSL verification is disabled and the settings of
+     * their connection pool.
+     */
+    private static final Map<String, SharedTransport> TRANSPORTS = new HashMap<>();
+    /**
+     * The periodic task closing idle connections of all transports, or
+     * <code>null</code> if no transport is in use.
+     */
+    private static ScheduledFuture<?> idleConnectionEvictor;
+    /**
+     * The timings of the request the current thread is sending. The
+     * transports execute requests on the calling thread, so their
+     * interceptors find them here.
+     */
+    private static final ThreadLocal<RequestTimings> CURRENT_TIMINGS = new ThreadLocal<>();
+    /**
+     * The asynchronous exchange the current thread is performing, so the
+     * transport can hand out the request to abort.
+     */
+    private static final ThreadLocal<PendingExchange> CURRENT_EXCHANGE = new ThreadLocal<>();
+
+    /**
+     * The transports acquired by this instance, with the same keys as
+     * <code>TRANSPORTS</code>.
+     */
+    private final Map<String, SharedTransport> transports = new ConcurrentHashMap<>();
+    private final BeowulfJConfig config;
+    private final HttpClientRequestInitializer requestInitializer;
+
+    /**
+     * Create a new client using the {@link BeowulfJConfig#getInstance()
+     * global config}.
+     *
+     * @deprecated Use {@link #HttpClient(BeowulfJConfig)} with the config of the
+     * BeowulfJ client this instance belongs to.
+     */
+    @Deprecated
+    public HttpClient() {
+        this(BeowulfJConfig.getInstance());
+    }
+
+    /**
+     * Create a new client.
+     *
+     * @param config The config of the BeowulfJ client this instance belongs to.
+     */
+    public HttpClient(BeowulfJConfig config) {
+        this.config = config;
+        this.requestInitializer = new HttpClientRequestInitializer(config);
+    }
 
     @Override
     public JsonRPCResponse invokeAndReadResponse(JsonRPCRequest requestObject, URI endpointUri,
                                                  boolean sslVerificationDisabled) throws BeowulfCommunicationException {
+        return post(requestObject, Collections.singletonList(requestObject), endpointUri, sslVerificationDisabled,
+                null);
+    }
+
+    @Override
+    public List<JsonRPCResponse> invokeAndReadBatchResponse(List<JsonRPCRequest> requestObjects, URI endpointUri,
+                                                            boolean sslVerificationDisabled) throws BeowulfCommunicationException {
+        return getBatchResponses(post(requestObjects, requestObjects, endpointUri, sslVerificationDisabled, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The request is sent by one of the threads of the transport of the
+     * endpoint, which has as many threads as connections. Cancelling the
+     * returned future or letting it time out aborts the request, which closes
+     * its connection even if the thread is blocked reading the answer.
+     */
+    @Override
+    public CompletableFuture<JsonRPCResponse> invokeAndReadResponseAsync(JsonRPCRequest requestObject,
+                                                                         URI endpointUri,
+                                                                         boolean sslVerificationDisabled) {
+        return postAsync(endpointUri, sslVerificationDisabled, exchange -> post(requestObject,
+                Collections.singletonList(requestObject), endpointUri, sslVerificationDisabled, exchange));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Like {@link #invokeAndReadResponseAsync(JsonRPCRequest, URI, boolean)},
+     * cancelling the returned future aborts the request.
+     */
+    @Override
+    public CompletableFuture<List<JsonRPCResponse>> invokeAndReadBatchResponseAsync(
+            List<JsonRPCRequest> requestObjects, URI endpointUri, boolean sslVerificationDisabled) {
+        return postAsync(endpointUri, sslVerificationDisabled, exchange -> getBatchResponses(
+                post(requestObjects, requestObjects, endpointUri, sslVerificationDisabled, exchange)));
+    }
+
+    /**
+     * Split the answer to a batch into the answers to its requests.
+     *
+     * @param response The answer to the batch.
+     * @return The answers to the requests of the batch.
+     * @throws BeowulfCommunicationException If the answer is no batch answer.
+     */
+    private static List<JsonRPCResponse> getBatchResponses(JsonRPCResponse response)
+            throws BeowulfCommunicationException {
+        RequestTimings timings = response.getTimings();
+        timings.begin(RequestTimings.Phase.PARSE);
+        List<JsonRPCResponse> responses = response.getBatchResponses();
+        timings.end(RequestTimings.Phase.PARSE);
+        return responses;
+    }
+
+    /**
+     * Perform an exchange on a thread of the transport of the given endpoint.
+     *
+     * @param endpointUri             The endpoint to send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @param exchangeFunction        The exchange to perform.
+     * @param <T>                     The type of the result.
+     * @return A future that will be completed with the result of the exchange.
+     */
+    private <T> CompletableFuture<T> postAsync(URI endpointUri, boolean sslVerificationDisabled,
+                                               ExchangeFunction<T> exchangeFunction) {
+        SharedTransport sharedTransport;
         try {
-            NetHttpTransport.Builder builder = new NetHttpTransport.Builder();
-            // Disable SSL verification if needed
-            if (sslVerificationDisabled && endpointUri.getScheme().equals("https")) {
-                builder.doNotValidateCertificate();
-            }
+            sharedTransport = getTransport(endpointUri, sslVerificationDisabled);
+        } catch (GeneralSecurityException e) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            result.completeExceptionally(
+                    new BeowulfCommunicationException("A problem occured while processing the request.", e));
+            return result;
+        }
+
+        PendingExchange exchange = new PendingExchange();
+        return CommunicationExecutors.supplyBlocking(sharedTransport.executor,
+                () -> exchangeFunction.perform(exchange), exchange::abort);
+    }
 
-            String requestPayload = requestObject.toJson();
-            HttpRequest httpRequest = builder.build().createRequestFactory(new HttpClientRequestInitializer())
+    /**
+     * Send the given payload to the endpoint and read the answer.
+     * <p>
+     * The payload is serialized directly into bytes and the answer is kept as
+     * bytes, so it can be bound to the expected type in a single pass later
+     * on.
+     *
+     * @param requestPayload          The request or the list of requests to send.
+     * @param requestObjects          The requests contained in the payload.
+     * @param endpointUri             The endpoint to send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @param exchange                The asynchronous exchange this request
+     *                                belongs to, or <code>null</code>.
+     * @return The answer of the node.
+     * @throws BeowulfCommunicationException In case of communication problems.
+     */
+    private JsonRPCResponse post(Object requestPayload, List<JsonRPCRequest> requestObjects, URI endpointUri,
+                                 boolean sslVerificationDisabled, PendingExchange exchange)
+            throws BeowulfCommunicationException {
+        RequestTimings timings = new RequestTimings();
+        try {
+            timings.begin(RequestTimings.Phase.SERIALIZATION);
+            byte[] requestContent = CommunicationHandler.getObjectMapper().writeValueAsBytes(requestPayload);
+            timings.end(RequestTimings.Phase.SERIALIZATION);
+            HttpRequest httpRequest = getTransport(endpointUri, sslVerificationDisabled).transport
+                    .createRequestFactory(requestInitializer)
                     .buildPostRequest(new GenericUrl(endpointUri),
-                            ByteArrayContent.fromString("application/json", requestPayload));
+                            new ByteArrayContent(JSON_CONTENT_TYPE, requestContent));
+            httpRequest.setReadTimeout(CommunicationHandler.getResponseTimeout(config, requestObjects));
+            // Otherwise the transport asks for gzip on its own.
+            if (config.isCompressionEnabled()) {
+                httpRequest.getHeaders().setAcceptEncoding(DecompressingInputStream.ACCEPTED_ENCODINGS);
+            }
 
-            LOGGER.debug("Sending {}.", requestPayload);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Sending {}.", new String(requestContent, StandardCharsets.UTF_8));
+            }
 
-            HttpResponse httpResponse = httpRequest.execute();
-            httpResponse.getMediaType().setCharsetParameter(StandardCharsets.UTF_8);
+            MetricsRecorder metricsRecorder = config.getMetricsRecorder();
+            String method = CommunicationHandler.getMethod(requestObjects);
+            EventSpan sendSpan = FlightRecorderEvents.beginTransportSend();
+            HttpResponse httpResponse;
+            // The interceptor starts the wire time again once the connection
+            // is established. Without it, connecting counts as wire time.
+            timings.begin(RequestTimings.Phase.CONNECT);
+            timings.begin(RequestTimings.Phase.WIRE);
+            CURRENT_TIMINGS.set(timings);
+            CURRENT_EXCHANGE.set(exchange);
+            try {
+                httpResponse = httpRequest.execute();
+            } catch (IOException | RuntimeException e) {
+                sendSpan.end(method, endpointUri.toString(), requestContent.length, e);
+                throw e;
+            } finally {
+                CURRENT_TIMINGS.remove();
+                CURRENT_EXCHANGE.remove();
+            }
+            sendSpan.end(method, endpointUri.toString(), requestContent.length, null);
+            if (metricsRecorder != null) {
+                metricsRecorder.onBytesSent(endpointUri, requestContent.length);
+            }
 
             int status = httpResponse.getStatusCode();
-            String responsePayload = httpResponse.parseAsString();
+            EventSpan receiveSpan = FlightRecorderEvents.beginTransportReceive();
+            byte[] responseContent;
+            try {
+                responseContent = readContent(httpResponse);
+            } catch (IOException | RuntimeException e) {
+                receiveSpan.end(method, endpointUri.toString(), -1, e);
+                throw e;
+            }
+            timings.end(RequestTimings.Phase.WIRE);
+            receiveSpan.end(method, endpointUri.toString(), responseContent == null ? 0 : responseContent.length,
+                    null);
+            if (metricsRecorder != null && responseContent != null) {
+                metricsRecorder.onBytesReceived(endpointUri, responseContent.length);
+            }
 
-            if (status >= 200 && status < 300 && responsePayload != null) {
-                return new JsonRPCResponse(CommunicationHandler.getObjectMapper().readTree(responsePayload));
+            if (status >= 200 && status < 300 && responseContent != null) {
+                JsonRPCResponse response = new JsonRPCResponse(responseContent);
+                response.setTimings(timings);
+                return response;
             } else {
                 throw new ClientProtocolException("Unexpected response status: " + status);
             }
 
+        } catch (ConnectException | UnknownHostException | ConnectionPoolTimeoutException e) {
+            // The request has not been sent to the node.
+            throw new BeowulfConnectionException("Could not connect to the node.", e);
         } catch (GeneralSecurityException | IOException e) {
             throw new BeowulfCommunicationException("A problem occured while processing the request.", e);
         }
     }
 
+    /**
+     * Read the body of the given response. If the size of the body is known
+     * in advance, it is read directly into an array of the exact size.
+     * Closing the stream afterwards returns the connection to the pool.
+     *
+     * @param httpResponse The response to read.
+     * @return The body or <code>null</code> if the response has no body.
+     * @throws IOException If the body could not be read.
+     */
+    private static byte[] readContent(HttpResponse httpResponse) throws IOException {
+        InputStream inputStream = httpResponse.getContent();
+        if (inputStream == null) {
+            return null;
+        }
+
+        try {
+            Long contentLength = httpResponse.getHeaders().getContentLength();
+            // The length refers to the encoded body if it has been compressed.
+            if (contentLength != null && httpResponse.getContentEncoding() == null
+                    && contentLength <= Integer.MAX_VALUE) {
+                byte[] content = new byte[contentLength.intValue()];
+                int position = 0;
+                while (position < content.length) {
+                    int read = inputStream.read(content, position, content.length - position);
+                    if (read < 0) {
+                        throw new EOFException("The response is incomplete.");
+                    }
+                    position += read;
+                }
+                return content;
+            }
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Get the transport for the given endpoint and acquire it if this instance
+     * did not use it before.
+     *
+     * @param endpointUri             The endpoint to send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @return The transport for the endpoint.
+     * @throws GeneralSecurityException If the SSL context could not be created.
+     */
+    private SharedTransport getTransport(URI endpointUri, boolean sslVerificationDisabled)
+            throws GeneralSecurityException {
+        // Clients with different pool settings must not end up with the pool
+        // of whichever client connected first.
+        String key = endpointUri.getScheme() + "://" + endpointUri.getAuthority() + "#" + sslVerificationDisabled
+                + "#" + config.getMaximumConnectionsPerRoute() + "#" + config.getIdleTimeout();
+        SharedTransport transport = transports.get(key);
+        if (transport == null) {
+            synchronized (this) {
+                transport = transports.get(key);
+                if (transport == null) {
+                    transport = acquireTransport(key, endpointUri, sslVerificationDisabled, config);
+                    transports.put(key, transport);
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Get the shared transport for the given endpoint and create it if there
+     * is none yet. Every call has to be followed by a call to
+     * {@link #releaseTransport(String)} once the transport is not needed
+     * anymore.
+     *
+     * @param key                     The key of the transport.
+     * @param endpointUri             The endpoint to send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @param config                  The config used to create the transport
+     *                                if there is none yet.
+     * @return The transport for the endpoint.
+     * @throws GeneralSecurityException If the SSL context could not be created.
+     */
+    private static synchronized SharedTransport acquireTransport(String key, URI endpointUri,
+                                                                 boolean sslVerificationDisabled,
+                                                                 BeowulfJConfig config)
+            throws GeneralSecurityException {
+        SharedTransport sharedTransport = TRANSPORTS.get(key);
+        if (sharedTransport == null) {
+            sharedTransport = new SharedTransport(createTransport(endpointUri, sslVerificationDisabled, config),
+                    config.getIdleTimeout(),
+                    CommunicationExecutors.newBlockingExecutor(config.getMaximumConnectionsPerRoute()));
+            TRANSPORTS.put(key, sharedTransport);
+            startIdleConnectionEvictor();
+        }
+        sharedTransport.references++;
+        return sharedTransport;
+    }
+
+    /**
+     * Give back a transport obtained by
+     * {@link #acquireTransport(String, URI, boolean, BeowulfJConfig)}. The
+     * connections of the transport are closed as soon as nobody uses it
+     * anymore.
+     *
+     * @param key The key of the transport.
+     */
+    private static synchronized void releaseTransport(String key) {
+        SharedTransport sharedTransport = TRANSPORTS.get(key);
+        if (sharedTransport == null || --sharedTransport.references > 0) {
+            return;
+        }
+
+        TRANSPORTS.remove(key);
+        sharedTransport.executor.shutdown();
+        sharedTransport.transport.shutdown();
+
+        if (TRANSPORTS.isEmpty() && idleConnectionEvictor != null) {
+            idleConnectionEvictor.cancel(false);
+            idleConnectionEvictor = null;
+        }
+    }
+
+    /**
+     * Create a pooling transport for the given endpoint. The SSL socket
+     * factory is shared by all connections of the transport so TLS sessions
+     * can be resumed. The requests sent by the transport can be aborted
+     * through their {@link PendingExchange}.
+     *
+     * @param endpointUri             The endpoint to send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @param config                  The config defining the size of the pool.
+     * @return The new transport.
+     * @throws GeneralSecurityException If the SSL context could not be created.
+     */
+    private static ApacheHttpTransport createTransport(URI endpointUri, boolean sslVerificationDisabled,
+                                                       BeowulfJConfig config)
+            throws GeneralSecurityException {
+        ApacheHttpTransport.Builder builder = new ApacheHttpTransport.Builder();
+        // Disable SSL verification if needed
+        if (sslVerificationDisabled && endpointUri.getScheme().equals("https")) {
+            builder.doNotValidateCertificate();
+        }
+
+        HttpParams httpParams = builder.getHttpParams();
+        // A transport only serves a single endpoint, so the route limit is
+        // also the limit of the whole pool.
+        ConnManagerParams.setMaxConnectionsPerRoute(httpParams,
+                new ConnPerRouteBean(config.getMaximumConnectionsPerRoute()));
+        ConnManagerParams.setMaxTotalConnections(httpParams, config.getMaximumConnectionsPerRoute());
+        // Detect connections that have been closed by the node while they
+        // have been in the pool.
+        HttpConnectionParams.setStaleCheckingEnabled(httpParams, true);
+
+        org.apache.http.client.HttpClient httpClient = builder.build().getHttpClient();
+        if (httpClient instanceof AbstractHttpClient) {
+            ((AbstractHttpClient) httpClient).addRequestInterceptor(HttpClient::onConnected);
+            ((AbstractHttpClient) httpClient).addResponseInterceptor(HttpClient::decompressResponse);
+        }
+        return new ApacheHttpTransport(new ExchangeTrackingHttpClient(httpClient));
+    }
+
+    /**
+     * Record the time it took to lease or establish the connection. Request
+     * interceptors are called once the connection to the node is open,
+     * right before the request is written.
+     *
+     * @param request The request to send.
+     * @param context The context of the exchange.
+     */
+    private static void onConnected(org.apache.http.HttpRequest request, HttpContext context) {
+        RequestTimings timings = CURRENT_TIMINGS.get();
+        if (timings != null) {
+            timings.end(RequestTimings.Phase.CONNECT);
+            timings.begin(RequestTimings.Phase.WIRE);
+        }
+    }
+
+    /**
+     * Replace a compressed body by one which is decompressed while it is
+     * read. The headers describing the compressed body are removed, so the
+     * body is neither decompressed twice nor read up to the compressed
+     * length.
+     *
+     * @param response The response to process.
+     * @param context  The context of the exchange.
+     */
+    private static void decompressResponse(org.apache.http.HttpResponse response, HttpContext context) {
+        HttpEntity entity = response.getEntity();
+        if (entity == null || entity.getContentEncoding() == null
+                || !DecompressingInputStream.isSupported(entity.getContentEncoding().getValue())) {
+            return;
+        }
+
+        response.setEntity(new DecompressingEntity(entity, entity.getContentEncoding().getValue()));
+        response.removeHeaders(HTTP.CONTENT_ENCODING);
+        response.removeHeaders(HTTP.CONTENT_LEN);
+    }
+
+    /**
+     * Periodically close connections that have not been used for longer than
+     * the {@link BeowulfJConfig#getIdleTimeout() idle timeout} of their
+     * transport.
+     */
+    private static void startIdleConnectionEvictor() {
+        if (idleConnectionEvictor != null) {
+            return;
+        }
+
+        idleConnectionEvictor = CommunicationExecutors.getScheduler().scheduleWithFixedDelay(() -> {
+            synchronized (HttpClient.class) {
+                for (SharedTransport sharedTransport : TRANSPORTS.values()) {
+                    ClientConnectionManager connectionManager = sharedTransport.transport.getHttpClient()
+                            .getConnectionManager();
+                    connectionManager.closeExpiredConnections();
+                    if (sharedTransport.idleTimeout > 0) {
+                        connectionManager.closeIdleConnections(sharedTransport.idleTimeout, TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+        }, IDLE_CONNECTION_CHECK_INTERVAL, IDLE_CONNECTION_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
     @Override
-    public void closeConnection() {
-        // A connection is used for exactly one request and closed afterwards.
-        // Due to that there is no need to close it here.
+    public synchronized void closeConnection() {
+        for (String key : transports.keySet()) {
+            releaseTransport(key);
+        }
+        transports.clear();
+    }
+
+    /**
+     * A compressed body which is decompressed while it is read.
+     */
+    private static class DecompressingEntity extends HttpEntityWrapper {
+        private final String contentEncoding;
+
+        private DecompressingEntity(HttpEntity wrappedEntity, String contentEncoding) {
+            super(wrappedEntity);
+            this.contentEncoding = contentEncoding;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new DecompressingInputStream(wrappedEntity.getContent(), contentEncoding);
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            try (InputStream inputStream = getContent()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = inputStream.read(buffer)) >= 0) {
+                    outputStream.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    /**
+     * A transport shared by all clients sending to the same endpoint.
+     */
+    private static class SharedTransport {
+        private final ApacheHttpTransport transport;
+        private final int idleTimeout;
+        /**
+         * The threads sending asynchronous requests. There are no more threads
+         * than connections, as further threads would only wait for a
+         * connection.
+         */
+        private final ExecutorService executor;
+        private int references;
+
+        private SharedTransport(ApacheHttpTransport transport, int idleTimeout, ExecutorService executor) {
+            this.transport = transport;
+            this.idleTimeout = idleTimeout;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * An exchange performed on behalf of an asynchronous request. Aborting it
+     * aborts the HTTP request, which frees its connection even if the thread
+     * sending it is blocked waiting for a connection or for the answer.
+     */
+    private static class PendingExchange {
+        private AbortableHttpRequest request;
+        private boolean aborted;
+
+        /**
+         * Remember the request sent for this exchange.
+         *
+         * @param request The request.
+         */
+        private synchronized void attach(AbortableHttpRequest request) {
+            this.request = request;
+            if (aborted) {
+                request.abort();
+            }
+        }
+
+        /**
+         * Abort the request of this exchange, or the request sent later on if
+         * there is none yet.
+         */
+        private synchronized void abort() {
+            aborted = true;
+            if (request != null) {
+                request.abort();
+            }
+        }
+    }
+
+    /**
+     * A function performing an exchange.
+     *
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    private interface ExchangeFunction<T> {
+        T perform(PendingExchange exchange) throws BeowulfCommunicationException;
+    }
+
+    /**
+     * Hands the requests sent by the transport to the
+     * {@link PendingExchange} of the current thread before sending them with
+     * the wrapped client.
+     */
+    private static class ExchangeTrackingHttpClient implements org.apache.http.client.HttpClient {
+        private final org.apache.http.client.HttpClient httpClient;
+
+        private ExchangeTrackingHttpClient(org.apache.http.client.HttpClient httpClient) {
+            this.httpClient = httpClient;
+        }
+
+        private static void track(HttpUriRequest request) {
+            PendingExchange exchange = CURRENT_EXCHANGE.get();
+            if (exchange != null && request instanceof AbortableHttpRequest) {
+                exchange.attach((AbortableHttpRequest) request);
+            }
+        }
+
+        @Override
+        public HttpParams getParams() {
+            return httpClient.getParams();
+        }
+
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            return httpClient.getConnectionManager();
+        }
+
+        @Override
+        public org.apache.http.HttpResponse execute(HttpUriRequest request) throws IOException {
+            track(request);
+            return httpClient.execute(request);
+        }
+
+        @Override
+        public org.apache.http.HttpResponse execute(HttpUriRequest request, HttpContext context)
+                throws IOException {
+            track(request);
+            return httpClient.execute(request, context);
+        }
+
+        @Override
+        public org.apache.http.HttpResponse execute(HttpHost target, org.apache.http.HttpRequest request)
+                throws IOException {
+            return httpClient.execute(target, request);
+        }
+
+        @Override
+        public org.apache.http.HttpResponse execute(HttpHost target, org.apache.http.HttpRequest request,
+                                                    HttpContext context) throws IOException {
+            return httpClient.execute(target, request, context);
+        }
+
+        @Override
+        public <T> T execute(HttpUriRequest request, ResponseHandler<? extends T> responseHandler)
+                throws IOException {
+            track(request);
+            return httpClient.execute(request, responseHandler);
+        }
+
+        @Override
+        public <T> T execute(HttpUriRequest request, ResponseHandler<? extends T> responseHandler,
+                             HttpContext context) throws IOException {
+            track(request);
+            return httpClient.execute(request, responseHandler, context);
+        }
+
+        @Override
+        public <T> T execute(HttpHost target, org.apache.http.HttpRequest request,
+                             ResponseHandler<? extends T> responseHandler) throws IOException {
+            return httpClient.execute(target, request, responseHandler);
+        }
+
+        @Override
+        public <T> T execute(HttpHost target, org.apache.http.HttpRequest request,
+                             ResponseHandler<? extends T> responseHandler, HttpContext context)
+                throws IOException {
+            return httpClient.execute(target, request, responseHandler, context);
+        }
     }
 }
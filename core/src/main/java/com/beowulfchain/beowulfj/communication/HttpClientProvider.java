@@ -0,0 +1,45 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+
+import java.net.URI;
+
+/**
+ * Creates the clients for HTTP(S) endpoints.
+ * <p>
+ * BeowulfJ is shipped as a multi-release JAR: On Java 11 and later, this
+ * class is replaced by a version that sends requests to HTTPS endpoints via
+ * HTTP/2 (see <code>src/main/java11</code>). This version is used on Java 8
+ * and always returns an {@link HttpClient}.
+ */
+final class HttpClientProvider {
+    private HttpClientProvider() {
+    }
+
+    /**
+     * Create a client for the given HTTP(S) endpoint.
+     *
+     * @param endpointUri The endpoint the client sends to.
+     * @param config      The config of the BeowulfJ client.
+     * @return The new client.
+     */
+    static AbstractClient createClient(URI endpointUri, BeowulfJConfig config) {
+        return new HttpClient(config);
+    }
+}
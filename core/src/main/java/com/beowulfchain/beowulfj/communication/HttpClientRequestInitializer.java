@@ -22,11 +22,16 @@ import com.google.api.client.http.HttpRequestInitializer;
 import java.io.IOException;
 
 public class HttpClientRequestInitializer implements HttpRequestInitializer {
+    private final BeowulfJConfig config;
+
+    public HttpClientRequestInitializer(BeowulfJConfig config) {
+        this.config = config;
+    }
 
     @Override
     public void initialize(HttpRequest request) throws IOException {
-        request.setConnectTimeout(BeowulfJConfig.getInstance().getIdleTimeout());
-        request.setReadTimeout(BeowulfJConfig.getInstance().getResponseTimeout());
+        request.setConnectTimeout(config.getIdleTimeout());
+        request.setReadTimeout(config.getResponseTimeout());
         request.setNumberOfRetries(0);
     }
 }
@@ -0,0 +1,261 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default {@link MetricsRecorder}, which keeps a latency histogram and
+ * counters for every method and endpoint in memory. Recording never blocks,
+ * so it can stay enabled in production. The numbers can be read through the
+ * getters or be exported via JMX (@see {@link JmxMetricsExporter}).
+ */
+public class InMemoryMetricsRecorder implements MetricsRecorder {
+    private final Map<RequestKey, RequestMetrics> requestMetrics = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder exceededDeadlines = new LongAdder();
+    private final LongAdder deserializations = new LongAdder();
+    private final LongAdder deserializationTime = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    @Override
+    public void onAttemptStarted(RequestMethod requestMethod, URI endpoint) {
+        getRequestMetrics(requestMethod, endpoint).inFlightRequests.increment();
+    }
+
+    @Override
+    public void onAttemptCompleted(RequestMethod requestMethod, URI endpoint, long latency, Throwable failure) {
+        RequestMetrics metrics = getRequestMetrics(requestMethod, endpoint);
+        metrics.inFlightRequests.decrement();
+        if (failure == null) {
+            metrics.latencies.record(latency);
+        } else if (failure instanceof BeowulfTimeoutException) {
+            metrics.timeouts.increment();
+        } else if (failure instanceof CancellationException) {
+            metrics.cancellations.increment();
+        } else {
+            metrics.failures.increment();
+        }
+    }
+
+    @Override
+    public void onRetry(RequestMethod requestMethod, URI endpoint) {
+        retries.increment();
+    }
+
+    @Override
+    public void onFailover(RequestMethod requestMethod, URI previousEndpoint, URI endpoint) {
+        failovers.increment();
+    }
+
+    @Override
+    public void onDeadlineExceeded(RequestMethod requestMethod) {
+        exceededDeadlines.increment();
+    }
+
+    @Override
+    public void onDeserialization(RequestMethod requestMethod, long duration) {
+        deserializations.increment();
+        deserializationTime.add(duration);
+    }
+
+    @Override
+    public void onBytesSent(URI endpoint, long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    @Override
+    public void onBytesReceived(URI endpoint, long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    private RequestMetrics getRequestMetrics(RequestMethod requestMethod, URI endpoint) {
+        RequestKey key = new RequestKey(requestMethod, endpoint);
+        RequestMetrics metrics = requestMetrics.get(key);
+        if (metrics == null) {
+            metrics = requestMetrics.computeIfAbsent(key, ignored -> new RequestMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * @return A snapshot of the numbers of every method and endpoint a
+     * request has been sent for.
+     */
+    public List<RequestStatistics> getRequestStatistics() {
+        List<RequestStatistics> statistics = new ArrayList<>(requestMetrics.size());
+        for (Map.Entry<RequestKey, RequestMetrics> entry : requestMetrics.entrySet()) {
+            RequestMetrics metrics = entry.getValue();
+            statistics.add(new RequestStatistics(entry.getKey().requestMethod, entry.getKey().endpoint.toString(),
+                    metrics.latencies.getCount(), metrics.failures.sum(), metrics.timeouts.sum(),
+                    metrics.cancellations.sum(), metrics.inFlightRequests.sum(), metrics.latencies));
+        }
+        return statistics;
+    }
+
+    /**
+     * @return The number of requests waiting for an answer.
+     */
+    public long getInFlightRequests() {
+        long inFlightRequests = 0;
+        for (RequestMetrics metrics : requestMetrics.values()) {
+            inFlightRequests += metrics.inFlightRequests.sum();
+        }
+        return inFlightRequests;
+    }
+
+    /**
+     * @return The number of requests which have not been answered within the
+     * response timeout, summed up over all methods and endpoints.
+     */
+    public long getTimeoutCount() {
+        long timeouts = 0;
+        for (RequestMetrics metrics : requestMetrics.values()) {
+            timeouts += metrics.timeouts.sum();
+        }
+        return timeouts;
+    }
+
+    /**
+     * @return The number of requests which failed for another reason than a
+     * timeout, summed up over all methods and endpoints.
+     */
+    public long getFailureCount() {
+        long failures = 0;
+        for (RequestMetrics metrics : requestMetrics.values()) {
+            failures += metrics.failures.sum();
+        }
+        return failures;
+    }
+
+    /**
+     * @return The number of times a request has been sent again.
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * @return The number of times a request has been sent again to another
+     * endpoint.
+     */
+    public long getFailoverCount() {
+        return failovers.sum();
+    }
+
+    /**
+     * @return The number of requests whose deadline passed.
+     */
+    public long getExceededDeadlineCount() {
+        return exceededDeadlines.sum();
+    }
+
+    /**
+     * @return The number of answers transformed into the expected type.
+     */
+    public long getDeserializationCount() {
+        return deserializations.sum();
+    }
+
+    /**
+     * @return The time in milliseconds spent transforming answers into the
+     * expected type.
+     */
+    public double getDeserializationTime() {
+        return deserializationTime.sum() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return The number of bytes sent to the nodes.
+     */
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    /**
+     * @return The number of bytes received from the nodes.
+     */
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * Reset all numbers to zero. Requests in flight are still counted.
+     */
+    public void reset() {
+        for (RequestMetrics metrics : requestMetrics.values()) {
+            metrics.latencies.reset();
+            metrics.failures.reset();
+            metrics.timeouts.reset();
+            metrics.cancellations.reset();
+        }
+        retries.reset();
+        failovers.reset();
+        exceededDeadlines.reset();
+        deserializations.reset();
+        deserializationTime.reset();
+        bytesSent.reset();
+        bytesReceived.reset();
+    }
+
+    private static final class RequestKey {
+        private final RequestMethod requestMethod;
+        private final URI endpoint;
+
+        private RequestKey(RequestMethod requestMethod, URI endpoint) {
+            this.requestMethod = requestMethod;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            } else if (!(other instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey otherKey = (RequestKey) other;
+            return requestMethod == otherKey.requestMethod && endpoint.equals(otherKey.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(requestMethod, endpoint);
+        }
+    }
+
+    private static final class RequestMetrics {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder inFlightRequests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder cancellations = new LongAdder();
+    }
+}
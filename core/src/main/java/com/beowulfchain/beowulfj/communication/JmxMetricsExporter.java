@@ -0,0 +1,152 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the numbers of an {@link InMemoryMetricsRecorder} to the platform
+ * MBean server, so they can be watched with JConsole, VisualVM or any JMX
+ * based monitoring system. The MBeans are registered in the domain
+ * <code>com.beowulfchain.beowulfj</code> with the type <code>Metrics</code>.
+ */
+public final class JmxMetricsExporter {
+    private static final String DOMAIN = "com.beowulfchain.beowulfj";
+
+    private JmxMetricsExporter() {
+    }
+
+    /**
+     * Register an MBean for the given recorder.
+     *
+     * @param recorder The recorder to export.
+     * @param name     The name distinguishing the clients of this JVM.
+     * @return The name of the MBean, which has to be passed to
+     * {@link #unregister(ObjectName)} once the client is closed.
+     * @throws JMException If the MBean could not be registered, e.g. because
+     *                     the name is already in use.
+     */
+    public static ObjectName register(InMemoryMetricsRecorder recorder, String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(recorder), objectName);
+        return objectName;
+    }
+
+    /**
+     * Remove an MBean registered by
+     * {@link #register(InMemoryMetricsRecorder, String)}.
+     *
+     * @param objectName The name of the MBean.
+     * @throws JMException If the MBean could not be removed.
+     */
+    public static void unregister(ObjectName objectName) throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        if (mBeanServer.isRegistered(objectName)) {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    private static final class Metrics implements MetricsMXBean {
+        private final InMemoryMetricsRecorder recorder;
+
+        private Metrics(InMemoryMetricsRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public List<RequestStatistics> getRequestStatistics() {
+            return recorder.getRequestStatistics();
+        }
+
+        @Override
+        public long getInFlightRequests() {
+            return recorder.getInFlightRequests();
+        }
+
+        @Override
+        public long getTimeoutCount() {
+            return recorder.getTimeoutCount();
+        }
+
+        @Override
+        public long getFailureCount() {
+            return recorder.getFailureCount();
+        }
+
+        @Override
+        public long getRetryCount() {
+            return recorder.getRetryCount();
+        }
+
+        @Override
+        public long getFailoverCount() {
+            return recorder.getFailoverCount();
+        }
+
+        @Override
+        public long getExceededDeadlineCount() {
+            return recorder.getExceededDeadlineCount();
+        }
+
+        @Override
+        public long getDeserializationCount() {
+            return recorder.getDeserializationCount();
+        }
+
+        @Override
+        public double getDeserializationTime() {
+            return recorder.getDeserializationTime();
+        }
+
+        @Override
+        public long getBytesSent() {
+            return recorder.getBytesSent();
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return recorder.getBytesReceived();
+        }
+
+        @Override
+        public double getReceivedCompressionRatio() {
+            return CompressionStatistics.getInstance().getReceivedCompressionRatio();
+        }
+
+        @Override
+        public double getDecompressionTime() {
+            return CompressionStatistics.getInstance().getDecompressionTime()
+                    / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public double getCompressionTime() {
+            return CompressionStatistics.getInstance().getCompressionTime()
+                    / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public void reset() {
+            recorder.reset();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies with a resolution of one microsecond.
+ * Latencies below 16 microseconds are counted exactly, larger ones in
+ * buckets growing by powers of two which are split into eight sub-buckets
+ * each, so percentiles are off by at most 12.5 percent.
+ */
+final class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * The exponent of the first logarithmic bucket (2^4 = 16 microseconds).
+     */
+    private static final int FIRST_EXPONENT = 4;
+    /**
+     * The exponent of the last logarithmic bucket (2^36 microseconds, about
+     * 19 hours). Larger latencies are counted in it as well.
+     */
+    private static final int LAST_EXPONENT = 36;
+    private static final int BUCKETS = LINEAR_BUCKETS + (LAST_EXPONENT - FIRST_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Add a latency.
+     *
+     * @param latency The latency in nanoseconds.
+     */
+    void record(long latency) {
+        long micros = Math.max(0, latency / 1000);
+        counts.incrementAndGet(getIndex(micros));
+        count.increment();
+        sum.add(micros);
+        max.accumulate(micros);
+    }
+
+    private static int getIndex(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), LAST_EXPONENT);
+        int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return LINEAR_BUCKETS + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long getUpperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index + 1;
+        }
+        int exponent = FIRST_EXPONENT + (index - LINEAR_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return The number of latencies added.
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The average latency in milliseconds or <code>0</code> if no
+     * latency has been added yet.
+     */
+    double getMean() {
+        long currentCount = count.sum();
+        return currentCount == 0 ? 0 : sum.sum() / 1000.0 / currentCount;
+    }
+
+    /**
+     * @return The highest latency in milliseconds.
+     */
+    double getMax() {
+        return max.get() / 1000.0;
+    }
+
+    /**
+     * Get the latency which has not been exceeded by the given share of all
+     * added latencies.
+     *
+     * @param percentile The percentile between <code>0</code> and
+     *                   <code>100</code>.
+     * @return The latency in milliseconds or <code>0</code> if no latency
+     * has been added yet.
+     */
+    double getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(getUpperBound(i), max.get()) / 1000.0;
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Remove all latencies.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+}
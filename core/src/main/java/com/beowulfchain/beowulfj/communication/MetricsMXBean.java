@@ -0,0 +1,102 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.util.List;
+
+/**
+ * The attributes exported by the {@link JmxMetricsExporter}. Latencies and
+ * durations are given in milliseconds.
+ */
+public interface MetricsMXBean {
+    /**
+     * @return The numbers of every method and endpoint.
+     */
+    List<RequestStatistics> getRequestStatistics();
+
+    /**
+     * @return The number of requests waiting for an answer.
+     */
+    long getInFlightRequests();
+
+    /**
+     * @return The number of requests which have not been answered in time.
+     */
+    long getTimeoutCount();
+
+    /**
+     * @return The number of requests which failed for another reason.
+     */
+    long getFailureCount();
+
+    /**
+     * @return The number of times a request has been sent again.
+     */
+    long getRetryCount();
+
+    /**
+     * @return The number of times a request has been sent to another
+     * endpoint.
+     */
+    long getFailoverCount();
+
+    /**
+     * @return The number of requests whose deadline passed.
+     */
+    long getExceededDeadlineCount();
+
+    /**
+     * @return The number of answers transformed into the expected type.
+     */
+    long getDeserializationCount();
+
+    /**
+     * @return The time spent transforming answers into the expected type.
+     */
+    double getDeserializationTime();
+
+    /**
+     * @return The number of bytes sent to the nodes.
+     */
+    long getBytesSent();
+
+    /**
+     * @return The number of bytes received from the nodes.
+     */
+    long getBytesReceived();
+
+    /**
+     * @return The ratio between the decompressed and the compressed size of
+     * the answers of the JVM (@see {@link CompressionStatistics}).
+     */
+    double getReceivedCompressionRatio();
+
+    /**
+     * @return The time spent decompressing answers in the JVM.
+     */
+    double getDecompressionTime();
+
+    /**
+     * @return The time spent compressing requests in the JVM.
+     */
+    double getCompressionTime();
+
+    /**
+     * Reset all numbers to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,125 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+
+import java.net.URI;
+
+/**
+ * Gets notified about the requests sent to the nodes, so their latency and
+ * the overhead of the client can be observed (@see
+ * {@link InMemoryMetricsRecorder}). All methods do nothing by default.
+ * <p>
+ * The methods are called on the threads sending and receiving requests and
+ * therefore have to be thread safe and return quickly.
+ * <p>
+ * The <code>requestMethod</code> passed to the methods is <code>null</code>
+ * for batches containing different methods.
+ */
+public interface MetricsRecorder {
+    /**
+     * Called when a request is handed to the transport.
+     *
+     * @param requestMethod The method of the request.
+     * @param endpoint      The endpoint the request is sent to.
+     */
+    default void onAttemptStarted(RequestMethod requestMethod, URI endpoint) {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Called when the answer to a request started with
+     * {@link #onAttemptStarted(RequestMethod, URI)} has been received or the
+     * attempt failed.
+     *
+     * @param requestMethod The method of the request.
+     * @param endpoint      The endpoint the request has been sent to.
+     * @param latency       The time in nanoseconds since the request has been
+     *                      handed to the transport.
+     * @param failure       The reason of the failure, e.g. a
+     *                      {@link com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException
+     *                      BeowulfTimeoutException} or a
+     *                      {@link java.util.concurrent.CancellationException
+     *                      CancellationException} if the caller gave up, or
+     *                      <code>null</code> if an answer has been received.
+     */
+    default void onAttemptCompleted(RequestMethod requestMethod, URI endpoint, long latency, Throwable failure) {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Called before a request is sent again after a communication problem.
+     *
+     * @param requestMethod The method of the request.
+     * @param endpoint      The endpoint the request is sent to next.
+     */
+    default void onRetry(RequestMethod requestMethod, URI endpoint) {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Called if a request is sent again to another endpoint than before.
+     *
+     * @param requestMethod    The method of the request.
+     * @param previousEndpoint The endpoint that failed.
+     * @param endpoint         The endpoint the request is sent to next.
+     */
+    default void onFailover(RequestMethod requestMethod, URI previousEndpoint, URI endpoint) {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Called if the deadline of a request passed before an answer has been
+     * received (@see {@link RequestDeadlineScope}).
+     *
+     * @param requestMethod The method of the request.
+     */
+    default void onDeadlineExceeded(RequestMethod requestMethod) {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Called after an answer has been transformed into the expected type.
+     *
+     * @param requestMethod The method of the request.
+     * @param duration      The time in nanoseconds the transformation took.
+     */
+    default void onDeserialization(RequestMethod requestMethod, long duration) {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Called when a request or a batch has been written to the transport.
+     *
+     * @param endpoint The endpoint the data has been sent to.
+     * @param bytes    The size of the payload, before compression.
+     */
+    default void onBytesSent(URI endpoint, long bytes) {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Called when an answer has been read from the transport.
+     *
+     * @param endpoint The endpoint the data has been received from.
+     * @param bytes    The size of the payload, after decompression.
+     */
+    default void onBytesReceived(URI endpoint, long bytes) {
+        // Nothing to do by default.
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import org.glassfish.tyrus.core.ProtocolException;
+import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.frame.Frame;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The <code>permessage-deflate</code> websocket extension (RFC 7692) for the
+ * Tyrus client, which does not ship an implementation of its own. Messages
+ * are compressed with a context kept for the whole session unless the node
+ * asks for <code>client_no_context_takeover</code>, and answers flagged as
+ * compressed are decompressed before they reach the
+ * {@link WebsocketEndpoint}. The sizes and the time spent are added to the
+ * {@link CompressionStatistics}.
+ * <p>
+ * The state of a session is kept in its extension context, so a single
+ * instance can be offered by all sessions.
+ */
+class PerMessageDeflateExtension implements ExtendedExtension {
+    static final String NAME = "permessage-deflate";
+
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String PROPERTY_PREFIX = PerMessageDeflateExtension.class.getName() + ".";
+    private static final String NEGOTIATED = PROPERTY_PREFIX + "negotiated";
+    private static final String DEFLATER = PROPERTY_PREFIX + "deflater";
+    private static final String INFLATER = PROPERTY_PREFIX + "inflater";
+    private static final String INCOMING_COMPRESSED = PROPERTY_PREFIX + "incomingCompressed";
+
+    /**
+     * The four bytes every block flushed with {@link Deflater#SYNC_FLUSH}
+     * ends with. They are removed from the compressed messages and have to
+     * be added again before decompressing them.
+     */
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xff, (byte) 0xff};
+    private static final byte OPCODE_CONTINUATION = 0x00;
+    private static final byte OPCODE_TEXT = 0x01;
+    private static final byte OPCODE_BINARY = 0x02;
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<Parameter> getParameters() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Frame processIncoming(ExtensionContext context, Frame frame) {
+        if (frame.isControlFrame()) {
+            return frame;
+        }
+
+        Map<String, Object> properties = context.getProperties();
+        boolean compressed;
+        if (frame.getOpcode() == OPCODE_CONTINUATION) {
+            // Only the first frame of a message carries the flag.
+            compressed = Boolean.TRUE.equals(properties.get(INCOMING_COMPRESSED));
+        } else {
+            compressed = frame.isRsv1();
+            properties.put(INCOMING_COMPRESSED, compressed);
+        }
+        if (!compressed) {
+            return frame;
+        }
+
+        Inflater inflater = (Inflater) properties.computeIfAbsent(INFLATER, key -> new Inflater(true));
+        byte[] payload = frame.getPayloadData();
+        long start = System.nanoTime();
+        byte[] uncompressed;
+        synchronized (inflater) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(BUFFER_SIZE, payload.length * 4));
+            try {
+                inflate(inflater, payload, output);
+                if (frame.isFin()) {
+                    inflate(inflater, TAIL, output);
+                    if (Boolean.TRUE.equals(properties.get(SERVER_NO_CONTEXT_TAKEOVER))) {
+                        inflater.reset();
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ProtocolException("Could not decompress the message: " + e.getMessage());
+            }
+            uncompressed = output.toByteArray();
+        }
+        CompressionStatistics.getInstance().recordDecompression(payload.length, uncompressed.length,
+                System.nanoTime() - start);
+
+        return Frame.builder(frame).rsv1(false).payloadData(uncompressed).payloadLength(uncompressed.length)
+                .build();
+    }
+
+    private static void inflate(Inflater inflater, byte[] input, ByteArrayOutputStream output)
+            throws DataFormatException {
+        inflater.setInput(input);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+            int length = inflater.inflate(buffer);
+            if (length > 0) {
+                output.write(buffer, 0, length);
+            } else if (inflater.needsInput() || inflater.finished() || inflater.needsDictionary()) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Frame processOutgoing(ExtensionContext context, Frame frame) {
+        Map<String, Object> properties = context.getProperties();
+        // Messages are sent in a single frame, fragmented ones are left alone.
+        if (!Boolean.TRUE.equals(properties.get(NEGOTIATED)) || !frame.isFin()
+                || (frame.getOpcode() != OPCODE_TEXT && frame.getOpcode() != OPCODE_BINARY)) {
+            return frame;
+        }
+
+        Deflater deflater = (Deflater) properties.computeIfAbsent(DEFLATER,
+                key -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+        byte[] payload = frame.getPayloadData();
+        long start = System.nanoTime();
+        byte[] compressed;
+        synchronized (deflater) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, payload.length / 2));
+            deflater.setInput(payload);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            do {
+                length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                output.write(buffer, 0, length);
+            } while (length == buffer.length);
+            if (Boolean.TRUE.equals(properties.get(CLIENT_NO_CONTEXT_TAKEOVER))) {
+                deflater.reset();
+            }
+            compressed = output.toByteArray();
+        }
+        int compressedLength = compressed.length - TAIL.length;
+        byte[] data = new byte[compressedLength];
+        System.arraycopy(compressed, 0, data, 0, compressedLength);
+        CompressionStatistics.getInstance().recordCompression(payload.length, compressedLength,
+                System.nanoTime() - start);
+
+        return Frame.builder(frame).rsv1(true).payloadData(data).payloadLength(compressedLength).build();
+    }
+
+    @Override
+    public List<Parameter> onExtensionNegotiation(ExtensionContext context, List<Parameter> requestedParameters) {
+        // Only called on the server side.
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void onHandshakeResponse(ExtensionContext context, List<Parameter> responseParameters) {
+        Map<String, Object> properties = context.getProperties();
+        properties.put(NEGOTIATED, true);
+        if (responseParameters != null) {
+            for (Parameter parameter : responseParameters) {
+                if (CLIENT_NO_CONTEXT_TAKEOVER.equals(parameter.getName())) {
+                    properties.put(CLIENT_NO_CONTEXT_TAKEOVER, true);
+                } else if (SERVER_NO_CONTEXT_TAKEOVER.equals(parameter.getName())) {
+                    properties.put(SERVER_NO_CONTEXT_TAKEOVER, true);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy(ExtensionContext context) {
+        Map<String, Object> properties = context.getProperties();
+        Object deflater = properties.remove(DEFLATER);
+        if (deflater != null) {
+            synchronized (deflater) {
+                ((Deflater) deflater).end();
+            }
+        }
+        Object inflater = properties.remove(INFLATER);
+        if (inflater != null) {
+            synchronized (inflater) {
+                ((Inflater) inflater).end();
+            }
+        }
+    }
+}
@@ -0,0 +1,595 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfConnectionException;
+import com.beowulfchain.beowulfj.util.EventSpan;
+import com.beowulfchain.beowulfj.util.FlightRecorderEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.DeploymentException;
+import javax.websocket.Extension;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One WebSocket session of a {@link WebsocketSessionPool}. Requests sent over
+ * this session are multiplexed by their JSON-RPC id, so any number of them can
+ * wait for an answer at the same time.
+ */
+public class PooledWebsocketSession {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledWebsocketSession.class);
+    private static final PerMessageDeflateExtension DEFLATE_EXTENSION = new PerMessageDeflateExtension();
+
+    /**
+     * Gets notified about the events of a session that do not belong to a
+     * single request.
+     */
+    public interface Listener {
+        /**
+         * Called for every notice the node sends over the session.
+         *
+         * @param notice The notice.
+         */
+        void onNotice(JsonRPCResponse notice);
+
+        /**
+         * Called once the session is gone. Subscriptions made over the
+         * session have to be renewed.
+         */
+        void onClose();
+    }
+
+    /**
+     * The pool this session belongs to.
+     */
+    private final WebsocketSessionPool pool;
+    /**
+     * The {@link WebsocketEndpoint} instance that will handle the incoming
+     * messages.
+     */
+    private final WebsocketEndpoint websocketEndpoint;
+    /**
+     * The requests that have been sent over the current session and are still
+     * waiting for an answer, keyed by their JSON-RPC id.
+     */
+    private final Map<Long, PendingResponse> inFlightRequests = new ConcurrentHashMap<>();
+    /**
+     * The listeners interested in the current session.
+     */
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * The current session.
+     */
+    private volatile Session session;
+    /**
+     * The last time (see {@link System#nanoTime()}) the node sent anything
+     * over the current session.
+     */
+    private volatile long lastActivity;
+
+    /**
+     * Create a new, not yet connected session for the given pool.
+     *
+     * @param pool The pool this session belongs to.
+     */
+    protected PooledWebsocketSession(WebsocketSessionPool pool) {
+        this.pool = pool;
+        this.websocketEndpoint = new WebsocketEndpoint(this);
+    }
+
+    /**
+     * Check if this session can be used to send requests.
+     *
+     * @return <code>true</code> if the session is open.
+     */
+    public boolean isOpen() {
+        Session currentSession = session;
+        return currentSession != null && currentSession.isOpen();
+    }
+
+    /**
+     * @return The pool this session belongs to.
+     */
+    protected WebsocketSessionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Get the number of requests sent over this session that are still waiting
+     * for an answer.
+     *
+     * @return The number of requests in flight.
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.size();
+    }
+
+    /**
+     * Send the given request without waiting for the answer. The answer will
+     * be routed to the returned future by the {@link WebsocketEndpoint}.
+     *
+     * @param requestObject The request to send.
+     * @return A future that will be completed with the response.
+     */
+    public CompletableFuture<JsonRPCResponse> send(JsonRPCRequest requestObject) {
+        return send(requestObject, new RequestTimings());
+    }
+
+    /**
+     * Like {@link #send(JsonRPCRequest)}, but records the phases of the
+     * exchange in the given timings.
+     *
+     * @param requestObject The request to send.
+     * @param timings       The timings to record the phases in.
+     * @return A future that will be completed with the response.
+     */
+    CompletableFuture<JsonRPCResponse> send(JsonRPCRequest requestObject, RequestTimings timings) {
+        CompletableFuture<JsonRPCResponse> pendingResponse = register(requestObject.getId(), timings);
+
+        if (!pendingResponse.isDone()) {
+            transmit(Collections.singletonList(requestObject.getId()), requestObject.getMethod(), requestObject::toJson,
+                    timings);
+        }
+
+        return pendingResponse;
+    }
+
+    /**
+     * Send the given requests as one batch without waiting for the answer.
+     *
+     * @param requestObjects The requests to send.
+     * @return A future that will be completed with the responses.
+     */
+    public CompletableFuture<List<JsonRPCResponse>> sendBatch(List<JsonRPCRequest> requestObjects) {
+        return sendBatch(requestObjects, new RequestTimings());
+    }
+
+    /**
+     * Like {@link #sendBatch(List)}, but records the phases of the exchange
+     * in the given timings.
+     *
+     * @param requestObjects The requests to send.
+     * @param timings        The timings to record the phases in.
+     * @return A future that will be completed with the responses.
+     */
+    CompletableFuture<List<JsonRPCResponse>> sendBatch(List<JsonRPCRequest> requestObjects, RequestTimings timings) {
+        List<Long> requestIds = new ArrayList<>(requestObjects.size());
+        List<CompletableFuture<JsonRPCResponse>> pendingResponses = new ArrayList<>(requestObjects.size());
+        for (JsonRPCRequest requestObject : requestObjects) {
+            requestIds.add(requestObject.getId());
+            pendingResponses.add(register(requestObject.getId(), timings));
+        }
+
+        transmit(requestIds, CommunicationHandler.getMethod(requestObjects), () -> JsonRPCRequest.toJson(requestObjects),
+                timings);
+
+        CompletableFuture<List<JsonRPCResponse>> batchResponse = CompletableFuture
+                .allOf(pendingResponses.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<JsonRPCResponse> responses = new ArrayList<>(pendingResponses.size());
+                    for (CompletableFuture<JsonRPCResponse> pendingResponse : pendingResponses) {
+                        responses.add(pendingResponse.join());
+                    }
+                    return responses;
+                });
+        // Free the slots of the remaining requests if the batch failed or the
+        // caller is not interested in the answer anymore.
+        batchResponse.whenComplete((responses, throwable) -> {
+            for (CompletableFuture<JsonRPCResponse> pendingResponse : pendingResponses) {
+                pendingResponse.cancel(false);
+            }
+        });
+
+        return batchResponse;
+    }
+
+    /**
+     * Register a listener for the notices sent over the current session. The
+     * listener is removed automatically once the session is gone.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener added by {@link #addListener(Listener)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Establish the session if it is not open yet.
+     *
+     * @throws BeowulfConnectionException If the connection could not be established.
+     */
+    protected synchronized void connect() throws BeowulfConnectionException {
+        if (isOpen()) {
+            return;
+        }
+
+        // Requests sent over the old session will never be answered.
+        failAllRequests(new BeowulfCommunicationException("The session has been replaced by a new one."));
+
+        try {
+            LOGGER.info("Connecting to {}.", pool.getEndpointUri());
+
+            Session newSession = pool.getContainer().connectToServer(websocketEndpoint,
+                    getClientEndpointConfig(), pool.getEndpointUri());
+            if (pool.isClosed()) {
+                // The pool has been closed while we were connecting.
+                newSession.close();
+                throw new BeowulfConnectionException("The session pool has been closed.");
+            }
+            session = newSession;
+        } catch (DeploymentException | IOException e) {
+            // Throw an Exception and let the CommunicationHandler handle the
+            // reconnect to another node.
+            throw new BeowulfConnectionException("Could not connect to the node - Trying to reconnect.", e);
+        }
+    }
+
+    /**
+     * Get the endpoint config for a new session. If compression is enabled,
+     * the configured one is extended by the
+     * {@link PerMessageDeflateExtension}.
+     *
+     * @return The config to connect with.
+     */
+    private ClientEndpointConfig getClientEndpointConfig() {
+        ClientEndpointConfig clientEndpointConfig = pool.getConfig().getClientEndpointConfig();
+        if (!pool.getConfig().isCompressionEnabled()) {
+            return clientEndpointConfig;
+        }
+
+        List<Extension> extensions = new ArrayList<>(clientEndpointConfig.getExtensions());
+        extensions.add(DEFLATE_EXTENSION);
+        ClientEndpointConfig compressingConfig = ClientEndpointConfig.Builder.create()
+                .configurator(clientEndpointConfig.getConfigurator())
+                .preferredSubprotocols(clientEndpointConfig.getPreferredSubprotocols())
+                .extensions(extensions)
+                .encoders(clientEndpointConfig.getEncoders())
+                .decoders(clientEndpointConfig.getDecoders())
+                .build();
+        compressingConfig.getUserProperties().putAll(clientEndpointConfig.getUserProperties());
+        return compressingConfig;
+    }
+
+    /**
+     * Close the session in case it is still open.
+     */
+    protected void close() {
+        Session currentSession = session;
+        if (currentSession != null && currentSession.isOpen()) {
+            LOGGER.debug("Closing existing session.");
+            try {
+                currentSession.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close the session.", e);
+            }
+        }
+    }
+
+    /**
+     * Update the {@link Session} this instance should use.
+     *
+     * @param session The session to set.
+     */
+    protected void setSession(Session session) {
+        this.lastActivity = System.nanoTime();
+        this.session = session;
+    }
+
+    /**
+     * Record that the node sent something over the current session, which
+     * proves that the connection is still alive.
+     */
+    protected void onActivity() {
+        lastActivity = System.nanoTime();
+    }
+
+    /**
+     * Report a message received over the current session to the metrics
+     * recorder of the pool.
+     *
+     * @param message The message.
+     */
+    protected void onMessageReceived(String message) {
+        MetricsRecorder metricsRecorder = pool.getConfig().getMetricsRecorder();
+        if (metricsRecorder != null) {
+            metricsRecorder.onBytesReceived(pool.getEndpointUri(), getEncodedLength(message));
+        }
+    }
+
+    /**
+     * @return The endpoint of this session.
+     */
+    protected URI getEndpointUri() {
+        return pool.getEndpointUri();
+    }
+
+    /**
+     * Get the size of the given text encoded as UTF-8 without encoding it.
+     */
+    static long getEncodedLength(String text) {
+        long length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character >= 0x800) {
+                // Surrogate pairs take four bytes for two chars.
+                length += Character.isSurrogate(character) ? 1 : 2;
+            } else if (character >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Send a ping over the current session, or give the session up if the
+     * node did not send anything for too long.
+     *
+     * @param now               The current time (see {@link System#nanoTime()}).
+     * @param heartbeatInterval The heartbeat interval in nanoseconds.
+     * @param maximumMissed     The number of heartbeats that may stay
+     *                          unanswered.
+     */
+    protected void heartbeat(long now, long heartbeatInterval, int maximumMissed) {
+        Session currentSession = session;
+        if (currentSession == null || !currentSession.isOpen()) {
+            return;
+        }
+
+        // Allow some jitter, so a pong arriving late does not count as
+        // another missed heartbeat.
+        if (now - lastActivity > heartbeatInterval * maximumMissed + heartbeatInterval / 2) {
+            LOGGER.warn("{} did not answer {} heartbeat(s). Replacing the connection.", pool.getEndpointUri(),
+                    maximumMissed);
+            expire(currentSession);
+            return;
+        }
+
+        try {
+            currentSession.getAsyncRemote().sendPing(ByteBuffer.allocate(0));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not send a heartbeat.", e);
+        }
+    }
+
+    /**
+     * Called by the {@link WebsocketEndpoint} when a session has been closed.
+     * All requests still waiting for an answer on it will fail and the pool is
+     * informed, so it can replace the session.
+     *
+     * @param closedSession The session that has been closed.
+     */
+    protected void onClose(Session closedSession) {
+        if (closedSession != session) {
+            return;
+        }
+
+        boolean inUse = !inFlightRequests.isEmpty();
+        failAllRequests(new BeowulfCommunicationException(
+                "The connection has been closed before an answer was received."));
+        notifyClosed();
+        pool.onSessionClosed(inUse);
+    }
+
+    /**
+     * Hand a notice received from the node over to the listeners.
+     *
+     * @param notice The notice.
+     */
+    protected void onNotice(JsonRPCResponse notice) {
+        for (Listener listener : listeners) {
+            listener.onNotice(notice);
+        }
+    }
+
+    /**
+     * Stop using a session whose connection seems to be dead. Closing a
+     * half-open connection may block, so this is done in the background.
+     *
+     * @param deadSession The session to give up.
+     */
+    private void expire(Session deadSession) {
+        synchronized (this) {
+            if (deadSession != session) {
+                return;
+            }
+            session = null;
+        }
+
+        failAllRequests(new BeowulfCommunicationException("The node did not answer the heartbeat."));
+        notifyClosed();
+        CommunicationExecutors.getBlockingExecutor().execute(() -> {
+            try {
+                deadSession.close();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.debug("Could not close the session.", e);
+            }
+        });
+        pool.onSessionClosed(true);
+    }
+
+    /**
+     * Hand a response received from the node over to the request waiting for
+     * it.
+     *
+     * @param requestId  The id of the request the response belongs to.
+     * @param response   The response to hand over.
+     * @param receivedAt The time the message containing the response has
+     *                   been received (see {@link System#nanoTime()}).
+     * @return <code>true</code> if a request was waiting for this response,
+     * <code>false</code> if the response was not expected.
+     */
+    protected boolean completeRequest(long requestId, JsonRPCResponse response, long receivedAt) {
+        PendingResponse pendingResponse = inFlightRequests.remove(requestId);
+        if (pendingResponse == null) {
+            return false;
+        }
+
+        RequestTimings timings = pendingResponse.timings;
+        timings.end(RequestTimings.Phase.WIRE, receivedAt);
+        timings.record(RequestTimings.Phase.PARSE, System.nanoTime() - receivedAt);
+        response.setTimings(timings);
+        return pendingResponse.complete(response);
+    }
+
+    /**
+     * Let the request with the given <code>requestId</code> fail.
+     *
+     * @param requestId The id of the request that failed.
+     * @param cause     The reason of the failure.
+     */
+    protected void failRequest(long requestId, Throwable cause) {
+        PendingResponse pendingResponse = inFlightRequests.remove(requestId);
+        if (pendingResponse != null) {
+            pendingResponse.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Let all requests that are still waiting for an answer fail. This is used
+     * when the session they have been sent over is gone.
+     *
+     * @param cause The reason of the failure.
+     */
+    protected void failAllRequests(Throwable cause) {
+        for (Long requestId : inFlightRequests.keySet()) {
+            failRequest(requestId, cause);
+        }
+    }
+
+    /**
+     * Add a slot for the answer of the request with the given id to the table
+     * of in-flight requests.
+     *
+     * @param requestId The id of the request.
+     * @param timings   The timings of the exchange.
+     * @return A future that will be completed with the response.
+     */
+    private CompletableFuture<JsonRPCResponse> register(long requestId, RequestTimings timings) {
+        final PendingResponse pendingResponse = new PendingResponse(timings);
+
+        if (inFlightRequests.putIfAbsent(requestId, pendingResponse) != null) {
+            pendingResponse.completeExceptionally(new BeowulfCommunicationException(
+                    "A request with the id " + requestId + " is already waiting for an answer on this session."));
+            return pendingResponse;
+        }
+
+        // Free the slot in case the caller is not interested in the answer
+        // anymore (e.g. because of a timeout or a cancellation).
+        pendingResponse.whenComplete((response, throwable) -> inFlightRequests.remove(requestId, pendingResponse));
+
+        return pendingResponse;
+    }
+
+    /**
+     * Write the payload to the session. If this fails, the requests with the
+     * given ids are completed exceptionally.
+     *
+     * @param requestIds The ids of the requests contained in the payload.
+     * @param method     The method of the requests or <code>null</code> if
+     *                   they use different methods.
+     * @param payload    Provides the JSON to send.
+     * @param timings    The timings of the exchange.
+     */
+    private void transmit(List<Long> requestIds, String method, Callable<String> payload, RequestTimings timings) {
+        Session currentSession = session;
+        if (currentSession == null) {
+            // Nothing has been sent, so even requests changing the chain may
+            // be retried.
+            failRequests(requestIds, new BeowulfConnectionException("The session has been closed."));
+            return;
+        }
+
+        EventSpan span = FlightRecorderEvents.beginTransportSend();
+        try {
+            timings.begin(RequestTimings.Phase.SERIALIZATION);
+            String request = payload.call();
+            timings.end(RequestTimings.Phase.SERIALIZATION);
+            LOGGER.debug("Sending {}.", request);
+            timings.begin(RequestTimings.Phase.WIRE);
+            currentSession.getAsyncRemote().sendText(request, result -> {
+                long length = getEncodedLength(request);
+                span.end(method, pool.getEndpointUri().toString(), length, result.getException());
+                MetricsRecorder metricsRecorder = pool.getConfig().getMetricsRecorder();
+                if (result.isOK() && metricsRecorder != null) {
+                    metricsRecorder.onBytesSent(pool.getEndpointUri(), length);
+                } else if (!result.isOK()) {
+                    // Let the caller handle the reconnect to another node.
+                    failRequests(requestIds, new BeowulfCommunicationException(
+                            "Could not transfer the data to the Beowulf Node. - Reconnecting.",
+                            result.getException()));
+                }
+            });
+        } catch (Exception e) {
+            span.end(method, pool.getEndpointUri().toString(), -1, e);
+            // Let the CommunicationHandler handle the reconnect to another
+            // node.
+            failRequests(requestIds, new BeowulfCommunicationException(
+                    "Could not transfer the data to the Beowulf Node. - Reconnecting.", e));
+        }
+    }
+
+    /**
+     * Tell the listeners that the current session is gone and forget them.
+     */
+    private void notifyClosed() {
+        for (Listener listener : listeners) {
+            listeners.remove(listener);
+            listener.onClose();
+        }
+    }
+
+    private void failRequests(List<Long> requestIds, Throwable cause) {
+        for (Long requestId : requestIds) {
+            failRequest(requestId, cause);
+        }
+    }
+
+    /**
+     * The slot for the answer of a request in flight.
+     */
+    private static class PendingResponse extends CompletableFuture<JsonRPCResponse> {
+        private final RequestTimings timings;
+
+        private PendingResponse(RequestTimings timings) {
+            this.timings = timings;
+        }
+    }
+}
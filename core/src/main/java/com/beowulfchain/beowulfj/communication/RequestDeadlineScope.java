@@ -0,0 +1,90 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines a deadline for the requests created by the current thread, so a
+ * call never outlives the budget of its caller:
+ *
+ * <pre>
+ * try (RequestDeadlineScope scope = RequestDeadlineScope.enter(2, TimeUnit.SECONDS)) {
+ *     beowulfJ.getBlock(blockNumber);
+ * }
+ * </pre>
+ *
+ * The deadline is assigned when the request is created and applies to the
+ * whole call, including the time spent waiting for an endpoint, all retries
+ * and endpoint switches. If it passes, the call fails with a
+ * {@link com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException}. Nested
+ * scopes can only shorten the deadline of the enclosing scope.
+ */
+public final class RequestDeadlineScope implements AutoCloseable {
+    private static final ThreadLocal<Long> CURRENT_DEADLINE = new ThreadLocal<>();
+
+    private final Long previousDeadline;
+
+    private RequestDeadlineScope(Long previousDeadline) {
+        this.previousDeadline = previousDeadline;
+    }
+
+    /**
+     * Let all requests created by the current thread fail once the given
+     * time has passed, until the returned scope is closed.
+     *
+     * @param timeout The time the requests may take.
+     * @param unit    The unit of the <code>timeout</code>.
+     * @return The scope, which has to be closed by the same thread.
+     * @throws IllegalArgumentException If the timeout is negative.
+     */
+    public static RequestDeadlineScope enter(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("The timeout must not be negative.");
+        }
+
+        Long previousDeadline = CURRENT_DEADLINE.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (previousDeadline != null && previousDeadline - deadline < 0) {
+            deadline = previousDeadline;
+        }
+
+        RequestDeadlineScope scope = new RequestDeadlineScope(previousDeadline);
+        CURRENT_DEADLINE.set(deadline);
+        return scope;
+    }
+
+    /**
+     * @return The deadline defined for the current thread as a value of
+     * {@link System#nanoTime()} or <code>null</code> if there is none.
+     */
+    public static Long current() {
+        return CURRENT_DEADLINE.get();
+    }
+
+    /**
+     * Restore the deadline that has been defined before this scope.
+     */
+    @Override
+    public void close() {
+        if (previousDeadline == null) {
+            CURRENT_DEADLINE.remove();
+        } else {
+            CURRENT_DEADLINE.set(previousDeadline);
+        }
+    }
+}
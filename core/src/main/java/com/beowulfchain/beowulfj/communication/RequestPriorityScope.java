@@ -0,0 +1,76 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.enums.RequestPriority;
+
+/**
+ * Defines the priority of the requests created by the current thread, e.g.
+ * to keep a backfill from delaying user facing requests:
+ *
+ * <pre>
+ * try (RequestPriorityScope scope = RequestPriorityScope.enter(RequestPriority.BULK)) {
+ *     beowulfJ.getBlock(blockNumber);
+ * }
+ * </pre>
+ *
+ * The priority is assigned when the request is created, so it also applies to
+ * asynchronous requests completed on other threads. Requests which change the
+ * chain are always sent with {@link RequestPriority#BROADCAST}.
+ */
+public final class RequestPriorityScope implements AutoCloseable {
+    private static final ThreadLocal<RequestPriority> CURRENT_PRIORITY = new ThreadLocal<>();
+
+    private final RequestPriority previousPriority;
+
+    private RequestPriorityScope(RequestPriority previousPriority) {
+        this.previousPriority = previousPriority;
+    }
+
+    /**
+     * Use the given priority for all requests created by the current thread
+     * until the returned scope is closed.
+     *
+     * @param priority The priority to use.
+     * @return The scope, which has to be closed by the same thread.
+     */
+    public static RequestPriorityScope enter(RequestPriority priority) {
+        RequestPriorityScope scope = new RequestPriorityScope(CURRENT_PRIORITY.get());
+        CURRENT_PRIORITY.set(priority);
+        return scope;
+    }
+
+    /**
+     * @return The priority defined for the current thread or
+     * <code>null</code> if there is none.
+     */
+    public static RequestPriority current() {
+        return CURRENT_PRIORITY.get();
+    }
+
+    /**
+     * Restore the priority that has been defined before this scope.
+     */
+    @Override
+    public void close() {
+        if (previousPriority == null) {
+            CURRENT_PRIORITY.remove();
+        } else {
+            CURRENT_PRIORITY.set(previousPriority);
+        }
+    }
+}
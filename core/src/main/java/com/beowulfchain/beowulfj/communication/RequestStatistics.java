@@ -0,0 +1,154 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+
+/**
+ * A snapshot of the numbers an {@link InMemoryMetricsRecorder} collected for
+ * one method and endpoint. All latencies are given in milliseconds and only
+ * cover requests which have been answered.
+ */
+public class RequestStatistics {
+    private final RequestMethod requestMethod;
+    private final String endpoint;
+    private final long successCount;
+    private final long failureCount;
+    private final long timeoutCount;
+    private final long cancellationCount;
+    private final long inFlightRequests;
+    private final double meanLatency;
+    private final double medianLatency;
+    private final double p90Latency;
+    private final double p99Latency;
+    private final double maxLatency;
+
+    RequestStatistics(RequestMethod requestMethod, String endpoint, long successCount, long failureCount,
+                      long timeoutCount, long cancellationCount, long inFlightRequests, LatencyHistogram latencies) {
+        this.requestMethod = requestMethod;
+        this.endpoint = endpoint;
+        this.successCount = successCount;
+        this.failureCount = failureCount;
+        this.timeoutCount = timeoutCount;
+        this.cancellationCount = cancellationCount;
+        this.inFlightRequests = inFlightRequests;
+        this.meanLatency = latencies.getMean();
+        this.medianLatency = latencies.getPercentile(50);
+        this.p90Latency = latencies.getPercentile(90);
+        this.p99Latency = latencies.getPercentile(99);
+        this.maxLatency = latencies.getMax();
+    }
+
+    /**
+     * @return The method of the requests or <code>null</code> for batches
+     * containing different methods.
+     */
+    public RequestMethod getRequestMethod() {
+        return requestMethod;
+    }
+
+    /**
+     * @return The endpoint the requests have been sent to.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return The number of requests which have been answered.
+     */
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * @return The number of requests which failed for another reason than a
+     * timeout or the caller giving up.
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return The number of requests which have not been answered within the
+     * response timeout.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * @return The number of requests the caller gave up on, e.g. because a
+     * hedged request has been answered first.
+     */
+    public long getCancellationCount() {
+        return cancellationCount;
+    }
+
+    /**
+     * @return The number of requests waiting for an answer at the time of
+     * the snapshot.
+     */
+    public long getInFlightRequests() {
+        return inFlightRequests;
+    }
+
+    /**
+     * @return The average latency.
+     */
+    public double getMeanLatency() {
+        return meanLatency;
+    }
+
+    /**
+     * @return The latency not exceeded by half of the requests.
+     */
+    public double getMedianLatency() {
+        return medianLatency;
+    }
+
+    /**
+     * @return The latency not exceeded by 90 percent of the requests.
+     */
+    public double getP90Latency() {
+        return p90Latency;
+    }
+
+    /**
+     * @return The latency not exceeded by 99 percent of the requests.
+     */
+    public double getP99Latency() {
+        return p99Latency;
+    }
+
+    /**
+     * @return The highest latency.
+     */
+    public double getMaxLatency() {
+        return maxLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestStatistics{requestMethod=" + requestMethod + ", endpoint=" + endpoint
+                + ", successCount=" + successCount + ", failureCount=" + failureCount
+                + ", timeoutCount=" + timeoutCount + ", cancellationCount=" + cancellationCount
+                + ", inFlightRequests=" + inFlightRequests + ", meanLatency=" + meanLatency
+                + ", medianLatency=" + medianLatency + ", p90Latency=" + p90Latency + ", p99Latency=" + p99Latency
+                + ", maxLatency=" + maxLatency + "}";
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The time a single attempt to send a request spent in each of its phases.
+ * The phases are recorded by different components and threads: the
+ * {@link CommunicationHandler} records the selection of the endpoint, the
+ * queueing and the binding of the result, while the clients record the phases
+ * on the wire. Clients hand their part over with the answer (@see
+ * {@link com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse#getTimings()}).
+ * <p>
+ * Phases a client is not able to measure are reported as <code>-1</code>.
+ */
+public final class RequestTimings {
+    /**
+     * The phases of an attempt in the order they happen.
+     */
+    public enum Phase {
+        /**
+         * Choosing the endpoint to send to.
+         */
+        ENDPOINT_SELECTION("endpoint_selection"),
+        /**
+         * Waiting for the concurrency limiter of the endpoint.
+         */
+        QUEUE("queue"),
+        /**
+         * Leasing or establishing the connection, including the TCP and TLS
+         * handshake of a new one.
+         */
+        CONNECT("connect"),
+        /**
+         * Writing the request as JSON.
+         */
+        SERIALIZATION("serialization"),
+        /**
+         * From writing the request to the connection until the whole answer
+         * has been received. This covers the processing time of the node.
+         */
+        WIRE("wire"),
+        /**
+         * Scanning the answer for the id of the request and splitting batch
+         * answers. Single answers received via HTTP are parsed while they are
+         * bound, so this phase is part of {@link #BINDING} for them.
+         */
+        PARSE("parse"),
+        /**
+         * Transforming the answer into the type expected by the caller.
+         */
+        BINDING("binding");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return The name of the phase used in log messages.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final AtomicLongArray durations = new AtomicLongArray(PHASES.length);
+    private final AtomicLongArray startTimes = new AtomicLongArray(PHASES.length);
+
+    /**
+     * Create timings without any recorded phase.
+     */
+    public RequestTimings() {
+        for (int i = 0; i < PHASES.length; i++) {
+            durations.set(i, -1);
+        }
+    }
+
+    /**
+     * @param phase The phase to get the duration of.
+     * @return The time spent in the given phase in nanoseconds or
+     * <code>-1</code> if it has not been recorded.
+     */
+    public long getDuration(Phase phase) {
+        return durations.get(phase.ordinal());
+    }
+
+    /**
+     * @return The time spent in all recorded phases in nanoseconds.
+     */
+    public long getTotalDuration() {
+        long total = 0;
+        for (int i = 0; i < PHASES.length; i++) {
+            total += Math.max(0, durations.get(i));
+        }
+        return total;
+    }
+
+    /**
+     * Record the duration of a phase. A duration recorded before is replaced.
+     *
+     * @param phase The phase.
+     * @param nanos The time spent in the phase in nanoseconds.
+     */
+    void record(Phase phase, long nanos) {
+        durations.set(phase.ordinal(), Math.max(0, nanos));
+    }
+
+    /**
+     * Remember the current time as the start of the given phase.
+     *
+     * @param phase The phase that starts.
+     */
+    void begin(Phase phase) {
+        startTimes.set(phase.ordinal(), System.nanoTime());
+    }
+
+    /**
+     * Record the time passed since the given phase has been started by
+     * {@link #begin(Phase)}.
+     *
+     * @param phase The phase that ends.
+     */
+    void end(Phase phase) {
+        end(phase, System.nanoTime());
+    }
+
+    /**
+     * Like {@link #end(Phase)}, but with the given end time.
+     *
+     * @param phase   The phase that ended.
+     * @param endTime The time the phase ended (see {@link System#nanoTime()}).
+     */
+    void end(Phase phase, long endTime) {
+        record(phase, endTime - startTimes.get(phase.ordinal()));
+    }
+
+    /**
+     * Take over all phases recorded by the given timings.
+     *
+     * @param other The timings to copy from.
+     */
+    void merge(RequestTimings other) {
+        for (int i = 0; i < PHASES.length; i++) {
+            long duration = other.durations.get(i);
+            if (duration >= 0) {
+                durations.set(i, duration);
+            }
+        }
+    }
+
+    /**
+     * @return The recorded phases as <code>name=milliseconds</code> pairs.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : PHASES) {
+            long duration = getDuration(phase);
+            if (duration < 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(phase.getLabel()).append('=').append(formatMillis(duration));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Format the given nanoseconds as milliseconds with one decimal place.
+     */
+    static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+/**
+ * Stores the answers of the node, so repeated requests for the same data do
+ * not have to be sent again. Which answers are stored and for how long is
+ * decided by the {@link CachePolicy}.
+ * <p>
+ * Implementations are shared by all threads using the same
+ * {@link CommunicationHandler} and therefore have to be thread safe.
+ */
+public interface ResponseCache {
+    /**
+     * Get the value stored for the given key.
+     *
+     * @param key The key of the request.
+     * @return The value or <code>null</code> if there is none or it expired.
+     */
+    Object get(String key);
+
+    /**
+     * Store the value for the given key. The cache may evict it at any time
+     * to stay within its bounds.
+     *
+     * @param key        The key of the request.
+     * @param value      The deserialized answer of the node.
+     * @param timeToLive The time in milliseconds the value may be used or
+     *                   {@link CachePolicy#FOREVER} if it never changes.
+     */
+    void put(String key, Object value, long timeToLive);
+
+    /**
+     * Remove all values, e.g. after switching to another chain.
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,52 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+
+import java.util.List;
+
+/**
+ * Decides whether and when a request that failed due to a communication
+ * problem is sent again.
+ * <p>
+ * Implementations are shared by all threads using the same
+ * {@link CommunicationHandler} and therefore have to be thread safe.
+ */
+public interface RetryPolicy {
+    /**
+     * Called once for each request before it is sent for the first time.
+     *
+     * @param requestObjects The requests that are sent together.
+     */
+    default void onRequest(List<JsonRPCRequest> requestObjects) {
+        // Nothing to do by default.
+    }
+
+    /**
+     * Decide whether the failed requests should be sent again.
+     *
+     * @param requestObjects The requests that are sent together.
+     * @param attempt        The number of the attempt that failed, starting
+     *                       with <code>1</code>.
+     * @param cause          The reason of the failure.
+     * @return The time in milliseconds to wait before the next attempt or a
+     * negative value if the requests should not be sent again.
+     */
+    long getRetryDelay(List<JsonRPCRequest> requestObjects, int attempt, BeowulfCommunicationException cause);
+}
@@ -0,0 +1,71 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import java.net.URI;
+
+/**
+ * The endpoint that answered a request and the size of its answer, recorded
+ * by the attempt that received it, so the
+ * {@link com.beowulfchain.beowulfj.util.FlightRecorderEvents#beginRpcCall()
+ * RPC call event} can report them once the result is available.
+ * <p>
+ * Requests answered from the cache are not recorded.
+ */
+final class RpcCallOutcome {
+    private volatile URI endpoint;
+    private volatile long contentLength = -1;
+
+    /**
+     * Remember the answer of an attempt. An answer recorded before is
+     * replaced.
+     *
+     * @param endpoint      The endpoint that answered.
+     * @param contentLength The size of the answer in bytes or
+     *                      <code>-1</code> if unknown.
+     */
+    void record(URI endpoint, long contentLength) {
+        this.contentLength = contentLength;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Take over the answer recorded by the given outcome, e.g. of a request
+     * this request waited for.
+     *
+     * @param other The outcome to copy from.
+     */
+    void copy(RpcCallOutcome other) {
+        record(other.endpoint, other.contentLength);
+    }
+
+    /**
+     * @return The endpoint that answered or <code>null</code> if no answer
+     * has been received.
+     */
+    String getEndpoint() {
+        URI uri = endpoint;
+        return uri == null ? null : uri.toString();
+    }
+
+    /**
+     * @return The size of the answer in bytes or <code>-1</code> if unknown.
+     */
+    long getContentLength() {
+        return contentLength;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes one line per call that took longer than the slow request threshold
+ * (@see
+ * {@link com.beowulfchain.beowulfj.configuration.BeowulfJConfig#setSlowRequestThreshold(int)}),
+ * broken down into the {@link RequestTimings.Phase phases} of its last
+ * attempt. Time not covered by the phases (earlier attempts, retry delays)
+ * is reported as <code>other</code>.
+ * <p>
+ * At most one line is written per interval, so a slow node does not flood
+ * the log. The number of calls left out is reported with the next line.
+ */
+final class SlowRequestLog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowRequestLog.class);
+    private static final SlowRequestLog INSTANCE = new SlowRequestLog(TimeUnit.SECONDS.toNanos(1));
+
+    private final long interval;
+    private final AtomicLong nextLogTime;
+    private final AtomicLong suppressedRequests = new AtomicLong();
+
+    /**
+     * @param interval The minimum time between two lines in nanoseconds.
+     */
+    SlowRequestLog(long interval) {
+        this.interval = interval;
+        this.nextLogTime = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return The log shared by all BeowulfJ clients of the JVM.
+     */
+    static SlowRequestLog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Log a slow call unless a line has been written recently.
+     *
+     * @param method    The method of the requests or <code>null</code> if
+     *                  they use different methods.
+     * @param requests  The number of requests sent together.
+     * @param endpoint  The endpoint of the last attempt or <code>null</code>
+     *                  if none has been chosen.
+     * @param totalTime The time the call took in nanoseconds.
+     * @param attempts  The number of attempts.
+     * @param failure   The reason the call failed or <code>null</code>.
+     * @param timings   The phases of the last attempt.
+     */
+    void log(String method, int requests, URI endpoint, long totalTime, int attempts, Throwable failure,
+             RequestTimings timings) {
+        if (!LOGGER.isWarnEnabled() || !tryAcquire(System.nanoTime())) {
+            return;
+        }
+
+        LOGGER.warn(format(method, requests, endpoint, totalTime, attempts, failure, timings,
+                suppressedRequests.getAndSet(0)));
+    }
+
+    /**
+     * Check if a line may be written at the given time and count the call
+     * as suppressed otherwise.
+     *
+     * @param now The current time (see {@link System#nanoTime()}).
+     * @return <code>true</code> if the line may be written.
+     */
+    boolean tryAcquire(long now) {
+        long next = nextLogTime.get();
+        if (now - next >= 0 && nextLogTime.compareAndSet(next, now + interval)) {
+            return true;
+        }
+        suppressedRequests.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Build the line describing a slow call (@see
+     * {@link #log(String, int, URI, long, int, Throwable, RequestTimings)}).
+     *
+     * @param suppressedRequests The number of slow calls that have not been
+     *                           logged since the last line.
+     * @return The line.
+     */
+    static String format(String method, int requests, URI endpoint, long totalTime, int attempts,
+                         Throwable failure, RequestTimings timings, long suppressedRequests) {
+        StringBuilder line = new StringBuilder("Slow request: method=")
+                .append(method == null ? "mixed" : method)
+                .append(" requests=").append(requests)
+                .append(" endpoint=").append(endpoint)
+                .append(" total=").append(RequestTimings.formatMillis(totalTime))
+                .append(" attempts=").append(attempts)
+                .append(" outcome=").append(failure == null ? "SUCCESS" : failure.getClass().getSimpleName());
+        if (timings != null) {
+            String phases = timings.toString();
+            if (!phases.isEmpty()) {
+                line.append(' ').append(phases);
+            }
+            line.append(" other=").append(RequestTimings.formatMillis(
+                    Math.max(0, totalTime - timings.getTotalDuration())));
+        }
+        if (suppressedRequests > 0) {
+            line.append(" suppressed=").append(suppressedRequests);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ResponseCache} with a bounded number of entries and a
+ * W-TinyLFU eviction policy.
+ * <p>
+ * New entries are kept in a small LRU window. Once they leave the window,
+ * they are only admitted to the main area if they have been used more often
+ * than the entry that would have to be evicted for them. The main area is a
+ * segmented LRU: Entries used again are protected from being evicted by
+ * entries that have only been used once. How often an entry has been used is
+ * estimated by a count-min sketch, which is halved periodically so old
+ * popularity fades.
+ * <p>
+ * This keeps frequently requested data like irreversible blocks in the cache
+ * while a scan over many blocks only passes through the window.
+ */
+public class TinyLfuResponseCache implements ResponseCache {
+    /**
+     * The share of the entries kept in the window.
+     */
+    private static final double WINDOW_SHARE = 0.01;
+    /**
+     * The share of the main area reserved for entries used more than once.
+     */
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final int maximumSize;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    /**
+     * The segments of the cache, each ordered from the least to the most
+     * recently used entry.
+     */
+    private final Map<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maximumSize The maximum number of entries.
+     * @throws IllegalArgumentException If the size is less than 1.
+     */
+    public TinyLfuResponseCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("The cache must be able to hold at least one entry.");
+        }
+        this.maximumSize = maximumSize;
+        this.windowCapacity = Math.max(1, (int) (maximumSize * WINDOW_SHARE));
+        this.protectedCapacity = (int) ((maximumSize - windowCapacity) * PROTECTED_SHARE);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public synchronized Object get(String key) {
+        sketch.increment(key);
+
+        Entry entry = window.get(key);
+        if (entry == null) {
+            entry = probation.remove(key);
+            if (entry != null) {
+                protect(key, entry);
+            } else {
+                entry = protectedSegment.get(key);
+            }
+        }
+
+        if (entry == null || entry.isExpired()) {
+            if (entry != null) {
+                remove(key);
+            }
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return entry.value;
+    }
+
+    @Override
+    public synchronized void put(String key, Object value, long timeToLive) {
+        if (timeToLive <= 0) {
+            return;
+        }
+        sketch.increment(key);
+
+        Entry entry = new Entry(value, timeToLive);
+        if (window.containsKey(key)) {
+            window.put(key, entry);
+        } else if (probation.remove(key) != null) {
+            protect(key, entry);
+        } else if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, entry);
+        } else {
+            window.put(key, entry);
+            while (window.size() > windowCapacity) {
+                Iterator<Map.Entry<String, Entry>> candidates = window.entrySet().iterator();
+                Map.Entry<String, Entry> candidate = candidates.next();
+                candidates.remove();
+                admit(candidate.getKey(), candidate.getValue());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    /**
+     * @return The number of entries currently stored, including expired
+     * entries which have not been evicted yet.
+     */
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * @return The number of requests answered from this cache.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of requests which could not be answered from this
+     * cache.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The number of entries which have been evicted or not been
+     * admitted to keep the size of this cache.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Move an entry used again to the protected segment and move the least
+     * recently used protected entry back to probation if it is full.
+     */
+    private void protect(String key, Entry entry) {
+        protectedSegment.put(key, entry);
+        if (protectedSegment.size() > protectedCapacity) {
+            Iterator<Map.Entry<String, Entry>> entries = protectedSegment.entrySet().iterator();
+            Map.Entry<String, Entry> demoted = entries.next();
+            entries.remove();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    /**
+     * Add an entry which left the window to the main area if it is used more
+     * often than the entry that has to be evicted for it.
+     */
+    private void admit(String key, Entry candidate) {
+        if (probation.size() + protectedSegment.size() < maximumSize - windowCapacity) {
+            probation.put(key, candidate);
+            return;
+        }
+
+        evictionCount++;
+        Map<String, Entry> victims = probation.isEmpty() ? protectedSegment : probation;
+        if (victims.isEmpty()) {
+            return;
+        }
+        Map.Entry<String, Entry> victim = victims.entrySet().iterator().next();
+        if (victim.getValue().isExpired() || sketch.frequency(key) > sketch.frequency(victim.getKey())) {
+            victims.remove(victim.getKey());
+            probation.put(key, candidate);
+        }
+    }
+
+    private void remove(String key) {
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new ToStringBuilder(this).append("maximumSize", maximumSize).append("size", size())
+                .append("hitCount", hitCount).append("missCount", missCount)
+                .append("evictionCount", evictionCount).toString();
+    }
+
+    /**
+     * A stored value and the time it expires at.
+     */
+    private static class Entry {
+        private final Object value;
+        /**
+         * The expiration time as a value of {@link System#nanoTime()} or
+         * <code>null</code> if the value never expires.
+         */
+        private final Long expiresAt;
+
+        private Entry(Object value, long timeToLive) {
+            this.value = value;
+            if (timeToLive == CachePolicy.FOREVER || timeToLive >= TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE / 2)) {
+                this.expiresAt = null;
+            } else {
+                this.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToLive);
+            }
+        }
+
+        private boolean isExpired() {
+            return expiresAt != null && System.nanoTime() - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * Estimates how often a key has been used with four rows of 4 bit
+     * counters. The counters are halved after a number of increments
+     * proportional to the size of the cache.
+     */
+    private static class FrequencySketch {
+        private static final int[] SEEDS = {0x97cb3127, 0xb7f5a1c9, 0x2e5c1d4f, 0x6b43a9b5};
+        private static final int MAXIMUM_FREQUENCY = 15;
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions = 0;
+
+        private FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize - 1)) << 1;
+            this.counters = new byte[SEEDS.length][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * Math.max(16, maximumSize);
+        }
+
+        private void increment(String key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAXIMUM_FREQUENCY) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(String key) {
+            int hash = key.hashCode();
+            int frequency = MAXIMUM_FREQUENCY;
+            for (int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+
+        private int index(int hash, int row) {
+            int index = (hash + SEEDS[row]) * SEEDS[row];
+            index ^= index >>> 16;
+            return index & mask;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One request and its outcome as captured by a {@link TrafficRecorder}.
+ * <p>
+ * A traffic file starts with a short header followed by the records, so
+ * new sessions can be appended to an existing file. Each record stores the
+ * start time, the duration, the endpoint, the size of the batch the request
+ * was sent in and the deflated JSON of the request and of the response (or
+ * the message of the failure). A record cut off by a crash of the recording
+ * process ends the file.
+ */
+public final class TrafficRecord {
+    private static final int MAGIC = 0x42574A54;
+    private static final int VERSION = 1;
+
+    /**
+     * The outcome of a recorded request.
+     */
+    public enum Outcome {
+        /** The node answered, possibly with a JSON-RPC error object. */
+        RESPONSE,
+        /** The request failed with a {@link com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException}. */
+        COMMUNICATION_FAILURE,
+        /** The answer was rejected with a {@link com.beowulfchain.beowulfj.exceptions.BeowulfResponseException}. */
+        RESPONSE_FAILURE
+    }
+
+    private final long startTime;
+    private final long duration;
+    private final URI endpoint;
+    private final int batchSize;
+    private final String request;
+    private final Outcome outcome;
+    private final String payload;
+
+    /**
+     * Create a new record.
+     *
+     * @param startTime The time the request was handed to the client, in
+     *                  microseconds since the epoch.
+     * @param duration  The time in nanoseconds until the outcome was known.
+     * @param endpoint  The endpoint the request was sent to.
+     * @param batchSize The number of requests sent together.
+     * @param request   The JSON of the request.
+     * @param outcome   The outcome.
+     * @param payload   The JSON of the response or the message of the
+     *                  failure.
+     */
+    TrafficRecord(long startTime, long duration, URI endpoint, int batchSize, String request, Outcome outcome,
+                  String payload) {
+        this.startTime = startTime;
+        this.duration = duration;
+        this.endpoint = endpoint;
+        this.batchSize = batchSize;
+        this.request = request;
+        this.outcome = outcome;
+        this.payload = payload;
+    }
+
+    /**
+     * @return The time the request was handed to the client, in microseconds
+     * since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return The time in nanoseconds until the outcome was known.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return The endpoint the request was sent to.
+     */
+    public URI getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return The number of requests sent together with this one, including
+     * this one.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return The JSON of the request.
+     */
+    public String getRequest() {
+        return request;
+    }
+
+    /**
+     * @return The outcome of the request.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return The JSON of the response or <code>null</code> if the request
+     * failed.
+     */
+    public String getResponse() {
+        return outcome == Outcome.RESPONSE ? payload : null;
+    }
+
+    /**
+     * @return The message of the failure or <code>null</code> if the node
+     * answered.
+     */
+    public String getFailure() {
+        return outcome == Outcome.RESPONSE ? null : payload;
+    }
+
+    /**
+     * Get the key requests are matched by when they are replayed: the
+     * method and the parameters, but not the id.
+     *
+     * @return The key.
+     * @throws IOException If the request is no valid JSON.
+     */
+    String getRequestKey() throws IOException {
+        return getRequestKey(CommunicationHandler.getObjectMapper().readTree(request));
+    }
+
+    /**
+     * @param request The JSON tree of a request.
+     * @return The key the request is matched by when it is replayed.
+     */
+    static String getRequestKey(JsonNode request) {
+        return request.path("method").asText() + '\n' + request.path("params");
+    }
+
+    /**
+     * Read all records of a traffic file.
+     *
+     * @param file The file written by a {@link TrafficRecorder}.
+     * @return The records in the order they were completed.
+     * @throws IOException If the file can't be read or is no traffic file.
+     */
+    public static List<TrafficRecord> readAll(Path file) throws IOException {
+        List<TrafficRecord> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is no traffic file.");
+            } else if (in.readUnsignedByte() != VERSION) {
+                throw new IOException(file + " has an unsupported version.");
+            }
+            while (true) {
+                int outcome = in.read();
+                if (outcome < 0) {
+                    break;
+                }
+                try {
+                    records.add(new TrafficRecord(in.readLong(), in.readLong(), URI.create(in.readUTF()),
+                            in.readInt(), readText(in), Outcome.values()[outcome], readText(in)));
+                } catch (EOFException e) {
+                    // The recording process stopped while writing this record.
+                    break;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Write the header of a new traffic file.
+     *
+     * @param out The stream of the empty file.
+     * @throws IOException If the header could not be written.
+     */
+    static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    /**
+     * Append this record to a traffic file.
+     *
+     * @param out      The stream of the file.
+     * @param deflater The deflater to compress the JSON with.
+     * @throws IOException If the record could not be written.
+     */
+    void writeTo(DataOutputStream out, Deflater deflater) throws IOException {
+        out.writeByte(outcome.ordinal());
+        out.writeLong(startTime);
+        out.writeLong(duration);
+        out.writeUTF(endpoint.toString());
+        out.writeInt(batchSize);
+        writeText(out, request, deflater);
+        writeText(out, payload == null ? "" : payload, deflater);
+    }
+
+    private static void writeText(DataOutputStream out, String text, Deflater deflater) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        out.writeInt(bytes.length);
+        out.writeInt(compressed.size());
+        compressed.writeTo(out);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        byte[] compressed = new byte[in.readInt()];
+        in.readFully(compressed);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            if (inflater.inflate(bytes) != bytes.length) {
+                throw new IOException("Corrupt record.");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt record.", e);
+        } finally {
+            inflater.end();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
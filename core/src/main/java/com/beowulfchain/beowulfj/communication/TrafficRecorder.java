@@ -0,0 +1,280 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.zip.Deflater;
+
+/**
+ * Records every request sent by the decorated clients together with its
+ * response and timing to an append-only file, which can be served by a
+ * {@link TrafficReplayer} later on (@see {@link TrafficRecord}).
+ * <p>
+ * Install the recorder with
+ * {@link com.beowulfchain.beowulfj.configuration.BeowulfJConfig#setClientDecorator(ClientDecorator)
+ * setClientDecorator} before the {@link CommunicationHandler} is created and
+ * close it at the end of the session to flush the file. Failures to write
+ * the file are logged once and do not affect the requests.
+ */
+public class TrafficRecorder implements ClientDecorator, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    private final Path file;
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final long baseTime = System.currentTimeMillis() * 1000;
+    private final long baseNanos = System.nanoTime();
+    private long recordCount;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * Create a recorder appending to the given file. The file is created if
+     * it does not exist.
+     *
+     * @param file The traffic file.
+     * @throws IOException If the file can't be opened.
+     */
+    public TrafficRecorder(Path file) throws IOException {
+        this.file = file;
+        boolean empty = !Files.exists(file) || Files.size(file) == 0;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 65536));
+        if (empty) {
+            TrafficRecord.writeHeader(out);
+        }
+    }
+
+    @Override
+    public AbstractClient decorate(AbstractClient client, URI endpointUri) {
+        return new RecordingClient(client);
+    }
+
+    /**
+     * @return The number of records written so far.
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Write the buffered records to the file.
+     *
+     * @throws IOException If the records could not be written.
+     */
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Flush and close the file. Requests completed afterwards are not
+     * recorded.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Record the outcome of requests sent together.
+     *
+     * @param requestObjects The requests.
+     * @param endpointUri    The endpoint they were sent to.
+     * @param startNanos     The value of {@link System#nanoTime()} when they
+     *                       were handed to the client.
+     * @param responses      The responses or <code>null</code> if the
+     *                       requests failed.
+     * @param failure        The failure or <code>null</code>.
+     */
+    private void record(List<JsonRPCRequest> requestObjects, URI endpointUri, long startNanos,
+                        List<JsonRPCResponse> responses, Throwable failure) {
+        long duration = System.nanoTime() - startNanos;
+        long startTime = baseTime + (startNanos - baseNanos) / 1000;
+        Throwable cause = failure == null ? null : CommunicationExecutors.unwrap(failure);
+        if (cause instanceof CancellationException) {
+            return;
+        }
+
+        Map<Long, JsonRPCResponse> responsesById = new HashMap<>();
+        if (responses != null && requestObjects.size() > 1) {
+            for (JsonRPCResponse response : responses) {
+                responsesById.put(response.getId(), response);
+            }
+        }
+        for (JsonRPCRequest requestObject : requestObjects) {
+            TrafficRecord.Outcome outcome;
+            String payload;
+            if (responses != null) {
+                JsonRPCResponse response = requestObjects.size() == 1 ? responses.get(0)
+                        : responsesById.get(requestObject.getId());
+                if (response == null) {
+                    continue;
+                }
+                outcome = TrafficRecord.Outcome.RESPONSE;
+                payload = response.getContentAsString();
+            } else {
+                outcome = cause instanceof BeowulfResponseException ? TrafficRecord.Outcome.RESPONSE_FAILURE
+                        : TrafficRecord.Outcome.COMMUNICATION_FAILURE;
+                payload = String.valueOf(cause.getMessage());
+            }
+            try {
+                write(new TrafficRecord(startTime, duration, endpointUri, requestObjects.size(),
+                        requestObject.toJson(), outcome, payload));
+            } catch (JsonProcessingException e) {
+                LOGGER.debug("Not recording request {}.", requestObject.getId(), e);
+            }
+        }
+    }
+
+    private synchronized void write(TrafficRecord record) {
+        if (closed || failed) {
+            return;
+        }
+        try {
+            record.writeTo(out, deflater);
+            recordCount++;
+        } catch (IOException e) {
+            failed = true;
+            LOGGER.warn("Unable to record the traffic to {}, recording stopped.", file, e);
+        }
+    }
+
+    /**
+     * Forwards all calls to the decorated client and records their outcome.
+     */
+    private final class RecordingClient extends AbstractClient {
+        private final AbstractClient delegate;
+
+        private RecordingClient(AbstractClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public JsonRPCResponse invokeAndReadResponse(JsonRPCRequest requestObject, URI endpointUri,
+                                                     boolean sslVerificationDisabled)
+                throws BeowulfCommunicationException, BeowulfResponseException {
+            long start = System.nanoTime();
+            try {
+                JsonRPCResponse response = delegate.invokeAndReadResponse(requestObject, endpointUri,
+                        sslVerificationDisabled);
+                record(Collections.singletonList(requestObject), endpointUri, start,
+                        Collections.singletonList(response), null);
+                return response;
+            } catch (BeowulfCommunicationException | BeowulfResponseException e) {
+                record(Collections.singletonList(requestObject), endpointUri, start, null, e);
+                throw e;
+            }
+        }
+
+        @Override
+        public List<JsonRPCResponse> invokeAndReadBatchResponse(List<JsonRPCRequest> requestObjects,
+                                                                URI endpointUri, boolean sslVerificationDisabled)
+                throws BeowulfCommunicationException, BeowulfResponseException {
+            long start = System.nanoTime();
+            try {
+                List<JsonRPCResponse> responses = delegate.invokeAndReadBatchResponse(requestObjects, endpointUri,
+                        sslVerificationDisabled);
+                record(requestObjects, endpointUri, start, responses, null);
+                return responses;
+            } catch (BeowulfCommunicationException | BeowulfResponseException e) {
+                record(requestObjects, endpointUri, start, null, e);
+                throw e;
+            }
+        }
+
+        @Override
+        public CompletableFuture<JsonRPCResponse> invokeAndReadResponseAsync(JsonRPCRequest requestObject,
+                                                                             URI endpointUri,
+                                                                             boolean sslVerificationDisabled) {
+            long start = System.nanoTime();
+            CompletableFuture<JsonRPCResponse> future = delegate.invokeAndReadResponseAsync(requestObject,
+                    endpointUri, sslVerificationDisabled);
+            return afterRecording(future, (response, throwable) -> record(Collections.singletonList(requestObject),
+                    endpointUri, start, response == null ? null : Collections.singletonList(response), throwable));
+        }
+
+        @Override
+        public CompletableFuture<List<JsonRPCResponse>> invokeAndReadBatchResponseAsync(
+                List<JsonRPCRequest> requestObjects, URI endpointUri, boolean sslVerificationDisabled) {
+            long start = System.nanoTime();
+            CompletableFuture<List<JsonRPCResponse>> future = delegate.invokeAndReadBatchResponseAsync(
+                    requestObjects, endpointUri, sslVerificationDisabled);
+            return afterRecording(future, (responses, throwable) -> record(requestObjects, endpointUri, start,
+                    responses, throwable));
+        }
+
+        /**
+         * Complete the returned future only after the outcome has been
+         * recorded. Cancelling it cancels the request.
+         */
+        private <T> CompletableFuture<T> afterRecording(CompletableFuture<T> future,
+                                                        BiConsumer<T, Throwable> recording) {
+            CompletableFuture<T> recorded = future.whenComplete(recording);
+            recorded.whenComplete((result, throwable) -> {
+                if (recorded.isCancelled()) {
+                    future.cancel(true);
+                }
+            });
+            return recorded;
+        }
+
+        @Override
+        public CompletableFuture<Void> warmUp(URI endpointUri, boolean sslVerificationDisabled) {
+            return delegate.warmUp(endpointUri, sslVerificationDisabled);
+        }
+
+        @Override
+        public boolean isMultiplexing() {
+            return delegate.isMultiplexing();
+        }
+
+        @Override
+        public void closeConnection() throws IOException {
+            delegate.closeConnection();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers requests from a file written by a {@link TrafficRecorder}, so a
+ * captured session can be replayed deterministically without a network.
+ * <p>
+ * Requests are matched by their method and parameters; the endpoint and
+ * the id are ignored and the id of the recorded response is replaced by the
+ * one of the request. Identical requests get the recorded answers in the
+ * recorded order, starting over once all of them have been served. Each
+ * answer is delayed by the recorded duration divided by the speed-up, and
+ * recorded failures are thrown again. Requests that have not been recorded
+ * fail with a {@link BeowulfCommunicationException}.
+ * <p>
+ * The clients created by BeowulfJ are replaced, but they are still closed
+ * with the replaying ones.
+ */
+public class TrafficReplayer implements ClientDecorator {
+    private static final ObjectMapper MAPPER = CommunicationHandler.getObjectMapper();
+
+    private final Map<String, List<TrafficRecord>> recordsByRequest = new HashMap<>();
+    private final Map<String, AtomicInteger> positions = new HashMap<>();
+    private final double speedUp;
+    private final int recordCount;
+
+    /**
+     * Create a replayer answering at the recorded speed.
+     *
+     * @param file The traffic file.
+     * @throws IOException If the file can't be read.
+     */
+    public TrafficReplayer(Path file) throws IOException {
+        this(file, 1);
+    }
+
+    /**
+     * Create a replayer answering at an accelerated speed.
+     *
+     * @param file    The traffic file.
+     * @param speedUp The factor the recorded durations are divided by, e.g.
+     *                <code>2</code> to answer twice as fast or
+     *                {@link Double#POSITIVE_INFINITY} to answer immediately.
+     * @throws IOException              If the file can't be read.
+     * @throws IllegalArgumentException If the speed-up is not positive.
+     */
+    public TrafficReplayer(Path file, double speedUp) throws IOException {
+        this(TrafficRecord.readAll(file), speedUp);
+    }
+
+    /**
+     * Create a replayer answering from the given records.
+     *
+     * @param records The recorded requests.
+     * @param speedUp The factor the recorded durations are divided by.
+     * @throws IOException              If a recorded request is no valid JSON.
+     * @throws IllegalArgumentException If the speed-up is not positive.
+     */
+    public TrafficReplayer(List<TrafficRecord> records, double speedUp) throws IOException {
+        if (!(speedUp > 0)) {
+            throw new IllegalArgumentException("The speed-up has to be positive.");
+        }
+        this.speedUp = speedUp;
+        this.recordCount = records.size();
+        for (TrafficRecord record : records) {
+            String key = record.getRequestKey();
+            recordsByRequest.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+            positions.putIfAbsent(key, new AtomicInteger());
+        }
+    }
+
+    /**
+     * @return The number of recorded requests.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public AbstractClient decorate(AbstractClient client, URI endpointUri) {
+        return new ReplayingClient(client);
+    }
+
+    /**
+     * Find the next recorded answer for the given request.
+     *
+     * @throws BeowulfCommunicationException If the request has not been
+     *                                       recorded.
+     */
+    private TrafficRecord next(JsonRPCRequest requestObject) throws BeowulfCommunicationException {
+        String key;
+        try {
+            key = TrafficRecord.getRequestKey(MAPPER.readTree(requestObject.toJson()));
+        } catch (IOException e) {
+            throw new BeowulfCommunicationException("Could not serialize the request.", e);
+        }
+        List<TrafficRecord> records = recordsByRequest.get(key);
+        if (records == null) {
+            throw new BeowulfCommunicationException("No recorded response for " + requestObject.getMethod() + ".");
+        }
+        return records.get(Math.floorMod(positions.get(key).getAndIncrement(), records.size()));
+    }
+
+    /**
+     * @return The time in nanoseconds to wait before answering.
+     */
+    private long getDelay(List<TrafficRecord> records) {
+        long duration = 0;
+        for (TrafficRecord record : records) {
+            duration = Math.max(duration, record.getDuration());
+        }
+        return (long) (duration / speedUp);
+    }
+
+    /**
+     * Turn a record into the answer to the given request.
+     */
+    private static JsonRPCResponse toResponse(TrafficRecord record, JsonRPCRequest requestObject)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        switch (record.getOutcome()) {
+        case COMMUNICATION_FAILURE:
+            throw new BeowulfCommunicationException(record.getFailure());
+        case RESPONSE_FAILURE:
+            throw new BeowulfResponseException(record.getFailure());
+        default:
+            JsonNode response;
+            try {
+                response = MAPPER.readTree(record.getResponse());
+                if (response.isObject()
+                        && response.path(JsonRPCResponse.ID_FIELD_NAME).asLong(-1) != requestObject.getId()) {
+                    ((ObjectNode) response).put(JsonRPCResponse.ID_FIELD_NAME, requestObject.getId());
+                    return new JsonRPCResponse(MAPPER.writeValueAsBytes(response));
+                }
+            } catch (IOException e) {
+                throw new BeowulfResponseException("The recorded response is no valid JSON.", e);
+            }
+            return new JsonRPCResponse(record.getResponse().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static List<JsonRPCResponse> toResponses(List<TrafficRecord> records,
+                                                     List<JsonRPCRequest> requestObjects)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        List<JsonRPCResponse> responses = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            responses.add(toResponse(records.get(i), requestObjects.get(i)));
+        }
+        return responses;
+    }
+
+    private List<TrafficRecord> next(List<JsonRPCRequest> requestObjects) throws BeowulfCommunicationException {
+        List<TrafficRecord> records = new ArrayList<>(requestObjects.size());
+        for (JsonRPCRequest requestObject : requestObjects) {
+            records.add(next(requestObject));
+        }
+        return records;
+    }
+
+    /**
+     * Complete the future with the answer after the recorded delay.
+     */
+    private <T> CompletableFuture<T> answerLater(long delay, ReplayTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable completion = () -> {
+            try {
+                future.complete(task.call());
+            } catch (BeowulfCommunicationException | BeowulfResponseException e) {
+                future.completeExceptionally(e);
+            }
+        };
+        if (delay <= 0) {
+            completion.run();
+        } else {
+            ScheduledFuture<?> scheduled = CommunicationExecutors.getScheduler().schedule(completion, delay,
+                    TimeUnit.NANOSECONDS);
+            future.whenComplete((result, throwable) -> scheduled.cancel(false));
+        }
+        return future;
+    }
+
+    private static void sleep(long delay) throws BeowulfCommunicationException {
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BeowulfCommunicationException("Interrupted while replaying the request.", e);
+            }
+        }
+    }
+
+    /**
+     * Creates a replayed answer.
+     */
+    @FunctionalInterface
+    private interface ReplayTask<T> {
+        T call() throws BeowulfCommunicationException, BeowulfResponseException;
+    }
+
+    /**
+     * Answers all requests from the recording.
+     */
+    private final class ReplayingClient extends AbstractClient {
+        private final AbstractClient replacedClient;
+
+        private ReplayingClient(AbstractClient replacedClient) {
+            this.replacedClient = replacedClient;
+        }
+
+        @Override
+        public JsonRPCResponse invokeAndReadResponse(JsonRPCRequest requestObject, URI endpointUri,
+                                                     boolean sslVerificationDisabled)
+                throws BeowulfCommunicationException, BeowulfResponseException {
+            TrafficRecord record = next(requestObject);
+            sleep(getDelay(Collections.singletonList(record)));
+            return toResponse(record, requestObject);
+        }
+
+        @Override
+        public List<JsonRPCResponse> invokeAndReadBatchResponse(List<JsonRPCRequest> requestObjects,
+                                                                URI endpointUri, boolean sslVerificationDisabled)
+                throws BeowulfCommunicationException, BeowulfResponseException {
+            List<TrafficRecord> records = next(requestObjects);
+            sleep(getDelay(records));
+            return toResponses(records, requestObjects);
+        }
+
+        @Override
+        public CompletableFuture<JsonRPCResponse> invokeAndReadResponseAsync(JsonRPCRequest requestObject,
+                                                                             URI endpointUri,
+                                                                             boolean sslVerificationDisabled) {
+            TrafficRecord record;
+            try {
+                record = next(requestObject);
+            } catch (BeowulfCommunicationException e) {
+                CompletableFuture<JsonRPCResponse> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+            return answerLater(getDelay(Collections.singletonList(record)),
+                    () -> toResponse(record, requestObject));
+        }
+
+        @Override
+        public CompletableFuture<List<JsonRPCResponse>> invokeAndReadBatchResponseAsync(
+                List<JsonRPCRequest> requestObjects, URI endpointUri, boolean sslVerificationDisabled) {
+            List<TrafficRecord> records;
+            try {
+                records = next(requestObjects);
+            } catch (BeowulfCommunicationException e) {
+                CompletableFuture<List<JsonRPCResponse>> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+            return answerLater(getDelay(records), () -> toResponses(records, requestObjects));
+        }
+
+        @Override
+        public boolean isMultiplexing() {
+            return replacedClient.isMultiplexing();
+        }
+
+        @Override
+        public void closeConnection() throws IOException {
+            replacedClient.closeConnection();
+        }
+    }
+}
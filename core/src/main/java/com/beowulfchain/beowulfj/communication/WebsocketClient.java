@@ -22,178 +22,213 @@ import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
 import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
-import org.glassfish.tyrus.client.ClientManager;
-import org.glassfish.tyrus.client.ClientProperties;
-import org.glassfish.tyrus.client.SslContextConfigurator;
-import org.glassfish.tyrus.client.SslEngineConfigurator;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLSession;
-import javax.websocket.DeploymentException;
-import javax.websocket.EncodeException;
-import javax.websocket.Session;
 import java.io.IOException;
 import java.net.URI;
-import java.util.concurrent.CountDownLatch;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Sends requests over the shared {@link WebsocketSessionPool} of each
+ * endpoint. The pools are acquired on first use and released by
+ * {@link #closeConnection()}.
+ */
 public class WebsocketClient extends AbstractClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketClient.class);
 
     /**
-     * The client.
-     */
-    private ClientManager client;
-    /**
-     * A {@link CountDownLatch} used to indicate that a message is expected.
-     */
-    private CountDownLatch responseCountDownLatch;
-    /**
-     * The current session.
-     */
-    private Session session;
-    /**
-     * The {@link WebsocketEndpoint} instance that will handle the incoming
-     * messages.
+     * The session pools used by this instance, keyed by their endpoint and
+     * whether the SSL verification is disabled.
      */
-    private WebsocketEndpoint websocketEndpoint;
-    /**
-     * The endpoint this client instance is currently connected to.
-     */
-    private URI currentEndpointUri;
+    private final Map<Pair<URI, Boolean>, WebsocketSessionPool> pools = new ConcurrentHashMap<>();
+    private final BeowulfJConfig config;
 
     /**
-     * Initialize a new Websocket Client.
+     * Create a new client using the {@link BeowulfJConfig#getInstance()
+     * global config}.
+     *
+     * @deprecated Use {@link #WebsocketClient(BeowulfJConfig)} with the config of the
+     * BeowulfJ client this instance belongs to.
      */
+    @Deprecated
     public WebsocketClient() {
-        // Initialize fields.
-        this.client = ClientManager.createClient();
-
-        this.client.setDefaultMaxSessionIdleTimeout(BeowulfJConfig.getInstance().getIdleTimeout());
-        this.client.getProperties().put(ClientProperties.RECONNECT_HANDLER, new WebsocketReconnectHandler());
+        this(BeowulfJConfig.getInstance());
+    }
 
-        this.websocketEndpoint = new WebsocketEndpoint(this);
-        this.responseCountDownLatch = new CountDownLatch(1);
+    /**
+     * Create a new client.
+     *
+     * @param config The config of the BeowulfJ client this instance belongs to.
+     */
+    public WebsocketClient(BeowulfJConfig config) {
+        this.config = config;
     }
 
     @Override
     public JsonRPCResponse invokeAndReadResponse(JsonRPCRequest requestObject, URI endpointUri,
                                                  boolean sslVerificationDisabled) throws BeowulfCommunicationException, BeowulfResponseException {
-        if (session == null || !session.isOpen() || currentEndpointUri == null
-                || !currentEndpointUri.equals(endpointUri)) {
-            connect(endpointUri, sslVerificationDisabled);
-            // "Save" the URI we are currently connected to.
-            currentEndpointUri = endpointUri;
-        }
-
-        responseCountDownLatch = new CountDownLatch(1);
-
-        try {
-            String request = requestObject.toJson();
-            LOGGER.debug("Sending {}.", request);
-            session.getBasicRemote().sendObject(request);
-        } catch (IOException | EncodeException e) {
-            // Throw an Exception and let the CommunicationHandler handle the
-            // reconnect to another node.
-            throw new BeowulfCommunicationException("Could not transfer the data to the Beowulf Node. - Reconnecting.", e);
-        }
+        return awaitResponse(invokeAndReadResponseAsync(requestObject, endpointUri, sslVerificationDisabled),
+                Collections.singletonList(requestObject));
+    }
 
-        try {
-            // Wait until we received a response from the Server.
-            do {
-                if (BeowulfJConfig.getInstance().getResponseTimeout() == 0) {
-                    responseCountDownLatch.await();
-                } else {
-                    if (!responseCountDownLatch.await(BeowulfJConfig.getInstance().getResponseTimeout(),
-                            TimeUnit.MILLISECONDS)) {
-                        throw new BeowulfTimeoutException(
-                                "Timeout occured. The WebSocket server was not able to answer in "
-                                        + BeowulfJConfig.getInstance().getResponseTimeout() + " millisecond(s).");
-                    }
-                }
-            } while (websocketEndpoint.getLatestResponse() == null);
-        } catch (InterruptedException e) {
-            LOGGER.warn("Thread has been interrupted.", e);
-            Thread.currentThread().interrupt();
-        }
+    @Override
+    public CompletableFuture<JsonRPCResponse> invokeAndReadResponseAsync(JsonRPCRequest requestObject,
+                                                                         URI endpointUri,
+                                                                         boolean sslVerificationDisabled) {
+        RequestTimings timings = new RequestTimings();
+        timings.begin(RequestTimings.Phase.CONNECT);
+        return sendOverSession(getPool(endpointUri, sslVerificationDisabled).getSession(), session -> {
+            timings.end(RequestTimings.Phase.CONNECT);
+            return session.send(requestObject, timings);
+        });
+    }
 
-        return websocketEndpoint.getLatestResponse();
+    @Override
+    public List<JsonRPCResponse> invokeAndReadBatchResponse(List<JsonRPCRequest> requestObjects, URI endpointUri,
+                                                            boolean sslVerificationDisabled) throws BeowulfCommunicationException, BeowulfResponseException {
+        return awaitResponse(invokeAndReadBatchResponseAsync(requestObjects, endpointUri, sslVerificationDisabled),
+                requestObjects);
     }
 
     @Override
-    public void closeConnection() throws IOException {
-        if (session != null && session.isOpen()) {
-            LOGGER.debug("Closing existing session.");
-            session.close();
-        }
+    public CompletableFuture<List<JsonRPCResponse>> invokeAndReadBatchResponseAsync(
+            List<JsonRPCRequest> requestObjects, URI endpointUri, boolean sslVerificationDisabled) {
+        RequestTimings timings = new RequestTimings();
+        timings.begin(RequestTimings.Phase.CONNECT);
+        return sendOverSession(getPool(endpointUri, sslVerificationDisabled).getSession(), session -> {
+            timings.end(RequestTimings.Phase.CONNECT);
+            return session.sendBatch(requestObjects, timings);
+        });
     }
 
     /**
-     * Get the {@link CountDownLatch} used by this instance to change its
-     * counter.
+     * Send a request once the session is available. Unlike
+     * {@link CompletableFuture#thenCompose(Function)}, cancelling the
+     * returned future also cancels the request sent over the session, which
+     * frees its slot for the answer.
      *
-     * @return The {@link CountDownLatch} used by this instance.
+     * @param pendingSession The future that will be completed with the session.
+     * @param send           Sends the request over the session.
+     * @param <T>            The type of the response.
+     * @return A future that will be completed with the response.
      */
-    protected CountDownLatch getResponseCountDownLatch() {
-        return this.responseCountDownLatch;
+    private static <T> CompletableFuture<T> sendOverSession(
+            CompletableFuture<PooledWebsocketSession> pendingSession,
+            Function<PooledWebsocketSession, CompletableFuture<T>> send) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> pendingResponse = new AtomicReference<>();
+        pendingSession.whenComplete((session, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(CommunicationExecutors.unwrap(throwable));
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+
+            CompletableFuture<T> response;
+            try {
+                response = send.apply(session);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            pendingResponse.set(response);
+            response.whenComplete((value, failure) -> {
+                if (failure != null) {
+                    result.completeExceptionally(CommunicationExecutors.unwrap(failure));
+                } else {
+                    result.complete(value);
+                }
+            });
+            // The caller may have given up while the request was sent.
+            if (result.isDone()) {
+                response.cancel(false);
+            }
+        });
+        result.whenComplete((value, throwable) -> {
+            CompletableFuture<T> response = pendingResponse.get();
+            if (response != null) {
+                response.cancel(false);
+            }
+        });
+        return result;
     }
 
-    /**
-     * Get the current {@link Session}.
-     *
-     * @return The session used by this instance.
-     */
-    protected Session getSession() {
-        return session;
+    @Override
+    public CompletableFuture<Void> warmUp(URI endpointUri, boolean sslVerificationDisabled) {
+        return getPool(endpointUri, sslVerificationDisabled).warmUp();
     }
 
-    /**
-     * Update the {@link Session} this instance should use.
-     *
-     * @param session The session to set.
-     */
-    protected void setSession(Session session) {
-        this.session = session;
+    @Override
+    public void closeConnection() throws IOException {
+        Iterator<WebsocketSessionPool> iterator = pools.values().iterator();
+        while (iterator.hasNext()) {
+            WebsocketSessionPool pool = iterator.next();
+            iterator.remove();
+            pool.release();
+        }
     }
 
     /**
-     * This method establishes a new connection to the web socket Server.
+     * Wait until the given response arrived or the response timeout of the
+     * requests has been reached.
      *
-     * @throws BeowulfCommunicationException
+     * @param pendingResponse The future that will be completed with the response.
+     * @param requestObjects  The requests the response belongs to.
+     * @param <T>             The type of the response.
+     * @return The response.
+     * @throws BeowulfCommunicationException If the request failed or timed out.
+     * @throws BeowulfResponseException      If the response could not be processed.
      */
-    private synchronized void connect(URI endpointURI, boolean sslVerificationDisabled)
-            throws BeowulfCommunicationException {
-        // Tyrus expects a SSL connection if the SSL_ENGINE_CONFIGURATOR
-        // property is present. This leads to a "connection failed" error when
-        // a non SSL secured protocol is used. Due to this we only add the
-        // property when connecting to a SSL secured node.
-        if (sslVerificationDisabled && endpointURI.getScheme().equals("wss")) {
-            SslEngineConfigurator sslEngineConfigurator = new SslEngineConfigurator(new SslContextConfigurator());
-            sslEngineConfigurator.setHostnameVerifier(new HostnameVerifier() {
-                // Could be "sslEngineConfigurator.setHostnameVerifier((String
-                // host, SSLSession sslSession) -> true);" when Java 8 is used.
-                @Override
-                public boolean verify(String host, SSLSession sslSession) {
-                    return true;
-                }
-            });
-
-            client.getProperties().put(ClientProperties.SSL_ENGINE_CONFIGURATOR, sslEngineConfigurator);
-        }
+    private <T> T awaitResponse(CompletableFuture<T> pendingResponse, List<JsonRPCRequest> requestObjects)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        int responseTimeout = CommunicationHandler.getResponseTimeout(config, requestObjects);
 
         try {
-            // Close the current session in case it is still open.
-            closeConnection();
-
-            LOGGER.info("Connecting to {}.", endpointURI);
-
-            session = client.connectToServer(websocketEndpoint, BeowulfJConfig.getInstance().getClientEndpointConfig(),
-                    endpointURI);
-        } catch (DeploymentException | IOException e) {
-            // Throw an Exception and let the CommunicationHandler handle the
-            // reconnect to another node.
-            throw new BeowulfCommunicationException("Could not connect to the node - Trying to reconnect.", e);
+            if (responseTimeout == 0) {
+                return pendingResponse.get();
+            }
+
+            return pendingResponse.get(responseTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new BeowulfTimeoutException("Timeout occured. The WebSocket server was not able to answer in "
+                    + responseTimeout + " millisecond(s).", e);
+        } catch (ExecutionException e) {
+            Throwable cause = CommunicationExecutors.unwrap(e.getCause());
+            if (cause instanceof BeowulfCommunicationException) {
+                throw (BeowulfCommunicationException) cause;
+            } else if (cause instanceof BeowulfResponseException) {
+                throw (BeowulfResponseException) cause;
+            }
+            throw new BeowulfCommunicationException("A problem occured while processing the request.", cause);
+        } catch (InterruptedException e) {
+            LOGGER.warn("Thread has been interrupted.", e);
+            Thread.currentThread().interrupt();
+            throw new BeowulfCommunicationException("Interrupted while waiting for the answer of the Beowulf Node.", e);
+        } finally {
+            pendingResponse.cancel(false);
         }
     }
+
+    /**
+     * Get the session pool for the given endpoint and acquire it if this
+     * instance did not use it before.
+     */
+    private WebsocketSessionPool getPool(URI endpointUri, boolean sslVerificationDisabled) {
+        return pools.computeIfAbsent(new ImmutablePair<>(endpointUri, sslVerificationDisabled),
+                key -> WebsocketSessionPool.acquire(endpointUri, sslVerificationDisabled, config));
+    }
 }
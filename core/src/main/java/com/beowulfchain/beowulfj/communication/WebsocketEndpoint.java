@@ -17,57 +17,39 @@
 package com.beowulfchain.beowulfj.communication;
 
 import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
-import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.util.EventSpan;
+import com.beowulfchain.beowulfj.util.FlightRecorderEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.websocket.*;
-import java.io.IOException;
 
 public class WebsocketEndpoint extends Endpoint implements MessageHandler.Whole<String> {
     private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketEndpoint.class);
 
     /**
-     * The latest response received from a Beowulf Node.
+     * The {@link PooledWebsocketSession} whose session object should be
+     * updated.
      */
-    private String latestResponse;
-    /**
-     * The {@link WebsocketClient} whose session object should be updated.
-     */
-    private WebsocketClient websocketClient;
+    private PooledWebsocketSession pooledSession;
 
     /**
      * Create a new {@link WebsocketEndpoint} instance.
      *
-     * @param websocketClient The @link WebsocketClient} whose session object should be
-     *                        updated.
+     * @param pooledSession The {@link PooledWebsocketSession} whose session
+     *                      object should be updated.
      */
-    public WebsocketEndpoint(WebsocketClient websocketClient) {
-        this.websocketClient = websocketClient;
-    }
-
-    /**
-     * Pull the latest response.
-     *
-     * @return In case a response has already been received a new
-     * {@link JsonRPCResponse} instance that wraps the response,
-     * otherwise the method will return <code>null</code>.
-     * @throws BeowulfResponseException In case the response can not be parsed as a tree.
-     */
-    protected JsonRPCResponse getLatestResponse() throws BeowulfResponseException {
-        try {
-            if (latestResponse != null)
-                return new JsonRPCResponse(CommunicationHandler.getObjectMapper().readTree(latestResponse));
-
-            return null;
-        } catch (IOException e) {
-            throw new BeowulfResponseException("Unable to parse the response.", e);
-        }
+    public WebsocketEndpoint(PooledWebsocketSession pooledSession) {
+        this.pooledSession = pooledSession;
     }
 
     @Override
     public void onClose(Session session, CloseReason closeReason) {
         LOGGER.info("Connection has been closed (Code: {}, Reason: {}).", closeReason.getCloseCode(),
                 closeReason.getReasonPhrase());
+
+        this.pooledSession.onClose(session);
     }
 
     @Override
@@ -77,19 +59,61 @@ public class WebsocketEndpoint extends Endpoint implements MessageHandler.Whole<
 
     @Override
     public void onOpen(Session session, EndpointConfig config) {
-        this.websocketClient.setSession(session);
-        this.websocketClient.getSession().addMessageHandler(this);
+        BeowulfJConfig beowulfJConfig = pooledSession.getPool().getConfig();
+        // The heartbeat takes care of dead connections and keeps the session
+        // open on purpose.
+        session.setMaxIdleTimeout(beowulfJConfig.getHeartbeatInterval() > 0 ? 0 : beowulfJConfig.getIdleTimeout());
+        session.addMessageHandler(this);
+        session.addMessageHandler(new MessageHandler.Whole<PongMessage>() {
+            @Override
+            public void onMessage(PongMessage message) {
+                pooledSession.onActivity();
+            }
+        });
+        this.pooledSession.setSession(session);
 
         LOGGER.info("Connection has been established.");
     }
 
     @Override
     public void onMessage(String message) {
-        latestResponse = message;
+        long receivedAt = System.nanoTime();
+        this.pooledSession.onActivity();
+        this.pooledSession.onMessageReceived(message);
+        EventSpan span = FlightRecorderEvents.beginTransportReceive();
+        Throwable failure = null;
+        JsonRPCResponse response = new JsonRPCResponse(message);
+        try {
+            if (response.isBatch()) {
+                // The answer to a batch request.
+                for (JsonRPCResponse batchResponse : response.getBatchResponses()) {
+                    dispatch(batchResponse, receivedAt);
+                }
+            } else {
+                dispatch(response, receivedAt);
+            }
+        } catch (BeowulfCommunicationException | IllegalStateException e) {
+            failure = e;
+            LOGGER.error("Unable to parse the response.", e);
+        } finally {
+            span.end(null, pooledSession.getEndpointUri().toString(),
+                    PooledWebsocketSession.getEncodedLength(message), failure);
+        }
+    }
 
-        if (this.websocketClient.getResponseCountDownLatch().getCount() > 0) {
-            this.websocketClient.getResponseCountDownLatch().countDown();
-        } else {
+    /**
+     * Hand the response over to the request waiting for it, or a notice over
+     * to the listeners of the session.
+     *
+     * @param response   The response to dispatch.
+     * @param receivedAt The time the message has been received (see
+     *                   {@link System#nanoTime()}).
+     */
+    private void dispatch(JsonRPCResponse response, long receivedAt) {
+        Long id = response.getId();
+        if (id == null && response.isNotice()) {
+            this.pooledSession.onNotice(response);
+        } else if (id == null || !this.pooledSession.completeRequest(id, response, receivedAt)) {
             // Sadly it is not possible to throw an exception here, so the
             // only useful thing we can do is to log it.
             LOGGER.error("Received an unexpected message.");
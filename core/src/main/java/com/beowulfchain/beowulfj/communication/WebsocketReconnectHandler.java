@@ -22,6 +22,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.websocket.CloseReason;
 
+/**
+ * Reconnects a WebSocket session that has been closed while BeowulfJ is
+ * configured to never close connections.
+ *
+ * @deprecated The {@link WebsocketClient} does not use this handler anymore.
+ * The {@link WebsocketSessionPool} of each endpoint replaces sessions that
+ * have been closed on its own. This class is only kept for applications that
+ * register it with their own Tyrus {@link org.glassfish.tyrus.client.ClientManager}.
+ */
+@Deprecated
 public class WebsocketReconnectHandler extends ReconnectHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketReconnectHandler.class);
 
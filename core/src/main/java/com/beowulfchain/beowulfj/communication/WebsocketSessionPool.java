@@ -0,0 +1,353 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.exceptions.BeowulfConnectionException;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.client.ClientProperties;
+import org.glassfish.tyrus.client.SslContextConfigurator;
+import org.glassfish.tyrus.client.SslEngineConfigurator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed number of WebSocket sessions to a single endpoint. All
+ * {@link WebsocketClient} instances talking to the same endpoint share one
+ * pool, even if they belong to different BeowulfJ clients, and all pools share
+ * one Tyrus client container.
+ *
+ * <p>
+ * Each request is sent over the open session with the fewest requests in
+ * flight, so a large response (e.g. a block) only delays the requests sharing
+ * its session. Sessions that died while in use are replaced in the
+ * background; all other missing sessions are re-established as soon as the
+ * pool is used again. If the heartbeat is enabled (see
+ * {@link BeowulfJConfig#getHeartbeatInterval()}), the pool pings its sessions
+ * periodically, replaces the ones that stopped answering and keeps all of
+ * them open.
+ * </p>
+ */
+public class WebsocketSessionPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketSessionPool.class);
+    /**
+     * The time to wait before trying to replace a session whose last
+     * connection attempt failed.
+     */
+    private static final long RECONNECT_DELAY = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The pools in use, keyed by their endpoint and whether the SSL
+     * verification is disabled.
+     */
+    private static final Map<Pair<URI, Boolean>, WebsocketSessionPool> POOLS = new HashMap<>();
+    /**
+     * The client container shared by all pools.
+     */
+    private static ClientManager container;
+    /**
+     * The client container shared by all pools connecting to SSL secured
+     * endpoints without verifying their certificate.
+     */
+    private static ClientManager unverifiedSslContainer;
+
+    private final URI endpointUri;
+    private final boolean sslVerificationDisabled;
+    /**
+     * The config of the client that created this pool. It defines the
+     * settings of the sessions, e.g. their number and the heartbeat.
+     */
+    private final BeowulfJConfig config;
+    private final PooledWebsocketSession[] sessions;
+    /**
+     * Whether a connection attempt for the session with the same index is
+     * currently running in the background.
+     */
+    private final boolean[] connecting;
+    /**
+     * The earliest time (see {@link System#nanoTime()}) at which the session
+     * with the same index may be replaced in the background.
+     */
+    private final long[] nextConnectAttempt;
+    /**
+     * The periodic heartbeat task, or <code>null</code> if the heartbeat is
+     * disabled.
+     */
+    private final ScheduledFuture<?> heartbeat;
+    private int references;
+    private volatile boolean closed;
+
+    private WebsocketSessionPool(URI endpointUri, boolean sslVerificationDisabled, BeowulfJConfig config) {
+        int size = config.getWebsocketSessionsPerEndpoint();
+        this.endpointUri = endpointUri;
+        this.sslVerificationDisabled = sslVerificationDisabled;
+        this.config = config;
+        this.sessions = new PooledWebsocketSession[size];
+        for (int i = 0; i < size; i++) {
+            this.sessions[i] = new PooledWebsocketSession(this);
+        }
+        this.connecting = new boolean[size];
+        this.nextConnectAttempt = new long[size];
+
+        long heartbeatInterval = config.getHeartbeatInterval();
+        if (heartbeatInterval > 0) {
+            this.heartbeat = CommunicationExecutors.getScheduler().scheduleWithFixedDelay(
+                    () -> heartbeat(TimeUnit.MILLISECONDS.toNanos(heartbeatInterval),
+                            config.getMaximumMissedHeartbeats()),
+                    heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.heartbeat = null;
+        }
+    }
+
+    /**
+     * Get the pool for the given endpoint and create it if there is none yet.
+     * Every call has to be followed by a call to {@link #release()} once the
+     * pool is not needed anymore.
+     *
+     * @param endpointUri             The endpoint to connect to.
+     * @param sslVerificationDisabled <code>true</code> if the certificate of the
+     *                                endpoint should not be verified.
+     * @param config                  The config used to create the pool if
+     *                                there is none yet. A pool that already
+     *                                exists keeps its settings.
+     * @return The pool for the given endpoint.
+     */
+    public static synchronized WebsocketSessionPool acquire(URI endpointUri, boolean sslVerificationDisabled,
+                                                            BeowulfJConfig config) {
+        WebsocketSessionPool pool = POOLS.computeIfAbsent(new ImmutablePair<>(endpointUri, sslVerificationDisabled),
+                key -> new WebsocketSessionPool(endpointUri, sslVerificationDisabled, config));
+        pool.references++;
+        return pool;
+    }
+
+    /**
+     * Give back a pool obtained by {@link #acquire(URI, boolean, BeowulfJConfig)}. The sessions
+     * of the pool are closed as soon as nobody uses it anymore.
+     */
+    public void release() {
+        synchronized (WebsocketSessionPool.class) {
+            if (--references > 0) {
+                return;
+            }
+            POOLS.remove(new ImmutablePair<>(endpointUri, sslVerificationDisabled));
+            closed = true;
+        }
+
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+
+        for (PooledWebsocketSession session : sessions) {
+            session.close();
+        }
+    }
+
+    /**
+     * Get the open session with the fewest requests in flight. If no session
+     * is open, one is established on the blocking executor.
+     *
+     * @return A future that will be completed with an open session.
+     */
+    public CompletableFuture<PooledWebsocketSession> getSession() {
+        PooledWebsocketSession leastLoaded = null;
+        boolean incomplete = false;
+        for (PooledWebsocketSession session : sessions) {
+            if (!session.isOpen()) {
+                incomplete = true;
+            } else if (leastLoaded == null || session.getInFlightRequests() < leastLoaded.getInFlightRequests()) {
+                leastLoaded = session;
+            }
+        }
+
+        if (leastLoaded != null) {
+            if (incomplete) {
+                replenish();
+            }
+            return CompletableFuture.completedFuture(leastLoaded);
+        }
+
+        // Establishing the connection blocks, so do not do it on the thread
+        // of the caller.
+        return CommunicationExecutors.supplyBlocking(() -> {
+            PooledWebsocketSession session = sessions[0];
+            session.connect();
+            replenish();
+            return session;
+        });
+    }
+
+    /**
+     * Establish all sessions of this pool that are not open yet, e.g. to
+     * avoid that latency sensitive requests have to wait for a connection.
+     *
+     * @return A future that will be completed once all sessions are open, or
+     * with a {@link BeowulfConnectionException} if one of them could not be
+     * established.
+     */
+    public CompletableFuture<Void> warmUp() {
+        List<CompletableFuture<PooledWebsocketSession>> connections = new ArrayList<>(sessions.length);
+        for (PooledWebsocketSession session : sessions) {
+            connections.add(CommunicationExecutors.supplyBlocking(() -> {
+                session.connect();
+                return session;
+            }));
+        }
+
+        return CompletableFuture.allOf(connections.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * @return The sessions of this pool, whether they are open or not.
+     */
+    List<PooledWebsocketSession> getSessions() {
+        return Collections.unmodifiableList(Arrays.asList(sessions));
+    }
+
+    /**
+     * @return The endpoint the sessions of this pool are connected to.
+     */
+    public URI getEndpointUri() {
+        return endpointUri;
+    }
+
+    /**
+     * @return The config that defines the settings of this pool.
+     */
+    public BeowulfJConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return <code>true</code> if the pool has been released by all users.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Get the client container to use for the endpoint of this pool.
+     *
+     * @return The client container.
+     */
+    protected ClientManager getContainer() {
+        // Tyrus expects a SSL connection if the SSL_ENGINE_CONFIGURATOR
+        // property is present. This leads to a "connection failed" error when
+        // a non SSL secured protocol is used. Due to this we only add the
+        // property when connecting to a SSL secured node.
+        boolean unverifiedSsl = sslVerificationDisabled && "wss".equals(endpointUri.getScheme());
+
+        synchronized (WebsocketSessionPool.class) {
+            if (unverifiedSsl) {
+                if (unverifiedSslContainer == null) {
+                    unverifiedSslContainer = ClientManager.createClient();
+                    SslEngineConfigurator sslEngineConfigurator = new SslEngineConfigurator(
+                            new SslContextConfigurator());
+                    sslEngineConfigurator.setHostnameVerifier((host, sslSession) -> true);
+                    unverifiedSslContainer.getProperties().put(ClientProperties.SSL_ENGINE_CONFIGURATOR,
+                            sslEngineConfigurator);
+                }
+                return unverifiedSslContainer;
+            }
+
+            if (container == null) {
+                container = ClientManager.createClient();
+            }
+            return container;
+        }
+    }
+
+    /**
+     * Called when one of the sessions of this pool has been closed.
+     *
+     * @param inUse <code>true</code> if requests were waiting for an answer
+     *              on the closed session.
+     */
+    protected void onSessionClosed(boolean inUse) {
+        // A session closed because it has been idle for too long is only
+        // replaced once the pool is used again, unless BeowulfJ is
+        // configured to never close the connection.
+        if (!closed && (inUse || config.getIdleTimeout() <= 0)) {
+            replenish();
+        }
+    }
+
+    /**
+     * Send a ping over all open sessions, replace the ones that stopped
+     * answering and re-establish the missing ones.
+     */
+    private void heartbeat(long heartbeatInterval, int maximumMissed) {
+        try {
+            long now = System.nanoTime();
+            for (PooledWebsocketSession session : sessions) {
+                session.heartbeat(now, heartbeatInterval, maximumMissed);
+            }
+            replenish();
+        } catch (RuntimeException e) {
+            // Do not let an unexpected error stop the periodic task.
+            LOGGER.warn("The heartbeat for {} failed.", endpointUri, e);
+        }
+    }
+
+    /**
+     * Re-establish all sessions that are not open in the background.
+     */
+    private void replenish() {
+        long now = System.nanoTime();
+        for (int i = 0; i < sessions.length; i++) {
+            if (closed || sessions[i].isOpen()) {
+                continue;
+            }
+
+            synchronized (this) {
+                if (connecting[i] || now - nextConnectAttempt[i] < 0) {
+                    continue;
+                }
+                connecting[i] = true;
+            }
+
+            final int index = i;
+            CommunicationExecutors.getBlockingExecutor().execute(() -> {
+                boolean connected = false;
+                try {
+                    sessions[index].connect();
+                    connected = true;
+                } catch (BeowulfConnectionException e) {
+                    LOGGER.debug("Could not replace a session to {}.", endpointUri, e);
+                } finally {
+                    synchronized (this) {
+                        connecting[index] = false;
+                        if (!connected) {
+                            nextConnectAttempt[index] = System.nanoTime() + RECONNECT_DELAY;
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication.jrpc;
+
+import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.fasterxml.jackson.databind.JavaType;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list of {@link JsonRPCRequest JsonRPCRequests} that are sent to the node
+ * as one JSON-RPC 2.0 batch.
+ * <p>
+ * Every request added to the batch returns an {@link Entry} which provides
+ * the result or the error of this specific request after the batch has been
+ * performed by the
+ * {@link CommunicationHandler#performBatchRequest(JsonRPCBatch)
+ * CommunicationHandler}.
+ */
+public class JsonRPCBatch {
+    private final List<Entry<?>> entries = new ArrayList<>();
+
+    /**
+     * Add a request to this batch.
+     *
+     * @param requestObject The request to add.
+     * @param targetClass   The type the result of this request should be
+     *                      transformed to.
+     * @param <T>           The type that should be returned.
+     * @return The entry that will hold the result of the request.
+     */
+    public <T> Entry<T> add(JsonRPCRequest requestObject, Class<T> targetClass) {
+        JavaType expectedResultType = CommunicationHandler.getObjectMapper().getTypeFactory()
+                .constructCollectionType(List.class, targetClass);
+        Entry<T> entry = new Entry<>(requestObject, expectedResultType);
+        entries.add(entry);
+        return entry;
+    }
+
+    /**
+     * @return All entries of this batch in the order they have been added.
+     */
+    public List<Entry<?>> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return The number of requests in this batch.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return <code>true</code> if this batch does not contain any request.
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    /**
+     * One request of a {@link JsonRPCBatch} and its outcome.
+     *
+     * @param <T> The type the result is transformed to.
+     */
+    public static class Entry<T> {
+        private final JsonRPCRequest requestObject;
+        private final JavaType expectedResultType;
+        private volatile List<T> result;
+        private volatile Exception error;
+        private volatile boolean done;
+
+        private Entry(JsonRPCRequest requestObject, JavaType expectedResultType) {
+            this.requestObject = requestObject;
+            this.expectedResultType = expectedResultType;
+        }
+
+        /**
+         * @return The request of this entry.
+         */
+        public JsonRPCRequest getRequest() {
+            return requestObject;
+        }
+
+        /**
+         * @return <code>true</code> if a result or an error has been set.
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * @return <code>true</code> if this request failed.
+         */
+        public boolean isError() {
+            return error != null;
+        }
+
+        /**
+         * Get the result of this request.
+         *
+         * @return The server response transformed into a list of the expected
+         * type.
+         * @throws BeowulfCommunicationException If the node did not answer this
+         *                                       request or the answer could not
+         *                                       be transformed.
+         * @throws BeowulfResponseException      If the node returned an error
+         *                                       object for this request.
+         * @throws IllegalStateException         If the batch has not been
+         *                                       performed yet.
+         */
+        public List<T> getResult() throws BeowulfCommunicationException, BeowulfResponseException {
+            if (!done) {
+                throw new IllegalStateException("The batch containing this request has not been performed yet.");
+            } else if (error instanceof BeowulfResponseException) {
+                throw (BeowulfResponseException) error;
+            } else if (error instanceof BeowulfCommunicationException) {
+                throw (BeowulfCommunicationException) error;
+            }
+
+            return result;
+        }
+
+        /**
+         * Set the outcome of this entry based on the answer of the node.
+         *
+         * @param rawJsonResponse The answer of the node for this request.
+         */
+        public void handleResponse(JsonRPCResponse rawJsonResponse) {
+            try {
+                this.result = rawJsonResponse.handle(expectedResultType, requestObject.getId());
+                this.done = true;
+            } catch (BeowulfCommunicationException | BeowulfResponseException e) {
+                fail(e);
+            } catch (RuntimeException e) {
+                fail(new BeowulfCommunicationException("Could not handle the answer for the request with the id "
+                        + requestObject.getId() + ".", e));
+            }
+        }
+
+        /**
+         * Let this entry fail.
+         *
+         * @param error The reason of the failure.
+         */
+        public void fail(Exception error) {
+            this.error = error;
+            this.done = true;
+        }
+
+        @Override
+        public String toString() {
+            return ToStringBuilder.reflectionToString(this);
+        }
+    }
+}
@@ -17,14 +17,19 @@
 package com.beowulfchain.beowulfj.communication.jrpc;
 
 import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.communication.RequestDeadlineScope;
+import com.beowulfchain.beowulfj.communication.RequestPriorityScope;
 import com.beowulfchain.beowulfj.enums.BeowulfApiType;
 import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.enums.RequestPriority;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import javax.annotation.Nullable;
-import java.util.Random;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @JsonPropertyOrder({"jsonrpc", "method", "params", "id"})
 public class JsonRPCRequest {
@@ -33,16 +38,25 @@ public class JsonRPCRequest {
      */
     private static final String JSONRPC = "2.0";
     /**
-     * A shared <code>Random</code> instance.
+     * The source of request IDs. IDs are unique within this JVM, so responses
+     * on a shared connection can always be matched to their request.
      */
-    private static Random randomGenerator = new Random();
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
     /**
      * The ID of this request.
      */
-    private final long id = randomGenerator.nextLong();
+    private final long id = ID_SEQUENCE.incrementAndGet();
     private String method;
+    @JsonIgnore
+    private RequestMethod requestMethod;
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Object params;
+    @JsonIgnore
+    private RequestPriority priority;
+    @JsonIgnore
+    private Long deadline = RequestDeadlineScope.current();
+    @JsonIgnore
+    private boolean cacheable = true;
 
     /**
      * Instantiate a new RequestObject.
@@ -61,7 +75,15 @@ public class JsonRPCRequest {
             namespaceAndMethod = beowulfApiType.name().toLowerCase() + ".";
         }
         this.method = namespaceAndMethod + requestMethod.name().toLowerCase();
+        this.requestMethod = requestMethod;
         this.params = params;
+        if (!requestMethod.isIdempotent()) {
+            this.priority = RequestPriority.BROADCAST;
+        } else if (RequestPriorityScope.current() != null) {
+            this.priority = RequestPriorityScope.current();
+        } else {
+            this.priority = RequestPriority.INTERACTIVE;
+        }
     }
 
     /**
@@ -91,6 +113,82 @@ public class JsonRPCRequest {
         return method;
     }
 
+    /**
+     * Get the requested method without its namespace.
+     *
+     * @return The requested method.
+     */
+    @JsonIgnore
+    public RequestMethod getRequestMethod() {
+        return requestMethod;
+    }
+
+    /**
+     * Get the priority this request waits for an endpoint with. It is defined
+     * by the {@link RequestPriorityScope} the request has been created in.
+     *
+     * @return The priority of this request.
+     */
+    @JsonIgnore
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Override the priority of this request.
+     *
+     * @param priority The priority to set.
+     */
+    @JsonIgnore
+    public void setPriority(RequestPriority priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Get the deadline of this request. It is defined by the
+     * {@link RequestDeadlineScope} the request has been created in.
+     *
+     * @return The deadline as a value of {@link System#nanoTime()} or
+     * <code>null</code> if the request has no deadline.
+     */
+    @JsonIgnore
+    public Long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Override the deadline of this request.
+     *
+     * @param deadline The deadline as a value of {@link System#nanoTime()} or
+     *                 <code>null</code> to remove the deadline.
+     */
+    @JsonIgnore
+    public void setDeadline(Long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Check if this request may be answered from the response cache.
+     *
+     * @return <code>true</code> if the cache may be used.
+     */
+    @JsonIgnore
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Define if this request may be answered from the response cache and if
+     * its answer may be stored there, e.g. to always get the latest state of
+     * the node.
+     *
+     * @param cacheable <code>false</code> to bypass the cache.
+     */
+    @JsonIgnore
+    public void setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+    }
+
     /**
      * Get the additional parameters.
      *
@@ -108,6 +206,16 @@ public class JsonRPCRequest {
         return CommunicationHandler.getObjectMapper().writeValueAsString(this);
     }
 
+    /**
+     * @param requestObjects The requests to transform.
+     * @return The json representation of the given requests as a JSON-RPC
+     * batch.
+     * @throws JsonProcessingException If the objects can not be transformed into valid json.
+     */
+    public static String toJson(List<JsonRPCRequest> requestObjects) throws JsonProcessingException {
+        return CommunicationHandler.getObjectMapper().writeValueAsString(requestObjects);
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this);
@@ -17,15 +17,29 @@
 package com.beowulfchain.beowulfj.communication.jrpc;
 
 import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.communication.RequestTimings;
 import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.beowulfchain.beowulfj.util.EventSpan;
+import com.beowulfchain.beowulfj.util.FlightRecorderEvents;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class JsonRPCResponse {
@@ -67,9 +81,35 @@ public class JsonRPCResponse {
     public static final String CALLBACK_METHOD_NAME = "notice";
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonRPCResponse.class);
     /**
-     * The raw JSON String returned by a node.
+     * The parsed JSON returned by a node or <code>null</code> if only the raw
+     * content is available.
+     */
+    private volatile JsonNode rawJsonResponse;
+    /**
+     * The raw JSON returned by a node as UTF-8 encoded bytes.
+     */
+    private final byte[] content;
+    /**
+     * The raw JSON returned by a node as text.
+     */
+    private final String textContent;
+    /**
+     * The position of this response in the <code>content</code> or
+     * <code>textContent</code>.
+     */
+    private final int offset;
+    /**
+     * The length of this response in the <code>content</code> or
+     * <code>textContent</code>.
+     */
+    private final int length;
+    private volatile Long id;
+    private volatile boolean idScanned;
+    /**
+     * The phases of the exchange that returned this response or
+     * <code>null</code> if the client did not record them.
      */
-    private JsonNode rawJsonResponse;
+    private volatile RequestTimings timings;
 
     /**
      * Create a new {@link JsonRPCResponse} instance.
@@ -78,20 +118,356 @@ public class JsonRPCResponse {
      *                        {@link JsonRPCResponse} instance.
      */
     public JsonRPCResponse(JsonNode rawJsonResponse) {
+        this(rawJsonResponse, null, null, 0, 0);
+    }
+
+    /**
+     * Create a new {@link JsonRPCResponse} instance for the body of a response
+     * that has not been parsed yet. The content is parsed on demand, so large
+     * results are bound to their target type without an intermediate tree.
+     *
+     * @param content The raw JSON response as returned by the node.
+     */
+    public JsonRPCResponse(byte[] content) {
+        this(null, content, null, 0, content.length);
+    }
+
+    /**
+     * Create a new {@link JsonRPCResponse} instance for a text message that
+     * has not been parsed yet.
+     *
+     * @param textContent The raw JSON response as returned by the node.
+     */
+    public JsonRPCResponse(String textContent) {
+        this(null, null, textContent, 0, textContent.length());
+    }
+
+    private JsonRPCResponse(JsonNode rawJsonResponse, byte[] content, String textContent, int offset, int length) {
         this.rawJsonResponse = rawJsonResponse;
+        this.content = content;
+        this.textContent = textContent;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Split the answer of a node to a JSON-RPC batch into one
+     * {@link JsonRPCResponse} per request.
+     *
+     * @param rawJsonResponse The raw JSON array returned by the node.
+     * @return One {@link JsonRPCResponse} for every element of the array.
+     * @throws BeowulfCommunicationException If the node did not answer with an array.
+     */
+    public static List<JsonRPCResponse> fromBatch(JsonNode rawJsonResponse) throws BeowulfCommunicationException {
+        if (rawJsonResponse == null || !rawJsonResponse.isArray()) {
+            throw new BeowulfCommunicationException("The response to a batch request is not an array.");
+        }
+
+        List<JsonRPCResponse> responses = new ArrayList<>(rawJsonResponse.size());
+        for (JsonNode response : rawJsonResponse) {
+            responses.add(new JsonRPCResponse(response));
+        }
+        return responses;
+    }
+
+    /**
+     * Check if this is the answer to a JSON-RPC batch.
+     *
+     * @return <code>true</code> if the response is an array.
+     * @throws BeowulfCommunicationException If the response is not valid JSON.
+     */
+    public boolean isBatch() throws BeowulfCommunicationException {
+        if (rawJsonResponse != null) {
+            return rawJsonResponse.isArray();
+        }
+
+        try (JsonParser parser = createParser()) {
+            return parser.nextToken() == JsonToken.START_ARRAY;
+        } catch (IOException e) {
+            throw new BeowulfCommunicationException("Unable to parse the response.", e);
+        }
+    }
+
+    /**
+     * Split the answer of a node to a JSON-RPC batch into one
+     * {@link JsonRPCResponse} per request. The elements are not copied, but
+     * refer to the content of this response. If the node rejected the whole
+     * batch with a single object (@see {@link #handleBatchError()}), the list
+     * only contains this response.
+     *
+     * @return One {@link JsonRPCResponse} for every element of the array.
+     * @throws BeowulfCommunicationException If the node did neither answer
+     *                                       with an array nor an object.
+     */
+    public List<JsonRPCResponse> getBatchResponses() throws BeowulfCommunicationException {
+        if (rawJsonResponse != null && rawJsonResponse.isObject()) {
+            return Collections.singletonList(this);
+        } else if (rawJsonResponse != null) {
+            List<JsonRPCResponse> responses = fromBatch(rawJsonResponse);
+            for (JsonRPCResponse response : responses) {
+                response.timings = timings;
+            }
+            return responses;
+        }
+
+        try (JsonParser parser = createParser()) {
+            JsonToken firstToken = parser.nextToken();
+            if (firstToken == JsonToken.START_OBJECT) {
+                return Collections.singletonList(this);
+            } else if (firstToken != JsonToken.START_ARRAY) {
+                throw new BeowulfCommunicationException("The response to a batch request is not an array.");
+            }
+
+            List<JsonRPCResponse> responses = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == null) {
+                    throw new BeowulfCommunicationException("The response to a batch request is incomplete.");
+                }
+                int start = getOffset(parser.getTokenLocation());
+                parser.skipChildren();
+                int end = getOffset(parser.getCurrentLocation());
+                JsonRPCResponse response = new JsonRPCResponse(null, content, textContent, offset + start,
+                        end - start);
+                response.timings = timings;
+                responses.add(response);
+            }
+            return responses;
+        } catch (IOException e) {
+            throw new BeowulfCommunicationException("Unable to parse the response.", e);
+        }
+    }
+
+    /**
+     * Get the time the exchange which returned this response spent in its
+     * phases. The responses of a batch share the timings of the whole batch.
+     *
+     * @return The timings or <code>null</code> if the client did not record
+     * them.
+     */
+    public RequestTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * Attach the phases of the exchange that returned this response. Used by
+     * the clients.
+     *
+     * @param timings The timings of the exchange.
+     */
+    public void setTimings(RequestTimings timings) {
+        this.timings = timings;
     }
 
     /**
      * Get the raw JSON response that is wrapped by this {@link JsonRPCResponse}
      * instance.
+     * <p>
+     * If this response has been created from the raw content, the whole
+     * content is parsed into a tree by the first call of this method.
      *
      * @return The raw JSON response that is wrapped by this
      * {@link JsonRPCResponse} instance.
      */
     public JsonNode getRawJsonResponse() {
+        if (rawJsonResponse == null) {
+            try (JsonParser parser = createParser()) {
+                rawJsonResponse = CommunicationHandler.getObjectMapper().readTree(parser);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to parse the response.", e);
+            }
+        }
         return rawJsonResponse;
     }
 
+    /**
+     * Get the id of the request this response belongs to. Only the top level
+     * of the response is scanned to find the id.
+     *
+     * @return The id or <code>null</code> if the response does not contain an
+     * id.
+     */
+    public Long getId() {
+        if (!idScanned) {
+            id = scanId();
+            idScanned = true;
+        }
+        return id;
+    }
+
+    private Long scanId() {
+        if (rawJsonResponse != null) {
+            JsonNode idNode = rawJsonResponse.get(ID_FIELD_NAME);
+            return idNode == null || idNode.isNull() ? null : idNode.asLong();
+        }
+
+        try (JsonParser parser = createParser()) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (ID_FIELD_NAME.equals(fieldName)) {
+                    return value == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to parse the response.", e);
+        }
+        return null;
+    }
+
+    /**
+     * Check if this is a notice the node sent for a subscription instead of
+     * an answer to a request. Notices are rare, so the whole response is
+     * parsed into a tree.
+     *
+     * @return <code>true</code> if this response is a notice.
+     * @throws IllegalStateException If the response is no valid JSON.
+     */
+    public boolean isNotice() {
+        JsonNode method = getRawJsonResponse().get(METHOD_FIELD_NAME);
+        return method != null && CALLBACK_METHOD_NAME.equals(method.asText());
+    }
+
+    /**
+     * Get the parameters of a notice, which consist of the id of the
+     * subscription followed by its payload.
+     *
+     * @return The parameters of this notice or <code>null</code> if this
+     * response does not contain any.
+     * @throws IllegalStateException If the response is no valid JSON.
+     */
+    public JsonNode getNoticeParameters() {
+        return getRawJsonResponse().get(PARAMETERS_FIELD_NAME);
+    }
+
+    /**
+     * Check the <code>id</code> and the <code>error</code> field of this
+     * response and transform its <code>result</code> into the given
+     * <code>type</code>. In contrast to calling {@link #isError()},
+     * {@link #handleError(long)} and {@link #handleResult(JavaType, long)}
+     * the response is only parsed once and the result is bound directly to
+     * the target type.
+     *
+     * @param <T>  The JavaType of type
+     * @param type The type to transform the JSON to.
+     * @param id   The expected id of the response.
+     * @return A list of of <code>type</code> instances.
+     * @throws BeowulfCommunicationException If the response does not contain the expected <code>id</code>
+     *                                       or if the response could not be parsed.
+     * @throws BeowulfResponseException      If the response contains an error.
+     * @throws IllegalArgumentException      If the result could not be transformed into the
+     *                                       expected <code>type</code>.
+     */
+    public <T> List<T> handle(JavaType type, long id) throws BeowulfCommunicationException, BeowulfResponseException {
+        if (rawJsonResponse != null) {
+            if (isError()) {
+                throw handleError(id);
+            }
+            return handleResult(type, id);
+        }
+
+        try (JsonParser parser = createParser()) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                LOGGER.error("The response is not an object.");
+                return new ArrayList<>();
+            }
+
+            Long responseId = null;
+            boolean hasResult = false;
+            List<T> result = null;
+            JsonNode error = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (ID_FIELD_NAME.equals(fieldName)) {
+                    responseId = value == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+                } else if (ERROR_FIELD_NAME.equals(fieldName) && value != JsonToken.VALUE_NULL) {
+                    error = CommunicationHandler.getObjectMapper().readTree(parser);
+                } else if (RESULT_FIELD_NAME.equals(fieldName) && error == null) {
+                    hasResult = true;
+                    if (value != JsonToken.VALUE_NULL) {
+                        result = readResult(parser, type);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (error == null && !hasResult) {
+                throw new BeowulfCommunicationException(
+                        "The result does not contain the required " + RESULT_FIELD_NAME + " field.");
+            } else if (responseId == null || responseId != id) {
+                throw new BeowulfCommunicationException(
+                        "The id of this response does not match the expected id. This can cause an unexpected behavior.");
+            } else if (error != null) {
+                throw createThrowable(error);
+            }
+
+            return result == null ? new ArrayList<>() : result;
+        } catch (IOException e) {
+            throw new BeowulfCommunicationException("Unable to parse the response.", e);
+        }
+    }
+
+    /**
+     * Bind the value the <code>parser</code> points to to the given type.
+     */
+    private static <T> List<T> readResult(JsonParser parser, JavaType type) throws IOException {
+        try {
+            return CommunicationHandler.getObjectMapper().readValue(parser, type);
+        } catch (JsonMappingException e) {
+            // Keep the behavior of ObjectMapper#convertValue for results that
+            // do not match the expected type.
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create a streaming parser for the content of this response.
+     */
+    private JsonParser createParser() throws IOException {
+        ObjectMapper mapper = CommunicationHandler.getObjectMapper();
+        if (rawJsonResponse != null) {
+            return mapper.treeAsTokens(rawJsonResponse);
+        } else if (content != null) {
+            return mapper.getFactory().createParser(content, offset, length);
+        } else if (offset == 0 && length == textContent.length()) {
+            return mapper.getFactory().createParser(textContent);
+        }
+
+        Reader reader = new StringReader(textContent);
+        if (reader.skip(offset) != offset) {
+            throw new IOException("The response is incomplete.");
+        }
+        return mapper.getFactory().createParser(reader);
+    }
+
+    /**
+     * Get the position of the given location relative to the start of this
+     * response.
+     */
+    private int getOffset(JsonLocation location) {
+        return (int) (content != null ? location.getByteOffset() : location.getCharOffset());
+    }
+
+    /**
+     * Get the content of this response as text. In contrast to
+     * {@link #getRawJsonResponse()} the content is not parsed.
+     *
+     * @return The content of this response as text.
+     */
+    public String getContentAsString() {
+        if (content != null) {
+            return new String(content, offset, length, StandardCharsets.UTF_8);
+        } else if (textContent != null) {
+            return textContent.substring(offset, offset + length);
+        }
+        return String.valueOf(rawJsonResponse);
+    }
+
     // #########################################################################
     // ## HANDLE RESULTS #######################################################
     // #########################################################################
@@ -118,7 +494,7 @@ public class JsonRPCResponse {
      * not.
      */
     private boolean isResult() {
-        return rawJsonResponse.has(RESULT_FIELD_NAME);
+        return getRawJsonResponse().has(RESULT_FIELD_NAME);
     }
 
     /**
@@ -129,7 +505,7 @@ public class JsonRPCResponse {
      * not.
      */
     private boolean isResultEmpty() {
-        ObjectNode responseAsObject = ObjectNode.class.cast(rawJsonResponse);
+        ObjectNode responseAsObject = ObjectNode.class.cast(getRawJsonResponse());
 
         if (!isFieldNullOrEmpty(RESULT_FIELD_NAME, responseAsObject))
             return false;
@@ -146,7 +522,7 @@ public class JsonRPCResponse {
      * not.
      */
     private boolean isResponseValid() {
-        if (rawJsonResponse.isObject())
+        if (getRawJsonResponse().isObject())
             return true;
 
         LOGGER.error("The response is not an object.");
@@ -167,12 +543,36 @@ public class JsonRPCResponse {
      *                                       <code>type</code>.
      */
     public <T> List<T> handleResult(JavaType type, long id) throws BeowulfCommunicationException {
+        EventSpan span = FlightRecorderEvents.beginDeserialization();
+        try {
+            List<T> result = convertResult(type, id);
+            span.end(null, null, getContentLength(), null);
+            return result;
+        } catch (BeowulfCommunicationException | RuntimeException e) {
+            span.end(null, null, getContentLength(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return The size of the raw answer or <code>-1</code> if it has been
+     * created from a parsed tree. The size of text answers is given in
+     * characters.
+     */
+    public long getContentLength() {
+        if (content != null) {
+            return length;
+        }
+        return textContent != null ? textContent.length() : -1;
+    }
+
+    private <T> List<T> convertResult(JavaType type, long id) throws BeowulfCommunicationException {
         if (isResponseValid()) {
             if (!isResult()) {
                 throw new BeowulfCommunicationException(
                         "The result does not contain the required " + RESULT_FIELD_NAME + " field.");
             } else {
-                ObjectNode responseAsObject = ObjectNode.class.cast(rawJsonResponse);
+                ObjectNode responseAsObject = ObjectNode.class.cast(getRawJsonResponse());
 
                 if (!hasExpectedId(id, responseAsObject)) {
                     throw new BeowulfCommunicationException(
@@ -199,8 +599,8 @@ public class JsonRPCResponse {
      * <code>false</code> otherwise.
      */
     public boolean isError() {
-        return rawJsonResponse.has(ERROR_FIELD_NAME) && rawJsonResponse.get(ERROR_FIELD_NAME) != null
-                && !rawJsonResponse.get(ERROR_FIELD_NAME).isNull();
+        return getRawJsonResponse().has(ERROR_FIELD_NAME) && getRawJsonResponse().get(ERROR_FIELD_NAME) != null
+                && !getRawJsonResponse().get(ERROR_FIELD_NAME).isNull();
     }
 
     /**
@@ -220,14 +620,14 @@ public class JsonRPCResponse {
                 throw new BeowulfCommunicationException(
                         "The result does not contain the required " + ERROR_FIELD_NAME + " field.");
             } else {
-                ObjectNode responseAsObject = ObjectNode.class.cast(rawJsonResponse);
+                ObjectNode responseAsObject = ObjectNode.class.cast(getRawJsonResponse());
 
                 if (!hasExpectedId(id, responseAsObject)) {
                     throw new BeowulfCommunicationException(
                             "The id of this response does not match the expected id. This can cause an unexpected behavior.");
                 }
 
-                return createThrowable(responseAsObject);
+                return createThrowable(responseAsObject.get(ERROR_FIELD_NAME));
             }
         }
 
@@ -235,16 +635,39 @@ public class JsonRPCResponse {
     }
 
     /**
-     * Create a new {@link BeowulfResponseException} based on the Json response.
+     * Check if the node rejected a whole batch, e.g. because it could not be
+     * parsed. The node then answers with a single error object without an
+     * id instead of an array.
+     *
+     * @return <code>true</code> if this is an error without an id.
+     */
+    public boolean isBatchError() {
+        return getId() == null && getRawJsonResponse().isObject() && isError();
+    }
+
+    /**
+     * Generate a {@link BeowulfResponseException} for an error the node
+     * returned for a whole batch (@see {@link #isBatchError()}).
      *
-     * @param response The response object to transform.
      * @return A {@link BeowulfResponseException} based on the Json response.
-     * @throws BeowulfCommunicationException If the response does not contain the expected
-     *                                       <code>id</code>.
+     * @throws BeowulfCommunicationException If the response does not contain
+     *                                       an error.
      */
-    private BeowulfResponseException createThrowable(ObjectNode response) throws BeowulfCommunicationException {
-        JsonNode errorNode = response.get(ERROR_FIELD_NAME);
+    public BeowulfResponseException handleBatchError() throws BeowulfCommunicationException {
+        if (!isBatchError()) {
+            throw new BeowulfCommunicationException("The response is no error for the whole batch.");
+        }
+        return createThrowable(getRawJsonResponse().get(ERROR_FIELD_NAME));
+    }
 
+    /**
+     * Create a new {@link BeowulfResponseException} based on the Json response.
+     *
+     * @param errorNode The error object of the response to transform.
+     * @return A {@link BeowulfResponseException} based on the Json response.
+     * @throws BeowulfCommunicationException If the error does not have the expected structure.
+     */
+    private BeowulfResponseException createThrowable(JsonNode errorNode) throws BeowulfCommunicationException {
         if (!errorNode.isObject()) {
             throw new BeowulfCommunicationException("The response does not have the expected structure.");
         }
@@ -279,6 +702,6 @@ public class JsonRPCResponse {
 
     @Override
     public String toString() {
-        return ToStringBuilder.reflectionToString(this);
+        return new ToStringBuilder(this).append("rawJsonResponse", getContentAsString()).toString();
     }
 }
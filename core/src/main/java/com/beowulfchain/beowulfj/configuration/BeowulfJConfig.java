@@ -19,8 +19,18 @@ package com.beowulfchain.beowulfj.configuration;
 import com.beowulfchain.beowulfj.BeowulfJ;
 import com.beowulfchain.beowulfj.chain.NetworkProperties;
 import com.beowulfchain.beowulfj.chain.network.Testnet;
+import com.beowulfchain.beowulfj.communication.CachePolicy;
+import com.beowulfchain.beowulfj.communication.DefaultCachePolicy;
+import com.beowulfchain.beowulfj.communication.DefaultRetryPolicy;
+import com.beowulfchain.beowulfj.communication.ClientDecorator;
+import com.beowulfchain.beowulfj.communication.InMemoryMetricsRecorder;
+import com.beowulfchain.beowulfj.communication.MetricsRecorder;
+import com.beowulfchain.beowulfj.communication.ResponseCache;
+import com.beowulfchain.beowulfj.communication.RetryPolicy;
 import com.beowulfchain.beowulfj.enums.AddressPrefixType;
 import com.beowulfchain.beowulfj.enums.PrivateKeyType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.enums.RequestPriority;
 import com.beowulfchain.beowulfj.enums.SynchronizationType;
 import com.beowulfchain.beowulfj.enums.ValidationType;
 import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
@@ -40,7 +50,9 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 
 /**
@@ -70,11 +82,35 @@ public class BeowulfJConfig {
     /**
      * The inner {@link BeowulfJConfig} instance.
      */
-    private static BeowulfJConfig beowulfJConfigInstance;
+    private static volatile BeowulfJConfig beowulfJConfigInstance;
     private ClientEndpointConfig clientEndpointConfig;
     private List<Pair<URI, Boolean>> endpointURIs;
     private int responseTimeout;
+    private final Map<RequestMethod, Integer> methodResponseTimeouts = new EnumMap<>(RequestMethod.class);
     private int idleTimeout;
+    private int maximumBatchSize;
+    private int maximumConnectionsPerRoute;
+    private boolean http2Enabled;
+    private boolean compressionEnabled;
+    private int websocketSessionsPerEndpoint;
+    private int heartbeatInterval;
+    private int maximumMissedHeartbeats;
+    private int circuitBreakerFailureThreshold;
+    private int circuitBreakerOpenDuration;
+    private double hedgingPercentile;
+    private int minimumHedgingDelay;
+    private RetryPolicy retryPolicy;
+    private ResponseCache responseCache;
+    private CachePolicy cachePolicy;
+    private MetricsRecorder metricsRecorder;
+    private int slowRequestThreshold;
+    private ClientDecorator clientDecorator;
+    private int maximumConcurrencyLimit;
+    private int maximumQueuedRequests;
+    private final Map<RequestPriority, Integer> priorityWeights = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, Double> priorityCapacityShares = new EnumMap<>(RequestPriority.class);
+    private int starvationThreshold;
+    private boolean requestCoalescingEnabled;
     private String dateTimePattern;
     private long maximumExpirationDateOffset;
     private String timeZoneId;
@@ -100,7 +136,37 @@ public class BeowulfJConfig {
         this.setClientEndpointConfig(ClientEndpointConfig.Builder.create().build());
         this.setDefaultBeowulfApiUri(DEFAULT_BEOWULF_API_URI);
         this.setResponseTimeout(10000);
+        this.setResponseTimeout(RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, 5000);
+        this.setResponseTimeout(RequestMethod.GET_BLOCK, 30000);
+        this.setResponseTimeout(RequestMethod.GET_OPS_IN_BLOCK, 30000);
+        this.setResponseTimeout(RequestMethod.GET_ACCOUNT_HISTORY, 30000);
         this.setIdleTimeout(60000);
+        this.setMaximumBatchSize(50);
+        this.setMaximumConnectionsPerRoute(20);
+        this.setHttp2Enabled(true);
+        this.setCompressionEnabled(false);
+        this.setWebsocketSessionsPerEndpoint(4);
+        this.setHeartbeatInterval(30000);
+        this.setMaximumMissedHeartbeats(2);
+        this.setCircuitBreakerFailureThreshold(5);
+        this.setCircuitBreakerOpenDuration(30000);
+        this.setHedgingPercentile(0);
+        this.setMinimumHedgingDelay(20);
+        this.setRetryPolicy(new DefaultRetryPolicy());
+        this.setResponseCache(null);
+        this.setCachePolicy(new DefaultCachePolicy());
+        this.setMetricsRecorder(new InMemoryMetricsRecorder());
+        this.setSlowRequestThreshold(0);
+        this.setMaximumConcurrencyLimit(200);
+        this.setMaximumQueuedRequests(1000);
+        this.setPriorityWeight(RequestPriority.BROADCAST, 16);
+        this.setPriorityWeight(RequestPriority.INTERACTIVE, 4);
+        this.setPriorityWeight(RequestPriority.BULK, 1);
+        this.setPriorityCapacityShare(RequestPriority.BROADCAST, 1.0);
+        this.setPriorityCapacityShare(RequestPriority.INTERACTIVE, 0.9);
+        this.setPriorityCapacityShare(RequestPriority.BULK, 0.5);
+        this.setStarvationThreshold(1000);
+        this.setRequestCoalescingEnabled(false);
         this.setDateTime("yyyy-MM-dd'T'HH:mm:ss", "GMT");
         this.setApiUsername(new AccountName(System.getProperty("beowulfj.api.username", "")));
         this.setApiPassword(System.getProperty("beowulfj.api.password", "").toCharArray());
@@ -136,11 +202,18 @@ public class BeowulfJConfig {
      * @return A BeowulfJConfig instance.
      */
     public static BeowulfJConfig getInstance() {
-        if (beowulfJConfigInstance == null) {
-            beowulfJConfigInstance = new BeowulfJConfig();
+        BeowulfJConfig instance = beowulfJConfigInstance;
+        if (instance == null) {
+            synchronized (BeowulfJConfig.class) {
+                instance = beowulfJConfigInstance;
+                if (instance == null) {
+                    instance = new BeowulfJConfig();
+                    beowulfJConfigInstance = instance;
+                }
+            }
         }
 
-        return beowulfJConfigInstance;
+        return instance;
     }
 
     /**
@@ -150,11 +223,23 @@ public class BeowulfJConfig {
      *
      * @return A BeowulfJConfig instance.
      */
-    public static BeowulfJConfig getNewInstance() {
+    public static synchronized BeowulfJConfig getNewInstance() {
         beowulfJConfigInstance = new BeowulfJConfig();
         return beowulfJConfigInstance;
     }
 
+    /**
+     * Create a new {@link BeowulfJConfig BeowulfJConfig} instance with the
+     * default values. Unlike {@link #getNewInstance()}, the returned instance
+     * does not replace the one returned by {@link #getInstance()}, so it can
+     * be used for an independent BeowulfJ client.
+     *
+     * @return A new BeowulfJConfig instance.
+     */
+    public static BeowulfJConfig createInstance() {
+        return new BeowulfJConfig();
+    }
+
     /**
      * @return The official BeowulfJ account name.
      */
@@ -412,6 +497,16 @@ public class BeowulfJConfig {
         return privateKeyStorage;
     }
 
+    /**
+     * Replace the {@link PrivateKeyStorage} used to sign transactions, e.g. to
+     * share one storage between several configs.
+     *
+     * @param privateKeyStorage The privateKeyStorage to set.
+     */
+    public void setPrivateKeyStorage(PrivateKeyStorage privateKeyStorage) {
+        this.privateKeyStorage = privateKeyStorage;
+    }
+
     /**
      * Get the currently configured address prefix. This prefix is used to parse
      * keys in their WIF format.
@@ -446,6 +541,9 @@ public class BeowulfJConfig {
      * Override the default, maximum time that BeowulfJ will wait for an answer of
      * the Beowulf Node. If set to <code>0</code> the timeout mechanism will be
      * disabled.
+     * <p>
+     * Methods with their own timeout (see
+     * {@link #setResponseTimeout(RequestMethod, int)}) are not affected.
      *
      * @param responseTimeout Time in milliseconds.
      * @throws IllegalArgumentException If the value of timeout is negative.
@@ -458,6 +556,55 @@ public class BeowulfJConfig {
         this.responseTimeout = responseTimeout;
     }
 
+    /**
+     * Get the maximum time that BeowulfJ will wait for an answer to the given
+     * method. This is the timeout configured for the method or the default
+     * response timeout, if the method has none.
+     *
+     * @param requestMethod The method.
+     * @return Time in milliseconds or <code>0</code> if the timeout is disabled.
+     */
+    public int getResponseTimeout(RequestMethod requestMethod) {
+        Integer methodResponseTimeout = methodResponseTimeouts.get(requestMethod);
+        return methodResponseTimeout != null ? methodResponseTimeout : responseTimeout;
+    }
+
+    /**
+     * Override the maximum time that BeowulfJ will wait for an answer to the
+     * given method, e.g. to give methods returning large results more time
+     * than cheap ones. By default, {@link RequestMethod#GET_BLOCK},
+     * {@link RequestMethod#GET_OPS_IN_BLOCK} and
+     * {@link RequestMethod#GET_ACCOUNT_HISTORY} may take 30 seconds, while
+     * {@link RequestMethod#GET_DYNAMIC_GLOBAL_PROPERTIES} fails after 5
+     * seconds. If set to <code>0</code> the timeout mechanism will be disabled
+     * for this method.
+     * <p>
+     * A batch waits as long as its slowest method allows. Deadlines defined
+     * by a {@link com.beowulfchain.beowulfj.communication.RequestDeadlineScope}
+     * are applied in addition to these timeouts.
+     *
+     * @param requestMethod   The method.
+     * @param responseTimeout Time in milliseconds.
+     * @throws IllegalArgumentException If the value of timeout is negative.
+     */
+    public void setResponseTimeout(RequestMethod requestMethod, int responseTimeout) {
+        if (responseTimeout < 0) {
+            throw new IllegalArgumentException("The timeout has to be greater than 0. (0 will disable the timeout).");
+        }
+
+        this.methodResponseTimeouts.put(requestMethod, responseTimeout);
+    }
+
+    /**
+     * Remove the timeout configured for the given method, so the default
+     * response timeout applies to it again.
+     *
+     * @param requestMethod The method.
+     */
+    public void resetResponseTimeout(RequestMethod requestMethod) {
+        this.methodResponseTimeouts.remove(requestMethod);
+    }
+
     /**
      * Get the configured, maximum time that BeowulfJ will keep an unused
      * connection open. A value that is 0 or negative indicates the sessions
@@ -482,6 +629,617 @@ public class BeowulfJConfig {
         this.idleTimeout = idleTimeout;
     }
 
+    /**
+     * Get the configured, maximum number of requests BeowulfJ will send to the
+     * node in one JSON-RPC batch. Larger batches are split into multiple
+     * batches of this size.
+     *
+     * @return The maximum number of requests per batch.
+     */
+    public int getMaximumBatchSize() {
+        return maximumBatchSize;
+    }
+
+    /**
+     * Override the default, maximum number of requests BeowulfJ will send to
+     * the node in one JSON-RPC batch. Larger batches are split into multiple
+     * batches of this size.
+     *
+     * @param maximumBatchSize The maximum number of requests per batch.
+     * @throws IllegalArgumentException If the value is not positive.
+     */
+    public void setMaximumBatchSize(int maximumBatchSize) {
+        if (maximumBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size has to be greater than 0.");
+        }
+        this.maximumBatchSize = maximumBatchSize;
+    }
+
+    /**
+     * Get the configured, maximum number of HTTP connections BeowulfJ will
+     * keep open to a single endpoint.
+     *
+     * @return The maximum number of connections per endpoint.
+     */
+    public int getMaximumConnectionsPerRoute() {
+        return maximumConnectionsPerRoute;
+    }
+
+    /**
+     * Override the default, maximum number of HTTP connections BeowulfJ will
+     * keep open to a single endpoint. Requests exceeding this number wait for
+     * a free connection. Unless the concurrency limit is disabled, they wait
+     * in its queues, where they are ordered by their {@link RequestPriority}.
+     * The value is applied to connection pools created after this call.
+     *
+     * @param maximumConnectionsPerRoute The maximum number of connections per endpoint.
+     * @throws IllegalArgumentException If the value is not positive.
+     */
+    public void setMaximumConnectionsPerRoute(int maximumConnectionsPerRoute) {
+        if (maximumConnectionsPerRoute < 1) {
+            throw new IllegalArgumentException("The maximum number of connections has to be greater than 0.");
+        }
+        this.maximumConnectionsPerRoute = maximumConnectionsPerRoute;
+    }
+
+    /**
+     * Check if requests to HTTPS endpoints are sent via HTTP/2 when running
+     * on Java 11 or later.
+     *
+     * @return <code>true</code> if HTTP/2 is used where available.
+     */
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+
+    /**
+     * Define if requests to HTTPS endpoints are sent via HTTP/2 when running
+     * on Java 11 or later. All requests to an endpoint then share a single
+     * connection, so {@link #setMaximumConnectionsPerRoute(int)} does not
+     * apply to them. Nodes without HTTP/2 support are reached via HTTP/1.1.
+     * On Java 8 and for plain HTTP endpoints this setting has no effect.
+     * Enabled by default. The value is applied to endpoints used for the
+     * first time after this call.
+     *
+     * @param http2Enabled <code>true</code> to use HTTP/2 where available.
+     */
+    public void setHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+    }
+
+    /**
+     * Check if the node is asked to compress its answers.
+     *
+     * @return <code>true</code> if compression is enabled.
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Define if the node is asked to compress its answers. HTTP(S) requests
+     * then accept <code>gzip</code> and <code>deflate</code> encoded bodies,
+     * which are decompressed while they are read. Websocket sessions offer
+     * the <code>permessage-deflate</code> extension, which also compresses
+     * the requests if the node accepts it. Compression mostly pays off for
+     * large answers like blocks or account histories and costs CPU time on
+     * both sides, so it is disabled by default (@see
+     * {@link com.beowulfchain.beowulfj.communication.CompressionStatistics}).
+     * If disabled, HTTP requests still accept the <code>gzip</code> encoding
+     * the HTTP transport asks for on its own.
+     * The value is applied to requests and sessions started after this call.
+     *
+     * @param compressionEnabled <code>true</code> to enable compression.
+     */
+    public void setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
+    /**
+     * Get the configured number of WebSocket sessions BeowulfJ will keep open
+     * to a single endpoint.
+     *
+     * @return The number of sessions per endpoint.
+     */
+    public int getWebsocketSessionsPerEndpoint() {
+        return websocketSessionsPerEndpoint;
+    }
+
+    /**
+     * Override the default number of WebSocket sessions BeowulfJ will keep
+     * open to a single endpoint. Requests are spread over these sessions, so
+     * a large response does not block the answers to other requests. The
+     * value is applied to session pools created after this call.
+     *
+     * @param websocketSessionsPerEndpoint The number of sessions per endpoint.
+     * @throws IllegalArgumentException If the value is not positive.
+     */
+    public void setWebsocketSessionsPerEndpoint(int websocketSessionsPerEndpoint) {
+        if (websocketSessionsPerEndpoint < 1) {
+            throw new IllegalArgumentException("The number of WebSocket sessions has to be greater than 0.");
+        }
+        this.websocketSessionsPerEndpoint = websocketSessionsPerEndpoint;
+    }
+
+    /**
+     * Get the configured interval in milliseconds in which BeowulfJ sends a
+     * ping over each open WebSocket session.
+     *
+     * @return The heartbeat interval in milliseconds.
+     */
+    public int getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    /**
+     * Override the default interval in which BeowulfJ sends a ping over each
+     * open WebSocket session. The heartbeat keeps the sessions of a pool
+     * open, re-establishes missing ones and detects connections that died
+     * without being closed. While the heartbeat is enabled, sessions are not
+     * closed because of the {@link #getIdleTimeout() idle timeout}. The value
+     * is applied to session pools created after this call.
+     *
+     * @param heartbeatInterval The heartbeat interval in milliseconds. Set to
+     *                          0 to disable the heartbeat.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public void setHeartbeatInterval(int heartbeatInterval) {
+        if (heartbeatInterval < 0) {
+            throw new IllegalArgumentException("The heartbeat interval can't be negative.");
+        }
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    /**
+     * Get the configured number of heartbeats a WebSocket session may leave
+     * unanswered before it is considered dead.
+     *
+     * @return The number of missed heartbeats.
+     */
+    public int getMaximumMissedHeartbeats() {
+        return maximumMissedHeartbeats;
+    }
+
+    /**
+     * Override the default number of heartbeats a WebSocket session may leave
+     * unanswered before it is considered dead. A dead session is closed, the
+     * requests waiting for an answer on it fail and it is replaced by a new
+     * one.
+     *
+     * @param maximumMissedHeartbeats The number of missed heartbeats.
+     * @throws IllegalArgumentException If the value is not positive.
+     */
+    public void setMaximumMissedHeartbeats(int maximumMissedHeartbeats) {
+        if (maximumMissedHeartbeats < 1) {
+            throw new IllegalArgumentException("The number of missed heartbeats has to be greater than 0.");
+        }
+        this.maximumMissedHeartbeats = maximumMissedHeartbeats;
+    }
+
+    /**
+     * Get the configured number of consecutive failures after which BeowulfJ
+     * stops sending requests to an endpoint.
+     *
+     * @return The number of consecutive failures.
+     */
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    /**
+     * Override the default number of consecutive failures after which
+     * BeowulfJ stops sending requests to an endpoint for
+     * {@link #getCircuitBreakerOpenDuration() some time}.
+     *
+     * @param circuitBreakerFailureThreshold The number of consecutive failures.
+     * @throws IllegalArgumentException If the value is not positive.
+     */
+    public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+        if (circuitBreakerFailureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold has to be greater than 0.");
+        }
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+    }
+
+    /**
+     * Get the configured time BeowulfJ waits before it sends a probe request
+     * to an endpoint that failed repeatedly.
+     *
+     * @return Time in milliseconds.
+     */
+    public int getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    /**
+     * Override the default time BeowulfJ waits before it sends a probe
+     * request to an endpoint that failed repeatedly. If the probe succeeds,
+     * the endpoint is used again.
+     *
+     * @param circuitBreakerOpenDuration Time in milliseconds.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public void setCircuitBreakerOpenDuration(int circuitBreakerOpenDuration) {
+        if (circuitBreakerOpenDuration < 0) {
+            throw new IllegalArgumentException("The open duration has to be greater than or equal to 0.");
+        }
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+    }
+
+    /**
+     * Get the configured latency percentile after which a read request is
+     * sent to a second endpoint.
+     *
+     * @return The percentile or <code>0</code> if hedging is disabled.
+     */
+    public double getHedgingPercentile() {
+        return hedgingPercentile;
+    }
+
+    /**
+     * Enable hedging of read requests. If the endpoint has not answered a
+     * read request after the given percentile of the recently observed
+     * latencies (e.g. <code>95</code>), the same request is sent to a second
+     * endpoint. The first answer is used and the other request is cancelled.
+     * Requests that change the state of the chain, like broadcasts, are never
+     * hedged.
+     *
+     * @param hedgingPercentile The percentile between <code>0</code> and
+     *                          <code>100</code> or <code>0</code> to disable
+     *                          hedging.
+     * @throws IllegalArgumentException If the value is not in the valid range.
+     */
+    public void setHedgingPercentile(double hedgingPercentile) {
+        if (hedgingPercentile < 0 || hedgingPercentile >= 100) {
+            throw new IllegalArgumentException("The percentile has to be between 0 and 100 (0 will disable hedging).");
+        }
+        this.hedgingPercentile = hedgingPercentile;
+    }
+
+    /**
+     * Get the configured, minimum time BeowulfJ waits for an answer before a
+     * read request is sent to a second endpoint.
+     *
+     * @return Time in milliseconds.
+     */
+    public int getMinimumHedgingDelay() {
+        return minimumHedgingDelay;
+    }
+
+    /**
+     * Override the default, minimum time BeowulfJ waits for an answer before
+     * a read request is sent to a second endpoint. This prevents hedging of
+     * most requests if all endpoints answer very fast.
+     *
+     * @param minimumHedgingDelay Time in milliseconds.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public void setMinimumHedgingDelay(int minimumHedgingDelay) {
+        if (minimumHedgingDelay < 0) {
+            throw new IllegalArgumentException("The delay has to be greater than or equal to 0.");
+        }
+        this.minimumHedgingDelay = minimumHedgingDelay;
+    }
+
+    /**
+     * Get the policy that decides whether a request that failed due to a
+     * communication problem is sent again.
+     *
+     * @return The retry policy.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Override the default policy ({@link DefaultRetryPolicy}) that decides
+     * whether a request that failed due to a communication problem is sent
+     * again.
+     *
+     * @param retryPolicy The retry policy to use.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Get the cache that stores the answers of the node.
+     *
+     * @return The response cache or <code>null</code> if answers are not
+     * cached.
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Define a cache for the answers of the node, e.g. a
+     * {@link com.beowulfchain.beowulfj.communication.TinyLfuResponseCache
+     * TinyLfuResponseCache}. Which answers are stored is decided by the
+     * {@link #setCachePolicy(CachePolicy) cache policy}. Answers served from
+     * the cache are shared by all callers, so they must not be modified.
+     * Batches always reach the node. Disabled by default.
+     *
+     * @param responseCache The response cache to use or <code>null</code> to
+     *                      disable caching.
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Get the policy that decides which answers are stored in the response
+     * cache and for how long.
+     *
+     * @return The cache policy.
+     */
+    public CachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
+    /**
+     * Override the default policy ({@link DefaultCachePolicy}) that decides
+     * which answers are stored in the response cache and for how long.
+     *
+     * @param cachePolicy The cache policy to use.
+     */
+    public void setCachePolicy(CachePolicy cachePolicy) {
+        this.cachePolicy = cachePolicy;
+    }
+
+    /**
+     * Get the recorder that gets notified about the requests sent to the
+     * nodes.
+     *
+     * @return The metrics recorder or <code>null</code> if no metrics are
+     * recorded.
+     */
+    public MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder;
+    }
+
+    /**
+     * Override the default recorder ({@link InMemoryMetricsRecorder}) that
+     * gets notified about the latency, the failures and the size of the
+     * requests sent to the nodes. Websocket sessions are shared by all
+     * clients sending to the same endpoint, so their traffic is reported to
+     * the recorder of the client which opened them.
+     *
+     * @param metricsRecorder The metrics recorder to use or <code>null</code>
+     *                        to disable the recording.
+     */
+    public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder;
+    }
+
+    /**
+     * Get the time in milliseconds after which a call is logged as slow.
+     *
+     * @return The slow request threshold in milliseconds or <code>0</code> if
+     * slow calls are not logged.
+     */
+    public int getSlowRequestThreshold() {
+        return slowRequestThreshold;
+    }
+
+    /**
+     * Log every call which takes longer than the given time, broken down
+     * into the time spent selecting the endpoint, waiting in the queue,
+     * connecting, serializing the request, on the wire, parsing the answer
+     * and binding the result. The lines are written as warnings by the
+     * <code>com.beowulfchain.beowulfj.communication.SlowRequestLog</code>
+     * logger, at most once per second.
+     *
+     * @param slowRequestThreshold The threshold in milliseconds or
+     *                             <code>0</code> to disable the log.
+     * @throws IllegalArgumentException If the threshold is negative.
+     */
+    public void setSlowRequestThreshold(int slowRequestThreshold) {
+        if (slowRequestThreshold < 0) {
+            throw new IllegalArgumentException("The slow request threshold must not be negative.");
+        }
+        this.slowRequestThreshold = slowRequestThreshold;
+    }
+
+    /**
+     * Get the decorator applied to the clients created for the endpoints.
+     *
+     * @return The client decorator or <code>null</code> if the clients are
+     * used as they are.
+     */
+    public ClientDecorator getClientDecorator() {
+        return clientDecorator;
+    }
+
+    /**
+     * Wrap or replace the client created for each endpoint, e.g. by a
+     * {@link com.beowulfchain.beowulfj.communication.TrafficRecorder
+     * TrafficRecorder} to capture the traffic of a session or by a
+     * {@link com.beowulfchain.beowulfj.communication.TrafficReplayer
+     * TrafficReplayer} to answer requests from such a capture. Only clients
+     * created after this call are affected (@see
+     * {@link com.beowulfchain.beowulfj.communication.CommunicationHandler#initializeNewClient(BeowulfJConfig)
+     * initializeNewClient}).
+     *
+     * @param clientDecorator The decorator or <code>null</code> to use the
+     *                        clients as they are.
+     */
+    public void setClientDecorator(ClientDecorator clientDecorator) {
+        this.clientDecorator = clientDecorator;
+    }
+
+    /**
+     * Get the configured upper bound for the number of requests BeowulfJ
+     * sends to a single endpoint at the same time.
+     *
+     * @return The maximum concurrency limit.
+     */
+    public int getMaximumConcurrencyLimit() {
+        return maximumConcurrencyLimit;
+    }
+
+    /**
+     * Override the default upper bound for the number of requests BeowulfJ
+     * sends to a single endpoint at the same time. The actual limit starts
+     * lower and adapts to the latency and the errors observed for the
+     * endpoint. Requests exceeding it wait until another request to the same
+     * endpoint is done. The value is applied to endpoints used for the first
+     * time after this call.
+     *
+     * @param maximumConcurrencyLimit The maximum concurrency limit. Set to 0
+     *                                to disable the limit.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public void setMaximumConcurrencyLimit(int maximumConcurrencyLimit) {
+        if (maximumConcurrencyLimit < 0) {
+            throw new IllegalArgumentException("The maximum concurrency limit can't be negative.");
+        }
+        this.maximumConcurrencyLimit = maximumConcurrencyLimit;
+    }
+
+    /**
+     * Get the configured number of requests that may wait for a single
+     * endpoint once its concurrency limit is reached.
+     *
+     * @return The maximum number of waiting requests.
+     */
+    public int getMaximumQueuedRequests() {
+        return maximumQueuedRequests;
+    }
+
+    /**
+     * Override the default number of requests that may wait for a single
+     * endpoint once its concurrency limit is reached. Each
+     * {@link RequestPriority} has its own queue of this size. Additional
+     * requests fail immediately with a
+     * {@link com.beowulfchain.beowulfj.exceptions.BeowulfRequestRejectedException
+     * BeowulfRequestRejectedException}. The value is applied to endpoints used
+     * for the first time after this call.
+     *
+     * @param maximumQueuedRequests The maximum number of waiting requests.
+     *                              Set to 0 to reject requests as soon as the
+     *                              limit is reached.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public void setMaximumQueuedRequests(int maximumQueuedRequests) {
+        if (maximumQueuedRequests < 0) {
+            throw new IllegalArgumentException("The maximum number of waiting requests can't be negative.");
+        }
+        this.maximumQueuedRequests = maximumQueuedRequests;
+    }
+
+    /**
+     * Get the configured weight of the given priority.
+     *
+     * @param priority The priority.
+     * @return The weight of the priority.
+     */
+    public int getPriorityWeight(RequestPriority priority) {
+        return priorityWeights.get(priority);
+    }
+
+    /**
+     * Override the default weight of the given priority. Once the concurrency
+     * limit of an endpoint is reached, the waiting requests are sent in
+     * proportion to the weights of their priorities, e.g. with the default
+     * weights sixteen broadcasts are sent for each bulk request if both are
+     * waiting. The value is applied to endpoints used for the first time
+     * after this call.
+     *
+     * @param priority The priority.
+     * @param weight   The weight of the priority.
+     * @throws IllegalArgumentException If the weight is less than 1.
+     */
+    public void setPriorityWeight(RequestPriority priority, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("The weight of a priority must be at least 1.");
+        }
+        this.priorityWeights.put(priority, weight);
+    }
+
+    /**
+     * Get the configured share of the concurrency limit requests of the given
+     * priority may use.
+     *
+     * @param priority The priority.
+     * @return The share between <code>0</code> and <code>1</code>.
+     */
+    public double getPriorityCapacityShare(RequestPriority priority) {
+        return priorityCapacityShares.get(priority);
+    }
+
+    /**
+     * Override the default share of the concurrency limit of an endpoint that
+     * requests of the given priority may use at the same time. The remaining
+     * capacity stays available for the other priorities, e.g. by default bulk
+     * requests never occupy more than half of the connections to an endpoint.
+     * Each priority may always send at least one request. The value is
+     * applied to endpoints used for the first time after this call.
+     *
+     * @param priority      The priority.
+     * @param capacityShare The share between <code>0</code> (exclusive) and
+     *                      <code>1</code>.
+     * @throws IllegalArgumentException If the share is not in this range.
+     */
+    public void setPriorityCapacityShare(RequestPriority priority, double capacityShare) {
+        if (!(capacityShare > 0 && capacityShare <= 1)) {
+            throw new IllegalArgumentException("The capacity share of a priority must be greater than 0 and at "
+                    + "most 1.");
+        }
+        this.priorityCapacityShares.put(priority, capacityShare);
+    }
+
+    /**
+     * Get the configured time in milliseconds after which a waiting request
+     * is sent before requests with a higher weight.
+     *
+     * @return The starvation threshold in milliseconds.
+     */
+    public int getStarvationThreshold() {
+        return starvationThreshold;
+    }
+
+    /**
+     * Override the default time in milliseconds after which a waiting request
+     * is sent before requests with a higher weight, so requests with a low
+     * priority make progress even if the endpoint is busy with requests of a
+     * higher priority. The value is applied to endpoints used for the first
+     * time after this call.
+     *
+     * @param starvationThreshold The starvation threshold in milliseconds. Set
+     *                            to 0 to only rely on the weights.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public void setStarvationThreshold(int starvationThreshold) {
+        if (starvationThreshold < 0) {
+            throw new IllegalArgumentException("The starvation threshold can't be negative.");
+        }
+        this.starvationThreshold = starvationThreshold;
+    }
+
+    /**
+     * Check if identical read requests sent at the same time share a single
+     * call to the node.
+     *
+     * @return <code>true</code> if requests are coalesced.
+     */
+    public boolean isRequestCoalescingEnabled() {
+        return requestCoalescingEnabled;
+    }
+
+    /**
+     * Define if a request which does not change the chain should wait for the
+     * answer of an identical request (same method, equal parameters and same
+     * result type) that is already in flight, instead of sending it again.
+     * All waiters receive the same result objects, so they must not be
+     * modified. Batches are never coalesced. Disabled by default.
+     *
+     * @param requestCoalescingEnabled <code>true</code> to coalesce requests.
+     */
+    public void setRequestCoalescingEnabled(boolean requestCoalescingEnabled) {
+        this.requestCoalescingEnabled = requestCoalescingEnabled;
+    }
+
     /**
      * Get the currently configured time zone id.
      *
@@ -0,0 +1,37 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.enums;
+
+/**
+ * The states of the circuit breaker that guards a single endpoint.
+ */
+public enum CircuitState {
+    /**
+     * Indicates that the endpoint is healthy and receives requests.
+     */
+    CLOSED,
+    /**
+     * Indicates that the endpoint failed repeatedly and does not receive
+     * requests until the configured open duration has passed.
+     */
+    OPEN,
+    /**
+     * Indicates that a single probe request is sent to the endpoint to check
+     * whether it recovered.
+     */
+    HALF_OPEN
+}
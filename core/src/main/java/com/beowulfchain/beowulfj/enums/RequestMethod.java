@@ -130,17 +130,41 @@ public enum RequestMethod {
      *
      */
     VERIFY_ACCOUNT_AUTHORITY,
+    /**
+     * Subscribe to a notice for every block applied by the node.
+     */
+    SET_BLOCK_APPLIED_CALLBACK(false),
     // network_broadcast_api
     /**
      *
      */
-    BROADCAST_TRANSACTION,
+    BROADCAST_TRANSACTION(false),
+    /**
+     *
+     */
+    BROADCAST_TRANSACTION_SYNCHRONOUS(false),
     /**
      *
      */
-    BROADCAST_TRANSACTION_SYNCHRONOUS,
+    BROADCAST_BLOCK(false);
+
+    private final boolean idempotent;
+
+    RequestMethod() {
+        this(true);
+    }
+
+    RequestMethod(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
+
     /**
+     * Check if sending this method more than once has the same effect as
+     * sending it once, so it is safe to send it to multiple endpoints.
      *
+     * @return <code>true</code> if the method only reads data.
      */
-    BROADCAST_BLOCK,
+    public boolean isIdempotent() {
+        return idempotent;
+    }
 }
\ No newline at end of file
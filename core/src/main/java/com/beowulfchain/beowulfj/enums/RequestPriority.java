@@ -0,0 +1,42 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.enums;
+
+/**
+ * The priorities of requests waiting for an endpoint. Each priority has its
+ * own queue, weight and share of the connection capacity (see
+ * {@link com.beowulfchain.beowulfj.configuration.BeowulfJConfig#setPriorityWeight(RequestPriority, int)
+ * setPriorityWeight} and
+ * {@link com.beowulfchain.beowulfj.configuration.BeowulfJConfig#setPriorityCapacityShare(RequestPriority, double)
+ * setPriorityCapacityShare}).
+ */
+public enum RequestPriority {
+    /**
+     * Used for requests which change the chain, e.g. broadcasting a
+     * transaction.
+     */
+    BROADCAST,
+    /**
+     * The default for all other requests.
+     */
+    INTERACTIVE,
+    /**
+     * Used for background work like paging through blocks, see
+     * {@link com.beowulfchain.beowulfj.communication.RequestPriorityScope}.
+     */
+    BULK
+}
@@ -0,0 +1,33 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.exceptions;
+
+/**
+ * Thrown if a request has not been sent because too many requests are already
+ * waiting for the endpoint.
+ */
+public class BeowulfRequestRejectedException extends BeowulfCommunicationException {
+    private static final long serialVersionUID = -6103728715926398402L;
+
+    public BeowulfRequestRejectedException(String message) {
+        super(message);
+    }
+
+    public BeowulfRequestRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
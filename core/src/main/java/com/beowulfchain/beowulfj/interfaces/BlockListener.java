@@ -0,0 +1,32 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.interfaces;
+
+/**
+ * This interface is used to get notified about new blocks.
+ */
+@FunctionalInterface
+public interface BlockListener {
+    /**
+     * Called once for every block, in ascending order of the block numbers.
+     * Calls are made from a single, dedicated thread, so a listener should
+     * not block for long.
+     *
+     * @param blockNumber The number of the block.
+     */
+    void onBlock(long blockNumber);
+}
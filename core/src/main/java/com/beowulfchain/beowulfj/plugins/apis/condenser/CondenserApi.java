@@ -45,6 +45,7 @@ import org.joou.ULong;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class implements the "condenser_api".
@@ -88,6 +89,24 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, ExtendedDynamicGlobalProperties.class).get(0);
     }
 
+    /**
+     * Like {@link #getDynamicGlobalProperties(CommunicationHandler)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @return A future that will be completed with the dynamic global properties.
+     */
+    public static CompletableFuture<ExtendedDynamicGlobalProperties> getDynamicGlobalPropertiesAsync(
+            CommunicationHandler communicationHandler) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, Collections.emptyList());
+
+        return communicationHandler.performRequestAsync(requestObject, ExtendedDynamicGlobalProperties.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * @param communicationHandler A
      *                             {@link CommunicationHandler
@@ -117,6 +136,25 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, ExtendedAccount.class);
     }
 
+    /**
+     * Like {@link #getExtAccounts(CommunicationHandler, List)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @param accounts             A list of accounts you want to request the details for.
+     * @return A future that will be completed with the accounts found for the given account names.
+     */
+    public static CompletableFuture<List<ExtendedAccount>> getExtAccountsAsync(
+            CommunicationHandler communicationHandler, List<AccountName> accounts) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.GET_ACCOUNTS,
+                Collections.singletonList(accounts)
+        );
+
+        return communicationHandler.performRequestAsync(requestObject, ExtendedAccount.class);
+    }
+
     /**
      * Get the hardfork version the node you are connected to is using.
      *
@@ -176,6 +214,25 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, BlockHeader.class).get(0);
     }
 
+    /**
+     * Like {@link #getBlockHeader(CommunicationHandler, long)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @param blockNum             The block number.
+     * @return A future that will be completed with the block header.
+     */
+    public static CompletableFuture<BlockHeader> getBlockHeaderAsync(CommunicationHandler communicationHandler,
+                                                                     long blockNum) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.GET_BLOCK_HEADER,
+                Collections.singletonList(blockNum));
+
+        return communicationHandler.performRequestAsync(requestObject, BlockHeader.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * (get_block)
      *
@@ -206,6 +263,24 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, Block.class).get(0);
     }
 
+    /**
+     * Like {@link #getBlock(CommunicationHandler, long)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @param blockNum             The block number.
+     * @return A future that will be completed with the block.
+     */
+    public static CompletableFuture<Block> getBlockAsync(CommunicationHandler communicationHandler, long blockNum) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.GET_BLOCK,
+                Collections.singletonList(blockNum));
+
+        return communicationHandler.performRequestAsync(requestObject, Block.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * (get_active_supernodes)
      *
@@ -264,6 +339,23 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, Config.class).get(0);
     }
 
+    /**
+     * Like {@link #getConfig(CommunicationHandler)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @return A future that will be completed with the configuration of the node.
+     */
+    public static CompletableFuture<Config> getConfigAsync(CommunicationHandler communicationHandler) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.GET_CONFIG,
+                Collections.emptyList());
+
+        return communicationHandler.performRequestAsync(requestObject, Config.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * (get_accounts)
      *
@@ -295,6 +387,25 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, Account.class);
     }
 
+    /**
+     * Like {@link #getAccounts(CommunicationHandler, List)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @param accounts             A list of accounts you want to request the details for.
+     * @return A future that will be completed with the accounts found for the given account names.
+     */
+    public static CompletableFuture<List<Account>> getAccountsAsync(CommunicationHandler communicationHandler,
+                                                                    List<AccountName> accounts) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.GET_ACCOUNTS,
+                Collections.singletonList(accounts)
+        );
+
+        return communicationHandler.performRequestAsync(requestObject, Account.class);
+    }
+
 
     /**
      * Get all operations performed by the specified <code>accountName</code>.
@@ -563,6 +674,23 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, SupernodeSchedule.class).get(0);
     }
 
+    /**
+     * Like {@link #getSupernodeSchedule(CommunicationHandler)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @return A future that will be completed with the supernode schedule.
+     */
+    public static CompletableFuture<SupernodeSchedule> getSupernodeScheduleAsync(
+            CommunicationHandler communicationHandler) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.GET_SUPERNODE_SCHEDULE, Collections.emptyList());
+        return communicationHandler.performRequestAsync(requestObject, SupernodeSchedule.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * (get_supernode_count)
      *
@@ -682,6 +810,25 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, CompletedTransaction.class).get(0);
     }
 
+    /**
+     * Like {@link #getTransactionDetail(CommunicationHandler, String)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @param trx_id               The id of the transaction.
+     * @return A future that will be completed with the transaction.
+     */
+    public static CompletableFuture<CompletedTransaction> getTransactionDetailAsync(
+            CommunicationHandler communicationHandler, String trx_id) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.GET_TRANSACTION, Collections.singletonList(trx_id));
+
+        return communicationHandler.performRequestAsync(requestObject, CompletedTransaction.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * @param communicationHandler A
      *                             {@link CommunicationHandler
@@ -741,6 +888,25 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, Asset.class).get(0);
     }
 
+    /**
+     * Like {@link #getBalance(CommunicationHandler, String, AssetInfo)}, but does not block the calling thread.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @param accountName          The name of the account.
+     * @param assetInfo            The asset to get the balance for.
+     * @return A future that will be completed with the balance.
+     */
+    public static CompletableFuture<Asset> getBalanceAsync(CommunicationHandler communicationHandler,
+                                                           String accountName, AssetInfo assetInfo) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.GET_BALANCE, Arrays.asList(accountName, assetInfo));
+        return communicationHandler.performRequestAsync(requestObject, Asset.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * Broadcast a whole block.
      *
@@ -811,6 +977,33 @@ public class CondenserApi {
         return transaction.generateTransactionId();
     }
 
+    /**
+     * Like {@link #broadcastTransaction(CommunicationHandler, SignedTransaction)},
+     * but does not block the calling thread. The transaction is signed before
+     * this method returns.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @param transaction          The {@link SignedTransaction} object to broadcast.
+     * @return A future that will be completed with the id of the transaction.
+     * @throws BeowulfInvalidTransactionException In case the provided transaction is not valid.
+     */
+    public static CompletableFuture<TransactionId> broadcastTransactionAsync(CommunicationHandler communicationHandler,
+                                                                             SignedTransaction transaction)
+            throws BeowulfInvalidTransactionException {
+        if (transaction.getSignatures() == null || transaction.getSignatures().isEmpty()) {
+            transaction.sign();
+        }
+        TransactionId transactionId = transaction.generateTransactionId();
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.BROADCAST_TRANSACTION, Collections.singletonList(transaction));
+
+        return communicationHandler.performRequestAsync(requestObject, Object.class)
+                .thenApply(result -> transactionId);
+    }
+
     /**
      * Broadcast a transaction on the Beowulf blockchain. This method will
      * validate the transaction and return after it has been accepted and
@@ -852,6 +1045,35 @@ public class CondenserApi {
         return communicationHandler.performRequest(requestObject, BroadcastTransactionSynchronousReturn.class).get(0);
     }
 
+    /**
+     * Like
+     * {@link #broadcastTransactionSynchronous(CommunicationHandler, SignedTransaction)},
+     * but does not block the calling thread. The transaction is signed before
+     * this method returns.
+     *
+     * @param communicationHandler A
+     *                             {@link CommunicationHandler
+     *                             CommunicationHandler} instance that should be used to send the
+     *                             request.
+     * @param transaction          The {@link SignedTransaction} object to broadcast.
+     * @return A future that will be completed with information about the
+     * block in which the transaction has been applied.
+     * @throws BeowulfInvalidTransactionException In case the provided transaction is not valid.
+     */
+    public static CompletableFuture<BroadcastTransactionSynchronousReturn> broadcastTransactionSynchronousAsync(
+            CommunicationHandler communicationHandler, SignedTransaction transaction)
+            throws BeowulfInvalidTransactionException {
+        if (transaction.getSignatures() == null || transaction.getSignatures().isEmpty()) {
+            transaction.sign();
+        }
+
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.BROADCAST_TRANSACTION_SYNCHRONOUS, Collections.singletonList(transaction));
+
+        return communicationHandler.performRequestAsync(requestObject, BroadcastTransactionSynchronousReturn.class)
+                .thenApply(result -> result.get(0));
+    }
+
 
     /*
      * (get_version) (get_state)
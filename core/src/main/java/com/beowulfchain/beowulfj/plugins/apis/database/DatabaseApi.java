@@ -38,6 +38,7 @@ import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
 import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
 import com.beowulfchain.beowulfj.protocol.AccountName;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -75,6 +76,19 @@ public class DatabaseApi {
         return communicationHandler.performRequest(requestObject, Config.class).get(0);
     }
 
+    /**
+     * Like {@link #getConfig(CommunicationHandler)}, but does not block the calling thread.
+     *
+     * @param communicationHandler The communication handler.
+     * @return A future that will be completed with the beowulf configuration.
+     */
+    public static CompletableFuture<Config> getConfigAsync(CommunicationHandler communicationHandler) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null);
+
+        return communicationHandler.performRequestAsync(requestObject, Config.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * Get the global properties.
      *
@@ -101,6 +115,21 @@ public class DatabaseApi {
         return communicationHandler.performRequest(requestObject, DynamicGlobalProperty.class).get(0);
     }
 
+    /**
+     * Like {@link #getDynamicGlobalProperties(CommunicationHandler)}, but does not block the calling thread.
+     *
+     * @param communicationHandler The communication handler.
+     * @return A future that will be completed with the dynamic global properties.
+     */
+    public static CompletableFuture<DynamicGlobalProperty> getDynamicGlobalPropertiesAsync(
+            CommunicationHandler communicationHandler) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, null);
+
+        return communicationHandler.performRequestAsync(requestObject, DynamicGlobalProperty.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * Get the supernode schedule.
      *
@@ -127,6 +156,21 @@ public class DatabaseApi {
         return communicationHandler.performRequest(requestObject, SupernodeSchedule.class).get(0);
     }
 
+    /**
+     * Like {@link #getSupernodeSchedule(CommunicationHandler)}, but does not block the calling thread.
+     *
+     * @param communicationHandler The communication handler.
+     * @return A future that will be completed with the supernode schedule.
+     */
+    public static CompletableFuture<SupernodeSchedule> getSupernodeScheduleAsync(
+            CommunicationHandler communicationHandler) {
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_SUPERNODE_SCHEDULE,
+                null);
+
+        return communicationHandler.performRequestAsync(requestObject, SupernodeSchedule.class)
+                .thenApply(result -> result.get(0));
+    }
+
     /**
      * Get the list of the current active supernodes.
      *
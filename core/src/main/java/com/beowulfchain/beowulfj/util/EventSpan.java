@@ -0,0 +1,36 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.util;
+
+/**
+ * A Java Flight Recorder event which has been started by one of the
+ * <code>begin</code> methods of {@link FlightRecorderEvents} and is
+ * committed by {@link #end(String, String, long, Throwable)}.
+ */
+public interface EventSpan {
+    /**
+     * End the event and commit it if the recording is interested in it.
+     *
+     * @param method      The JSON-RPC method or <code>null</code> if unknown.
+     * @param endpoint    The endpoint or <code>null</code> if unknown.
+     * @param payloadSize The size of the processed data in bytes or
+     *                    <code>-1</code> if unknown.
+     * @param failure     The reason of the failure or <code>null</code> if the
+     *                    operation succeeded.
+     */
+    void end(String method, String endpoint, long payloadSize, Throwable failure);
+}
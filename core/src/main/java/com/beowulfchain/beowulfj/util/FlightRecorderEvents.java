@@ -0,0 +1,80 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.util;
+
+/**
+ * Emits Java Flight Recorder events for RPC calls, the transports, signing
+ * and the (de)serialization of transactions and answers, so they show up in
+ * recordings of the application.
+ * <p>
+ * BeowulfJ is shipped as a multi-release JAR: On Java 11 and later, this
+ * class is replaced by a version that creates the events (see
+ * <code>src/main/java11</code>). This version is used on Java 8 and returns
+ * a span that does nothing.
+ */
+public final class FlightRecorderEvents {
+    private static final EventSpan DISABLED = (method, endpoint, payloadSize, failure) -> {
+        // Flight Recorder events are not available.
+    };
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return A span covering a request from the call until the result is
+     * available.
+     */
+    public static EventSpan beginRpcCall() {
+        return DISABLED;
+    }
+
+    /**
+     * @return A span covering the transfer of a request to the node.
+     */
+    public static EventSpan beginTransportSend() {
+        return DISABLED;
+    }
+
+    /**
+     * @return A span covering the receipt of an answer from the node.
+     */
+    public static EventSpan beginTransportReceive() {
+        return DISABLED;
+    }
+
+    /**
+     * @return A span covering the signing of a transaction.
+     */
+    public static EventSpan beginSigning() {
+        return DISABLED;
+    }
+
+    /**
+     * @return A span covering the serialization of a transaction.
+     */
+    public static EventSpan beginSerialization() {
+        return DISABLED;
+    }
+
+    /**
+     * @return A span covering the transformation of an answer into the
+     * expected type.
+     */
+    public static EventSpan beginDeserialization() {
+        return DISABLED;
+    }
+}
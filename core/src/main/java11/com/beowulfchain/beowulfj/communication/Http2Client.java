@@ -0,0 +1,406 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfConnectionException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
+import com.beowulfchain.beowulfj.util.EventSpan;
+import com.beowulfchain.beowulfj.util.FlightRecorderEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends requests via HTTP/2 using the HTTP client of the JDK. All requests to
+ * an endpoint are multiplexed as streams over a single connection, so many
+ * concurrent requests neither need a pool of connections nor a thread each.
+ * Nodes which do not offer HTTP/2 during the TLS handshake are reached via
+ * HTTP/1.1.
+ * <p>
+ * Only available on Java 11 and later (@see {@link HttpClientProvider}).
+ */
+public class Http2Client extends AbstractClient {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Http2Client.class);
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
+    /**
+     * The JDK clients in use, keyed by whether the SSL verification is
+     * disabled and their connect timeout. Each of them keeps one connection
+     * per endpoint, which is shared by all instances using the same key.
+     */
+    private static final Map<String, SharedClient> CLIENTS = new HashMap<>();
+
+    /**
+     * The JDK clients acquired by this instance, with the same keys as
+     * <code>CLIENTS</code>.
+     */
+    private final Map<String, java.net.http.HttpClient> clients = new ConcurrentHashMap<>();
+    private final BeowulfJConfig config;
+
+    /**
+     * Create a new client.
+     *
+     * @param config The config of the BeowulfJ client this instance belongs to.
+     */
+    public Http2Client(BeowulfJConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public JsonRPCResponse invokeAndReadResponse(JsonRPCRequest requestObject, URI endpointUri,
+                                                 boolean sslVerificationDisabled)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        return CommunicationHandler.await(
+                invokeAndReadResponseAsync(requestObject, endpointUri, sslVerificationDisabled));
+    }
+
+    @Override
+    public CompletableFuture<JsonRPCResponse> invokeAndReadResponseAsync(JsonRPCRequest requestObject,
+                                                                         URI endpointUri,
+                                                                         boolean sslVerificationDisabled) {
+        return post(requestObject, Collections.singletonList(requestObject), endpointUri, sslVerificationDisabled);
+    }
+
+    @Override
+    public List<JsonRPCResponse> invokeAndReadBatchResponse(List<JsonRPCRequest> requestObjects, URI endpointUri,
+                                                            boolean sslVerificationDisabled)
+            throws BeowulfCommunicationException, BeowulfResponseException {
+        return CommunicationHandler.await(
+                invokeAndReadBatchResponseAsync(requestObjects, endpointUri, sslVerificationDisabled));
+    }
+
+    @Override
+    public CompletableFuture<List<JsonRPCResponse>> invokeAndReadBatchResponseAsync(
+            List<JsonRPCRequest> requestObjects, URI endpointUri, boolean sslVerificationDisabled) {
+        return post(requestObjects, requestObjects, endpointUri, sslVerificationDisabled).thenApply(response -> {
+            try {
+                RequestTimings timings = response.getTimings();
+                timings.begin(RequestTimings.Phase.PARSE);
+                List<JsonRPCResponse> responses = response.getBatchResponses();
+                timings.end(RequestTimings.Phase.PARSE);
+                return responses;
+            } catch (BeowulfCommunicationException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    @Override
+    public boolean isMultiplexing() {
+        return true;
+    }
+
+    /**
+     * Send the given payload to the endpoint without blocking a thread.
+     *
+     * @param requestPayload          The request or the list of requests to send.
+     * @param requestObjects          The requests contained in the payload.
+     * @param endpointUri             The endpoint to send to.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @return A future that will be completed with the answer of the node or
+     * with a {@link BeowulfCommunicationException}.
+     */
+    private CompletableFuture<JsonRPCResponse> post(Object requestPayload, List<JsonRPCRequest> requestObjects,
+                                                    URI endpointUri, boolean sslVerificationDisabled) {
+        int responseTimeout = CommunicationHandler.getResponseTimeout(config, requestObjects);
+        HttpRequest httpRequest;
+        java.net.http.HttpClient client;
+        int requestLength;
+        // The JDK client does not tell when the connection is established,
+        // so connecting counts as wire time.
+        RequestTimings timings = new RequestTimings();
+        try {
+            timings.begin(RequestTimings.Phase.SERIALIZATION);
+            byte[] requestContent = CommunicationHandler.getObjectMapper().writeValueAsBytes(requestPayload);
+            timings.end(RequestTimings.Phase.SERIALIZATION);
+            requestLength = requestContent.length;
+            HttpRequest.Builder builder = HttpRequest.newBuilder(endpointUri)
+                    .header("Content-Type", JSON_CONTENT_TYPE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(requestContent));
+            if (responseTimeout > 0) {
+                builder.timeout(Duration.ofMillis(responseTimeout));
+            }
+            if (config.isCompressionEnabled()) {
+                builder.header("Accept-Encoding", DecompressingInputStream.ACCEPTED_ENCODINGS);
+            }
+            httpRequest = builder.build();
+            client = getClient(sslVerificationDisabled);
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Sending {}.", new String(requestContent, StandardCharsets.UTF_8));
+            }
+        } catch (GeneralSecurityException | IOException e) {
+            CompletableFuture<JsonRPCResponse> failure = new CompletableFuture<>();
+            failure.completeExceptionally(
+                    new BeowulfCommunicationException("A problem occured while processing the request.", e));
+            return failure;
+        }
+
+        String method = CommunicationHandler.getMethod(requestObjects);
+        // The JDK client sends the request and reads the answer in one
+        // exchange, so the send event lasts until the body has arrived.
+        EventSpan sendSpan = FlightRecorderEvents.beginTransportSend();
+        timings.begin(RequestTimings.Phase.WIRE);
+        CompletableFuture<HttpResponse<byte[]>> pendingResponse = client.sendAsync(httpRequest,
+                HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<JsonRPCResponse> result = pendingResponse.handle((httpResponse, throwable) -> {
+            if (throwable != null) {
+                Throwable cause = translateException(CommunicationExecutors.unwrap(throwable), responseTimeout);
+                sendSpan.end(method, endpointUri.toString(), requestLength, cause);
+                throw new CompletionException(cause);
+            }
+            sendSpan.end(method, endpointUri.toString(), requestLength, null);
+            timings.end(RequestTimings.Phase.WIRE);
+
+            int status = httpResponse.statusCode();
+            byte[] responseContent = httpResponse.body();
+            if (status >= 200 && status < 300 && responseContent != null) {
+                EventSpan receiveSpan = FlightRecorderEvents.beginTransportReceive();
+                try {
+                    responseContent = decompress(responseContent,
+                            httpResponse.headers().firstValue("Content-Encoding").orElse(null));
+                } catch (CompletionException e) {
+                    receiveSpan.end(method, endpointUri.toString(), responseContent.length, e.getCause());
+                    throw e;
+                }
+                receiveSpan.end(method, endpointUri.toString(), responseContent.length, null);
+                MetricsRecorder metricsRecorder = config.getMetricsRecorder();
+                if (metricsRecorder != null) {
+                    metricsRecorder.onBytesSent(endpointUri, requestLength);
+                    metricsRecorder.onBytesReceived(endpointUri, responseContent.length);
+                }
+                JsonRPCResponse response = new JsonRPCResponse(responseContent);
+                response.setTimings(timings);
+                return response;
+            }
+            throw new CompletionException(new BeowulfCommunicationException(
+                    "A problem occured while processing the request.",
+                    new IOException("Unexpected response status: " + status)));
+        });
+        // Abort the exchange if the caller gives up.
+        result.whenComplete((value, throwable) -> pendingResponse.cancel(true));
+
+        return result;
+    }
+
+    /**
+     * Decompress the body of an answer if the node has compressed it. Unlike
+     * the other client, the JDK client does not decode bodies on its own.
+     *
+     * @param content         The body as received.
+     * @param contentEncoding The value of the <code>Content-Encoding</code>
+     *                        header or <code>null</code>.
+     * @return The decompressed body.
+     */
+    private static byte[] decompress(byte[] content, String contentEncoding) {
+        if (contentEncoding == null || contentEncoding.equalsIgnoreCase("identity")) {
+            return content;
+        }
+
+        try (InputStream inputStream = new DecompressingInputStream(new ByteArrayInputStream(content),
+                contentEncoding)) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new CompletionException(
+                    new BeowulfCommunicationException("A problem occured while processing the request.", e));
+        }
+    }
+
+    /**
+     * Map the exceptions of the JDK client to the exceptions thrown by the
+     * other clients.
+     */
+    private static Throwable translateException(Throwable cause, int responseTimeout) {
+        if (cause instanceof HttpConnectTimeoutException || cause instanceof ConnectException
+                || cause instanceof UnknownHostException) {
+            // The request has not been sent to the node.
+            return new BeowulfConnectionException("Could not connect to the node.", cause);
+        } else if (cause instanceof HttpTimeoutException) {
+            return new BeowulfTimeoutException("Timeout occured. The Beowulf Node was not able to answer in "
+                    + responseTimeout + " millisecond(s).", cause);
+        } else if (cause instanceof IOException) {
+            return new BeowulfCommunicationException("A problem occured while processing the request.", cause);
+        }
+        return cause;
+    }
+
+    /**
+     * Get the JDK client for the given SSL setting and acquire it if this
+     * instance did not use it before.
+     */
+    private java.net.http.HttpClient getClient(boolean sslVerificationDisabled) throws GeneralSecurityException {
+        String key = sslVerificationDisabled + "#" + config.getIdleTimeout();
+        java.net.http.HttpClient client = clients.get(key);
+        if (client == null) {
+            synchronized (this) {
+                client = clients.get(key);
+                if (client == null) {
+                    client = acquireClient(key, sslVerificationDisabled, config);
+                    clients.put(key, client);
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Get the shared JDK client for the given key and create it if there is
+     * none yet. Every call has to be followed by a call to
+     * {@link #releaseClient(String)} once the client is not needed anymore.
+     *
+     * @param key                     The key of the client.
+     * @param sslVerificationDisabled Define if the SSL verification should be disabled.
+     * @param config                  The config used to create the client if
+     *                                there is none yet.
+     * @return The JDK client.
+     * @throws GeneralSecurityException If the SSL context could not be created.
+     */
+    private static synchronized java.net.http.HttpClient acquireClient(String key, boolean sslVerificationDisabled,
+                                                                       BeowulfJConfig config)
+            throws GeneralSecurityException {
+        SharedClient sharedClient = CLIENTS.get(key);
+        if (sharedClient == null) {
+            sharedClient = new SharedClient(createClient(sslVerificationDisabled, config));
+            CLIENTS.put(key, sharedClient);
+        }
+        sharedClient.references++;
+        return sharedClient.client;
+    }
+
+    /**
+     * Give back a client obtained by
+     * {@link #acquireClient(String, boolean, BeowulfJConfig)}. The client is
+     * dropped as soon as nobody uses it anymore.
+     *
+     * @param key The key of the client.
+     */
+    private static synchronized void releaseClient(String key) {
+        SharedClient sharedClient = CLIENTS.get(key);
+        if (sharedClient != null && --sharedClient.references <= 0) {
+            CLIENTS.remove(key);
+        }
+    }
+
+    private static java.net.http.HttpClient createClient(boolean sslVerificationDisabled, BeowulfJConfig config)
+            throws GeneralSecurityException {
+        java.net.http.HttpClient.Builder builder = java.net.http.HttpClient.newBuilder()
+                .version(java.net.http.HttpClient.Version.HTTP_2)
+                .followRedirects(java.net.http.HttpClient.Redirect.NEVER);
+        if (config.getIdleTimeout() > 0) {
+            builder.connectTimeout(Duration.ofMillis(config.getIdleTimeout()));
+        }
+        if (sslVerificationDisabled) {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{new TrustAllManager()}, new SecureRandom());
+            builder.sslContext(sslContext);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Release the JDK clients used by this instance. The JDK client does not
+     * offer a way to close its connections before Java 21, so the connections
+     * of a client nobody uses anymore are closed by the JDK once they have
+     * been idle for a while.
+     */
+    @Override
+    public synchronized void closeConnection() {
+        for (String key : clients.keySet()) {
+            releaseClient(key);
+        }
+        clients.clear();
+    }
+
+    /**
+     * A JDK client shared by all instances with the same SSL setting.
+     */
+    private static class SharedClient {
+        private final java.net.http.HttpClient client;
+        private int references;
+
+        private SharedClient(java.net.http.HttpClient client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * Accepts every certificate and host name, used if the SSL verification
+     * is disabled for an endpoint.
+     */
+    private static class TrustAllManager extends X509ExtendedTrustManager {
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The fields shared by all Flight Recorder events of BeowulfJ.
+ */
+@Category("BeowulfJ")
+abstract class BeowulfJEvent extends Event implements EventSpan {
+    @Label("Method")
+    @Description("The JSON-RPC method")
+    String method;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    @Label("Outcome")
+    @Description("SUCCESS or the name of the exception")
+    String outcome;
+
+    @Override
+    public void end(String method, String endpoint, long payloadSize, Throwable failure) {
+        end();
+        if (shouldCommit()) {
+            this.method = method;
+            this.endpoint = endpoint;
+            this.payloadSize = payloadSize;
+            this.outcome = failure == null ? "SUCCESS" : failure.getClass().getSimpleName();
+            commit();
+        }
+    }
+
+    @Name("com.beowulfchain.beowulfj.RpcCall")
+    @Label("RPC Call")
+    @Description("A request from the call until the result is available, including retries")
+    static final class RpcCall extends BeowulfJEvent {
+    }
+
+    @Name("com.beowulfchain.beowulfj.TransportSend")
+    @Label("Transport Send")
+    @Description("The transfer of a request to the node")
+    static final class TransportSend extends BeowulfJEvent {
+    }
+
+    @Name("com.beowulfchain.beowulfj.TransportReceive")
+    @Label("Transport Receive")
+    @Description("The receipt of an answer from the node")
+    static final class TransportReceive extends BeowulfJEvent {
+    }
+
+    @Name("com.beowulfchain.beowulfj.Signing")
+    @Label("Transaction Signing")
+    static final class Signing extends BeowulfJEvent {
+    }
+
+    @Name("com.beowulfchain.beowulfj.Serialization")
+    @Label("Transaction Serialization")
+    static final class Serialization extends BeowulfJEvent {
+    }
+
+    @Name("com.beowulfchain.beowulfj.Deserialization")
+    @Label("Answer Deserialization")
+    static final class Deserialization extends BeowulfJEvent {
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.util;
+
+/**
+ * Emits Java Flight Recorder events for RPC calls, the transports, signing
+ * and the (de)serialization of transactions and answers, so they show up in
+ * recordings of the application.
+ * <p>
+ * This is the Java 11 version of this class, which is used instead of the
+ * Java 8 version when BeowulfJ runs on Java 11 or later. The events belong to
+ * the category <code>BeowulfJ</code> and are enabled in the default
+ * recording settings. Events shorter than the threshold of a recording are
+ * dropped before their fields are set.
+ */
+public final class FlightRecorderEvents {
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return A span covering a request from the call until the result is
+     * available.
+     */
+    public static EventSpan beginRpcCall() {
+        return begin(new BeowulfJEvent.RpcCall());
+    }
+
+    /**
+     * @return A span covering the transfer of a request to the node.
+     */
+    public static EventSpan beginTransportSend() {
+        return begin(new BeowulfJEvent.TransportSend());
+    }
+
+    /**
+     * @return A span covering the receipt of an answer from the node.
+     */
+    public static EventSpan beginTransportReceive() {
+        return begin(new BeowulfJEvent.TransportReceive());
+    }
+
+    /**
+     * @return A span covering the signing of a transaction.
+     */
+    public static EventSpan beginSigning() {
+        return begin(new BeowulfJEvent.Signing());
+    }
+
+    /**
+     * @return A span covering the serialization of a transaction.
+     */
+    public static EventSpan beginSerialization() {
+        return begin(new BeowulfJEvent.Serialization());
+    }
+
+    /**
+     * @return A span covering the transformation of an answer into the
+     * expected type.
+     */
+    public static EventSpan beginDeserialization() {
+        return begin(new BeowulfJEvent.Deserialization());
+    }
+
+    private static EventSpan begin(BeowulfJEvent event) {
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj;
+
+import com.beowulfchain.beowulfj.chain.network.Mainnet;
+import com.beowulfchain.beowulfj.chain.network.Testnet;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.configuration.PrivateKeyStorage;
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BeowulfJBuilderTest {
+    /**
+     * Test that clients created by the builder neither share their config
+     * with each other nor with the default instance.
+     */
+    @Test
+    public void testClientsAreIndependent() throws Exception {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig defaultConfig = BeowulfJConfig.getInstance();
+        String defaultChainId = defaultConfig.getChainId();
+        PrivateKeyStorage privateKeyStorage = new PrivateKeyStorage();
+
+        BeowulfJ mainnetClient = BeowulfJ.builder().withNetwork(new Mainnet())
+                .withEndpoint(URI.create("https://mainnet.example.com/rpc"))
+                .withPrivateKeyStorage(privateKeyStorage).build();
+        BeowulfJ testnetClient = BeowulfJ.builder().withNetwork(new Testnet())
+                .withEndpoint(URI.create("wss://testnet.example.com/ws"), true).build();
+
+        try {
+            BeowulfJConfig mainnetConfig = mainnetClient.getBeowulfJConfig();
+            BeowulfJConfig testnetConfig = testnetClient.getBeowulfJConfig();
+            assertThat(mainnetConfig, not(sameInstance(testnetConfig)));
+            assertThat(mainnetConfig, not(sameInstance(BeowulfJConfig.getInstance())));
+            assertThat(mainnetConfig.getChainId(), equalTo(new Mainnet().getChain_id()));
+            assertThat(testnetConfig.getChainId(), equalTo(new Testnet().getChain_id()));
+            assertThat(mainnetConfig.getPrivateKeyStorage(), sameInstance(privateKeyStorage));
+            assertThat(mainnetConfig.getEndpointURIs().size(), equalTo(1));
+            assertThat(mainnetClient.getEndpointStates().get(0).getUri(),
+                    equalTo(URI.create("https://mainnet.example.com/rpc")));
+            assertThat(testnetClient.getEndpointStates().get(0).isSslVerificationDisabled(), equalTo(true));
+            assertThat(BeowulfJConfig.getInstance().getChainId(), equalTo(defaultChainId));
+        } finally {
+            mainnetClient.close();
+            testnetClient.close();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCBatch;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.fail;
+
+public class BatchRequestTest {
+    private final List<Integer> receivedBatchSizes = new CopyOnWriteArrayList<>();
+    private volatile boolean batchesRejected;
+    private HttpServer server;
+    private CommunicationHandler communicationHandler;
+
+    /**
+     * Start a node which answers every request of a batch with its own id, but
+     * in reverse order. Requests for the account count are answered with an
+     * error.
+     */
+    @Before
+    public void startNode() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            JsonNode batch = CommunicationHandler.getObjectMapper().readTree(exchange.getRequestBody());
+            receivedBatchSizes.add(batch.size());
+
+            JsonNode answer;
+            if (batchesRejected) {
+                answer = createError(null);
+            } else {
+                ArrayNode responses = JsonNodeFactory.instance.arrayNode();
+                for (JsonNode request : batch) {
+                    long id = request.path("id").asLong();
+                    if (request.path("method").asText().contains("get_account_count")) {
+                        responses.insert(0, createError(id));
+                    } else {
+                        ObjectNode response = responses.insertObject(0);
+                        response.put("jsonrpc", "2.0");
+                        response.put("result", id);
+                        response.put("id", id);
+                    }
+                }
+                answer = responses;
+            }
+            write(exchange, answer);
+        });
+        server.setExecutor(null);
+        server.start();
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        if (communicationHandler != null) {
+            communicationHandler.close();
+        }
+        server.stop(0);
+    }
+
+    /**
+     * Test that a batch larger than the configured maximum is split and every
+     * entry receives the answer with its own id.
+     */
+    @Test
+    public void testLargeBatchIsSplitAndMatchedById() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(3));
+
+        JsonRPCBatch batch = new JsonRPCBatch();
+        List<JsonRPCBatch.Entry<Long>> entries = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            entries.add(batch.add(new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null),
+                    Long.class));
+        }
+        communicationHandler.performBatchRequest(batch);
+
+        List<Integer> batchSizes = new ArrayList<>(receivedBatchSizes);
+        Collections.sort(batchSizes);
+        assertThat(batchSizes, equalTo(Arrays.asList(1, 3, 3)));
+        for (JsonRPCBatch.Entry<Long> entry : entries) {
+            assertThat(entry.getResult(), equalTo(Collections.singletonList(entry.getRequest().getId())));
+        }
+    }
+
+    /**
+     * Test that an error the node returns for one request of a batch only
+     * fails the entry of that request.
+     */
+    @Test
+    public void testErrorOnlyFailsItsEntry() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(50));
+
+        JsonRPCBatch batch = new JsonRPCBatch();
+        JsonRPCBatch.Entry<Long> before = batch.add(new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                RequestMethod.GET_CONFIG, null), Long.class);
+        JsonRPCBatch.Entry<Long> failing = batch.add(new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                RequestMethod.GET_ACCOUNT_COUNT, null), Long.class);
+        JsonRPCBatch.Entry<Long> after = batch.add(new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                RequestMethod.GET_CONFIG, null), Long.class);
+        communicationHandler.performBatchRequest(batch);
+
+        assertThat(failing.isError(), equalTo(true));
+        try {
+            failing.getResult();
+            fail("The entry should contain the error of the node.");
+        } catch (BeowulfResponseException e) {
+            assertThat(e.getCode(), equalTo(-32000));
+        }
+        assertThat(before.isError(), equalTo(false));
+        assertThat(before.getResult(), equalTo(Collections.singletonList(before.getRequest().getId())));
+        assertThat(after.isError(), equalTo(false));
+        assertThat(after.getResult(), equalTo(Collections.singletonList(after.getRequest().getId())));
+    }
+
+    /**
+     * Test that the call fails if the node rejects the whole batch.
+     */
+    @Test
+    public void testRejectedBatchFailsTheCall() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(50));
+        batchesRejected = true;
+
+        JsonRPCBatch batch = new JsonRPCBatch();
+        batch.add(new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Long.class);
+        batch.add(new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Long.class);
+        try {
+            communicationHandler.performBatchRequest(batch);
+            fail("The batch should have been rejected.");
+        } catch (BeowulfResponseException e) {
+            assertThat(e.getCode(), equalTo(-32000));
+        }
+        assertThat(receivedBatchSizes.size(), equalTo(1));
+    }
+
+    private BeowulfJConfig createConfig(int maximumBatchSize) {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/rpc"), false)));
+        config.setMaximumBatchSize(maximumBatchSize);
+        return config;
+    }
+
+    private static ObjectNode createError(Long id) {
+        ObjectNode response = JsonNodeFactory.instance.objectNode();
+        response.put("jsonrpc", "2.0");
+        ObjectNode error = response.putObject("error");
+        error.put("code", -32000);
+        error.put("message", "Rejected by the test node.");
+        response.put("id", id);
+        return response;
+    }
+
+    private static void write(HttpExchange exchange, JsonNode answer) throws IOException {
+        byte[] response = CommunicationHandler.getObjectMapper().writeValueAsBytes(answer);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(response);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.simulator.NodeSimulator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.fail;
+
+public class BlockSubscriptionManagerTest {
+    private NodeSimulator simulator;
+    private CommunicationHandler communicationHandler;
+    private BlockSubscriptionManager blockSubscriptionManager;
+    private final List<Long> blocks = new CopyOnWriteArrayList<>();
+    private final List<Long> irreversibleBlocks = new CopyOnWriteArrayList<>();
+
+    /**
+     * Start a node which only produces blocks on demand and subscribe to it
+     * over a single WebSocket session.
+     */
+    @Before
+    public void subscribe() throws Exception {
+        simulator = new NodeSimulator();
+        simulator.setBlockInterval(0);
+        simulator.setIrreversibilityLag(2);
+        simulator.start();
+
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(simulator.getWebsocketUri(), false)));
+        config.setWebsocketSessionsPerEndpoint(1);
+        config.setRetryPolicy(new DefaultRetryPolicy(1, 1, 1, 1, 1));
+        config.setCircuitBreakerFailureThreshold(100);
+        communicationHandler = new CommunicationHandler(config);
+        blockSubscriptionManager = new BlockSubscriptionManager(communicationHandler);
+        blockSubscriptionManager.subscribeToBlocks(blocks::add);
+        blockSubscriptionManager.subscribeToIrreversibleBlocks(irreversibleBlocks::add);
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        communicationHandler.close();
+        simulator.close();
+    }
+
+    /**
+     * Test that the listeners are called for every block announced by a
+     * notice, in order and without gaps.
+     */
+    @Test
+    public void testNoticesAreDispatchedToListeners() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            simulator.produceBlock();
+        }
+
+        awaitBlock(simulator.getHeadBlockNumber());
+        assertConsecutive(blocks);
+        assertConsecutive(irreversibleBlocks);
+        assertThat(irreversibleBlocks.get(irreversibleBlocks.size() - 1),
+                equalTo(simulator.getHeadBlockNumber() - 2));
+    }
+
+    /**
+     * Test that a lost subscription is renewed and the blocks applied in the
+     * meantime are caught up with.
+     */
+    @Test
+    public void testLostSubscriptionIsRenewed() throws Exception {
+        simulator.produceBlock();
+        awaitBlock(simulator.getHeadBlockNumber());
+
+        // Let the node drop the only session, which carries the subscription.
+        simulator.setDisconnectRate(1);
+        try {
+            communicationHandler.performRequest(new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                    RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, Collections.emptyList()), JsonNode.class);
+            fail("The node should have dropped the connection.");
+        } catch (BeowulfCommunicationException e) {
+            // Expected.
+        }
+        simulator.setDisconnectRate(0);
+        simulator.produceBlock();
+        simulator.produceBlock();
+
+        awaitBlock(simulator.getHeadBlockNumber());
+        simulator.produceBlock();
+        awaitBlock(simulator.getHeadBlockNumber());
+        assertConsecutive(blocks);
+    }
+
+    /**
+     * Test that the delay before renewing a lost subscription doubles with
+     * every failed attempt up to a limit.
+     */
+    @Test
+    public void testResubscribeBackoff() {
+        assertThat(BlockSubscriptionManager.getResubscribeDelay(0), equalTo(1000L));
+        assertThat(BlockSubscriptionManager.getResubscribeDelay(1), equalTo(2000L));
+        assertThat(BlockSubscriptionManager.getResubscribeDelay(2), equalTo(4000L));
+        assertThat(BlockSubscriptionManager.getResubscribeDelay(4), equalTo(16000L));
+        assertThat(BlockSubscriptionManager.getResubscribeDelay(5), equalTo(30000L));
+        assertThat(BlockSubscriptionManager.getResubscribeDelay(100), equalTo(30000L));
+    }
+
+    private void awaitBlock(long blockNumber) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (blocks.isEmpty() || blocks.get(blocks.size() - 1) < blockNumber) {
+            if (System.nanoTime() > end) {
+                fail("Block " + blockNumber + " has not been announced, got " + blocks + ".");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static void assertConsecutive(List<Long> blockNumbers) {
+        assertThat(blockNumbers.size(), greaterThan(0));
+        for (int i = 1; i < blockNumbers.size(); i++) {
+            assertThat(blockNumbers.get(i), equalTo(blockNumbers.get(i - 1) + 1));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.frame.Frame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class CompressionTest {
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+
+    private HttpServer server;
+    private CommunicationHandler communicationHandler;
+    private volatile String acceptEncoding;
+
+    /**
+     * Start a node which compresses its answers with the first encoding the
+     * client accepts.
+     */
+    @Before
+    public void startNode() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            Matcher matcher = ID_PATTERN.matcher(read(exchange.getRequestBody()));
+            matcher.find();
+            StringBuilder result = new StringBuilder("{\"jsonrpc\":\"2.0\",\"result\":{\"IS_TEST_NET\":true");
+            for (int i = 0; i < 500; i++) {
+                result.append(",\"BEOWULF_PARAMETER_").append(i).append("\":\"some value\"");
+            }
+            result.append("},\"id\":").append(matcher.group(1)).append("}");
+            byte[] response = result.toString().getBytes(StandardCharsets.UTF_8);
+
+            String encoding = acceptEncoding == null ? null : acceptEncoding.split(",")[0].trim();
+            if (encoding != null) {
+                response = compress(response, encoding);
+                exchange.getResponseHeaders().add("Content-Encoding", encoding);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.setExecutor(null);
+        server.start();
+        CompressionStatistics.getInstance().reset();
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        if (communicationHandler != null) {
+            communicationHandler.close();
+        }
+        server.stop(0);
+    }
+
+    /**
+     * Test that compressed answers are decompressed and counted.
+     */
+    @Test
+    public void testCompressedAnswerIsDecompressed() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(true));
+
+        List<Map> result = communicationHandler.performRequest(
+                new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class);
+
+        assertThat(acceptEncoding, equalTo("gzip, deflate"));
+        assertThat(result.get(0).get("IS_TEST_NET"), equalTo(true));
+        assertThat(result.get(0).size(), equalTo(501));
+        CompressionStatistics statistics = CompressionStatistics.getInstance();
+        assertThat(statistics.getCompressedBytesReceived(), greaterThan(0L));
+        assertThat(statistics.getCompressedBytesReceived(), lessThan(statistics.getUncompressedBytesReceived()));
+        assertThat(statistics.getReceivedCompressionRatio(), greaterThan(1.0));
+    }
+
+    /**
+     * Test that only the encoding the transport asks for on its own is
+     * accepted if compression is disabled.
+     */
+    @Test
+    public void testCompressionIsOptional() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(false));
+
+        List<Map> result = communicationHandler.performRequest(
+                new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class);
+
+        assertThat(acceptEncoding, equalTo("gzip"));
+        assertThat(result.get(0).get("IS_TEST_NET"), equalTo(true));
+        assertThat(result.get(0).size(), equalTo(501));
+    }
+
+    /**
+     * Test that both the zlib and the raw format are accepted for bodies
+     * encoded with <code>deflate</code>.
+     */
+    @Test
+    public void testDeflateEncodedBody() throws Exception {
+        byte[] content = "{\"jsonrpc\":\"2.0\",\"result\":[],\"id\":0}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(decompress(compress(content, "deflate"), "deflate"), equalTo(content));
+        assertThat(decompress(compress(content, "raw"), "deflate"), equalTo(content));
+        assertThat(decompress(compress(content, "gzip"), "GZIP"), equalTo(content));
+    }
+
+    /**
+     * Test that a message compressed by the websocket extension can be
+     * decompressed by the other side, also if the context is kept between
+     * messages.
+     */
+    @Test
+    public void testPerMessageDeflateRoundTrip() {
+        PerMessageDeflateExtension extension = new PerMessageDeflateExtension();
+        Map<String, Object> clientProperties = new HashMap<>();
+        Map<String, Object> serverProperties = new HashMap<>();
+        ExtendedExtension.ExtensionContext client = () -> clientProperties;
+        ExtendedExtension.ExtensionContext server = () -> serverProperties;
+        extension.onHandshakeResponse(client, Collections.emptyList());
+        extension.onHandshakeResponse(server, Collections.emptyList());
+
+        for (int i = 0; i < 3; i++) {
+            byte[] message = ("{\"jsonrpc\":\"2.0\",\"id\":" + i + ",\"method\":\"call\","
+                    + "\"params\":[\"database_api\",\"get_block\",[" + i + "]]}").getBytes(StandardCharsets.UTF_8);
+            Frame frame = Frame.builder().fin(true).opcode((byte) 0x01).payloadData(message)
+                    .payloadLength(message.length).build();
+
+            Frame compressed = extension.processOutgoing(client, frame);
+            assertThat(compressed.isRsv1(), equalTo(true));
+            Frame decompressed = extension.processIncoming(server, compressed);
+            assertThat(decompressed.isRsv1(), equalTo(false));
+            assertThat(decompressed.getPayloadData(), equalTo(message));
+        }
+
+        extension.destroy(client);
+        extension.destroy(server);
+    }
+
+    private BeowulfJConfig createConfig(boolean compressionEnabled) {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/rpc"), false)));
+        config.setCompressionEnabled(compressionEnabled);
+        return config;
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            content.write(buffer, 0, read);
+        }
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] compress(byte[] content, String encoding) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        if (encoding.equals("gzip")) {
+            try (OutputStream outputStream = new GZIPOutputStream(compressed)) {
+                outputStream.write(content);
+            }
+            return compressed.toByteArray();
+        }
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, encoding.equals("raw"));
+        try (OutputStream outputStream = new DeflaterOutputStream(compressed, deflater)) {
+            outputStream.write(content);
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] content, String encoding) throws IOException {
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (DecompressingInputStream inputStream = new DecompressingInputStream(
+                new ByteArrayInputStream(content), encoding)) {
+            byte[] buffer = new byte[16];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                decompressed.write(buffer, 0, read);
+            }
+        }
+        return decompressed.toByteArray();
+    }
+}
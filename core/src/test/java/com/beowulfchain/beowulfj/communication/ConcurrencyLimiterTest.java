@@ -0,0 +1,223 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.RequestPriority;
+import com.beowulfchain.beowulfj.exceptions.BeowulfRequestRejectedException;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class ConcurrencyLimiterTest {
+    private static final URI ENDPOINT = URI.create("https://localhost:8090");
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Test that requests exceeding the limit wait, get the slot of a finished
+     * request and are rejected once the queue is full.
+     */
+    @Test
+    public void testQueueAndRejection() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ENDPOINT, 2, 10, 1);
+
+        CompletableFuture<ConcurrencyLimiter.Permit> first = limiter.acquire();
+        CompletableFuture<ConcurrencyLimiter.Permit> second = limiter.acquire();
+        CompletableFuture<ConcurrencyLimiter.Permit> queued = limiter.acquire();
+        CompletableFuture<ConcurrencyLimiter.Permit> rejected = limiter.acquire();
+
+        assertThat(first.isDone() && second.isDone(), equalTo(true));
+        assertThat(queued.isDone(), equalTo(false));
+        assertThat(limiter.getQueuedRequests(), equalTo(1));
+        assertThat(rejected.isCompletedExceptionally(), equalTo(true));
+        try {
+            rejected.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(BeowulfRequestRejectedException.class));
+        }
+
+        first.get().onSuccess(LATENCY);
+
+        assertThat(queued.isDone(), equalTo(true));
+        assertThat(limiter.getInFlightRequests(), equalTo(2));
+        assertThat(limiter.getQueuedRequests(), equalTo(0));
+    }
+
+    /**
+     * Test that a cancelled request gives up its place in the queue.
+     */
+    @Test
+    public void testCancelledRequestLeavesQueue() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ENDPOINT, 1, 10, 5);
+
+        CompletableFuture<ConcurrencyLimiter.Permit> first = limiter.acquire();
+        CompletableFuture<ConcurrencyLimiter.Permit> cancelled = limiter.acquire();
+        CompletableFuture<ConcurrencyLimiter.Permit> waiting = limiter.acquire();
+        cancelled.cancel(false);
+
+        assertThat(limiter.getQueuedRequests(), equalTo(1));
+
+        first.get().release();
+
+        assertThat(waiting.isDone(), equalTo(true));
+        assertThat(limiter.getInFlightRequests(), equalTo(1));
+    }
+
+    /**
+     * Test that the limit grows while it is used and shrinks once per window
+     * if requests fail.
+     */
+    @Test
+    public void testAdditiveIncreaseMultiplicativeDecrease() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ENDPOINT, 10, 100, 0);
+
+        for (int round = 0; round < 20; round++) {
+            for (ConcurrencyLimiter.Permit permit : acquireAll(limiter)) {
+                permit.onSuccess(LATENCY);
+            }
+        }
+        int grownLimit = limiter.getLimit();
+        assertThat(grownLimit, greaterThan(10));
+
+        // All requests have been sent with the same limit, so the limit is
+        // only decreased once.
+        for (ConcurrencyLimiter.Permit permit : acquireAll(limiter)) {
+            permit.onDropped();
+        }
+        assertThat(limiter.getLimit(), equalTo((int) (grownLimit * 0.9)));
+    }
+
+    /**
+     * Test that a limit of 0 disables the limiter.
+     */
+    @Test
+    public void testDisabledLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ENDPOINT, 20, 0, 0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(limiter.acquire().isDone() && !limiter.acquire().isCompletedExceptionally(), equalTo(true));
+        }
+    }
+
+    /**
+     * Test that waiting requests are sent in proportion to the weights of
+     * their priorities.
+     */
+    @Test
+    public void testPriorityWeights() throws Exception {
+        BeowulfJConfig config = createConfig();
+        config.setPriorityWeight(RequestPriority.BROADCAST, 3);
+        config.setPriorityWeight(RequestPriority.BULK, 1);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ENDPOINT, 1, 1, config);
+
+        ConcurrencyLimiter.Permit permit = limiter.acquire().get();
+        List<CompletableFuture<ConcurrencyLimiter.Permit>> waiting = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiting.add(limiter.acquire(RequestPriority.BULK));
+            waiting.add(limiter.acquire(RequestPriority.BROADCAST));
+        }
+        assertThat(limiter.getQueuedRequests(RequestPriority.BULK), equalTo(4));
+
+        int broadcasts = 0;
+        for (int i = 0; i < 4; i++) {
+            permit.onSuccess(LATENCY);
+            permit = next(waiting);
+            if (permit.getPriority() == RequestPriority.BROADCAST) {
+                broadcasts++;
+            }
+        }
+
+        assertThat(broadcasts, equalTo(3));
+    }
+
+    /**
+     * Test that a priority can not use more than its share of the limit.
+     */
+    @Test
+    public void testPriorityCapacityShare() throws Exception {
+        BeowulfJConfig config = createConfig();
+        config.setPriorityCapacityShare(RequestPriority.BULK, 0.5);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ENDPOINT, 4, 4, config);
+
+        assertThat(limiter.acquire(RequestPriority.BULK).isDone(), equalTo(true));
+        assertThat(limiter.acquire(RequestPriority.BULK).isDone(), equalTo(true));
+        assertThat(limiter.acquire(RequestPriority.BULK).isDone(), equalTo(false));
+        assertThat(limiter.acquire(RequestPriority.BROADCAST).isDone(), equalTo(true));
+        assertThat(limiter.acquire(RequestPriority.BROADCAST).isDone(), equalTo(true));
+        assertThat(limiter.getInFlightRequests(RequestPriority.BULK), equalTo(2));
+        assertThat(limiter.getInFlightRequests(), equalTo(4));
+    }
+
+    /**
+     * Test that a request which waited longer than the starvation threshold is
+     * sent before requests with a higher weight.
+     */
+    @Test
+    public void testStarvationProtection() throws Exception {
+        BeowulfJConfig config = createConfig();
+        config.setPriorityWeight(RequestPriority.BROADCAST, 100);
+        config.setStarvationThreshold(1);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ENDPOINT, 1, 1, config);
+
+        ConcurrencyLimiter.Permit permit = limiter.acquire().get();
+        CompletableFuture<ConcurrencyLimiter.Permit> bulk = limiter.acquire(RequestPriority.BULK);
+        Thread.sleep(10);
+        CompletableFuture<ConcurrencyLimiter.Permit> broadcast = limiter.acquire(RequestPriority.BROADCAST);
+        permit.onSuccess(LATENCY);
+
+        assertThat(bulk.isDone(), equalTo(true));
+        assertThat(broadcast.isDone(), equalTo(false));
+    }
+
+    private static BeowulfJConfig createConfig() {
+        // Other tests may have configured a default account through system
+        // properties which is not needed here.
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setStarvationThreshold(0);
+        return config;
+    }
+
+    private static ConcurrencyLimiter.Permit next(List<CompletableFuture<ConcurrencyLimiter.Permit>> waiting)
+            throws Exception {
+        for (CompletableFuture<ConcurrencyLimiter.Permit> pendingPermit : waiting) {
+            if (pendingPermit.isDone()) {
+                waiting.remove(pendingPermit);
+                return pendingPermit.get();
+            }
+        }
+        throw new IllegalStateException("No request has been granted a permit.");
+    }
+
+    private static List<ConcurrencyLimiter.Permit> acquireAll(ConcurrencyLimiter limiter) throws Exception {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = limiter.getLimit(); i > 0; i--) {
+            permits.add(limiter.acquire().get());
+        }
+        return permits;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class DefaultCachePolicyTest {
+    /**
+     * Test that blocks are only cached once they are irreversible and the
+     * dynamic global properties only for a short time.
+     */
+    @Test
+    public void testTimeToLivePerMethod() {
+        DefaultCachePolicy cachePolicy = new DefaultCachePolicy();
+        JsonRPCRequest getBlock = new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.GET_BLOCK,
+                Collections.singletonList(100L));
+        JsonRPCRequest getProperties = new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, Collections.emptyList());
+        JsonRPCRequest getAccounts = new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.GET_ACCOUNTS,
+                Collections.emptyList());
+
+        assertThat(cachePolicy.isCacheable(getBlock), equalTo(true));
+        assertThat(cachePolicy.isCacheable(getAccounts), equalTo(false));
+        assertThat(cachePolicy.getTimeToLive(getBlock, Collections.singletonList("block"), 100),
+                equalTo(CachePolicy.FOREVER));
+        assertThat(cachePolicy.getTimeToLive(getBlock, Collections.singletonList("block"), 99),
+                equalTo(CachePolicy.NOT_CACHED));
+        assertThat(cachePolicy.getTimeToLive(getBlock, Collections.singletonList("block"), -1),
+                equalTo(CachePolicy.NOT_CACHED));
+        assertThat(cachePolicy.getTimeToLive(getBlock, Collections.singletonList(null), 1000),
+                equalTo(CachePolicy.NOT_CACHED));
+        assertThat(cachePolicy.getTimeToLive(getProperties, Collections.singletonList("properties"), 100),
+                equalTo(1000L));
+    }
+}
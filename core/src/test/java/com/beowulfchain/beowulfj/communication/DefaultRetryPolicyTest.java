@@ -0,0 +1,84 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfConnectionException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class DefaultRetryPolicyTest {
+    private static final List<JsonRPCRequest> READ_REQUEST = Collections.singletonList(
+            new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, null));
+    private static final List<JsonRPCRequest> BROADCAST_REQUEST = Collections.singletonList(
+            new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.BROADCAST_TRANSACTION, null));
+
+    /**
+     * Test that the number of attempts is limited and the wait time does not
+     * exceed the configured backoff.
+     */
+    @Test
+    public void testMaximumAttemptsAndBackoff() {
+        DefaultRetryPolicy retryPolicy = new DefaultRetryPolicy(3, 100, 150, 100, 0.1);
+        BeowulfCommunicationException cause = new BeowulfTimeoutException("Timeout");
+
+        assertThat(retryPolicy.getRetryDelay(READ_REQUEST, 1, cause), lessThanOrEqualTo(100L));
+        assertThat(retryPolicy.getRetryDelay(READ_REQUEST, 2, cause), lessThanOrEqualTo(150L));
+        assertThat(retryPolicy.getRetryDelay(READ_REQUEST, 3, cause), equalTo(-1L));
+    }
+
+    /**
+     * Test that broadcasts are only sent again if they did not reach the node.
+     */
+    @Test
+    public void testBroadcastsAreOnlyRetriedOnConnectionProblems() {
+        DefaultRetryPolicy retryPolicy = new DefaultRetryPolicy();
+
+        assertThat(retryPolicy.getRetryDelay(BROADCAST_REQUEST, 1, new BeowulfTimeoutException("Timeout")),
+                equalTo(-1L));
+        assertThat(retryPolicy.getRetryDelay(BROADCAST_REQUEST, 1,
+                new BeowulfConnectionException("Connection refused")) >= 0, equalTo(true));
+    }
+
+    /**
+     * Test that the shared retry budget stops retries once it is exhausted
+     * and is refilled by new requests.
+     */
+    @Test
+    public void testRetryBudget() {
+        DefaultRetryPolicy retryPolicy = new DefaultRetryPolicy(3, 0, 0, 4, 0.5);
+        BeowulfCommunicationException cause = new BeowulfTimeoutException("Timeout");
+
+        assertThat(retryPolicy.getRetryDelay(READ_REQUEST, 1, cause), equalTo(0L));
+        assertThat(retryPolicy.getRetryDelay(READ_REQUEST, 1, cause), equalTo(0L));
+        assertThat(retryPolicy.getRetryDelay(READ_REQUEST, 1, cause), equalTo(-1L));
+
+        retryPolicy.onRequest(READ_REQUEST);
+        retryPolicy.onRequest(READ_REQUEST);
+        assertThat(retryPolicy.getRetryDelay(READ_REQUEST, 1, cause), equalTo(0L));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.CircuitState;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class EndpointSelectorTest {
+    private BeowulfJConfig config;
+    private Pair<URI, Boolean> firstEndpoint;
+    private Pair<URI, Boolean> secondEndpoint;
+
+    @Before
+    public void prepareEndpoints() throws Exception {
+        // Other tests may have configured a default account through system
+        // properties which is not needed here.
+        System.clearProperty("beowulfj.default.account");
+        config = BeowulfJConfig.getNewInstance();
+        firstEndpoint = new ImmutablePair<>(new URI("https://first.example.com/rpc"), false);
+        secondEndpoint = new ImmutablePair<>(new URI("https://second.example.com/rpc"), false);
+
+        List<Pair<URI, Boolean>> endpoints = new ArrayList<>();
+        endpoints.add(firstEndpoint);
+        endpoints.add(secondEndpoint);
+        config.setEndpointURIs(endpoints);
+        config.setCircuitBreakerFailureThreshold(2);
+    }
+
+    /**
+     * Test that an endpoint is not used anymore after it failed repeatedly
+     * and used again after a successful probe request.
+     *
+     * @throws Exception In case of a problem.
+     */
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        config.setCircuitBreakerOpenDuration(60000);
+        EndpointSelector endpointSelector = new EndpointSelector(config);
+
+        Pair<URI, Boolean> failedEndpoint = failUntilOpen(endpointSelector);
+
+        assertThat(endpointSelector.getEndpointStates().get(indexOf(failedEndpoint)).getCircuitState(),
+                equalTo(CircuitState.OPEN));
+        for (int i = 0; i < 10; i++) {
+            EndpointSelector.Lease lease = endpointSelector.select();
+            assertThat(lease.getEndpointUri().equals(failedEndpoint), equalTo(false));
+            endpointSelector.recordSuccess(lease, 1000000L);
+        }
+
+        config.setCircuitBreakerOpenDuration(0);
+        EndpointSelector.Lease probe = endpointSelector.select();
+        assertThat(probe.getEndpointUri(), equalTo(failedEndpoint));
+        assertThat(probe.isProbe(), equalTo(true));
+        assertThat(endpointSelector.getEndpointStates().get(indexOf(failedEndpoint)).getCircuitState(),
+                equalTo(CircuitState.HALF_OPEN));
+        endpointSelector.recordSuccess(probe, 1000000L);
+        assertThat(endpointSelector.getEndpointStates().get(indexOf(failedEndpoint)).getCircuitState(),
+                equalTo(CircuitState.CLOSED));
+    }
+
+    /**
+     * Test that requests which were already in flight when the circuit opened
+     * neither close nor reopen the half-open circuit, and do not allow a
+     * second probe.
+     *
+     * @throws Exception In case of a problem.
+     */
+    @Test
+    public void testStaleOutcomeWhileHalfOpen() throws Exception {
+        config.setCircuitBreakerOpenDuration(60000);
+        EndpointSelector endpointSelector = new EndpointSelector(config);
+        EndpointSelector.Lease staleSuccess = endpointSelector.acquire(firstEndpoint);
+        EndpointSelector.Lease staleFailure = endpointSelector.acquire(firstEndpoint);
+        for (int i = 0; i < 2; i++) {
+            endpointSelector.recordFailure(endpointSelector.acquire(firstEndpoint));
+        }
+        assertThat(endpointSelector.getEndpointStates().get(0).getCircuitState(), equalTo(CircuitState.OPEN));
+
+        config.setCircuitBreakerOpenDuration(0);
+        EndpointSelector.Lease probe = endpointSelector.select();
+        assertThat(probe.getEndpointUri(), equalTo(firstEndpoint));
+        assertThat(probe.isProbe(), equalTo(true));
+
+        endpointSelector.recordSuccess(staleSuccess, 1000000L);
+        assertThat(endpointSelector.getEndpointStates().get(0).getCircuitState(), equalTo(CircuitState.HALF_OPEN));
+        EndpointSelector.Lease lease = endpointSelector.select();
+        assertThat(lease.getEndpointUri(), equalTo(secondEndpoint));
+        assertThat(lease.isProbe(), equalTo(false));
+        endpointSelector.recordSuccess(lease, 1000000L);
+
+        endpointSelector.recordFailure(staleFailure);
+        assertThat(endpointSelector.getEndpointStates().get(0).getCircuitState(), equalTo(CircuitState.HALF_OPEN));
+
+        endpointSelector.recordSuccess(probe, 1000000L);
+        assertThat(endpointSelector.getEndpointStates().get(0).getCircuitState(), equalTo(CircuitState.CLOSED));
+    }
+
+    /**
+     * Test that the faster endpoint gets most of the requests.
+     *
+     * @throws Exception In case of a problem.
+     */
+    @Test
+    public void testFasterEndpointIsPreferred() throws Exception {
+        EndpointSelector endpointSelector = new EndpointSelector(config);
+        int requestsToFirstEndpoint = 0;
+
+        for (int i = 0; i < 100; i++) {
+            EndpointSelector.Lease lease = endpointSelector.select();
+            if (lease.getEndpointUri().equals(firstEndpoint)) {
+                requestsToFirstEndpoint++;
+                endpointSelector.recordSuccess(lease, 5000000L);
+            } else {
+                endpointSelector.recordSuccess(lease, 500000000L);
+            }
+        }
+
+        assertThat(requestsToFirstEndpoint > 90, equalTo(true));
+    }
+
+    /**
+     * Test that requests fail if all endpoints are unavailable.
+     *
+     * @throws Exception In case of a problem.
+     */
+    @Test(expected = BeowulfCommunicationException.class)
+    public void testAllCircuitsOpen() throws Exception {
+        config.setCircuitBreakerOpenDuration(60000);
+        EndpointSelector endpointSelector = new EndpointSelector(config);
+
+        for (int i = 0; i < 4; i++) {
+            endpointSelector.recordFailure(endpointSelector.select());
+        }
+
+        endpointSelector.select();
+    }
+
+    private Pair<URI, Boolean> failUntilOpen(EndpointSelector endpointSelector) throws Exception {
+        while (true) {
+            for (EndpointState endpointState : endpointSelector.getEndpointStates()) {
+                if (endpointState.getCircuitState() == CircuitState.OPEN) {
+                    return new ImmutablePair<>(endpointState.getUri(), endpointState.isSslVerificationDisabled());
+                }
+            }
+            endpointSelector.recordFailure(endpointSelector.select());
+        }
+    }
+
+    private int indexOf(Pair<URI, Boolean> endpoint) {
+        return endpoint.equals(firstEndpoint) ? 0 : 1;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.beowulfchain.beowulfj.simulator.NodeSimulator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+public class HedgingTest {
+    private static final int SLOW_LATENCY = 1000;
+
+    private final List<URI> cancelledAttempts = new CopyOnWriteArrayList<>();
+    private NodeSimulator fastNode;
+    private NodeSimulator slowNode;
+    private CommunicationHandler communicationHandler;
+
+    @Before
+    public void startNodes() throws Exception {
+        fastNode = new NodeSimulator();
+        fastNode.setBlockInterval(0);
+        fastNode.start();
+        slowNode = new NodeSimulator();
+        slowNode.setBlockInterval(0);
+        slowNode.start();
+    }
+
+    @After
+    public void stopNodes() throws Exception {
+        if (communicationHandler != null) {
+            communicationHandler.close();
+        }
+        fastNode.close();
+        slowNode.close();
+    }
+
+    /**
+     * Test that a read request the first endpoint does not answer in time is
+     * answered by the second endpoint and the attempt at the first one is
+     * cancelled.
+     */
+    @Test
+    public void testSlowEndpointIsHedged() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(50, fastNode, slowNode));
+        collectLatencies();
+        slowNode.setLatency(SLOW_LATENCY, SLOW_LATENCY);
+
+        // The first endpoint is chosen at random, so repeat until the slow
+        // node has been asked.
+        long slowRequests = slowNode.getRequestCount();
+        for (int i = 0; i < 30 && slowNode.getRequestCount() == slowRequests; i++) {
+            long fastRequests = fastNode.getRequestCount();
+            long start = System.nanoTime();
+            getDynamicGlobalProperties();
+            long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertThat(duration, lessThan((long) SLOW_LATENCY));
+            assertThat(fastNode.getRequestCount(), equalTo(fastRequests + 1));
+        }
+        assertThat(slowNode.getRequestCount(), equalTo(slowRequests + 1));
+
+        URI slowUri = slowNode.getHttpUri();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!cancelledAttempts.contains(slowUri) && System.nanoTime() < end) {
+            Thread.sleep(10);
+        }
+        assertThat(cancelledAttempts, equalTo(Collections.singletonList(slowUri)));
+        for (EndpointState endpointState : communicationHandler.getEndpointStates()) {
+            assertThat(endpointState.getInFlightRequests(), equalTo(0));
+        }
+    }
+
+    /**
+     * Test that requests which change the chain are never sent twice.
+     */
+    @Test
+    public void testBroadcastIsNotHedged() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(50, fastNode, slowNode));
+        collectLatencies();
+        fastNode.setLatency(300, 300);
+        slowNode.setLatency(300, 300);
+
+        long requests = fastNode.getRequestCount() + slowNode.getRequestCount();
+        try {
+            communicationHandler.performRequest(new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                    RequestMethod.BROADCAST_TRANSACTION, Collections.emptyList()), Object.class);
+            fail("The simulator should have rejected the missing transaction.");
+        } catch (BeowulfResponseException e) {
+            // Expected.
+        }
+
+        assertThat(fastNode.getRequestCount() + slowNode.getRequestCount(), equalTo(requests + 1));
+    }
+
+    /**
+     * Test that nothing is hedged if there is only one endpoint.
+     */
+    @Test
+    public void testSingleEndpointIsNotHedged() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(50, slowNode));
+        collectLatencies();
+        slowNode.setLatency(300, 300);
+
+        long requests = slowNode.getRequestCount();
+        getDynamicGlobalProperties();
+
+        assertThat(slowNode.getRequestCount(), equalTo(requests + 1));
+    }
+
+    /**
+     * Test that nothing is hedged if no percentile is configured.
+     */
+    @Test
+    public void testHedgingIsOptional() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(0, fastNode, slowNode));
+        collectLatencies();
+        fastNode.setLatency(300, 300);
+        slowNode.setLatency(300, 300);
+
+        long requests = fastNode.getRequestCount() + slowNode.getRequestCount();
+        getDynamicGlobalProperties();
+
+        assertThat(fastNode.getRequestCount() + slowNode.getRequestCount(), equalTo(requests + 1));
+        assertThat(cancelledAttempts.size(), equalTo(0));
+    }
+
+    /**
+     * Send enough requests to let the client calculate the hedging delay.
+     */
+    private void collectLatencies() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            getDynamicGlobalProperties();
+        }
+        assertThat(fastNode.getRequestCount() + slowNode.getRequestCount(), greaterThan(0L));
+    }
+
+    private void getDynamicGlobalProperties() throws Exception {
+        communicationHandler.performRequest(new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, Collections.emptyList()), JsonNode.class);
+    }
+
+    private BeowulfJConfig createConfig(double hedgingPercentile, NodeSimulator... nodes) {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        List<Pair<URI, Boolean>> endpoints = new ArrayList<>();
+        for (NodeSimulator node : nodes) {
+            endpoints.add(new ImmutablePair<>(node.getHttpUri(), false));
+        }
+        config.setEndpointURIs(endpoints);
+        config.setHedgingPercentile(hedgingPercentile);
+        config.setMinimumHedgingDelay(50);
+        config.setMetricsRecorder(new MetricsRecorder() {
+            @Override
+            public void onAttemptCompleted(RequestMethod requestMethod, URI endpoint, long latency,
+                                           Throwable failure) {
+                if (failure instanceof CancellationException) {
+                    cancelledAttempts.add(endpoint);
+                }
+            }
+        });
+        return config;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCBatch;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.simulator.NodeSimulator;
+import com.beowulfchain.beowulfj.util.MultiReleaseClassLoader;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assume.assumeThat;
+
+public class Http2ClientTest {
+    private NodeSimulator simulator;
+
+    @Before
+    public void startNode() throws Exception {
+        simulator = new NodeSimulator();
+        simulator.setBlockInterval(0);
+        simulator.start();
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        simulator.close();
+    }
+
+    /**
+     * Test that the Java 8 version always uses the pooling client.
+     */
+    @Test
+    public void testJava8UsesHttpClient() {
+        assertThat(HttpClientProvider.createClient(simulator.getHttpsUri(), createConfig(simulator.getHttpsUri())),
+                instanceOf(HttpClient.class));
+    }
+
+    /**
+     * Test that the Java 11 version uses the HTTP/2 client for HTTPS
+     * endpoints only, and only if it is enabled.
+     */
+    @Test
+    public void testJava11UsesHttp2ClientForHttps() throws Exception {
+        List<String> clientTypes = callInJava11(ClientTypes.class, simulator.getHttpsUri());
+
+        assertThat(clientTypes, equalTo(Arrays.asList("Http2Client", "HttpClient", "HttpClient")));
+    }
+
+    /**
+     * Test that single and batch requests are answered via the HTTP/2 client.
+     */
+    @Test
+    public void testRequestsOverHttps() throws Exception {
+        long requests = simulator.getRequestCount();
+
+        List<String> results = callInJava11(HttpsRequests.class, simulator.getHttpsUri());
+
+        assertThat(results, equalTo(Arrays.asList("true", "true", "false")));
+        assertThat(simulator.getRequestCount(), equalTo(requests + 2));
+    }
+
+    /**
+     * Run the given scenario with the Java 11 versions of the classes.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String> callInJava11(Class<? extends Callable<List<String>>> scenario, URI endpointUri)
+            throws Exception {
+        ClassLoader loader = MultiReleaseClassLoader.create();
+        assumeThat(loader, notNullValue());
+        Callable<List<String>> callable = (Callable<List<String>>) loader.loadClass(scenario.getName())
+                .getConstructor(URI.class).newInstance(endpointUri);
+
+        // Libraries looking up services by the context loader have to see
+        // the classes of the same loader.
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            return callable.call();
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextLoader);
+        }
+    }
+
+    private static BeowulfJConfig createConfig(URI endpointUri) {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(endpointUri, true)));
+        return config;
+    }
+
+    /**
+     * Returns the types of the clients created for the HTTPS endpoint, for a
+     * plain HTTP endpoint and for the HTTPS endpoint with HTTP/2 disabled.
+     */
+    public static class ClientTypes implements Callable<List<String>> {
+        private final URI endpointUri;
+
+        public ClientTypes(URI endpointUri) {
+            this.endpointUri = endpointUri;
+        }
+
+        @Override
+        public List<String> call() {
+            BeowulfJConfig config = createConfig(endpointUri);
+            List<String> clientTypes = new ArrayList<>();
+            clientTypes.add(HttpClientProvider.createClient(endpointUri, config).getClass().getSimpleName());
+            clientTypes.add(HttpClientProvider.createClient(URI.create("http://127.0.0.1/"), config).getClass()
+                    .getSimpleName());
+            config.setHttp2Enabled(false);
+            clientTypes.add(HttpClientProvider.createClient(endpointUri, config).getClass().getSimpleName());
+            return clientTypes;
+        }
+    }
+
+    /**
+     * Sends a single request and a batch to the HTTPS endpoint. Returns
+     * whether the single request has been answered, whether all entries of
+     * the batch have been answered and whether one of them failed.
+     */
+    public static class HttpsRequests implements Callable<List<String>> {
+        private final URI endpointUri;
+
+        public HttpsRequests(URI endpointUri) {
+            this.endpointUri = endpointUri;
+        }
+
+        @Override
+        public List<String> call() throws Exception {
+            CommunicationHandler communicationHandler = new CommunicationHandler(createConfig(endpointUri));
+            try {
+                List<String> results = new ArrayList<>();
+                List<JsonNode> config = communicationHandler.performRequest(new JsonRPCRequest(
+                        BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), JsonNode.class);
+                results.add(String.valueOf(config.size() == 1 && config.get(0).size() > 0));
+
+                JsonRPCBatch batch = new JsonRPCBatch();
+                JsonRPCBatch.Entry<JsonNode> first = batch.add(new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                        RequestMethod.GET_CONFIG, null), JsonNode.class);
+                JsonRPCBatch.Entry<JsonNode> second = batch.add(new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                        RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, null), JsonNode.class);
+                communicationHandler.performBatchRequest(batch);
+                results.add(String.valueOf(first.isDone() && second.isDone()));
+                results.add(String.valueOf(first.isError() || second.isError()));
+                return results;
+            } finally {
+                communicationHandler.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class HttpClientTest {
+    private ServerSocket serverSocket;
+    private HttpClient httpClient;
+
+    /**
+     * Start a node which accepts connections but never answers.
+     */
+    @Before
+    public void startNode() throws Exception {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        serverSocket.setSoTimeout(5000);
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setResponseTimeout(0);
+        httpClient = new HttpClient(config);
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        httpClient.closeConnection();
+        serverSocket.close();
+    }
+
+    /**
+     * Test that cancelling an asynchronous request closes its connection
+     * while the request is waiting for the answer.
+     */
+    @Test
+    public void testCancellationClosesConnection() throws Exception {
+        URI endpointUri = URI.create("http://127.0.0.1:" + serverSocket.getLocalPort() + "/rpc");
+        CompletableFuture<JsonRPCResponse> response = httpClient.invokeAndReadResponseAsync(
+                new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), endpointUri, false);
+
+        try (Socket connection = serverSocket.accept()) {
+            connection.setSoTimeout(5000);
+            InputStream inputStream = connection.getInputStream();
+            // Wait until the request has been sent completely.
+            assertThat(inputStream.read() >= 0, equalTo(true));
+            Thread.sleep(200);
+
+            response.cancel(true);
+
+            assertThat(readUntilClosed(inputStream), equalTo(true));
+        }
+    }
+
+    /**
+     * Read from the given stream until the other side closes the connection.
+     *
+     * @param inputStream The stream to read.
+     * @return <code>true</code> if the connection has been closed.
+     */
+    private static boolean readUntilClosed(InputStream inputStream) {
+        byte[] buffer = new byte[1024];
+        try {
+            while (inputStream.read(buffer) >= 0) {
+                // Skip the rest of the request.
+            }
+            return true;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } catch (IOException e) {
+            // The connection has been reset.
+            return true;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+
+public class InMemoryMetricsRecorderTest {
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+    private static final URI ENDPOINT = URI.create("https://node.example.com");
+
+    private HttpServer server;
+    private CommunicationHandler communicationHandler;
+
+    @Before
+    public void startNode() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            Matcher matcher = ID_PATTERN.matcher(read(exchange.getRequestBody()));
+            matcher.find();
+            byte[] response = ("{\"jsonrpc\":\"2.0\",\"result\":{\"IS_TEST_NET\":true},\"id\":" + matcher.group(1)
+                    + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.setExecutor(null);
+        server.start();
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        if (communicationHandler != null) {
+            communicationHandler.close();
+        }
+        server.stop(0);
+    }
+
+    /**
+     * Test that the percentiles are close to the recorded latencies.
+     */
+    @Test
+    public void testLatencyPercentiles() {
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+        for (int i = 1; i <= 100; i++) {
+            recorder.onAttemptStarted(RequestMethod.GET_BLOCK, ENDPOINT);
+            recorder.onAttemptCompleted(RequestMethod.GET_BLOCK, ENDPOINT, TimeUnit.MILLISECONDS.toNanos(i), null);
+        }
+        recorder.onAttemptStarted(RequestMethod.GET_BLOCK, ENDPOINT);
+        recorder.onAttemptCompleted(RequestMethod.GET_BLOCK, ENDPOINT, 0, new BeowulfTimeoutException("Timeout."));
+        recorder.onAttemptStarted(RequestMethod.GET_BLOCK, ENDPOINT);
+
+        List<RequestStatistics> statistics = recorder.getRequestStatistics();
+        assertThat(statistics, hasSize(1));
+        RequestStatistics blockStatistics = statistics.get(0);
+        assertThat(blockStatistics.getSuccessCount(), equalTo(100L));
+        assertThat(blockStatistics.getTimeoutCount(), equalTo(1L));
+        assertThat(blockStatistics.getInFlightRequests(), equalTo(1L));
+        assertThat(blockStatistics.getMeanLatency(), closeTo(50.5, 0.1));
+        assertThat(blockStatistics.getMedianLatency(), closeTo(50, 50 * 0.125));
+        assertThat(blockStatistics.getP99Latency(), closeTo(99, 99 * 0.125));
+        assertThat(blockStatistics.getMaxLatency(), closeTo(100, 0.001));
+    }
+
+    /**
+     * Test that requests sent by the communication handler are recorded.
+     */
+    @Test
+    public void testRequestsAreRecorded() throws Exception {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        URI endpoint = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/rpc");
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(endpoint, false)));
+        InMemoryMetricsRecorder recorder = (InMemoryMetricsRecorder) config.getMetricsRecorder();
+        communicationHandler = new CommunicationHandler(config);
+
+        for (int i = 0; i < 3; i++) {
+            communicationHandler.performRequest(
+                    new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class);
+        }
+
+        RequestStatistics statistics = recorder.getRequestStatistics().get(0);
+        assertThat(statistics.getRequestMethod(), equalTo(RequestMethod.GET_CONFIG));
+        assertThat(statistics.getEndpoint(), equalTo(endpoint.toString()));
+        assertThat(statistics.getSuccessCount(), equalTo(3L));
+        assertThat(recorder.getInFlightRequests(), equalTo(0L));
+        assertThat(recorder.getDeserializationCount(), equalTo(3L));
+        assertThat(recorder.getBytesSent(), greaterThan(0L));
+        assertThat(recorder.getBytesReceived(), greaterThan(0L));
+    }
+
+    /**
+     * Test that the numbers can be read via JMX.
+     */
+    @Test
+    public void testJmxExport() throws Exception {
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+        recorder.onRetry(RequestMethod.GET_BLOCK, ENDPOINT);
+        recorder.onAttemptStarted(RequestMethod.GET_BLOCK, ENDPOINT);
+        recorder.onAttemptCompleted(RequestMethod.GET_BLOCK, ENDPOINT, TimeUnit.MILLISECONDS.toNanos(5), null);
+
+        ObjectName objectName = JmxMetricsExporter.register(recorder, "test");
+        try {
+            assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "RetryCount"),
+                    equalTo(1L));
+            CompositeData[] statistics = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(objectName, "RequestStatistics");
+            assertThat(statistics.length, equalTo(1));
+            assertThat(statistics[0].get("requestMethod"), equalTo("GET_BLOCK"));
+            assertThat(statistics[0].get("successCount"), equalTo(1L));
+        } finally {
+            JmxMetricsExporter.unregister(objectName);
+        }
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            content.write(buffer, 0, read);
+        }
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescingTest {
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+
+    private final AtomicInteger configRequests = new AtomicInteger();
+    private HttpServer server;
+    private CommunicationHandler communicationHandler;
+
+    /**
+     * Start a node which answers every request after 200 ms.
+     */
+    @Before
+    public void startNode() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String body = read(exchange.getRequestBody());
+            if (body.contains("get_config")) {
+                configRequests.incrementAndGet();
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Matcher matcher = ID_PATTERN.matcher(body);
+            matcher.find();
+            byte[] response = ("{\"jsonrpc\":\"2.0\",\"result\":{\"IS_TEST_NET\":true},\"id\":" + matcher.group(1)
+                    + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.setExecutor(null);
+        server.start();
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        if (communicationHandler != null) {
+            communicationHandler.close();
+        }
+        server.stop(0);
+    }
+
+    /**
+     * Test that identical requests sent at the same time share one call to
+     * the node and its result.
+     */
+    @Test
+    public void testIdenticalRequestsShareOneCall() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(true));
+
+        List<CompletableFuture<List<Map>>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(communicationHandler.performRequestAsync(
+                    new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class));
+        }
+
+        List<Map> firstResult = CommunicationHandler.await(results.get(0));
+        for (CompletableFuture<List<Map>> result : results) {
+            assertThat(CommunicationHandler.await(result), sameInstance(firstResult));
+        }
+        assertThat(configRequests.get(), equalTo(1));
+        assertThat(communicationHandler.getCoalescedRequestCount(), equalTo(4L));
+
+        try {
+            firstResult.clear();
+            fail("A shared result must not be modifiable.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that a caller can not change the result later callers receive from
+     * the cache.
+     */
+    @Test
+    public void testCachedResultIsUnmodifiable() throws Exception {
+        BeowulfJConfig config = createConfig(false);
+        config.setResponseCache(new TinyLfuResponseCache(16));
+        communicationHandler = new CommunicationHandler(config);
+
+        List<Map> firstResult = communicationHandler.performRequest(
+                new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class);
+        try {
+            firstResult.clear();
+            fail("A cached result must not be modifiable.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        List<Map> cachedResult = communicationHandler.performRequest(
+                new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class);
+        assertThat(cachedResult.size(), equalTo(1));
+        assertThat(configRequests.get(), equalTo(1));
+    }
+
+    /**
+     * Test that the remaining waiters still receive the result if one of them
+     * gives up.
+     */
+    @Test
+    public void testCancelledWaiterDoesNotCancelTheCall() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(true));
+
+        CompletableFuture<List<Map>> first = communicationHandler.performRequestAsync(
+                new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class);
+        CompletableFuture<List<Map>> second = communicationHandler.performRequestAsync(
+                new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class);
+        first.cancel(true);
+
+        assertThat(CommunicationHandler.await(second).get(0).get("IS_TEST_NET"), equalTo(true));
+        assertThat(configRequests.get(), equalTo(1));
+    }
+
+    /**
+     * Test that requests are sent separately if coalescing is disabled.
+     */
+    @Test
+    public void testCoalescingIsOptional() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(false));
+
+        List<CompletableFuture<List<Map>>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(communicationHandler.performRequestAsync(
+                    new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class));
+        }
+        for (CompletableFuture<List<Map>> result : results) {
+            CommunicationHandler.await(result);
+        }
+
+        assertThat(configRequests.get(), equalTo(3));
+        assertThat(communicationHandler.getCoalescedRequestCount(), equalTo(0L));
+    }
+
+    private BeowulfJConfig createConfig(boolean requestCoalescingEnabled) {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/rpc"), false)));
+        config.setRequestCoalescingEnabled(requestCoalescingEnabled);
+        return config;
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            content.write(buffer, 0, read);
+        }
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.BeowulfJ;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+public class RequestDeadlineTest {
+    /**
+     * Test that methods use their own timeout and batches wait as long as
+     * their slowest method allows.
+     */
+    @Test
+    public void testResponseTimeoutPerMethod() {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setResponseTimeout(1000);
+        config.setResponseTimeout(RequestMethod.GET_BLOCK, 8000);
+        JsonRPCRequest getConfig = new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null);
+        JsonRPCRequest getBlock = new JsonRPCRequest(BeowulfApiType.BLOCK_API, RequestMethod.GET_BLOCK, null);
+
+        assertThat(config.getResponseTimeout(RequestMethod.GET_CONFIG), equalTo(1000));
+        assertThat(CommunicationHandler.getResponseTimeout(config, Collections.singletonList(getConfig)),
+                equalTo(1000));
+        assertThat(CommunicationHandler.getResponseTimeout(config, Arrays.asList(getConfig, getBlock)),
+                equalTo(8000));
+
+        config.setResponseTimeout(RequestMethod.GET_BLOCK, 0);
+        assertThat(CommunicationHandler.getResponseTimeout(config, Arrays.asList(getConfig, getBlock)), equalTo(0));
+
+        config.resetResponseTimeout(RequestMethod.GET_BLOCK);
+        assertThat(config.getResponseTimeout(RequestMethod.GET_BLOCK), equalTo(1000));
+    }
+
+    /**
+     * Test that requests take the deadline of their scope, nested scopes can
+     * only shorten it and the timeout never exceeds the remaining time.
+     */
+    @Test
+    public void testDeadlineScopes() {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+
+        try (RequestDeadlineScope outer = RequestDeadlineScope.enter(500, TimeUnit.MILLISECONDS)) {
+            Long outerDeadline = RequestDeadlineScope.current();
+            try (RequestDeadlineScope inner = RequestDeadlineScope.enter(10, TimeUnit.SECONDS)) {
+                assertThat(RequestDeadlineScope.current(), equalTo(outerDeadline));
+            }
+
+            JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                    RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, null);
+            assertThat(requestObject.getDeadline(), equalTo(outerDeadline));
+            int responseTimeout = CommunicationHandler.getResponseTimeout(config,
+                    Collections.singletonList(requestObject));
+            assertThat(responseTimeout, greaterThan(0));
+            assertThat(responseTimeout, lessThanOrEqualTo(500));
+        }
+
+        assertThat(RequestDeadlineScope.current(), nullValue());
+        assertThat(new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null).getDeadline(),
+                nullValue());
+    }
+
+    /**
+     * Test that a call to a node which never answers fails once its deadline
+     * has passed, even though the response timeout is much longer.
+     */
+    @Test
+    public void testDeadlineLimitsTheCall() throws Exception {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setResponseTimeout(RequestMethod.GET_DYNAMIC_GLOBAL_PROPERTIES, 10000);
+
+        try (ServerSocket silentNode = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            BeowulfJ beowulfJ = BeowulfJ.builder().withConfig(config)
+                    .withEndpoint(URI.create("http://127.0.0.1:" + silentNode.getLocalPort())).build();
+            long startTime = System.nanoTime();
+            try (RequestDeadlineScope scope = RequestDeadlineScope.enter(300, TimeUnit.MILLISECONDS)) {
+                beowulfJ.getDynamicGlobalProperties();
+                fail("The node never answers.");
+            } catch (BeowulfTimeoutException e) {
+                assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), lessThan(3000L));
+            } finally {
+                beowulfJ.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.simulator.NodeSimulator;
+import com.beowulfchain.beowulfj.util.FlightRecording;
+import com.beowulfchain.beowulfj.util.MultiReleaseClassLoader;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assume.assumeThat;
+
+public class RpcCallEventTest {
+    private static final String RPC_CALL_EVENT = "com.beowulfchain.beowulfj.RpcCall";
+
+    private NodeSimulator simulator;
+
+    @Before
+    public void startNode() throws Exception {
+        simulator = new NodeSimulator();
+        simulator.setBlockInterval(0);
+        simulator.setLatency(200, 200);
+        simulator.start();
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        simulator.close();
+    }
+
+    /**
+     * Test that the RPC call event reports the endpoint that answered and the
+     * size of the answer, also for a caller that waited for an identical
+     * request.
+     */
+    @Test
+    public void testEventReportsEndpointAndSize() throws Exception {
+        ClassLoader loader = MultiReleaseClassLoader.create();
+        assumeThat(loader, notNullValue());
+        Callable<?> coalescedCalls = (Callable<?>) loader.loadClass(CoalescedCalls.class.getName())
+                .getConstructor(URI.class).newInstance(simulator.getHttpUri());
+
+        FlightRecording recording = FlightRecording.start(RPC_CALL_EVENT);
+        // Libraries looking up services by the context loader have to see
+        // the classes of the same loader.
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            coalescedCalls.call();
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextLoader);
+        }
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (Map<String, Object> event : recording.stop()) {
+            if (RPC_CALL_EVENT.equals(event.get("name"))) {
+                events.add(event);
+            }
+        }
+
+        assertThat(events, hasSize(2));
+        assertThat(simulator.getRequestCount(), equalTo(1L));
+        for (Map<String, Object> event : events) {
+            assertThat(event.get("method"), equalTo("database_api.get_config"));
+            assertThat(event.get("endpoint"), equalTo(simulator.getHttpUri().toString()));
+            assertThat((Long) event.get("payloadSize"), greaterThan(0L));
+            assertThat(event.get("outcome"), equalTo("SUCCESS"));
+        }
+    }
+
+    /**
+     * Sends two identical requests at the same time, so the second one waits
+     * for the first. Runs in a {@link MultiReleaseClassLoader}, so the Java 11
+     * events are created.
+     */
+    public static class CoalescedCalls implements Callable<Void> {
+        private final URI endpointUri;
+
+        public CoalescedCalls(URI endpointUri) {
+            this.endpointUri = endpointUri;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            System.clearProperty("beowulfj.default.account");
+            BeowulfJConfig config = BeowulfJConfig.createInstance();
+            config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(endpointUri, false)));
+            config.setRequestCoalescingEnabled(true);
+            CommunicationHandler communicationHandler = new CommunicationHandler(config);
+            try {
+                List<CompletableFuture<List<Map>>> results = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    results.add(communicationHandler.performRequestAsync(new JsonRPCRequest(
+                            BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), Map.class));
+                }
+                for (CompletableFuture<List<Map>> result : results) {
+                    CommunicationHandler.await(result);
+                }
+            } finally {
+                communicationHandler.close();
+            }
+            return null;
+        }
+    }
+}
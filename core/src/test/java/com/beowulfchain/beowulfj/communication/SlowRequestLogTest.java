@@ -0,0 +1,133 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+
+public class SlowRequestLogTest {
+    private HttpServer server;
+    private HttpClient client;
+
+    /**
+     * Start a node which takes 50 ms to answer.
+     */
+    @Before
+    public void startNode() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = "{\"jsonrpc\":\"2.0\",\"result\":true,\"id\":1}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.setExecutor(null);
+        server.start();
+
+        System.clearProperty("beowulfj.default.account");
+        client = new HttpClient(BeowulfJConfig.createInstance());
+    }
+
+    @After
+    public void stopNode() {
+        client.closeConnection();
+        server.stop(0);
+    }
+
+    /**
+     * Test that the client hands the phases it measured over with the
+     * answer and that the time the node needs counts as wire time.
+     */
+    @Test
+    public void testClientRecordsPhases() throws Exception {
+        JsonRPCRequest request = new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null);
+
+        JsonRPCResponse response = client.invokeAndReadResponse(request,
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/rpc"), false);
+
+        RequestTimings timings = response.getTimings();
+        assertThat(timings.getDuration(RequestTimings.Phase.SERIALIZATION), greaterThanOrEqualTo(0L));
+        assertThat(timings.getDuration(RequestTimings.Phase.CONNECT), greaterThanOrEqualTo(0L));
+        assertThat(timings.getDuration(RequestTimings.Phase.WIRE),
+                greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50)));
+        assertThat(timings.getDuration(RequestTimings.Phase.BINDING), equalTo(-1L));
+    }
+
+    /**
+     * Test that only one line is written per interval and that the lines
+     * left out are counted.
+     */
+    @Test
+    public void testLogIsRateLimited() {
+        long interval = TimeUnit.SECONDS.toNanos(1);
+        SlowRequestLog slowRequestLog = new SlowRequestLog(interval);
+        long now = System.nanoTime();
+
+        assertThat(slowRequestLog.tryAcquire(now), equalTo(true));
+        assertThat(slowRequestLog.tryAcquire(now + 1), equalTo(false));
+        assertThat(slowRequestLog.tryAcquire(now + interval - 1), equalTo(false));
+        assertThat(slowRequestLog.tryAcquire(now + interval), equalTo(true));
+    }
+
+    /**
+     * Test that the line contains the recorded phases and the time they do
+     * not explain.
+     */
+    @Test
+    public void testFormat() {
+        RequestTimings timings = new RequestTimings();
+        timings.record(RequestTimings.Phase.QUEUE, TimeUnit.MILLISECONDS.toNanos(2));
+        timings.record(RequestTimings.Phase.WIRE, TimeUnit.MILLISECONDS.toNanos(500));
+        timings.record(RequestTimings.Phase.BINDING, 1_500_000);
+
+        String line = SlowRequestLog.format("get_block", 1, URI.create("https://node.example"),
+                TimeUnit.MILLISECONDS.toNanos(800), 2, new BeowulfTimeoutException("Timeout"), timings, 3);
+
+        assertThat(line, equalTo("Slow request: method=get_block requests=1 endpoint=https://node.example "
+                + "total=800.0ms attempts=2 outcome=BeowulfTimeoutException queue=2.0ms wire=500.0ms "
+                + "binding=1.5ms other=296.5ms suppressed=3"));
+        assertThat(line, not(containsString("connect=")));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TinyLfuResponseCacheTest {
+    /**
+     * Test that the cache never exceeds its size and values expire.
+     */
+    @Test
+    public void testSizeAndExpiration() throws Exception {
+        TinyLfuResponseCache cache = new TinyLfuResponseCache(10);
+        for (int i = 0; i < 100; i++) {
+            cache.put("block-" + i, i, CachePolicy.FOREVER);
+        }
+        assertThat(cache.size(), lessThanOrEqualTo(10));
+
+        cache.put("properties", "value", 50);
+        assertThat(cache.get("properties"), equalTo("value"));
+        Thread.sleep(100);
+        assertThat(cache.get("properties"), nullValue());
+
+        cache.put("ignored", "value", CachePolicy.NOT_CACHED);
+        assertThat(cache.get("ignored"), nullValue());
+    }
+
+    /**
+     * Test that frequently used entries survive a scan over many entries
+     * which are only used once.
+     */
+    @Test
+    public void testFrequentEntriesSurviveScans() {
+        TinyLfuResponseCache cache = new TinyLfuResponseCache(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put("config-" + i, i, CachePolicy.FOREVER);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("config-" + i);
+            }
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            cache.put("block-" + i, i, CachePolicy.FOREVER);
+            // The popular entries keep being used during the scan.
+            cache.get("config-" + (i % 50));
+        }
+
+        int survivors = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("config-" + i) != null) {
+                survivors++;
+            }
+        }
+        assertThat(survivors, equalTo(50));
+    }
+}
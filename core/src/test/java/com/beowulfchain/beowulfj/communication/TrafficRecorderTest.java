@@ -0,0 +1,215 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.fail;
+
+public class TrafficRecorderTest {
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger accountCountRequests = new AtomicInteger();
+    private HttpServer server;
+    private Path file;
+
+    /**
+     * Start a node which answers <code>get_account_count</code> with the
+     * number of calls so far after 50 ms and drops the connection for every
+     * other method.
+     */
+    @Before
+    public void startNode() throws Exception {
+        file = folder.getRoot().toPath().resolve("traffic.bin");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String body = read(exchange.getRequestBody());
+            if (!body.contains("get_account_count")) {
+                exchange.close();
+                return;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Matcher matcher = ID_PATTERN.matcher(body);
+            matcher.find();
+            byte[] response = ("{\"jsonrpc\":\"2.0\",\"result\":" + accountCountRequests.incrementAndGet()
+                    + ",\"id\":" + matcher.group(1) + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopNode() {
+        server.stop(0);
+    }
+
+    /**
+     * Test that recorded responses are replayed in the recorded order without
+     * the node.
+     */
+    @Test
+    public void testReplayServesRecordedResponses() throws Exception {
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            CommunicationHandler communicationHandler = new CommunicationHandler(createConfig(recorder));
+            for (int i = 1; i <= 3; i++) {
+                assertThat(getAccountCount(communicationHandler), equalTo(i));
+            }
+            communicationHandler.close();
+            assertThat(recorder.getRecordCount(), equalTo(3L));
+        }
+        server.stop(0);
+
+        CommunicationHandler communicationHandler = new CommunicationHandler(
+                createConfig(new TrafficReplayer(file, Double.POSITIVE_INFINITY)));
+        for (int i = 1; i <= 3; i++) {
+            assertThat(getAccountCount(communicationHandler), equalTo(i));
+        }
+        // Identical requests start over once all recorded answers were served.
+        assertThat(getAccountCount(communicationHandler), equalTo(1));
+        communicationHandler.close();
+    }
+
+    /**
+     * Test that recorded failures are thrown again and requests that have not
+     * been recorded fail.
+     */
+    @Test
+    public void testReplayFailures() throws Exception {
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            CommunicationHandler communicationHandler = new CommunicationHandler(createConfig(recorder));
+            try {
+                getConfig(communicationHandler);
+                fail("The node should have dropped the connection.");
+            } catch (BeowulfCommunicationException e) {
+                // Expected.
+            }
+            communicationHandler.close();
+        }
+
+        CommunicationHandler communicationHandler = new CommunicationHandler(
+                createConfig(new TrafficReplayer(file, Double.POSITIVE_INFINITY)));
+        try {
+            getConfig(communicationHandler);
+            fail("The recorded failure should have been thrown.");
+        } catch (BeowulfCommunicationException e) {
+            // Expected.
+        }
+        try {
+            getAccountCount(communicationHandler);
+            fail("The request has not been recorded.");
+        } catch (BeowulfCommunicationException e) {
+            assertThat(e.getMessage(), containsString("No recorded response"));
+        }
+        communicationHandler.close();
+    }
+
+    /**
+     * Test that sessions are appended to an existing file and keep their
+     * timing.
+     */
+    @Test
+    public void testSessionsAreAppended() throws Exception {
+        for (int session = 0; session < 2; session++) {
+            try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+                CommunicationHandler communicationHandler = new CommunicationHandler(createConfig(recorder));
+                getAccountCount(communicationHandler);
+                communicationHandler.close();
+            }
+        }
+
+        List<TrafficRecord> records = TrafficRecord.readAll(file);
+        assertThat(records, hasSize(2));
+        for (TrafficRecord record : records) {
+            assertThat(record.getOutcome(), equalTo(TrafficRecord.Outcome.RESPONSE));
+            assertThat(record.getDuration(), greaterThanOrEqualTo(50000000L));
+            assertThat(record.getRequest(), containsString("get_account_count"));
+        }
+        assertThat(records.get(1).getStartTime(), greaterThanOrEqualTo(records.get(0).getStartTime()));
+    }
+
+    private static int getAccountCount(CommunicationHandler communicationHandler) throws Exception {
+        return communicationHandler.performRequest(new JsonRPCRequest(BeowulfApiType.CONDENSER_API,
+                RequestMethod.GET_ACCOUNT_COUNT, null), Integer.class).get(0);
+    }
+
+    private static void getConfig(CommunicationHandler communicationHandler) throws Exception {
+        communicationHandler.performRequest(new JsonRPCRequest(BeowulfApiType.DATABASE_API,
+                RequestMethod.GET_CONFIG, null), Object.class);
+    }
+
+    private BeowulfJConfig createConfig(ClientDecorator clientDecorator) {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/rpc"), false)));
+        config.setRetryPolicy(new DefaultRetryPolicy(1, 0, 0, 1, 1));
+        config.setClientDecorator(clientDecorator);
+        return config;
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            content.write(buffer, 0, read);
+        }
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCResponse;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfConnectionException;
+import com.beowulfchain.beowulfj.exceptions.BeowulfTimeoutException;
+import com.beowulfchain.beowulfj.simulator.NodeSimulator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
+
+public class WebsocketClientTest {
+    private NodeSimulator simulator;
+    private WebsocketClient websocketClient;
+    private WebsocketSessionPool pool;
+    private BeowulfJConfig config;
+    private URI endpointUri;
+
+    @Before
+    public void startNode() throws Exception {
+        simulator = new NodeSimulator();
+        simulator.setBlockInterval(0);
+        simulator.start();
+        endpointUri = simulator.getWebsocketUri();
+
+        System.clearProperty("beowulfj.default.account");
+        config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(endpointUri, false)));
+        config.setWebsocketSessionsPerEndpoint(1);
+        websocketClient = new WebsocketClient(config);
+        pool = WebsocketSessionPool.acquire(endpointUri, false, config);
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        websocketClient.closeConnection();
+        pool.release();
+        simulator.close();
+    }
+
+    /**
+     * Test that concurrent requests sent over one session are answered in a
+     * different order and still get their own response.
+     */
+    @Test
+    public void testConcurrentRequestsAreCorrelatedById() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            names.add("account-" + i);
+            simulator.createAccount(names.get(i));
+        }
+        simulator.setSeed(1);
+        simulator.setLatency(0, 300);
+
+        List<CompletableFuture<JsonRPCResponse>> responses = new ArrayList<>();
+        List<String> answerOrder = new CopyOnWriteArrayList<>();
+        for (String name : names) {
+            CompletableFuture<JsonRPCResponse> response = websocketClient.invokeAndReadResponseAsync(
+                    new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_ACCOUNTS,
+                            Collections.singletonList(Collections.singletonList(name))), endpointUri, false);
+            response.thenRun(() -> answerOrder.add(name));
+            responses.add(response);
+        }
+
+        for (int i = 0; i < names.size(); i++) {
+            JsonNode accounts = responses.get(i).get(5, TimeUnit.SECONDS).getRawJsonResponse()
+                    .path(JsonRPCResponse.RESULT_FIELD_NAME);
+            assertThat(accounts.size(), equalTo(1));
+            assertThat(accounts.get(0).path("name").asText(), equalTo(names.get(i)));
+        }
+        assertThat(answerOrder, not(equalTo(names)));
+        awaitInFlightRequests(0);
+    }
+
+    /**
+     * Test that cancelling a request the node does not answer frees its slot
+     * on the session.
+     */
+    @Test
+    public void testCancelledRequestFreesItsSlot() throws Exception {
+        simulator.setLatency(60000, 60000);
+
+        CompletableFuture<?> response = websocketClient.invokeAndReadResponseAsync(
+                new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), endpointUri, false);
+        awaitInFlightRequests(1);
+        response.cancel(true);
+
+        awaitInFlightRequests(0);
+    }
+
+    /**
+     * Test that a request the node does not answer in time frees its slot on
+     * the session.
+     */
+    @Test
+    public void testTimedOutRequestFreesItsSlot() throws Exception {
+        simulator.setLatency(60000, 60000);
+        config.setResponseTimeout(200);
+
+        try {
+            websocketClient.invokeAndReadResponse(
+                    new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG, null), endpointUri,
+                    false);
+            fail("The request should have timed out.");
+        } catch (BeowulfTimeoutException e) {
+            // Expected.
+        }
+
+        awaitInFlightRequests(0);
+    }
+
+    /**
+     * Test that a request which could not be written because the session is
+     * gone fails with an exception that allows to retry it on another
+     * session.
+     */
+    @Test
+    public void testRequestOnClosedSessionIsNotSent() throws Exception {
+        PooledWebsocketSession session = new PooledWebsocketSession(pool);
+
+        try {
+            session.send(new JsonRPCRequest(BeowulfApiType.CONDENSER_API, RequestMethod.BROADCAST_TRANSACTION,
+                    Collections.emptyList())).get();
+            fail("The request should have failed.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(BeowulfConnectionException.class));
+        }
+        assertThat(session.getInFlightRequests(), equalTo(0));
+    }
+
+    private void awaitInFlightRequests(int expected) throws InterruptedException {
+        PooledWebsocketSession session = pool.getSessions().get(0);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (session.getInFlightRequests() != expected && System.nanoTime() < end) {
+            Thread.sleep(10);
+        }
+        assertThat(session.getInFlightRequests(), equalTo(expected));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication;
+
+import com.beowulfchain.beowulfj.communication.jrpc.JsonRPCRequest;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.BeowulfApiType;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.exceptions.BeowulfCommunicationException;
+import com.beowulfchain.beowulfj.simulator.NodeSimulator;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.fail;
+
+public class WebsocketSessionPoolTest {
+    private static final int SESSIONS = 3;
+
+    private NodeSimulator simulator;
+    private WebsocketSessionPool pool;
+
+    /**
+     * Start a node and create a pool with a short heartbeat for it.
+     */
+    @Before
+    public void startNode() throws Exception {
+        simulator = new NodeSimulator();
+        simulator.setBlockInterval(0);
+        simulator.start();
+
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(simulator.getWebsocketUri(), false)));
+        config.setWebsocketSessionsPerEndpoint(SESSIONS);
+        config.setHeartbeatInterval(200);
+        config.setMaximumMissedHeartbeats(1);
+        pool = WebsocketSessionPool.acquire(simulator.getWebsocketUri(), false, config);
+    }
+
+    @After
+    public void stopNode() throws Exception {
+        pool.release();
+        simulator.close();
+    }
+
+    /**
+     * Test that warming up the pool opens all of its sessions.
+     */
+    @Test
+    public void testWarmUpOpensAllSessions() throws Exception {
+        pool.warmUp().get(5, TimeUnit.SECONDS);
+
+        for (PooledWebsocketSession session : pool.getSessions()) {
+            assertThat(session.isOpen(), equalTo(true));
+        }
+        assertThat(simulator.getWebsocketConnectionCount(), equalTo(SESSIONS));
+    }
+
+    /**
+     * Test that a session which does not answer the heartbeat is replaced
+     * and the requests waiting on it fail with an exception the retry policy
+     * allows to retry.
+     */
+    @Test
+    public void testSessionMissingHeartbeatsIsReplaced() throws Exception {
+        pool.warmUp().get(5, TimeUnit.SECONDS);
+        simulator.setPingsAnswered(false);
+        simulator.setLatency(60000, 60000);
+
+        JsonRPCRequest requestObject = new JsonRPCRequest(BeowulfApiType.DATABASE_API, RequestMethod.GET_CONFIG,
+                null);
+        CompletableFuture<?> response = pool.getSessions().get(0).send(requestObject);
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            fail("The request should have failed.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(BeowulfCommunicationException.class));
+            assertThat(new DefaultRetryPolicy().getRetryDelay(Collections.singletonList(requestObject), 1,
+                    (BeowulfCommunicationException) e.getCause()), greaterThanOrEqualTo(0L));
+        }
+
+        simulator.setPingsAnswered(true);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!allSessionsOpen() && System.nanoTime() < end) {
+            Thread.sleep(20);
+        }
+        assertThat(allSessionsOpen(), equalTo(true));
+        assertThat(simulator.getWebsocketConnectionCount(), greaterThanOrEqualTo(SESSIONS + 1));
+        assertThat(pool.getSessions().get(0).getInFlightRequests(), equalTo(0));
+    }
+
+    private boolean allSessionsOpen() {
+        for (PooledWebsocketSession session : pool.getSessions()) {
+            if (!session.isOpen()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
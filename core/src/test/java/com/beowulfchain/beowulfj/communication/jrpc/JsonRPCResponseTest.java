@@ -0,0 +1,124 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.communication.jrpc;
+
+import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.fasterxml.jackson.databind.JavaType;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.fail;
+
+public class JsonRPCResponseTest {
+    private static final String BATCH_RESPONSE = "[{\"jsonrpc\":\"2.0\",\"result\":{\"head_block_number\":1},\"id\":11},"
+            + " {\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32000,\"message\":\"fail\"},\"id\":12},"
+            + "{\"jsonrpc\":\"2.0\",\"result\":[{\"nested\":[1,2]}],\"id\":13}]";
+    private static final JavaType MAP_LIST_TYPE = CommunicationHandler.getObjectMapper().getTypeFactory()
+            .constructCollectionType(List.class, Map.class);
+
+    /**
+     * Test that the result is bound to the expected type, no matter where the
+     * id is placed in the response.
+     *
+     * @throws Exception In case of a problem.
+     */
+    @Test
+    public void testHandleResult() throws Exception {
+        JsonRPCResponse response = new JsonRPCResponse(
+                "{\"jsonrpc\":\"2.0\",\"result\":{\"head_block_number\":42},\"id\":7}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(response.getId(), equalTo(7L));
+        List<Map<String, Object>> result = response.handle(MAP_LIST_TYPE, 7);
+        assertThat(result, hasSize(1));
+        assertThat(result.get(0).get("head_block_number"), equalTo(42));
+    }
+
+    /**
+     * Test that an error object is transformed into an exception.
+     *
+     * @throws Exception In case of a problem.
+     */
+    @Test
+    public void testHandleError() throws Exception {
+        JsonRPCResponse response = new JsonRPCResponse(
+                "{\"jsonrpc\":\"2.0\",\"id\":3,\"error\":{\"code\":-32000,\"message\":\"fail\"}}");
+
+        try {
+            response.handle(MAP_LIST_TYPE, 3);
+            fail("Expected an error.");
+        } catch (BeowulfResponseException e) {
+            assertThat(e.getCode(), equalTo(-32000));
+        }
+    }
+
+    /**
+     * Test that the answer to a batch request is split into the single
+     * responses, both for binary and for text content.
+     *
+     * @throws Exception In case of a problem.
+     */
+    @Test
+    public void testBatchResponses() throws Exception {
+        for (JsonRPCResponse response : new JsonRPCResponse[]{
+                new JsonRPCResponse(BATCH_RESPONSE.getBytes(StandardCharsets.UTF_8)),
+                new JsonRPCResponse(BATCH_RESPONSE)}) {
+            assertThat(response.isBatch(), equalTo(true));
+
+            List<JsonRPCResponse> batchResponses = response.getBatchResponses();
+            assertThat(batchResponses, hasSize(3));
+            assertThat(batchResponses.get(0).getId(), equalTo(11L));
+            assertThat(batchResponses.get(1).getId(), equalTo(12L));
+            assertThat(batchResponses.get(1).isError(), equalTo(true));
+            assertThat(batchResponses.get(2).getId(), equalTo(13L));
+            assertThat(batchResponses.get(2).handle(MAP_LIST_TYPE, 13), hasSize(1));
+        }
+    }
+
+    /**
+     * Test that a single error without an id, which the node returns if it
+     * rejects a whole batch, is recognized as such.
+     *
+     * @throws Exception In case of a problem.
+     */
+    @Test
+    public void testBatchError() throws Exception {
+        String batchError = "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32600,\"message\":\"invalid\"},\"id\":null}";
+        for (JsonRPCResponse response : new JsonRPCResponse[]{
+                new JsonRPCResponse(batchError.getBytes(StandardCharsets.UTF_8)),
+                new JsonRPCResponse(batchError)}) {
+            List<JsonRPCResponse> batchResponses = response.getBatchResponses();
+            assertThat(batchResponses, hasSize(1));
+            assertThat(batchResponses.get(0).isBatchError(), equalTo(true));
+
+            BeowulfResponseException error = batchResponses.get(0).handleBatchError();
+            assertThat(error.getCode(), equalTo(-32600));
+            assertThat(error.getMessage(), equalTo("invalid"));
+        }
+
+        JsonRPCResponse batchResponse = new JsonRPCResponse(BATCH_RESPONSE);
+        for (JsonRPCResponse response : batchResponse.getBatchResponses()) {
+            assertThat(response.isBatchError(), equalTo(false));
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.simulator;
+
+import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.protocol.Asset;
+import com.beowulfchain.beowulfj.protocol.enums.AssetSymbolType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process Beowulf node serving JSON-RPC over HTTP and WebSocket on the
+ * loopback interface, so load and resilience tests can run without a
+ * network.
+ * HTTP requests are served over plain HTTP and over HTTPS with a self-signed
+ * certificate.
+ * <p>
+ * The simulator keeps a minimal ledger: accounts with native balances and
+ * blocks produced on a fixed interval (or on demand by calling
+ * {@link #produceBlock()}). Broadcast transactions are validated and their
+ * transfers are applied; signatures are not verified. The following methods
+ * are served, regardless of the API they are addressed to:
+ * <code>get_config</code>, <code>get_dynamic_global_properties</code>,
+ * <code>get_hardfork_version</code>, <code>get_active_supernodes</code>,
+ * <code>get_block</code>, <code>get_block_header</code>,
+ * <code>get_accounts</code>, <code>lookup_accounts</code>,
+ * <code>get_account_count</code>, <code>get_balance</code>,
+ * <code>get_transaction</code>, <code>broadcast_transaction</code>,
+ * <code>broadcast_transaction_synchronous</code> and (over WebSocket)
+ * <code>set_block_applied_callback</code>. All other methods are answered
+ * with a "method not found" error.
+ * <p>
+ * Latency, JSON-RPC errors, dropped connections and unanswered pings can be
+ * injected to exercise the retry and failover logic of the client.
+ */
+public class NodeSimulator implements AutoCloseable {
+    private final SimulatedLedger ledger = new SimulatedLedger();
+    private final SimulatedRpcDispatcher dispatcher = new SimulatedRpcDispatcher(ledger);
+    private final AtomicLong requestCount = new AtomicLong();
+    private final Random random = new Random();
+    private ExecutorService executor;
+    private ScheduledExecutorService blockProducer;
+    private HttpServer httpServer;
+    private HttpsServer httpsServer;
+    private SimulatedWebsocketServer websocketServer;
+    private long blockInterval = 3000;
+    private volatile int minimumLatency;
+    private volatile int maximumLatency;
+    private volatile double errorRate;
+    private volatile double disconnectRate;
+    private volatile boolean pingsAnswered = true;
+
+    /**
+     * Set the time between two blocks. Has to be called before
+     * {@link #start()}.
+     *
+     * @param blockInterval The interval in milliseconds, or 0 to only produce
+     *                      blocks when {@link #produceBlock()} is called.
+     * @throws IllegalArgumentException If the interval is negative.
+     */
+    public void setBlockInterval(long blockInterval) {
+        if (blockInterval < 0) {
+            throw new IllegalArgumentException("The block interval must not be negative.");
+        }
+        this.blockInterval = blockInterval;
+    }
+
+    /**
+     * @param irreversibilityLag The number of blocks the last irreversible
+     *                           block trails the head block.
+     */
+    public void setIrreversibilityLag(int irreversibilityLag) {
+        ledger.setIrreversibilityLag(irreversibilityLag);
+    }
+
+    /**
+     * Delay every answer by a random time between the given bounds.
+     *
+     * @param minimumLatency The minimal delay in milliseconds.
+     * @param maximumLatency The maximal delay in milliseconds.
+     * @throws IllegalArgumentException If the bounds are negative or in the
+     *                                  wrong order.
+     */
+    public void setLatency(int minimumLatency, int maximumLatency) {
+        if (minimumLatency < 0 || maximumLatency < minimumLatency) {
+            throw new IllegalArgumentException("Invalid latency bounds " + minimumLatency + " - " + maximumLatency + ".");
+        }
+        this.minimumLatency = minimumLatency;
+        this.maximumLatency = maximumLatency;
+    }
+
+    /**
+     * @param errorRate The probability, between 0 and 1, that a request is
+     *                  answered with a JSON-RPC internal error.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = requireProbability(errorRate);
+    }
+
+    /**
+     * @param disconnectRate The probability, between 0 and 1, that the
+     *                       connection is dropped instead of answering a
+     *                       request.
+     */
+    public void setDisconnectRate(double disconnectRate) {
+        this.disconnectRate = requireProbability(disconnectRate);
+    }
+
+    /**
+     * @param pingsAnswered <code>false</code> to let websocket connections
+     *                      ignore pings, like a connection that died without
+     *                      being closed.
+     */
+    public void setPingsAnswered(boolean pingsAnswered) {
+        this.pingsAnswered = pingsAnswered;
+    }
+
+    private static double requireProbability(double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("The probability must be between 0 and 1.");
+        }
+        return probability;
+    }
+
+    /**
+     * @param seed The seed of the random source used for the injected faults,
+     *             to make a test run reproducible.
+     */
+    public void setSeed(long seed) {
+        synchronized (random) {
+            random.setSeed(seed);
+        }
+    }
+
+    /**
+     * Create an account.
+     *
+     * @param name     The account name.
+     * @param balances The initial native balances.
+     * @throws IllegalArgumentException If the account already exists or a
+     *                                  balance is not a native asset.
+     */
+    public void createAccount(String name, Asset... balances) {
+        ledger.createAccount(name, Arrays.asList(balances));
+    }
+
+    /**
+     * @param account The account name.
+     * @param symbol  The native asset.
+     * @return The current balance, including pending transactions, or
+     *         <code>null</code> if the account does not exist.
+     */
+    public Asset getBalance(String account, AssetSymbolType symbol) {
+        return ledger.getBalance(account, symbol);
+    }
+
+    /**
+     * Produce a block containing all pending transactions.
+     */
+    public void produceBlock() {
+        ledger.produceBlock();
+    }
+
+    /**
+     * @return The number of the head block.
+     */
+    public long getHeadBlockNumber() {
+        return ledger.getHeadBlockNumber();
+    }
+
+    /**
+     * @return The number of HTTP requests and websocket messages received.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return The number of websocket connections accepted so far.
+     */
+    public int getWebsocketConnectionCount() {
+        return websocketServer.getAcceptedConnections();
+    }
+
+    /**
+     * Start serving requests and producing blocks.
+     *
+     * @throws IOException If a server socket could not be opened.
+     */
+    public synchronized void start() throws IOException {
+        if (executor != null) {
+            throw new IllegalStateException("The simulator has already been started.");
+        }
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "simulator-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        httpServer.createContext("/", this::handleExchange);
+        httpServer.setExecutor(executor);
+        httpServer.start();
+        httpsServer = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        httpsServer.setHttpsConfigurator(new HttpsConfigurator(createSslContext()));
+        httpsServer.createContext("/", this::handleExchange);
+        httpsServer.setExecutor(executor);
+        httpsServer.start();
+        websocketServer = new SimulatedWebsocketServer(
+                (connection, message) -> executor.execute(() -> handleMessage(connection, message)),
+                () -> pingsAnswered);
+        if (blockInterval > 0) {
+            blockProducer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "simulator-block-producer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            blockProducer.scheduleAtFixedRate(ledger::produceBlock, blockInterval, blockInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return The URI to send HTTP requests to.
+     */
+    public URI getHttpUri() {
+        return URI.create("http://127.0.0.1:" + httpServer.getAddress().getPort() + "/");
+    }
+
+    /**
+     * @return The URI to send HTTPS requests to. The certificate is self-signed,
+     * so the SSL verification has to be disabled.
+     */
+    public URI getHttpsUri() {
+        return URI.create("https://127.0.0.1:" + httpsServer.getAddress().getPort() + "/");
+    }
+
+    /**
+     * @return The URI to open websocket connections to.
+     */
+    public URI getWebsocketUri() {
+        return URI.create("ws://127.0.0.1:" + websocketServer.getPort() + "/");
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (blockProducer != null) {
+            blockProducer.shutdownNow();
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (httpsServer != null) {
+            httpsServer.stop(0);
+        }
+        if (websocketServer != null) {
+            websocketServer.close();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Create the context of the HTTPS server from the self-signed certificate
+     * in the test resources.
+     */
+    private static SSLContext createSslContext() throws IOException {
+        char[] password = "simulator".toCharArray();
+        try (InputStream keyStoreStream = NodeSimulator.class.getResourceAsStream("/simulator.p12")) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(keyStoreStream, password);
+            KeyManagerFactory keyManagerFactory =
+                    KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, password);
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+            return sslContext;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not load the certificate of the simulator.", e);
+        }
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = readAll(in);
+        }
+        String answer = handle(new String(body, StandardCharsets.UTF_8), null);
+        if (answer == null) {
+            // Closing the exchange before sending the headers drops the connection.
+            exchange.close();
+            return;
+        }
+        byte[] response = answer.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private void handleMessage(SimulatedWebsocketServer.Connection connection, String message) {
+        String answer = handle(message, connection);
+        if (answer == null) {
+            connection.close();
+        } else {
+            connection.send(answer);
+        }
+    }
+
+    /**
+     * Apply the injected faults and answer a request.
+     *
+     * @return The answer, or <code>null</code> if the connection should be
+     *         dropped.
+     */
+    private String handle(String message, SimulatedRpcDispatcher.Session session) {
+        requestCount.incrementAndGet();
+        int latency;
+        boolean disconnect;
+        boolean fail;
+        synchronized (random) {
+            latency = minimumLatency + (maximumLatency > minimumLatency
+                    ? random.nextInt(maximumLatency - minimumLatency + 1) : 0);
+            disconnect = random.nextDouble() < disconnectRate;
+            fail = random.nextDouble() < errorRate;
+        }
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        if (disconnect) {
+            return null;
+        }
+
+        JsonNode request;
+        try {
+            request = CommunicationHandler.getObjectMapper().readTree(message);
+        } catch (IOException e) {
+            return dispatcher.fail(CommunicationHandler.getObjectMapper().createObjectNode(),
+                    new SimulatedNodeException(SimulatedNodeException.PARSE_ERROR, "Parse error")).toString();
+        }
+        if (fail) {
+            return dispatcher.fail(request, new SimulatedNodeException(SimulatedNodeException.INTERNAL_ERROR,
+                    "Simulated internal error")).toString();
+        }
+        return dispatcher.dispatch(request, session).toString();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.simulator;
+
+import com.beowulfchain.beowulfj.chain.SignedTransaction;
+import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.communication.DefaultRetryPolicy;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.PrivateKeyType;
+import com.beowulfchain.beowulfj.exceptions.BeowulfResponseException;
+import com.beowulfchain.beowulfj.plugins.apis.condenser.CondenserApi;
+import com.beowulfchain.beowulfj.plugins.apis.condenser.models.ExtendedDynamicGlobalProperties;
+import com.beowulfchain.beowulfj.plugins.apis.network.broadcast.models.BroadcastTransactionSynchronousReturn;
+import com.beowulfchain.beowulfj.protocol.AccountName;
+import com.beowulfchain.beowulfj.protocol.Asset;
+import com.beowulfchain.beowulfj.protocol.enums.AssetSymbolType;
+import com.beowulfchain.beowulfj.protocol.operations.Operation;
+import com.beowulfchain.beowulfj.protocol.operations.TransferOperation;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.joou.ULong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.fail;
+
+public class NodeSimulatorTest {
+    private static final String ALICE_PRIVATE_KEY = "5Jx7zAAmyUUbWXKHVvY8khB5BaZ875wJys1ajcD2Y5c6BF8EzMZ";
+
+    private NodeSimulator simulator;
+    private CommunicationHandler communicationHandler;
+
+    @Before
+    public void startSimulator() throws Exception {
+        simulator = new NodeSimulator();
+        simulator.setBlockInterval(100);
+        simulator.createAccount("alice", new Asset(1000000L, AssetSymbolType.BWF));
+        simulator.createAccount("bob");
+        simulator.start();
+    }
+
+    @After
+    public void stopSimulator() throws Exception {
+        if (communicationHandler != null) {
+            communicationHandler.close();
+        }
+        simulator.close();
+    }
+
+    /**
+     * Test that the chain state can be queried over HTTP.
+     */
+    @Test
+    public void testQueriesOverHttp() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(simulator.getHttpUri()));
+
+        ExtendedDynamicGlobalProperties properties = CondenserApi.getDynamicGlobalProperties(communicationHandler);
+        assertThat(properties.getHeadBlockNumber(), greaterThan(0L));
+        assertThat(CondenserApi.getAccounts(communicationHandler,
+                Collections.singletonList(new AccountName("alice"))).get(0).getBalance(),
+                equalTo(new Asset(1000000L, AssetSymbolType.BWF)));
+    }
+
+    /**
+     * Test that the chain state can be queried over a websocket connection.
+     */
+    @Test
+    public void testQueriesOverWebsocket() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(simulator.getWebsocketUri()));
+
+        List<String> names = CondenserApi.lookupAccounts(communicationHandler, "a", 10);
+        assertThat(names, contains("alice", "bob", SimulatedLedger.SUPERNODE));
+    }
+
+    /**
+     * Test that a broadcast transfer changes the balances and is included in
+     * the next block.
+     */
+    @Test
+    public void testTransferIsAppliedAndIncludedInBlock() throws Exception {
+        BeowulfJConfig config = createConfig(simulator.getHttpUri());
+        communicationHandler = new CommunicationHandler(config);
+
+        BroadcastTransactionSynchronousReturn result = CondenserApi.broadcastTransactionSynchronous(
+                communicationHandler, createTransfer(new Asset(250000L, AssetSymbolType.BWF)));
+
+        assertThat(simulator.getBalance("alice", AssetSymbolType.BWF),
+                equalTo(new Asset(1000000L - 250000L - 100L, AssetSymbolType.BWF)));
+        assertThat(simulator.getBalance("bob", AssetSymbolType.BWF), equalTo(new Asset(250000L, AssetSymbolType.BWF)));
+        List<String> transactionIds = CondenserApi.getBlock(communicationHandler, result.getBlockNum())
+                .getTransactionIds().stream().map(Object::toString).collect(Collectors.toList());
+        assertThat(transactionIds, hasItem(result.getId().toString()));
+    }
+
+    /**
+     * Test that a transfer exceeding the balance is rejected without any
+     * effect.
+     */
+    @Test
+    public void testTransferWithInsufficientFundsIsRejected() throws Exception {
+        communicationHandler = new CommunicationHandler(createConfig(simulator.getHttpUri()));
+
+        try {
+            CondenserApi.broadcastTransactionSynchronous(communicationHandler,
+                    createTransfer(new Asset(5000000L, AssetSymbolType.BWF)));
+            fail("The transfer should have been rejected.");
+        } catch (BeowulfResponseException e) {
+            assertThat(e.getCode(), equalTo(SimulatedNodeException.ASSERTION_FAILED));
+        }
+        assertThat(simulator.getBalance("bob", AssetSymbolType.BWF), equalTo(new Asset(0L, AssetSymbolType.BWF)));
+    }
+
+    /**
+     * Test that dropped connections are retried by the client and injected
+     * errors are reported to the caller.
+     */
+    @Test
+    public void testInjectedFaults() throws Exception {
+        BeowulfJConfig config = createConfig(simulator.getHttpUri());
+        config.setRetryPolicy(new DefaultRetryPolicy(10, 1, 5, 100, 1));
+        config.setCircuitBreakerFailureThreshold(100);
+        communicationHandler = new CommunicationHandler(config);
+        simulator.setSeed(42);
+        simulator.setDisconnectRate(0.5);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(CondenserApi.getAccountCount(communicationHandler), equalTo(ULong.valueOf(3)));
+        }
+        assertThat(simulator.getRequestCount(), greaterThan(10L));
+
+        simulator.setDisconnectRate(0);
+        simulator.setErrorRate(1);
+        try {
+            CondenserApi.getAccountCount(communicationHandler);
+            fail("The injected error should have been reported.");
+        } catch (BeowulfResponseException e) {
+            assertThat(e.getCode(), equalTo(SimulatedNodeException.INTERNAL_ERROR));
+        }
+    }
+
+    private SignedTransaction createTransfer(Asset amount) throws Exception {
+        BeowulfJConfig.getInstance().getPrivateKeyStorage().addAccount(new AccountName("alice"),
+                Collections.singletonList(new ImmutablePair<>(PrivateKeyType.OWNER, ALICE_PRIVATE_KEY)));
+        ExtendedDynamicGlobalProperties properties = CondenserApi.getDynamicGlobalProperties(communicationHandler);
+        List<Operation> operations = Arrays.asList(new TransferOperation(new AccountName("alice"),
+                new AccountName("bob"), amount, new Asset(100L, AssetSymbolType.BWF), "simulated"));
+        return new SignedTransaction(properties.getHeadBlockId(), operations, null);
+    }
+
+    private static BeowulfJConfig createConfig(URI endpoint) {
+        System.clearProperty("beowulfj.default.account");
+        BeowulfJConfig config = BeowulfJConfig.createInstance();
+        config.setEndpointURIs(Collections.singletonList(new ImmutablePair<>(endpoint, false)));
+        return config;
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.simulator;
+
+import com.beowulfchain.beowulfj.chain.SignedTransaction;
+import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.exceptions.BeowulfInvalidTransactionException;
+import com.beowulfchain.beowulfj.protocol.Asset;
+import com.beowulfchain.beowulfj.protocol.enums.AssetSymbolType;
+import com.beowulfchain.beowulfj.protocol.operations.Operation;
+import com.beowulfchain.beowulfj.protocol.operations.TransferOperation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The minimal chain state behind the {@link NodeSimulator}: native asset
+ * balances per account, a list of produced blocks and the transactions that
+ * are waiting for the next block.
+ * <p>
+ * Only {@link TransferOperation TransferOperations} change the state; every
+ * other operation is accepted and included in a block without any effect.
+ * Signatures are not verified.
+ */
+class SimulatedLedger {
+    /** The account producing every block and receiving the transfer fees. */
+    static final String SUPERNODE = "simulator";
+
+    private static final String EMPTY_HASH = "0000000000000000000000000000000000000000";
+    private static final String EMPTY_SIGNATURE = String.format("%0130d", 0);
+    private static final int PRECISION = 5;
+    /** The fields of a broadcast transaction stored in a block. */
+    private static final String[] TRANSACTION_FIELDS = { "ref_block_num", "ref_block_prefix", "expiration",
+            "operations", "extensions", "signatures", "created_time" };
+
+    private final ObjectMapper mapper = CommunicationHandler.getObjectMapper();
+    private final SimpleDateFormat dateFormat;
+    private final TreeMap<String, Map<String, Long>> balances = new TreeMap<>();
+    private final Map<String, Long> creationTimes = new HashMap<>();
+    private final List<ObjectNode> blocks = new ArrayList<>();
+    private final List<PendingTransaction> pendingTransactions = new ArrayList<>();
+    private final Map<String, ObjectNode> transactions = new HashMap<>();
+    private final List<Consumer<ObjectNode>> blockListeners = new CopyOnWriteArrayList<>();
+    private int irreversibilityLag;
+
+    /**
+     * Create a new ledger containing the supernode account and a first block.
+     */
+    SimulatedLedger() {
+        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+        this.dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        createAccount(SUPERNODE, Collections.emptyList());
+        produceBlock();
+    }
+
+    /**
+     * @param irreversibilityLag The number of blocks the last irreversible
+     *                           block trails the head block.
+     */
+    synchronized void setIrreversibilityLag(int irreversibilityLag) {
+        this.irreversibilityLag = irreversibilityLag;
+    }
+
+    /**
+     * Create an account holding the given native balances.
+     *
+     * @param name     The account name.
+     * @param balances The initial balances.
+     * @throws IllegalArgumentException If the account already exists or a
+     *                                  balance is not a native asset.
+     */
+    synchronized void createAccount(String name, List<Asset> balances) {
+        if (this.balances.containsKey(name)) {
+            throw new IllegalArgumentException("The account '" + name + "' already exists.");
+        }
+        Map<String, Long> accountBalances = new LinkedHashMap<>();
+        for (AssetSymbolType symbol : AssetSymbolType.values()) {
+            accountBalances.put(symbol.name(), 0L);
+        }
+        for (Asset balance : balances) {
+            if (!accountBalances.containsKey(balance.getName())) {
+                throw new IllegalArgumentException("Only native assets are supported, got " + balance.getName() + ".");
+            }
+            accountBalances.merge(balance.getName(), balance.getAmount(), Long::sum);
+        }
+        this.balances.put(name, accountBalances);
+        this.creationTimes.put(name, System.currentTimeMillis());
+    }
+
+    /**
+     * @param account The account name.
+     * @param symbol  The native asset.
+     * @return The balance of the account, or <code>null</code> if the account
+     *         does not exist.
+     */
+    synchronized Asset getBalance(String account, AssetSymbolType symbol) {
+        Map<String, Long> accountBalances = balances.get(account);
+        return accountBalances == null ? null : new Asset(accountBalances.get(symbol.name()), symbol);
+    }
+
+    /**
+     * @return The number of the head block.
+     */
+    synchronized long getHeadBlockNumber() {
+        return blocks.size();
+    }
+
+    /**
+     * @param listener Invoked with the header of every produced block.
+     */
+    void addBlockListener(Consumer<ObjectNode> listener) {
+        blockListeners.add(listener);
+    }
+
+    /**
+     * @param listener A listener previously registered.
+     */
+    void removeBlockListener(Consumer<ObjectNode> listener) {
+        blockListeners.remove(listener);
+    }
+
+    /**
+     * Validate a broadcast transaction, apply its transfers and queue it for
+     * the next block.
+     *
+     * @param transaction The transaction as sent by the client.
+     * @return A future completed with the
+     *         <code>broadcast_transaction_synchronous</code> result once the
+     *         transaction is included in a block.
+     * @throws SimulatedNodeException If the transaction is malformed,
+     *                                expired, a duplicate or cannot be
+     *                                applied.
+     */
+    CompletableFuture<ObjectNode> push(JsonNode transaction) throws SimulatedNodeException {
+        SignedTransaction signedTransaction;
+        String id;
+        try {
+            signedTransaction = mapper.treeToValue(transaction, SignedTransaction.class);
+            id = signedTransaction.generateTransactionId().toString();
+        } catch (JsonProcessingException | IllegalArgumentException | BeowulfInvalidTransactionException e) {
+            throw new SimulatedNodeException(SimulatedNodeException.INVALID_PARAMS,
+                    "Invalid transaction: " + e.getMessage());
+        }
+        if (signedTransaction.getExpirationDate().getDateTimeAsTimestamp() < System.currentTimeMillis()) {
+            throw new SimulatedNodeException(SimulatedNodeException.ASSERTION_FAILED,
+                    "Assert Exception: now < trx.expiration: transaction has expired");
+        }
+
+        ObjectNode stored = mapper.createObjectNode();
+        for (String field : TRANSACTION_FIELDS) {
+            if (transaction.has(field)) {
+                stored.set(field, transaction.get(field));
+            }
+        }
+        PendingTransaction pending = new PendingTransaction(id, stored);
+        synchronized (this) {
+            if (transactions.containsKey(id) || pendingTransactions.stream().anyMatch(p -> p.id.equals(id))) {
+                throw new SimulatedNodeException(SimulatedNodeException.ASSERTION_FAILED,
+                        "Assert Exception: duplicate transaction check failed: " + id);
+            }
+            applyTransfers(signedTransaction.getOperations());
+            pendingTransactions.add(pending);
+        }
+        return pending.confirmation;
+    }
+
+    /**
+     * Apply the transfers of a transaction, either completely or not at all.
+     */
+    private void applyTransfers(List<Operation> operations) throws SimulatedNodeException {
+        Map<String, Map<String, Long>> changes = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            if (!(operation instanceof TransferOperation)) {
+                continue;
+            }
+            TransferOperation transfer = (TransferOperation) operation;
+            String from = transfer.getFrom().getName();
+            String to = transfer.getTo().getName();
+            addChange(changes, from, transfer.getAmount(), -1);
+            addChange(changes, to, transfer.getAmount(), 1);
+            if (transfer.getFee() != null) {
+                addChange(changes, from, transfer.getFee(), -1);
+                addChange(changes, SUPERNODE, transfer.getFee(), 1);
+            }
+        }
+        for (Map.Entry<String, Map<String, Long>> change : changes.entrySet()) {
+            Map<String, Long> accountBalances = balances.get(change.getKey());
+            for (Map.Entry<String, Long> delta : change.getValue().entrySet()) {
+                if (accountBalances.get(delta.getKey()) + delta.getValue() < 0) {
+                    throw new SimulatedNodeException(SimulatedNodeException.ASSERTION_FAILED,
+                            "Assert Exception: _db.get_balance(from_account, o.amount.symbol) >= o.amount: "
+                                    + "Account " + change.getKey() + " does not have sufficient funds.");
+                }
+            }
+        }
+        for (Map.Entry<String, Map<String, Long>> change : changes.entrySet()) {
+            Map<String, Long> accountBalances = balances.get(change.getKey());
+            change.getValue().forEach((symbol, delta) -> accountBalances.merge(symbol, delta, Long::sum));
+        }
+    }
+
+    private void addChange(Map<String, Map<String, Long>> changes, String account, Asset asset, int sign)
+            throws SimulatedNodeException {
+        if (!balances.containsKey(account)) {
+            throw new SimulatedNodeException(SimulatedNodeException.ASSERTION_FAILED,
+                    "Assert Exception: Account " + account + " does not exist.");
+        }
+        if (AssetSymbolType.getNativeAsset(asset.getName()) == null) {
+            throw new SimulatedNodeException(SimulatedNodeException.ASSERTION_FAILED,
+                    "Assert Exception: The simulator only supports native assets, got " + asset.getName() + ".");
+        }
+        changes.computeIfAbsent(account, a -> new LinkedHashMap<>()).merge(asset.getName(),
+                sign * asset.getAmount(), Long::sum);
+    }
+
+    /**
+     * Produce a block containing all pending transactions, complete their
+     * confirmations and notify the block listeners.
+     */
+    void produceBlock() {
+        List<PendingTransaction> included;
+        ObjectNode header;
+        long number;
+        String timestamp;
+        synchronized (this) {
+            number = blocks.size() + 1;
+            String previous = blocks.isEmpty() ? EMPTY_HASH : blocks.get(blocks.size() - 1).get("block_id").asText();
+            timestamp = dateFormat.format(new Date());
+
+            ObjectNode block = mapper.createObjectNode();
+            block.put("previous", previous);
+            block.put("timestamp", timestamp);
+            block.put("supernode", SUPERNODE);
+            block.put("transaction_merkle_root", EMPTY_HASH);
+            block.putArray("extensions");
+            block.put("supernode_signature", EMPTY_SIGNATURE);
+            ArrayNode blockTransactions = block.putArray("transactions");
+            ArrayNode transactionIds = mapper.createArrayNode();
+            for (int i = 0; i < pendingTransactions.size(); i++) {
+                PendingTransaction pending = pendingTransactions.get(i);
+                ObjectNode completed = pending.transaction.deepCopy();
+                completed.put("transaction_id", pending.id);
+                completed.put("block_num", number);
+                completed.put("transaction_num", i);
+                completed.put("status", "completed");
+                blockTransactions.add(completed);
+                transactionIds.add(pending.id);
+                transactions.put(pending.id, completed);
+            }
+            block.put("block_id", createBlockId(number, previous, timestamp));
+            block.set("transaction_ids", transactionIds);
+            block.put("block_reward", formatAsset(0, AssetSymbolType.BWF.name()));
+            blocks.add(block);
+
+            included = new ArrayList<>(pendingTransactions);
+            pendingTransactions.clear();
+            header = getBlockHeader(number);
+        }
+
+        for (int i = 0; i < included.size(); i++) {
+            ObjectNode result = mapper.createObjectNode();
+            result.put("id", included.get(i).id);
+            result.put("block_num", number);
+            result.put("trx_num", i);
+            result.put("expired", false);
+            result.put("created_time", included.get(i).transaction.path("created_time").asLong());
+            included.get(i).confirmation.complete(result);
+        }
+        for (Consumer<ObjectNode> listener : blockListeners) {
+            listener.accept(header);
+        }
+    }
+
+    /**
+     * The first four bytes of a block id are the block number, the rest is
+     * derived from the block content.
+     */
+    private static String createBlockId(long number, String previous, String timestamp) {
+        ByteBuffer id = ByteBuffer.allocate(20);
+        id.putInt((int) number);
+        id.putInt((previous + timestamp).hashCode());
+        StringBuilder hex = new StringBuilder();
+        for (byte b : id.array()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @param number The block number.
+     * @return The block, or <code>null</code> if it has not been produced.
+     */
+    synchronized ObjectNode getBlock(long number) {
+        return number < 1 || number > blocks.size() ? null : blocks.get((int) number - 1);
+    }
+
+    /**
+     * @param number The block number.
+     * @return The block header, or <code>null</code> if it has not been
+     *         produced.
+     */
+    synchronized ObjectNode getBlockHeader(long number) {
+        ObjectNode block = getBlock(number);
+        if (block == null) {
+            return null;
+        }
+        ObjectNode header = mapper.createObjectNode();
+        for (String field : new String[] { "previous", "timestamp", "supernode", "transaction_merkle_root",
+                "extensions" }) {
+            header.set(field, block.get(field));
+        }
+        return header;
+    }
+
+    /**
+     * @param id The hex encoded transaction id.
+     * @return The completed transaction, or <code>null</code> if it has not
+     *         been included in a block.
+     */
+    synchronized ObjectNode getTransaction(String id) {
+        return transactions.get(id);
+    }
+
+    /**
+     * @return The dynamic global properties of the chain.
+     */
+    synchronized ObjectNode getDynamicGlobalProperties() {
+        ObjectNode head = blocks.get(blocks.size() - 1);
+        ObjectNode properties = mapper.createObjectNode();
+        properties.put("id", 0);
+        properties.put("head_block_number", blocks.size());
+        properties.put("head_block_id", head.get("block_id").asText());
+        properties.put("time", head.get("timestamp").asText());
+        properties.put("current_witness", SUPERNODE);
+        properties.put("virtual_supply", formatAsset(getSupply(AssetSymbolType.BWF), AssetSymbolType.BWF.name()));
+        properties.put("current_supply", formatAsset(getSupply(AssetSymbolType.BWF), AssetSymbolType.BWF.name()));
+        properties.put("current_wd_supply", formatAsset(getSupply(AssetSymbolType.W), AssetSymbolType.W.name()));
+        properties.put("total_vesting_fund_beowulf", formatAsset(0, AssetSymbolType.BWF.name()));
+        properties.put("total_vesting_shares", formatAsset(getSupply(AssetSymbolType.M), AssetSymbolType.M.name()));
+        properties.put("total_reward_fund_beowulf", formatAsset(0, AssetSymbolType.BWF.name()));
+        properties.put("pending_rewarded_vesting_beowulf", formatAsset(0, AssetSymbolType.BWF.name()));
+        properties.put("wd_interest_rate", 0);
+        properties.put("current_aslot", blocks.size());
+        properties.put("recent_slots_filled", 0);
+        properties.put("participation_count", 128);
+        properties.put("last_irreversible_block_num", Math.max(1, blocks.size() - irreversibilityLag));
+        properties.put("average_block_size", 0);
+        properties.put("current_reserve_ratio", 1);
+        properties.put("max_virtual_bandwidth", 0);
+        return properties;
+    }
+
+    private long getSupply(AssetSymbolType symbol) {
+        return balances.values().stream().mapToLong(b -> b.get(symbol.name())).sum();
+    }
+
+    /**
+     * @param names The account names.
+     * @return The existing accounts, in the requested order.
+     */
+    synchronized ArrayNode getAccounts(List<String> names) {
+        ArrayNode accounts = mapper.createArrayNode();
+        for (String name : names) {
+            if (balances.containsKey(name)) {
+                accounts.add(toAccount(name));
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * @param lowerBound The first account name to return.
+     * @param limit      The maximum number of names.
+     * @return The account names in alphabetical order.
+     */
+    synchronized ArrayNode lookupAccounts(String lowerBound, int limit) {
+        ArrayNode names = mapper.createArrayNode();
+        balances.tailMap(lowerBound).keySet().stream().limit(limit)
+                .forEach(names::add);
+        return names;
+    }
+
+    /**
+     * @return The number of accounts.
+     */
+    synchronized int getAccountCount() {
+        return balances.size();
+    }
+
+    private ObjectNode toAccount(String name) {
+        Map<String, Long> accountBalances = balances.get(name);
+        String created = dateFormat.format(new Date(creationTimes.get(name)));
+        ObjectNode account = mapper.createObjectNode();
+        account.put("id", new ArrayList<>(balances.keySet()).indexOf(name));
+        account.put("name", name);
+        account.put("json_metadata", "");
+        account.put("created", created);
+        account.put("last_owner_update", created);
+        account.put("last_account_update", created);
+        account.put("voting_power", 10000);
+        account.put("last_vote_time", created);
+        account.put("balance", formatAsset(accountBalances.get(AssetSymbolType.BWF.name()), AssetSymbolType.BWF.name()));
+        account.put("wd_balance", formatAsset(accountBalances.get(AssetSymbolType.W.name()), AssetSymbolType.W.name()));
+        account.put("vesting_shares", formatAsset(accountBalances.get(AssetSymbolType.M.name()), AssetSymbolType.M.name()));
+        account.put("vesting_withdraw_rate", formatAsset(0, AssetSymbolType.M.name()));
+        account.put("withdrawn", 0);
+        account.put("to_withdraw", 0);
+        account.put("supernodes_voted_for", 0);
+        account.put("next_vesting_withdrawal", "1969-12-31T23:59:59");
+        account.putArray("token_list");
+        return account;
+    }
+
+    /**
+     * @param amount The amount in the smallest unit of the asset.
+     * @param symbol The asset symbol.
+     * @return The asset in the format used by the node, e.g. "1.00000 BWF".
+     */
+    static String formatAsset(long amount, String symbol) {
+        return BigDecimal.valueOf(amount, PRECISION).toPlainString() + " " + symbol;
+    }
+
+    /**
+     * A transaction waiting for the next block.
+     */
+    private static final class PendingTransaction {
+        private final String id;
+        private final ObjectNode transaction;
+        private final CompletableFuture<ObjectNode> confirmation = new CompletableFuture<>();
+
+        private PendingTransaction(String id, ObjectNode transaction) {
+            this.id = id;
+            this.transaction = transaction;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.simulator;
+
+/**
+ * A failure reported by the {@link NodeSimulator} as a JSON-RPC error object.
+ */
+class SimulatedNodeException extends Exception {
+    /** The JSON could not be parsed. */
+    static final int PARSE_ERROR = -32700;
+    /** The JSON is not a valid request object. */
+    static final int INVALID_REQUEST = -32600;
+    /** The method is unknown or not served by the simulator. */
+    static final int METHOD_NOT_FOUND = -32601;
+    /** The parameters do not match the method. */
+    static final int INVALID_PARAMS = -32602;
+    /** An internal (or injected) failure. */
+    static final int INTERNAL_ERROR = -32603;
+    /** A chain assertion failed, e.g. an account is unknown or underfunded. */
+    static final int ASSERTION_FAILED = -32000;
+
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+
+    /**
+     * Create a new exception.
+     *
+     * @param code    The JSON-RPC error code.
+     * @param message The error message.
+     */
+    SimulatedNodeException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    /**
+     * @return The JSON-RPC error code.
+     */
+    int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.simulator;
+
+import com.beowulfchain.beowulfj.communication.CommunicationHandler;
+import com.beowulfchain.beowulfj.configuration.BeowulfJConfig;
+import com.beowulfchain.beowulfj.enums.RequestMethod;
+import com.beowulfchain.beowulfj.protocol.enums.AssetSymbolType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Answers JSON-RPC requests of the {@link RequestMethod} set from the state
+ * of a {@link SimulatedLedger}.
+ */
+class SimulatedRpcDispatcher {
+    private static final String HARDFORK_VERSION = "0.0.0";
+
+    private final ObjectMapper mapper = CommunicationHandler.getObjectMapper();
+    private final SimulatedLedger ledger;
+
+    /**
+     * A connection able to receive notices for
+     * <code>set_block_applied_callback</code> subscriptions.
+     */
+    interface Session {
+        /**
+         * @param notice The notice to send to the client.
+         */
+        void sendNotice(String notice);
+
+        /**
+         * @param handler Invoked once the connection is closed.
+         */
+        void addCloseHandler(Runnable handler);
+    }
+
+    /**
+     * @param ledger The chain state to serve.
+     */
+    SimulatedRpcDispatcher(SimulatedLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    /**
+     * Answer a single request or a batch.
+     *
+     * @param request The parsed request.
+     * @param session The websocket connection the request was received on,
+     *                or <code>null</code> for HTTP.
+     * @return The response object or array.
+     */
+    JsonNode dispatch(JsonNode request, Session session) {
+        if (!request.isArray()) {
+            return answer(request, session);
+        }
+        ArrayNode responses = mapper.createArrayNode();
+        if (request.size() == 0) {
+            return createError(null, new SimulatedNodeException(SimulatedNodeException.INVALID_REQUEST,
+                    "Empty batch"));
+        }
+        for (JsonNode element : request) {
+            responses.add(answer(element, session));
+        }
+        return responses;
+    }
+
+    /**
+     * Create an error response for every request of a single request or a
+     * batch.
+     *
+     * @param request The parsed request.
+     * @param error   The error to report.
+     * @return The response object or array.
+     */
+    JsonNode fail(JsonNode request, SimulatedNodeException error) {
+        if (!request.isArray()) {
+            return createError(request.get("id"), error);
+        }
+        ArrayNode responses = mapper.createArrayNode();
+        for (JsonNode element : request) {
+            responses.add(createError(element.get("id"), error));
+        }
+        return responses;
+    }
+
+    private ObjectNode answer(JsonNode request, Session session) {
+        JsonNode id = request.get("id");
+        try {
+            if (!request.path("method").isTextual()) {
+                throw new SimulatedNodeException(SimulatedNodeException.INVALID_REQUEST, "Invalid Request");
+            }
+            ObjectNode response = mapper.createObjectNode();
+            response.put("jsonrpc", "2.0");
+            response.set("result", invoke(request.get("method").asText(), request.path("params"), session));
+            response.set("id", id);
+            return response;
+        } catch (SimulatedNodeException e) {
+            return createError(id, e);
+        }
+    }
+
+    private JsonNode invoke(String method, JsonNode params, Session session) throws SimulatedNodeException {
+        RequestMethod requestMethod = parseMethod(method);
+        switch (requestMethod) {
+        case GET_CONFIG:
+            return getConfig();
+        case GET_DYNAMIC_GLOBAL_PROPERTIES:
+            return ledger.getDynamicGlobalProperties();
+        case GET_HARDFORK_VERSION:
+            return JsonNodeFactory.instance.textNode(HARDFORK_VERSION);
+        case GET_ACTIVE_SUPERNODES:
+            return mapper.createArrayNode().add(SimulatedLedger.SUPERNODE);
+        case GET_BLOCK:
+            return nullToMissing(ledger.getBlock(getParameter(params, 0).asLong()));
+        case GET_BLOCK_HEADER:
+            return nullToMissing(ledger.getBlockHeader(getParameter(params, 0).asLong()));
+        case GET_ACCOUNTS:
+            List<String> names = new ArrayList<>();
+            getParameter(params, 0).forEach(name -> names.add(name.asText()));
+            return ledger.getAccounts(names);
+        case LOOKUP_ACCOUNTS:
+            return ledger.lookupAccounts(getParameter(params, 0).asText(), getParameter(params, 1).asInt());
+        case GET_ACCOUNT_COUNT:
+            return JsonNodeFactory.instance.numberNode(ledger.getAccountCount());
+        case GET_BALANCE:
+            return getBalance(getParameter(params, 0).asText(), getParameter(params, 1));
+        case GET_TRANSACTION:
+            return getTransaction(getParameter(params, 0).asText());
+        case BROADCAST_TRANSACTION:
+            ledger.push(getParameter(params, 0));
+            return mapper.createObjectNode();
+        case BROADCAST_TRANSACTION_SYNCHRONOUS:
+            return waitForBlock(ledger.push(getParameter(params, 0)));
+        case SET_BLOCK_APPLIED_CALLBACK:
+            return subscribe(getParameter(params, 0), session);
+        default:
+            throw new SimulatedNodeException(SimulatedNodeException.METHOD_NOT_FOUND,
+                    "Method '" + method + "' is not implemented by the simulator");
+        }
+    }
+
+    /**
+     * Map a method like <code>condenser_api.get_block</code> to its enum
+     * constant, ignoring the API name.
+     */
+    private static RequestMethod parseMethod(String method) throws SimulatedNodeException {
+        String name = method.substring(method.lastIndexOf('.') + 1);
+        try {
+            return RequestMethod.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new SimulatedNodeException(SimulatedNodeException.METHOD_NOT_FOUND, "Method not found: " + method);
+        }
+    }
+
+    private static JsonNode getParameter(JsonNode params, int index) throws SimulatedNodeException {
+        if (!params.has(index)) {
+            throw new SimulatedNodeException(SimulatedNodeException.INVALID_PARAMS,
+                    "Missing parameter at index " + index);
+        }
+        return params.get(index);
+    }
+
+    private static JsonNode nullToMissing(JsonNode node) {
+        return node == null ? JsonNodeFactory.instance.nullNode() : node;
+    }
+
+    private ObjectNode getConfig() {
+        ObjectNode config = mapper.createObjectNode();
+        config.put("IS_TEST_NET", true);
+        config.put("BEOWULF_CHAIN_ID", BeowulfJConfig.getInstance().getChainId());
+        config.put("BEOWULF_ADDRESS_PREFIX", "BEO");
+        config.put("BEOWULF_BLOCKCHAIN_VERSION", HARDFORK_VERSION);
+        config.put("BEOWULF_BLOCKCHAIN_HARDFORK_VERSION", HARDFORK_VERSION);
+        config.put("BEOWULF_INIT_MINER_NAME", SimulatedLedger.SUPERNODE);
+        config.put("BEOWULF_BLOCK_INTERVAL", 3);
+        config.put("BEOWULF_IRREVERSIBLE_THRESHOLD", 7500);
+        return config;
+    }
+
+    private JsonNode getBalance(String account, JsonNode assetInfo) throws SimulatedNodeException {
+        String name = assetInfo.path("name").asText();
+        if (AssetSymbolType.getNativeAsset(name) == null) {
+            throw new SimulatedNodeException(SimulatedNodeException.ASSERTION_FAILED,
+                    "Assert Exception: The simulator only supports native assets.");
+        }
+        AssetSymbolType symbol = AssetSymbolType.valueOf(name);
+        if (ledger.getBalance(account, symbol) == null) {
+            throw new SimulatedNodeException(SimulatedNodeException.ASSERTION_FAILED,
+                    "Assert Exception: Account " + account + " does not exist.");
+        }
+        return JsonNodeFactory.instance.textNode(SimulatedLedger.formatAsset(
+                ledger.getBalance(account, symbol).getAmount(), symbol.name()));
+    }
+
+    private JsonNode getTransaction(String id) throws SimulatedNodeException {
+        ObjectNode transaction = ledger.getTransaction(id);
+        if (transaction == null) {
+            throw new SimulatedNodeException(SimulatedNodeException.ASSERTION_FAILED,
+                    "Assert Exception: Unknown Transaction " + id);
+        }
+        return transaction;
+    }
+
+    private static JsonNode waitForBlock(Future<ObjectNode> confirmation)
+            throws SimulatedNodeException {
+        try {
+            return confirmation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SimulatedNodeException(SimulatedNodeException.INTERNAL_ERROR, "Interrupted");
+        } catch (ExecutionException e) {
+            throw new SimulatedNodeException(SimulatedNodeException.INTERNAL_ERROR, e.getCause().toString());
+        }
+    }
+
+    private JsonNode subscribe(JsonNode subscriptionId, Session session) throws SimulatedNodeException {
+        if (session == null) {
+            throw new SimulatedNodeException(SimulatedNodeException.INVALID_REQUEST,
+                    "Subscriptions require a websocket connection");
+        }
+        Consumer<ObjectNode> listener = header -> {
+            ObjectNode notice = mapper.createObjectNode();
+            notice.put("method", "notice");
+            notice.putArray("params").add(subscriptionId).addArray().add(header);
+            session.sendNotice(notice.toString());
+        };
+        ledger.addBlockListener(listener);
+        session.addCloseHandler(() -> ledger.removeBlockListener(listener));
+        return JsonNodeFactory.instance.nullNode();
+    }
+
+    private ObjectNode createError(JsonNode id, SimulatedNodeException exception) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        ObjectNode error = response.putObject("error");
+        error.put("code", exception.getCode());
+        error.put("message", exception.getMessage());
+        error.putObject("data").put("code", exception.getCode()).put("name", "simulated_exception");
+        response.set("id", id);
+        return response;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A minimal RFC 6455 server accepting text messages on the loopback
+ * interface. Each connection is read by its own daemon thread; messages are
+ * handed over to the handler on that thread.
+ */
+class SimulatedWebsocketServer implements Closeable {
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int OPCODE_CONTINUATION = 0x0;
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+
+    private final ServerSocket serverSocket;
+    private final BiConsumer<Connection, String> messageHandler;
+    private final BooleanSupplier pingsAnswered;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger acceptedConnections = new AtomicInteger();
+
+    /**
+     * Create a server listening on a random loopback port.
+     *
+     * @param messageHandler Invoked for every text message received.
+     * @param pingsAnswered  Tells whether pings are answered with a pong.
+     * @throws IOException If the server socket could not be opened.
+     */
+    SimulatedWebsocketServer(BiConsumer<Connection, String> messageHandler, BooleanSupplier pingsAnswered)
+            throws IOException {
+        this.messageHandler = messageHandler;
+        this.pingsAnswered = pingsAnswered;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        startDaemon(this::acceptConnections, "simulator-ws-accept");
+    }
+
+    /**
+     * @return The port this server listens on.
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The number of connections accepted so far.
+     */
+    int getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Connection connection = new Connection(serverSocket.accept());
+                connections.add(connection);
+                acceptedConnections.incrementAndGet();
+                startDaemon(connection::run, "simulator-ws-" + connection.socket.getPort());
+            } catch (IOException e) {
+                // The server socket has been closed.
+            }
+        }
+    }
+
+    private static void startDaemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * One accepted websocket connection.
+     */
+    class Connection implements SimulatedRpcDispatcher.Session {
+        private final Socket socket;
+        private final List<Runnable> closeHandlers = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private OutputStream out;
+
+        private Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        private void run() {
+            try {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                out = new BufferedOutputStream(socket.getOutputStream());
+                handshake(in);
+                ByteArrayOutputStream message = new ByteArrayOutputStream();
+                while (true) {
+                    int first = in.readUnsignedByte();
+                    int opcode = first & 0x0F;
+                    byte[] payload = readPayload(in);
+                    if (opcode == OPCODE_CLOSE) {
+                        writeFrame(OPCODE_CLOSE, payload);
+                        break;
+                    } else if (opcode == OPCODE_PING) {
+                        if (pingsAnswered.getAsBoolean()) {
+                            writeFrame(OPCODE_PONG, payload);
+                        }
+                    } else if (opcode == OPCODE_TEXT || opcode == OPCODE_CONTINUATION) {
+                        message.write(payload);
+                        if ((first & 0x80) != 0) {
+                            messageHandler.accept(this, new String(message.toByteArray(), StandardCharsets.UTF_8));
+                            message.reset();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // The client went away or the connection has been dropped.
+            } finally {
+                close();
+            }
+        }
+
+        private void handshake(DataInputStream in) throws IOException {
+            String key = null;
+            for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+                if (line.toLowerCase(Locale.ROOT).startsWith("sec-websocket-key:")) {
+                    key = line.substring(line.indexOf(':') + 1).trim();
+                }
+            }
+            if (key == null) {
+                throw new IOException("Not a websocket handshake.");
+            }
+            String accept;
+            try {
+                accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1")
+                        .digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            synchronized (this) {
+                out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                        + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            }
+        }
+
+        private String readLine(DataInputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int c = in.read(); c != '\n'; c = in.read()) {
+                if (c == -1) {
+                    throw new EOFException();
+                } else if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        private byte[] readPayload(DataInputStream in) throws IOException {
+            int second = in.readUnsignedByte();
+            long length = second & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = in.readLong();
+            }
+            byte[] mask = new byte[4];
+            if ((second & 0x80) != 0) {
+                in.readFully(mask);
+            }
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+            return payload;
+        }
+
+        private synchronized void writeFrame(int opcode, byte[] payload) throws IOException {
+            out.write(0x80 | opcode);
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else if (payload.length <= 0xFFFF) {
+                out.write(126);
+                out.write(payload.length >>> 8);
+                out.write(payload.length);
+            } else {
+                out.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    out.write((int) ((long) payload.length >>> shift));
+                }
+            }
+            out.write(payload);
+            out.flush();
+        }
+
+        /**
+         * Send a text message; failures close the connection.
+         *
+         * @param message The message.
+         */
+        void send(String message) {
+            try {
+                writeFrame(OPCODE_TEXT, message.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        @Override
+        public void sendNotice(String notice) {
+            send(notice);
+        }
+
+        @Override
+        public void addCloseHandler(Runnable handler) {
+            closeHandlers.add(handler);
+            if (closed.get() && closeHandlers.remove(handler)) {
+                handler.run();
+            }
+        }
+
+        /**
+         * Drop the connection without a closing handshake.
+         */
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                connections.remove(this);
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Already closed.
+                }
+                for (Runnable handler : closeHandlers) {
+                    if (closeHandlers.remove(handler)) {
+                        handler.run();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.util;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assume.assumeThat;
+
+public class FlightRecorderEventsTest {
+    private static final String[] BEGIN_METHODS = {"beginRpcCall", "beginTransportSend", "beginTransportReceive",
+            "beginSigning", "beginSerialization", "beginDeserialization"};
+    private static final String[] EVENT_NAMES = {"com.beowulfchain.beowulfj.RpcCall",
+            "com.beowulfchain.beowulfj.TransportSend", "com.beowulfchain.beowulfj.TransportReceive",
+            "com.beowulfchain.beowulfj.Signing", "com.beowulfchain.beowulfj.Serialization",
+            "com.beowulfchain.beowulfj.Deserialization"};
+
+    /**
+     * Test that the spans of the Java 8 version, which does not create any
+     * event, can be ended.
+     */
+    @Test
+    public void testJava8SpansCanBeEnded() throws Exception {
+        for (String beginMethod : BEGIN_METHODS) {
+            EventSpan span = (EventSpan) FlightRecorderEvents.class.getMethod(beginMethod).invoke(null);
+            span.end("get_config", "http://127.0.0.1:8376/rpc", 42, null);
+        }
+        FlightRecorderEvents.beginRpcCall().end(null, null, -1, new IllegalStateException());
+    }
+
+    /**
+     * Test that the spans of the Java 11 version are committed as events with
+     * the given fields.
+     */
+    @Test
+    public void testJava11SpansAreCommitted() throws Exception {
+        ClassLoader loader = MultiReleaseClassLoader.create();
+        assumeThat(loader, notNullValue());
+        Class<?> events = loader.loadClass(FlightRecorderEvents.class.getName());
+        Method end = loader.loadClass(EventSpan.class.getName()).getMethod("end", String.class, String.class,
+                long.class, Throwable.class);
+
+        FlightRecording recording = FlightRecording.start(EVENT_NAMES);
+        for (String beginMethod : BEGIN_METHODS) {
+            end.invoke(events.getMethod(beginMethod).invoke(null), "get_config", "http://127.0.0.1:8376/rpc", 42L,
+                    null);
+        }
+        end.invoke(events.getMethod("beginRpcCall").invoke(null), null, null, -1L, new IllegalStateException());
+        List<Map<String, Object>> recorded = recording.stop();
+
+        assertThat(recorded, hasSize(BEGIN_METHODS.length + 1));
+        List<String> successfulEvents = new ArrayList<>();
+        for (Map<String, Object> event : recorded) {
+            if ("SUCCESS".equals(event.get("outcome"))) {
+                successfulEvents.add((String) event.get("name"));
+                assertThat(event.get("method"), equalTo("get_config"));
+                assertThat(event.get("endpoint"), equalTo("http://127.0.0.1:8376/rpc"));
+                assertThat(event.get("payloadSize"), equalTo(42L));
+            } else {
+                assertThat(event.get("name"), equalTo(EVENT_NAMES[0]));
+                assertThat(event.get("outcome"), equalTo("IllegalStateException"));
+            }
+        }
+        assertThat(successfulEvents, hasSize(EVENT_NAMES.length));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Java Flight Recorder recording of the events of BeowulfJ. The tests are
+ * compiled for Java 8, so the Flight Recorder API of Java 11 is used by
+ * reflection.
+ */
+public final class FlightRecording {
+    private static final String[] FIELDS = {"method", "endpoint", "payloadSize", "outcome"};
+
+    private final Object recording;
+
+    private FlightRecording(Object recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Start a recording of the given events without any threshold.
+     *
+     * @param eventNames The names of the events to record.
+     * @return The running recording.
+     * @throws Exception If the Flight Recorder is not available.
+     */
+    public static FlightRecording start(String... eventNames) throws Exception {
+        Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+        Object recording = recordingClass.getConstructor().newInstance();
+        for (String eventName : eventNames) {
+            Object settings = recordingClass.getMethod("enable", String.class).invoke(recording, eventName);
+            settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ZERO);
+        }
+        recordingClass.getMethod("start").invoke(recording);
+        return new FlightRecording(recording);
+    }
+
+    /**
+     * Stop the recording and read the recorded events.
+     *
+     * @return The fields of every recorded event, including its
+     * <code>name</code>.
+     * @throws Exception If the recording could not be read.
+     */
+    public List<Map<String, Object>> stop() throws Exception {
+        Class<?> recordingClass = recording.getClass();
+        Path file = Files.createTempFile("beowulfj", ".jfr");
+        try {
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+
+            List<Map<String, Object>> events = new ArrayList<>();
+            for (Object event : (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                    .getMethod("readAllEvents", Path.class).invoke(null, file)) {
+                Object eventType = event.getClass().getMethod("getEventType").invoke(event);
+                Map<String, Object> fields = new HashMap<>();
+                fields.put("name", eventType.getClass().getMethod("getName").invoke(eventType));
+                for (String field : FIELDS) {
+                    fields.put(field, event.getClass().getMethod("getValue", String.class).invoke(event, field));
+                }
+                events.add(fields);
+            }
+            return events;
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+            Files.deleteIfExists(file);
+        }
+    }
+}
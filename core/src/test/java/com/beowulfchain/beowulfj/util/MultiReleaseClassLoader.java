@@ -0,0 +1,65 @@
+/*
+ *     This file is part of BeowulfJ (formerly known as 'Beowulf-Java-Api-Wrapper')
+ *
+ *     BeowulfJ is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     BeowulfJ is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Foobar.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.beowulfchain.beowulfj.util;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the classes of BeowulfJ and the test classpath the way a
+ * multi-release JAR is read on Java 11 and later: the versions compiled from
+ * <code>src/main/java11</code> replace the Java 8 versions. Tests run against
+ * the class directories, which are always read like Java 8 JARs, so the
+ * Java 11 classes can only be tested through this loader.
+ */
+public final class MultiReleaseClassLoader {
+    private static final String VERSIONS_DIRECTORY = "META-INF/versions/11/";
+
+    private MultiReleaseClassLoader() {
+    }
+
+    /**
+     * @return A new loader that prefers the Java 11 classes or
+     * <code>null</code> if the running Java version does not support them or
+     * they have not been compiled.
+     */
+    public static ClassLoader create() {
+        if (System.getProperty("java.specification.version").startsWith("1.")) {
+            return null;
+        }
+        URL versions = MultiReleaseClassLoader.class.getClassLoader().getResource(VERSIONS_DIRECTORY);
+        if (versions == null || !"file".equals(versions.getProtocol())) {
+            return null;
+        }
+
+        List<URL> urls = new ArrayList<>();
+        urls.add(versions);
+        try {
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                urls.add(new File(entry).toURI().toURL());
+            }
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+        // The platform loader, so no class of the test classpath is shared.
+        return new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getSystemClassLoader().getParent());
+    }
+}